@@ -291,7 +291,10 @@ public class AtlasRestoreService {
         AtlasService atlasService = restoreRequest.newAtlasService();
         cassandraRepairHelper.repairTransactionsTables(atlasService, transactionsTableInteractions, repairTable);
         cassandraRepairHelper.cleanTransactionsTables(
-                atlasService, completedBackup.getBackupStartTimestamp(), transactionsTableInteractions);
+                atlasService,
+                completedBackup.getBackupStartTimestamp(),
+                transactionsTableInteractions,
+                backupPersister.getTransactionAbortCheckpointer(atlasService));
     }
 
     private Map<FullyBoundedTimestampRange, Integer> getCoordinationMap(
@@ -19,6 +19,7 @@ package com.palantir.atlasdb.backup;
 import com.palantir.atlasdb.backup.api.AtlasService;
 import com.palantir.atlasdb.backup.api.CompletedBackup;
 import com.palantir.atlasdb.backup.api.InProgressBackupToken;
+import com.palantir.atlasdb.cassandra.backup.TransactionAbortCheckpointer;
 import com.palantir.atlasdb.internalschema.InternalSchemaMetadataState;
 import java.util.Optional;
 
@@ -34,4 +35,6 @@ interface BackupPersister {
     void storeImmutableTimestamp(AtlasService atlasService, InProgressBackupToken inProgressBackupToken);
 
     Optional<Long> getImmutableTimestamp(AtlasService service);
+
+    TransactionAbortCheckpointer getTransactionAbortCheckpointer(AtlasService service);
 }
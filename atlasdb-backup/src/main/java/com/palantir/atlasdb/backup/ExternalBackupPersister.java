@@ -23,6 +23,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.palantir.atlasdb.backup.api.AtlasService;
 import com.palantir.atlasdb.backup.api.CompletedBackup;
 import com.palantir.atlasdb.backup.api.InProgressBackupToken;
+import com.palantir.atlasdb.cassandra.backup.FileTransactionAbortCheckpointer;
+import com.palantir.atlasdb.cassandra.backup.TransactionAbortCheckpointer;
 import com.palantir.atlasdb.internalschema.InternalSchemaMetadataState;
 import com.palantir.conjure.java.serialization.ObjectMappers;
 import com.palantir.logsafe.SafeArg;
@@ -47,6 +49,7 @@ public class ExternalBackupPersister implements BackupPersister {
     private static final String BACKUP_TIMESTAMP_FILE_NAME = "backup.timestamp";
     private static final String IMMUTABLE_TIMESTAMP_FILE_NAME = "immutable.timestamp";
     private static final String FAST_FORWARD_TIMESTAMP_FILE_NAME = "fast-forward.timestamp";
+    private static final String TRANSACTION_ABORT_CHECKPOINTS_DIRECTORY_NAME = "transaction-abort-checkpoints";
 
     private final Function<AtlasService, Path> pathFactory;
 
@@ -110,6 +113,12 @@ public class ExternalBackupPersister implements BackupPersister {
         return loadFromFile(atlasService, getImmutableTimestampFile(atlasService), Long.class);
     }
 
+    @Override
+    public TransactionAbortCheckpointer getTransactionAbortCheckpointer(AtlasService atlasService) {
+        return new FileTransactionAbortCheckpointer(
+                pathFactory.apply(atlasService).resolve(TRANSACTION_ABORT_CHECKPOINTS_DIRECTORY_NAME));
+    }
+
     private File getSchemaMetadataFile(AtlasService atlasService) {
         return getFile(atlasService, SCHEMA_METADATA_FILE_NAME);
     }
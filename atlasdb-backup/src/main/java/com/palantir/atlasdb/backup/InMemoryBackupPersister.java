@@ -19,6 +19,7 @@ package com.palantir.atlasdb.backup;
 import com.palantir.atlasdb.backup.api.AtlasService;
 import com.palantir.atlasdb.backup.api.CompletedBackup;
 import com.palantir.atlasdb.backup.api.InProgressBackupToken;
+import com.palantir.atlasdb.cassandra.backup.TransactionAbortCheckpointer;
 import com.palantir.atlasdb.internalschema.InternalSchemaMetadataState;
 import java.util.Map;
 import java.util.Optional;
@@ -65,4 +66,9 @@ class InMemoryBackupPersister implements BackupPersister {
     public Optional<Long> getImmutableTimestamp(AtlasService atlasService) {
         return Optional.ofNullable(immutableTimestamps.get(atlasService));
     }
+
+    @Override
+    public TransactionAbortCheckpointer getTransactionAbortCheckpointer(AtlasService atlasService) {
+        return TransactionAbortCheckpointer.noOp();
+    }
 }
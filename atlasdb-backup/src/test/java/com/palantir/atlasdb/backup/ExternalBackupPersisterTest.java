@@ -22,6 +22,7 @@ import com.palantir.atlasdb.backup.api.AtlasService;
 import com.palantir.atlasdb.backup.api.CompletedBackup;
 import com.palantir.atlasdb.backup.api.InProgressBackupToken;
 import com.palantir.atlasdb.backup.api.ServiceId;
+import com.palantir.atlasdb.cassandra.backup.TransactionAbortCheckpointer;
 import com.palantir.atlasdb.coordination.ValueAndBound;
 import com.palantir.atlasdb.internalschema.InternalSchemaMetadata;
 import com.palantir.atlasdb.internalschema.InternalSchemaMetadataState;
@@ -105,6 +106,19 @@ public class ExternalBackupPersisterTest {
         assertThat(externalBackupPersister.getCompletedBackup(ATLAS_SERVICE)).contains(completedBackup);
     }
 
+    @Test
+    public void transactionAbortCheckpointsSurviveRestarts() {
+        externalBackupPersister
+                .getTransactionAbortCheckpointer(ATLAS_SERVICE)
+                .markComplete(1337L, "_transactions2", "partition:00");
+
+        TransactionAbortCheckpointer checkpointer =
+                new ExternalBackupPersister(this::getPath).getTransactionAbortCheckpointer(ATLAS_SERVICE);
+        assertThat(checkpointer.isComplete(1337L, "_transactions2", "partition:00")).isTrue();
+        assertThat(checkpointer.isComplete(1337L, "_transactions2", "partition:01")).isFalse();
+        assertThat(checkpointer.isComplete(1338L, "_transactions2", "partition:00")).isFalse();
+    }
+
     @Test
     public void testLegacyCasing() throws IOException {
         String legacyState = "{\"value\":{\"value\":{\"timestampToTransactionsTableSchemaVersion\":{\"timestampMappings"
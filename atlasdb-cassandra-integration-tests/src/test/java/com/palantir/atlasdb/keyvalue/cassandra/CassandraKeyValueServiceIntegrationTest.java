@@ -131,11 +131,6 @@ public class CassandraKeyValueServiceIntegrationTest extends AbstractKeyValueSer
         super(CASSANDRA, keyValueServiceWrapper);
     }
 
-    @Override
-    protected boolean reverseRangesSupported() {
-        return false;
-    }
-
     @Override
     @Ignore
     public void testGetAllTableNames() {
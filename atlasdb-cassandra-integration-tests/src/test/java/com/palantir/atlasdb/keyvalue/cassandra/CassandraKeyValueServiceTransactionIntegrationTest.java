@@ -152,11 +152,6 @@ public class CassandraKeyValueServiceTransactionIntegrationTest extends Abstract
         return kvs;
     }
 
-    @Override
-    protected boolean supportsReverse() {
-        return false;
-    }
-
     @Override
     protected Transaction startTransaction() {
         return transactionWrapper.apply(super.startTransaction());
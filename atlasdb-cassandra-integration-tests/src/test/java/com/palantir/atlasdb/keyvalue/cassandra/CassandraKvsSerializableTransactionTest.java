@@ -98,9 +98,4 @@ public class CassandraKvsSerializableTransactionTest extends AbstractSerializabl
                 () -> 128,
                 SweepQueueReader.DEFAULT_READ_BATCHING_RUNTIME_CONTEXT);
     }
-
-    @Override
-    protected boolean supportsReverse() {
-        return false;
-    }
 }
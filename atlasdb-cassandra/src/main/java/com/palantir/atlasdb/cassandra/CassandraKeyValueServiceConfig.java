@@ -89,6 +89,17 @@ public interface CassandraKeyValueServiceConfig extends KeyValueServiceConfig {
         return 100;
     }
 
+    /**
+     * The number of requests submitted through
+     * {@link com.palantir.atlasdb.keyvalue.cassandra.CassandraClientPool#runWithRetryOnServerAsync} that may be in
+     * flight against a single host at once. Further requests are queued rather than borrowing additional connections,
+     * so this value must not exceed {@link #maxConnectionBurstSize()}.
+     */
+    @Value.Default
+    default int maxConcurrentAsyncRequestsPerHost() {
+        return Math.max(1, Math.min(poolSize(), maxConnectionBurstSize()));
+    }
+
     /**
      * The proportion of {@link #poolSize()} connections that are checked approximately every {@link
      * #timeBetweenConnectionEvictionRunsSeconds()} seconds to see if has been idle at least {@link
@@ -408,6 +419,11 @@ public interface CassandraKeyValueServiceConfig extends KeyValueServiceConfig {
         Preconditions.checkArgument(
                 localHostWeighting() >= 0.0 && localHostWeighting() <= 1.0,
                 "'localHostWeighting' must be between 0 and 1 inclusive");
+
+        Preconditions.checkArgument(
+                maxConcurrentAsyncRequestsPerHost() > 0
+                        && maxConcurrentAsyncRequestsPerHost() <= maxConnectionBurstSize(),
+                "'maxConcurrentAsyncRequestsPerHost' must be positive and at most 'maxConnectionBurstSize'");
     }
 
     /**
@@ -84,6 +84,16 @@ public abstract class CassandraKeyValueServiceRuntimeConfig implements KeyValueS
         return CassandraConstants.DEFAULT_MUTATION_BATCH_SIZE_BYTES;
     }
 
+    /**
+     * If positive, multiPut dispatches its batches to each Cassandra host asynchronously, allowing up to this many
+     * bytes of mutations to be in flight against a single host at once, instead of running each batch as a task on
+     * the key value service's executor. Zero (the default) keeps the executor-based write path.
+     */
+    @Value.Default
+    public long multiPutInFlightBytesPerHost() {
+        return 0;
+    }
+
     /**
      * The maximum number of rows to query for in a single call to the database when loading entire rows.
      */
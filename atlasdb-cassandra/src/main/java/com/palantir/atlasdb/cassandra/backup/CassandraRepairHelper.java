@@ -138,7 +138,19 @@ public class CassandraRepairHelper {
             AtlasService atlasService,
             long startTimestamp,
             List<TransactionsTableInteraction> transactionsTableInteractions) {
-        cqlClusterContainers.get(atlasService).get().abortTransactions(startTimestamp, transactionsTableInteractions);
+        cleanTransactionsTables(
+                atlasService, startTimestamp, transactionsTableInteractions, TransactionAbortCheckpointer.noOp());
+    }
+
+    public void cleanTransactionsTables(
+            AtlasService atlasService,
+            long startTimestamp,
+            List<TransactionsTableInteraction> transactionsTableInteractions,
+            TransactionAbortCheckpointer checkpointer) {
+        cqlClusterContainers
+                .get(atlasService)
+                .get()
+                .abortTransactions(startTimestamp, transactionsTableInteractions, checkpointer);
     }
 
     private Map<String, RangesForRepair> getRangesForRepairByTable(
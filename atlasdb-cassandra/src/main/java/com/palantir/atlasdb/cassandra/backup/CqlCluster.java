@@ -107,8 +107,16 @@ public final class CqlCluster implements Closeable {
     }
 
     public void abortTransactions(long timestamp, List<TransactionsTableInteraction> transactionsTableInteractions) {
+        abortTransactions(timestamp, transactionsTableInteractions, TransactionAbortCheckpointer.noOp());
+    }
+
+    public void abortTransactions(
+            long timestamp,
+            List<TransactionsTableInteraction> transactionsTableInteractions,
+            TransactionAbortCheckpointer checkpointer) {
         try (CqlSession session = createSessionWithRetry()) {
-            new TransactionAborter(session, namespace).abortTransactions(timestamp, transactionsTableInteractions);
+            new TransactionAborter(session, namespace, checkpointer)
+                    .abortTransactions(timestamp, transactionsTableInteractions);
         }
     }
 
@@ -0,0 +1,117 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cassandra.backup;
+
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.logsafe.logger.SafeLogger;
+import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records completed transactions table scans in files under a directory, which is created if it does not exist. There
+ * is one file per backup timestamp and transactions table, holding one scan id per line. Each scan id is synced to
+ * disk before {@link #markComplete(long, String, String)} returns, so a restore that is killed while aborting
+ * transactions resumes from the scans that had finished. A line torn by a crash is ignored, so that scan is repeated.
+ */
+public final class FileTransactionAbortCheckpointer implements TransactionAbortCheckpointer {
+    private static final SafeLogger log = SafeLoggerFactory.get(FileTransactionAbortCheckpointer.class);
+
+    private static final String FILE_SUFFIX = ".aborted-scans";
+    private static final char SEPARATOR = '\n';
+
+    private final Path directory;
+    private final Map<Path, Set<String>> completedScansByFile = new ConcurrentHashMap<>();
+
+    public FileTransactionAbortCheckpointer(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public boolean isComplete(long backupTimestamp, String transactionsTableName, String scanId) {
+        return getCompletedScans(getFile(backupTimestamp, transactionsTableName)).contains(scanId);
+    }
+
+    @Override
+    public synchronized void markComplete(long backupTimestamp, String transactionsTableName, String scanId) {
+        Path file = getFile(backupTimestamp, transactionsTableName);
+        Set<String> completedScans = getCompletedScans(file);
+        if (completedScans.contains(scanId)) {
+            return;
+        }
+        append(file, scanId + SEPARATOR);
+        completedScans.add(scanId);
+    }
+
+    private Path getFile(long backupTimestamp, String transactionsTableName) {
+        return directory.resolve(transactionsTableName + "." + backupTimestamp + FILE_SUFFIX);
+    }
+
+    private Set<String> getCompletedScans(Path file) {
+        return completedScansByFile.computeIfAbsent(file, this::load);
+    }
+
+    private Set<String> load(Path file) {
+        Set<String> completedScans = ConcurrentHashMap.newKeySet();
+        if (!Files.exists(file)) {
+            return completedScans;
+        }
+
+        try {
+            String contents = Files.readString(file, StandardCharsets.UTF_8);
+            int endOfLastLine = contents.lastIndexOf(SEPARATOR) + 1;
+            if (endOfLastLine < contents.length()) {
+                log.warn(
+                        "Ignoring a partially written transactions table scan checkpoint",
+                        SafeArg.of("file", file.toString()));
+                append(file, String.valueOf(SEPARATOR));
+            }
+            contents.substring(0, endOfLastLine).lines().forEach(completedScans::add);
+            log.info(
+                    "Loaded completed transactions table scans",
+                    SafeArg.of("file", file.toString()),
+                    SafeArg.of("completedScans", completedScans.size()));
+            return completedScans;
+        } catch (IOException e) {
+            throw new SafeIllegalStateException(
+                    "Failed to read transactions table scan checkpoints", e, SafeArg.of("file", file.toString()));
+        }
+    }
+
+    private static void append(Path file, String contents) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(
+                    file,
+                    contents,
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND,
+                    StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            throw new SafeIllegalStateException(
+                    "Failed to write transactions table scan checkpoint", e, SafeArg.of("file", file.toString()));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cassandra.backup;
+
+import com.palantir.atlasdb.cassandra.backup.transaction.TransactionsTableInteraction;
+
+/**
+ * Records which scans of the transactions tables have had all of their transactions aborted, so that a restore that
+ * is interrupted while aborting transactions can resume without repeating the scans that already completed.
+ * <p>
+ * Scans run concurrently, so implementations must be thread safe. A scan is only marked complete once every
+ * transaction it found has been aborted. Scans are identified by the transactions table and the scan id from
+ * {@link TransactionsTableInteraction#createSelectStatementsByScanId}, which names the partition or token range read.
+ * {@link FileTransactionAbortCheckpointer} persists checkpoints across restarts.
+ */
+public interface TransactionAbortCheckpointer {
+    boolean isComplete(long backupTimestamp, String transactionsTableName, String scanId);
+
+    void markComplete(long backupTimestamp, String transactionsTableName, String scanId);
+
+    static TransactionAbortCheckpointer noOp() {
+        return NoOpTransactionAbortCheckpointer.INSTANCE;
+    }
+
+    enum NoOpTransactionAbortCheckpointer implements TransactionAbortCheckpointer {
+        INSTANCE;
+
+        @Override
+        public boolean isComplete(long backupTimestamp, String transactionsTableName, String scanId) {
+            return false;
+        }
+
+        @Override
+        public void markComplete(long backupTimestamp, String transactionsTableName, String scanId) {
+            // nothing to record
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.palantir.atlasdb.cassandra.backup;
 
+import com.datastax.driver.core.CodecRegistry;
 import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.ResultSet;
@@ -27,37 +28,95 @@ import com.github.rholder.retry.Retryer;
 import com.github.rholder.retry.StopStrategies;
 import com.github.rholder.retry.WaitStrategies;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
 import com.google.common.collect.Streams;
 import com.palantir.atlasdb.cassandra.backup.transaction.TransactionTableEntries;
 import com.palantir.atlasdb.cassandra.backup.transaction.TransactionTableEntry;
 import com.palantir.atlasdb.cassandra.backup.transaction.TransactionsTableInteraction;
+import com.palantir.atlasdb.keyvalue.cassandra.CassandraConstants;
+import com.palantir.atlasdb.keyvalue.cassandra.LightweightOppToken;
 import com.palantir.atlasdb.pue.PutUnlessExistsValue;
 import com.palantir.atlasdb.timelock.api.Namespace;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Aborts the transactions that committed after a backup timestamp. Each transactions table is split into scans of a
+ * single partition or a single ring token range, and scans run concurrently, with at most
+ * {@code perHostParallelism} scans touching any one replica at a time so that the aborts' lightweight transactions do
+ * not overwhelm individual nodes. Completed scans are recorded with a {@link TransactionAbortCheckpointer}, and
+ * skipped if the abort is restarted.
+ */
 final class TransactionAborter {
     private static final SafeLogger log = SafeLoggerFactory.get(TransactionAborter.class);
 
     private static final int RETRY_COUNT = 3;
+    private static final int DEFAULT_PARALLELISM = 16;
+    private static final int DEFAULT_PER_HOST_PARALLELISM = 4;
 
     private final CqlSession cqlSession;
     private final Namespace namespace;
+    private final TransactionAbortCheckpointer checkpointer;
+    private final int parallelism;
+    private final int perHostParallelism;
     private final Retryer<Boolean> abortRetryer;
 
     public TransactionAborter(CqlSession cqlSession, Namespace namespace) {
+        this(cqlSession, namespace, TransactionAbortCheckpointer.noOp());
+    }
+
+    public TransactionAborter(CqlSession cqlSession, Namespace namespace, TransactionAbortCheckpointer checkpointer) {
+        this(cqlSession, namespace, checkpointer, DEFAULT_PARALLELISM, DEFAULT_PER_HOST_PARALLELISM);
+    }
+
+    @VisibleForTesting
+    TransactionAborter(
+            CqlSession cqlSession,
+            Namespace namespace,
+            TransactionAbortCheckpointer checkpointer,
+            int parallelism,
+            int perHostParallelism) {
+        Preconditions.checkArgument(
+                parallelism > 0, "Parallelism must be positive", SafeArg.of("parallelism", parallelism));
+        Preconditions.checkArgument(
+                perHostParallelism > 0,
+                "Per host parallelism must be positive",
+                SafeArg.of("perHostParallelism", perHostParallelism));
         this.cqlSession = cqlSession;
         this.namespace = namespace;
+        this.checkpointer = checkpointer;
+        this.parallelism = parallelism;
+        this.perHostParallelism = perHostParallelism;
 
         this.abortRetryer = new Retryer<>(
                 StopStrategies.stopAfterAttempt(RETRY_COUNT),
@@ -67,35 +126,143 @@ final class TransactionAborter {
 
     public void abortTransactions(long timestamp, List<TransactionsTableInteraction> transactionsTableInteractions) {
         CqlMetadata clusterMetadata = cqlSession.getMetadata();
-        transactionsTableInteractions.forEach(
-                txnInteraction -> abortTransactions(clusterMetadata, timestamp, txnInteraction));
+        Set<Range<LightweightOppToken>> tokenRanges = clusterMetadata.getTokenRanges();
+        Map<InetSocketAddress, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+        ExecutorService executor = PTExecutors.newFixedThreadPool(parallelism, "transaction-aborter");
+        try {
+            List<Future<?>> scans = new ArrayList<>();
+            for (TransactionsTableInteraction txnInteraction : transactionsTableInteractions) {
+                List<AbortScan> tableScans = planAbortScans(clusterMetadata, tokenRanges, timestamp, txnInteraction);
+                tableScans.forEach(scan -> scans.add(executor.submit(() -> runAbortScan(scan, hostPermits))));
+            }
+            awaitCompletion(scans);
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
-    private void abortTransactions(
-            CqlMetadata clusterMetadata, long timestamp, TransactionsTableInteraction txnInteraction) {
+    private List<AbortScan> planAbortScans(
+            CqlMetadata clusterMetadata,
+            Set<Range<LightweightOppToken>> tokenRanges,
+            long timestamp,
+            TransactionsTableInteraction txnInteraction) {
+        String tableName = txnInteraction.getTransactionsTableName();
         log.info(
                 "Aborting transactions after backup timestamp",
                 SafeArg.of("backupTimestamp", timestamp),
                 SafeArg.of("keyspace", namespace),
-                SafeArg.of("table", txnInteraction.getTransactionsTableName()));
+                SafeArg.of("table", tableName));
 
-        TableMetadata transactionsTable = ClusterMetadataUtils.getTableMetadata(
-                clusterMetadata, namespace, txnInteraction.getTransactionsTableName());
+        TableMetadata transactionsTable =
+                ClusterMetadataUtils.getTableMetadata(clusterMetadata, namespace, tableName);
 
         PreparedStatement preparedAbortStatement = txnInteraction.prepareAbortStatement(transactionsTable, cqlSession);
         PreparedStatement preparedCheckStatement = txnInteraction.prepareCheckStatement(transactionsTable, cqlSession);
-        Stream<TransactionTableEntry> keysToAbort =
-                getTransactionsToAbort(txnInteraction, transactionsTable, timestamp);
-        executeTransactionAborts(txnInteraction, preparedAbortStatement, preparedCheckStatement, keysToAbort);
+
+        Map<String, Statement> selects = txnInteraction.createSelectStatementsByScanId(transactionsTable, tokenRanges);
+        Map<String, Statement> remainingSelects = ImmutableMap.copyOf(
+                Maps.filterKeys(selects, scanId -> !checkpointer.isComplete(timestamp, tableName, scanId)));
+
+        AbortProgress progress = new AbortProgress(tableName, remainingSelects.size());
+        if (remainingSelects.size() < selects.size()) {
+            log.info(
+                    "Skipping transactions table scans that completed before a restart",
+                    SafeArg.of("keyspace", namespace),
+                    SafeArg.of("table", tableName),
+                    SafeArg.of("skippedScans", selects.size() - remainingSelects.size()),
+                    SafeArg.of("totalScans", selects.size()));
+        }
+        if (remainingSelects.isEmpty()) {
+            progress.logCompletion();
+        }
+
+        Map<Range<LightweightOppToken>, Set<InetSocketAddress>> replicasByTokenRange = new HashMap<>();
+        return KeyedStream.stream(remainingSelects)
+                .map((scanId, select) -> new AbortScan(
+                        txnInteraction,
+                        preparedAbortStatement,
+                        preparedCheckStatement,
+                        scanId,
+                        select,
+                        getReplicas(clusterMetadata, tokenRanges, replicasByTokenRange, select),
+                        timestamp,
+                        progress))
+                .values()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the replicas owning the partition read by {@code select}, or no replicas if the select scans a token
+     * range rather than reading a single partition. Such selects are already split along ring token ranges, so they
+     * naturally spread across replicas and are only bounded by the overall parallelism.
+     */
+    private Set<InetSocketAddress> getReplicas(
+            CqlMetadata clusterMetadata,
+            Set<Range<LightweightOppToken>> tokenRanges,
+            Map<Range<LightweightOppToken>, Set<InetSocketAddress>> replicasByTokenRange,
+            Statement select) {
+        ByteBuffer routingKey =
+                select.getRoutingKey(CassandraConstants.DEFAULT_PROTOCOL_VERSION, CodecRegistry.DEFAULT_INSTANCE);
+        if (routingKey == null) {
+            return ImmutableSet.of();
+        }
+        LightweightOppToken token = clusterMetadata.newToken(routingKey.duplicate());
+        return tokenRanges.stream()
+                .filter(range -> range.contains(token))
+                .findFirst()
+                .map(range -> replicasByTokenRange.computeIfAbsent(
+                        range, tokenRange -> clusterMetadata.getReplicas(namespace, tokenRange)))
+                .orElseGet(ImmutableSet::of);
+    }
+
+    private void runAbortScan(AbortScan scan, Map<InetSocketAddress, Semaphore> hostPermits) {
+        // Acquire in a consistent order, so that scans sharing several replicas cannot deadlock.
+        List<Semaphore> permits = scan.replicas().stream()
+                .sorted(Comparator.comparing(InetSocketAddress::toString))
+                .map(host -> hostPermits.computeIfAbsent(host, _host -> new Semaphore(perHostParallelism)))
+                .collect(Collectors.toList());
+        permits.forEach(Semaphore::acquireUninterruptibly);
+        try {
+            TransactionsTableInteraction txnInteraction = scan.txnInteraction();
+            AbortProgress progress = scan.progress();
+            getTransactionsToAbort(txnInteraction, scan.select(), scan.timestamp(), progress.entriesScanned::increment)
+                    .forEach(entry -> {
+                        abortTransaction(
+                                txnInteraction, scan.preparedAbortStatement(), scan.preparedCheckStatement(), entry);
+                        progress.transactionsAborted.increment();
+                    });
+            checkpointer.markComplete(scan.timestamp(), txnInteraction.getTransactionsTableName(), scan.scanId());
+            progress.recordScanCompleted();
+        } finally {
+            permits.forEach(Semaphore::release);
+        }
+    }
+
+    private static void awaitCompletion(List<Future<?>> scans) {
+        try {
+            for (Future<?> scan : scans) {
+                scan.get();
+            }
+        } catch (ExecutionException e) {
+            throw Throwables.throwUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SafeIllegalStateException("Interrupted while aborting transactions", e);
+        }
     }
 
     @VisibleForTesting
     Stream<TransactionTableEntry> getTransactionsToAbort(
             TransactionsTableInteraction txnInteraction, TableMetadata transactionsTable, long timestamp) {
+        return txnInteraction.createSelectStatementsForScanningFullTimestampRange(transactionsTable).stream()
+                .flatMap(select -> getTransactionsToAbort(txnInteraction, select, timestamp, () -> {}));
+    }
+
+    private Stream<TransactionTableEntry> getTransactionsToAbort(
+            TransactionsTableInteraction txnInteraction, Statement select, long timestamp, Runnable onEntryScanned) {
         Stream<Row> rowResults =
-                txnInteraction.createSelectStatementsForScanningFullTimestampRange(transactionsTable).stream()
-                        .map(select -> cqlSession.execute(select).iterator())
-                        .flatMap(Streams::stream);
+                Streams.stream(cqlSession.execute(select).iterator()).peek(_row -> onEntryScanned.run());
 
         return KeyedStream.of(rowResults)
                 .map(txnInteraction::extractTimestamps)
@@ -135,11 +302,18 @@ final class TransactionAborter {
             PreparedStatement preparedAbortStatement,
             PreparedStatement preparedCheckStatement,
             Stream<TransactionTableEntry> entries) {
-        entries.forEach(entry -> {
-            Statement abortStatement = txnInteraction.bindAbortStatement(preparedAbortStatement, entry);
-            Statement checkStatement = txnInteraction.bindCheckStatement(preparedCheckStatement, entry);
-            executeWithRetry(txnInteraction, abortStatement, checkStatement, entry);
-        });
+        entries.forEach(
+                entry -> abortTransaction(txnInteraction, preparedAbortStatement, preparedCheckStatement, entry));
+    }
+
+    private void abortTransaction(
+            TransactionsTableInteraction txnInteraction,
+            PreparedStatement preparedAbortStatement,
+            PreparedStatement preparedCheckStatement,
+            TransactionTableEntry entry) {
+        Statement abortStatement = txnInteraction.bindAbortStatement(preparedAbortStatement, entry);
+        Statement checkStatement = txnInteraction.bindCheckStatement(preparedCheckStatement, entry);
+        executeWithRetry(txnInteraction, abortStatement, checkStatement, entry);
     }
 
     private void executeWithRetry(
@@ -234,4 +408,101 @@ final class TransactionAborter {
     private static Optional<Long> getCommitValue(TransactionTableEntry entry) {
         return TransactionTableEntries.getCommitValue(entry).map(PutUnlessExistsValue::value);
     }
+
+    private static final class AbortScan {
+        private final TransactionsTableInteraction txnInteraction;
+        private final PreparedStatement preparedAbortStatement;
+        private final PreparedStatement preparedCheckStatement;
+        private final String scanId;
+        private final Statement select;
+        private final Set<InetSocketAddress> replicas;
+        private final long timestamp;
+        private final AbortProgress progress;
+
+        private AbortScan(
+                TransactionsTableInteraction txnInteraction,
+                PreparedStatement preparedAbortStatement,
+                PreparedStatement preparedCheckStatement,
+                String scanId,
+                Statement select,
+                Set<InetSocketAddress> replicas,
+                long timestamp,
+                AbortProgress progress) {
+            this.txnInteraction = txnInteraction;
+            this.preparedAbortStatement = preparedAbortStatement;
+            this.preparedCheckStatement = preparedCheckStatement;
+            this.scanId = scanId;
+            this.select = select;
+            this.replicas = replicas;
+            this.timestamp = timestamp;
+            this.progress = progress;
+        }
+
+        TransactionsTableInteraction txnInteraction() {
+            return txnInteraction;
+        }
+
+        PreparedStatement preparedAbortStatement() {
+            return preparedAbortStatement;
+        }
+
+        PreparedStatement preparedCheckStatement() {
+            return preparedCheckStatement;
+        }
+
+        String scanId() {
+            return scanId;
+        }
+
+        Statement select() {
+            return select;
+        }
+
+        Set<InetSocketAddress> replicas() {
+            return replicas;
+        }
+
+        long timestamp() {
+            return timestamp;
+        }
+
+        AbortProgress progress() {
+            return progress;
+        }
+    }
+
+    private final class AbortProgress {
+        private final String tableName;
+        private final int scans;
+        private final AtomicInteger remainingScans;
+        private final Stopwatch stopwatch = Stopwatch.createStarted();
+        private final LongAdder entriesScanned = new LongAdder();
+        private final LongAdder transactionsAborted = new LongAdder();
+
+        private AbortProgress(String tableName, int scans) {
+            this.tableName = tableName;
+            this.scans = scans;
+            this.remainingScans = new AtomicInteger(scans);
+        }
+
+        void recordScanCompleted() {
+            if (remainingScans.decrementAndGet() == 0) {
+                logCompletion();
+            }
+        }
+
+        void logCompletion() {
+            long elapsedMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+            long aborted = transactionsAborted.sum();
+            log.info(
+                    "Finished aborting transactions after backup timestamp",
+                    SafeArg.of("keyspace", namespace),
+                    SafeArg.of("table", tableName),
+                    SafeArg.of("scans", scans),
+                    SafeArg.of("entriesScanned", entriesScanned.sum()),
+                    SafeArg.of("transactionsAborted", aborted),
+                    SafeArg.of("elapsedMillis", elapsedMillis),
+                    SafeArg.of("abortsPerSecond", aborted * 1000 / Math.max(elapsedMillis, 1)));
+        }
+    }
 }
@@ -24,17 +24,26 @@ import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.TableMetadata;
 import com.datastax.driver.core.policies.DefaultRetryPolicy;
 import com.datastax.driver.core.policies.RetryPolicy;
+import com.datastax.driver.core.querybuilder.Clause;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.utils.Bytes;
+import com.google.common.collect.BoundType;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Range;
 import com.palantir.atlasdb.cassandra.backup.CqlSession;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraConstants;
+import com.palantir.atlasdb.keyvalue.cassandra.LightweightOppToken;
 import com.palantir.atlasdb.transaction.encoding.V1EncodingStrategy;
 import com.palantir.atlasdb.transaction.impl.TransactionConstants;
 import com.palantir.timestamp.FullyBoundedTimestampRange;
 import java.nio.ByteBuffer;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class Transactions1TableInteraction implements TransactionsTableInteraction {
     private final FullyBoundedTimestampRange timestampRange;
@@ -119,20 +128,57 @@ public class Transactions1TableInteraction implements TransactionsTableInteracti
 
     @Override
     public List<Statement> createSelectStatementsForScanningFullTimestampRange(TableMetadata transactionsTable) {
-        Statement select = QueryBuilder.select()
+        return ImmutableList.of(createSelectStatement(transactionsTable, getScannedTokens()));
+    }
+
+    @Override
+    public Map<String, Statement> createSelectStatementsByScanId(
+            TableMetadata transactionsTable, Set<Range<LightweightOppToken>> tokenRanges) {
+        Range<LightweightOppToken> scannedTokens = getScannedTokens();
+        Set<Range<LightweightOppToken>> splitTokens = tokenRanges.stream()
+                .filter(scannedTokens::isConnected)
+                .map(scannedTokens::intersection)
+                .filter(range -> !range.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (splitTokens.isEmpty()) {
+            splitTokens.add(scannedTokens);
+        }
+        return splitTokens.stream()
+                .collect(ImmutableMap.toImmutableMap(
+                        Transactions1TableInteraction::getScanId,
+                        range -> createSelectStatement(transactionsTable, range)));
+    }
+
+    private static String getScanId(Range<LightweightOppToken> scannedTokens) {
+        String lowerBound = scannedTokens.lowerBoundType() == BoundType.CLOSED ? "[" : "(";
+        return "tokens:" + lowerBound + scannedTokens.lowerEndpoint() + "," + scannedTokens.upperEndpoint() + "]";
+    }
+
+    private Range<LightweightOppToken> getScannedTokens() {
+        return Range.closed(
+                toToken(timestampRange.inclusiveLowerBound()), toToken(timestampRange.inclusiveUpperBound()));
+    }
+
+    private static LightweightOppToken toToken(long startTimestamp) {
+        return new LightweightOppToken(encodeStartTimestamp(startTimestamp).array());
+    }
+
+    private static Statement createSelectStatement(
+            TableMetadata transactionsTable, Range<LightweightOppToken> scannedTokens) {
+        Object upperToken = QueryBuilder.token(scannedTokens.upperEndpoint().deserialize());
+        Clause upperBound = QueryBuilder.lte(QueryBuilder.token(CassandraConstants.ROW), upperToken);
+        Object lowerToken = QueryBuilder.token(scannedTokens.lowerEndpoint().deserialize());
+        Clause lowerBound = scannedTokens.lowerBoundType() == BoundType.CLOSED
+                ? QueryBuilder.gte(QueryBuilder.token(CassandraConstants.ROW), lowerToken)
+                : QueryBuilder.gt(QueryBuilder.token(CassandraConstants.ROW), lowerToken);
+        return QueryBuilder.select()
                 .all()
                 .from(transactionsTable)
-                .where(QueryBuilder.lte(
-                        QueryBuilder.token(CassandraConstants.ROW),
-                        QueryBuilder.token(encodeStartTimestamp(timestampRange.inclusiveUpperBound()))))
-                .and(QueryBuilder.gte(
-                        QueryBuilder.token(CassandraConstants.ROW),
-                        QueryBuilder.token(encodeStartTimestamp(timestampRange.inclusiveLowerBound()))))
+                .where(upperBound)
+                .and(lowerBound)
                 .setConsistencyLevel(ConsistencyLevel.QUORUM)
                 .setFetchSize(SELECT_TRANSACTIONS_FETCH_SIZE)
                 .setReadTimeoutMillis(LONG_READ_TIMEOUT_MS);
-
-        return ImmutableList.of(select);
     }
 
     static ByteBuffer encodeStartTimestamp(long timestamp) {
@@ -25,18 +25,24 @@ import com.datastax.driver.core.TableMetadata;
 import com.datastax.driver.core.policies.DefaultRetryPolicy;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.utils.Bytes;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+import com.google.common.io.BaseEncoding;
 import com.palantir.atlasdb.cassandra.backup.CqlSession;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraConstants;
 import com.palantir.atlasdb.keyvalue.cassandra.CellValuePutter;
+import com.palantir.atlasdb.keyvalue.cassandra.LightweightOppToken;
 import com.palantir.atlasdb.pue.PutUnlessExistsValue;
 import com.palantir.atlasdb.transaction.encoding.TwoPhaseEncodingStrategy;
 import com.palantir.atlasdb.transaction.impl.TransactionConstants;
 import com.palantir.timestamp.FullyBoundedTimestampRange;
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class Transactions3TableInteraction implements TransactionsTableInteraction {
     private final FullyBoundedTimestampRange timestampRange;
@@ -123,19 +129,29 @@ public class Transactions3TableInteraction implements TransactionsTableInteracti
 
     @Override
     public List<Statement> createSelectStatementsForScanningFullTimestampRange(TableMetadata transactionsTable) {
-        Set<ByteBuffer> encodedRowKeys = TwoPhaseEncodingStrategy.INSTANCE
+        return ImmutableList.copyOf(
+                createSelectStatementsByScanId(transactionsTable, ImmutableSet.of()).values());
+    }
+
+    /**
+     * Each statement reads a single partition, so the token ranges are ignored and scans are keyed by row key.
+     */
+    @Override
+    public Map<String, Statement> createSelectStatementsByScanId(
+            TableMetadata transactionsTable, Set<Range<LightweightOppToken>> _tokenRanges) {
+        return TwoPhaseEncodingStrategy.INSTANCE
                 .encodeRangeOfStartTimestampsAsRows(
                         timestampRange.inclusiveLowerBound(), timestampRange.inclusiveUpperBound())
                 .map(ByteBuffer::wrap)
-                .collect(Collectors.toSet());
-        return encodedRowKeys.stream()
-                .map(rowKey -> QueryBuilder.select()
-                        .all()
-                        .from(transactionsTable)
-                        .where(QueryBuilder.eq(CassandraConstants.ROW, rowKey))
-                        .setConsistencyLevel(ConsistencyLevel.QUORUM)
-                        .setFetchSize(SELECT_TRANSACTIONS_FETCH_SIZE)
-                        .setReadTimeoutMillis(LONG_READ_TIMEOUT_MS))
-                .collect(Collectors.toList());
+                .distinct()
+                .collect(ImmutableMap.toImmutableMap(
+                        rowKey -> "partition:" + BaseEncoding.base16().encode(Bytes.getArray(rowKey)),
+                        rowKey -> QueryBuilder.select()
+                                .all()
+                                .from(transactionsTable)
+                                .where(QueryBuilder.eq(CassandraConstants.ROW, rowKey))
+                                .setConsistencyLevel(ConsistencyLevel.QUORUM)
+                                .setFetchSize(SELECT_TRANSACTIONS_FETCH_SIZE)
+                                .setReadTimeoutMillis(LONG_READ_TIMEOUT_MS)));
     }
 }
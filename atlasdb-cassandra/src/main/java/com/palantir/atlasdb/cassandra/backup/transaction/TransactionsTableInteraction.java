@@ -21,13 +21,16 @@ import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.TableMetadata;
 import com.datastax.driver.core.policies.RetryPolicy;
+import com.google.common.collect.Range;
 import com.palantir.atlasdb.cassandra.backup.CqlSession;
+import com.palantir.atlasdb.keyvalue.cassandra.LightweightOppToken;
 import com.palantir.atlasdb.transaction.impl.TransactionConstants;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
 import com.palantir.timestamp.FullyBoundedTimestampRange;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -42,6 +45,17 @@ public interface TransactionsTableInteraction {
 
     List<Statement> createSelectStatementsForScanningFullTimestampRange(TableMetadata transactionsTable);
 
+    /**
+     * Like {@link #createSelectStatementsForScanningFullTimestampRange(TableMetadata)}, but splits any statement that
+     * scans a range of tokens so that no statement spans more than one of the given ring token ranges. The resulting
+     * statements can be executed independently, each against a single set of replicas.
+     * <p>
+     * Each statement is keyed by a scan id naming the partition or token range that it reads. Scan ids only depend on
+     * the timestamp range and the given token ranges, so they identify the same scan when a restore is restarted.
+     */
+    Map<String, Statement> createSelectStatementsByScanId(
+            TableMetadata transactionsTable, Set<Range<LightweightOppToken>> tokenRanges);
+
     PreparedStatement prepareAbortStatement(TableMetadata transactionsTable, CqlSession session);
 
     PreparedStatement prepareCheckStatement(TableMetadata transactionsTable, CqlSession session);
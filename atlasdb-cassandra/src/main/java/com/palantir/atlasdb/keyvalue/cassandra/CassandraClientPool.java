@@ -15,6 +15,7 @@
  */
 package com.palantir.atlasdb.keyvalue.cassandra;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.atlasdb.keyvalue.cassandra.pool.CassandraServer;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.processors.AutoDelegate;
@@ -32,6 +33,14 @@ public interface CassandraClientPool {
     <V, K extends Exception> V runWithRetryOnServer(
             CassandraServer specifiedServer, FunctionCheckedException<CassandraClient, V, K> fn) throws K;
 
+    /**
+     * Asynchronous counterpart of {@link #runWithRetryOnServer(CassandraServer, FunctionCheckedException)}, with the
+     * same retry and blacklisting semantics. Requests are queued per host and dispatched onto a bounded number of
+     * pooled connections, so callers neither hold a connection nor risk exhausting the pool while waiting.
+     */
+    <V, K extends Exception> ListenableFuture<V> runWithRetryOnServerAsync(
+            CassandraServer specifiedServer, FunctionCheckedException<CassandraClient, V, K> fn);
+
     <V, K extends Exception> V runWithRetry(FunctionCheckedException<CassandraClient, V, K> fn) throws K;
 
     CassandraServer getRandomServerForKey(byte[] key);
@@ -24,6 +24,9 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.RangeMap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.async.initializer.AsyncInitializer;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
@@ -37,6 +40,7 @@ import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.common.concurrent.InitializeableScheduledExecutorServiceSupplier;
 import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.UnsafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
@@ -47,6 +51,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -119,6 +124,10 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
     private final InitializingWrapper wrapper = new InitializingWrapper();
     private final CassandraAbsentHostTracker absentHostTracker;
 
+    // async requests wait out retry backoff here rather than holding a thread for it
+    private final ScheduledExecutorService asyncRetryScheduler =
+            PTExecutors.newSingleThreadScheduledExecutor(new NamedThreadFactory("CassandraClientPoolAsyncRetry", true));
+
     private ScheduledFuture<?> refreshPoolFuture;
 
     @VisibleForTesting
@@ -279,6 +288,7 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
                 .forEach((address, cassandraClientPoolingContainer) ->
                         cassandraClientPoolingContainer.shutdownPooling());
         absentHostTracker.shutDown();
+        asyncRetryScheduler.shutdownNow();
     }
 
     /**
@@ -459,6 +469,53 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
         }
     }
 
+    @Override
+    public <V, K extends Exception> ListenableFuture<V> runWithRetryOnServerAsync(
+            CassandraServer specifiedServer, FunctionCheckedException<CassandraClient, V, K> fn) {
+        return attemptAsync(new RetryableCassandraRequest<>(specifiedServer, fn));
+    }
+
+    private <V, K extends Exception> ListenableFuture<V> attemptAsync(RetryableCassandraRequest<V, K> req) {
+        CassandraClientPoolingContainer hostPool;
+        try {
+            hostPool = getPreferredHostOrFallBack(req);
+        } catch (RuntimeException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+
+        metrics.recordRequestOnHost(hostPool);
+        ListenableFuture<V> attempt;
+        try {
+            attempt = hostPool.runWithPooledResourceAsync(req.getFunction());
+        } catch (RejectedExecutionException e) {
+            attempt = Futures.immediateFailedFuture(e);
+        }
+        ListenableFuture<V> response = Futures.transform(
+                attempt,
+                result -> {
+                    removeFromBlacklistAfterResponse(hostPool.getCassandraServer());
+                    return result;
+                },
+                MoreExecutors.directExecutor());
+        return Futures.catchingAsync(
+                response,
+                Exception.class,
+                ex -> {
+                    metrics.recordExceptionOnHost(hostPool);
+                    if (CassandraRequestExceptionHandler.isConnectionException(ex)) {
+                        metrics.recordConnectionExceptionOnHost(hostPool);
+                    }
+                    long backOffPeriod = exceptionHandler.handleExceptionAndGetBackoffPeriod(
+                            req, hostPool.getCassandraServer(), ex);
+                    if (backOffPeriod <= 0) {
+                        return attemptAsync(req);
+                    }
+                    return Futures.scheduleAsync(
+                            () -> attemptAsync(req), backOffPeriod, TimeUnit.MILLISECONDS, asyncRetryScheduler);
+                },
+                MoreExecutors.directExecutor());
+    }
+
     private <V, K extends Exception> CassandraClientPoolingContainer getPreferredHostOrFallBack(
             RetryableCassandraRequest<V, K> req) {
         CassandraClientPoolingContainer hostPool = cassandra.getPools().get(req.getCassandraServer());
@@ -18,6 +18,8 @@ package com.palantir.atlasdb.keyvalue.cassandra;
 import com.codahale.metrics.Gauge;
 import com.google.common.base.Function;
 import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
 import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraClientFactory.CassandraClientConfig;
@@ -26,9 +28,11 @@ import com.palantir.atlasdb.keyvalue.cassandra.pool.CassandraClientPoolMetrics;
 import com.palantir.atlasdb.keyvalue.cassandra.pool.CassandraServer;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.FunctionCheckedException;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.pooling.PoolingContainer;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.UnsafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
 import com.palantir.nylon.threads.ThreadNames;
@@ -42,10 +46,15 @@ import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.GuardedBy;
 import org.apache.commons.pool2.impl.DefaultEvictionPolicy;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
@@ -73,6 +82,14 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
     private final CassandraClientPoolMetrics poolMetrics;
     private final TimedRunner timedRunner;
 
+    @GuardedBy("this")
+    private ExecutorService asyncRequestDispatcher;
+
+    @GuardedBy("this")
+    private boolean isShutDown = false;
+
+    private final Set<AsyncRequest<?>> queuedAsyncRequests = ConcurrentHashMap.newKeySet();
+
     public CassandraClientPoolingContainer(
             MetricsManager metricsManager,
             CassandraServer cassandraServer,
@@ -147,6 +164,39 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
         }
     }
 
+    /**
+     * Queues {@code fn} to be run against a pooled client for this host, returning a future that completes once the
+     * request does. At most {@link CassandraKeyValueServiceConfig#maxConcurrentAsyncRequestsPerHost()} requests
+     * submitted this way are in flight at once; excess requests wait in the queue instead of borrowing (and possibly
+     * exhausting) further connections, and callers are not pinned to a connection while they wait. Requests cancelled
+     * while queued are skipped. Thrift calls block, so each request in flight still occupies a dispatcher thread.
+     */
+    public <V, K extends Exception> ListenableFuture<V> runWithPooledResourceAsync(
+            FunctionCheckedException<CassandraClient, V, K> fn) {
+        AsyncRequest<V> request = new AsyncRequest<>(fn);
+        queuedAsyncRequests.add(request);
+        try {
+            getAsyncRequestDispatcher().execute(request);
+        } catch (RejectedExecutionException e) {
+            queuedAsyncRequests.remove(request);
+            throw e;
+        }
+        return request.result;
+    }
+
+    // created lazily, as most pools are only ever used synchronously
+    private synchronized ExecutorService getAsyncRequestDispatcher() {
+        if (isShutDown) {
+            throw new RejectedExecutionException("The client pool for this host has been shut down");
+        }
+        if (asyncRequestDispatcher == null) {
+            asyncRequestDispatcher = PTExecutors.newFixedThreadPool(
+                    config.maxConcurrentAsyncRequestsPerHost(),
+                    "CassandraClientPoolingContainer-async-" + proxy.getHostString() + "-" + poolNumber);
+        }
+        return asyncRequestDispatcher;
+    }
+
     @Override
     public <V> V runWithPooledResource(Function<CassandraClient, V> fn) {
         throw new UnsupportedOperationException("you should use FunctionCheckedException<?, ?, Exception> "
@@ -249,6 +299,18 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
 
     @Override
     public void shutdownPooling() {
+        synchronized (this) {
+            isShutDown = true;
+            if (asyncRequestDispatcher != null) {
+                asyncRequestDispatcher.shutdownNow();
+            }
+        }
+        // requests that never started would otherwise leave their callers waiting forever
+        for (AsyncRequest<?> request : queuedAsyncRequests) {
+            if (queuedAsyncRequests.remove(request)) {
+                request.abandon();
+            }
+        }
         clientPool.close();
     }
 
@@ -365,4 +427,36 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
     private void registerPoolMetric(CassandraClientPoolHostLevelMetric metric, Gauge<Long> gauge) {
         poolMetrics.registerPoolMetric(metric, gauge, poolNumber);
     }
+
+    private final class AsyncRequest<V> implements Runnable {
+        private final FunctionCheckedException<CassandraClient, V, ? extends Exception> fn;
+        private final SettableFuture<V> result = SettableFuture.create();
+
+        private AsyncRequest(FunctionCheckedException<CassandraClient, V, ? extends Exception> fn) {
+            this.fn = fn;
+        }
+
+        @Override
+        public void run() {
+            if (!queuedAsyncRequests.remove(this)) {
+                // abandoned when the pool was shut down
+                return;
+            }
+            if (result.isDone()) {
+                // cancelled while queued, so it must neither borrow a client nor write anything
+                return;
+            }
+            try {
+                result.set(runWithPooledResource(fn));
+            } catch (Throwable t) {
+                result.setException(t);
+            }
+        }
+
+        private void abandon() {
+            result.setException(new SafeIllegalStateException(
+                    "The client pool for this host was shut down before the request was run",
+                    SafeArg.of("host", CassandraLogHelper.host(proxy))));
+        }
+    }
 }
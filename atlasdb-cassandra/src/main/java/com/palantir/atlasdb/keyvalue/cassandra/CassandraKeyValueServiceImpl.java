@@ -228,6 +228,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
     private final AsyncKeyValueService asyncKeyValueService;
     private final RangeLoader rangeLoader;
     private final TaskRunner taskRunner;
+    private final PipelinedMultiPutter pipelinedMultiPutter;
     private final CellValuePutter cellValuePutter;
     private final CassandraTableMetadata tableMetadata;
     private final CassandraTableCreator cassandraTableCreator;
@@ -437,6 +438,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
         this.wrappingQueryRunner = new WrappingQueryRunner(queryRunner);
         this.cassandraTables = new CassandraTables(clientPool, config);
         this.taskRunner = new TaskRunner(executor);
+        this.pipelinedMultiPutter = new PipelinedMultiPutter(clientPool, metricsManager);
         this.cellLoader = CellLoader.create(clientPool, wrappingQueryRunner, taskRunner, runtimeConfig);
         this.rangeLoader = new RangeLoader(clientPool, queryRunner, metricsManager, readConsistencyProvider);
         this.cellValuePutter = new CellValuePutter(
@@ -1191,6 +1193,17 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
         Map<CassandraServer, List<TableCellAndValue>> partitionedByHost =
                 HostPartitioner.partitionByHost(clientPool, flattened, TableCellAndValue::extractRowName);
 
+        long inFlightBytesPerHost = runtimeConfig.get().multiPutInFlightBytesPerHost();
+        if (inFlightBytesPerHost > 0) {
+            Map<CassandraServer, List<PipelinedMultiPutter.Batch>> batchesByHost = new HashMap<>();
+            for (Map.Entry<CassandraServer, List<TableCellAndValue>> entry : partitionedByHost.entrySet()) {
+                batchesByHost.put(
+                        entry.getKey(), getMultiPutBatchesForSingleHost(entry.getKey(), entry.getValue(), timestamp));
+            }
+            pipelinedMultiPutter.put(batchesByHost, inFlightBytesPerHost);
+            return;
+        }
+
         List<Callable<Void>> callables = new ArrayList<>();
         for (Map.Entry<CassandraServer, List<TableCellAndValue>> entry : partitionedByHost.entrySet()) {
             callables.addAll(getMultiPutTasksForSingleHost(entry.getKey(), entry.getValue(), timestamp));
@@ -1198,14 +1211,34 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
         taskRunner.runAllTasksCancelOnFailure(callables);
     }
 
-    private List<Callable<Void>> getMultiPutTasksForSingleHost(
-            final CassandraServer host, Collection<TableCellAndValue> values, final long timestamp) {
-        Iterable<List<TableCellAndValue>> partitioned = IterablePartitioner.partitionByCountAndBytes(
+    private List<PipelinedMultiPutter.Batch> getMultiPutBatchesForSingleHost(
+            CassandraServer host, Collection<TableCellAndValue> values, long timestamp) {
+        List<PipelinedMultiPutter.Batch> batches = new ArrayList<>();
+        for (List<TableCellAndValue> batch : partitionMultiPutValues(values)) {
+            long sizeInBytes = 0;
+            for (TableCellAndValue tableCellAndValue : batch) {
+                sizeInBytes += TableCellAndValue.getSize(tableCellAndValue);
+            }
+            batches.add(new PipelinedMultiPutter.Batch(
+                    sizeInBytes, multiPutForSingleHostFunction(host, extractTableNames(batch), batch, timestamp)));
+        }
+        return batches;
+    }
+
+    private Iterable<List<TableCellAndValue>> partitionMultiPutValues(Collection<TableCellAndValue> values) {
+        // values for the same row are adjacent (see HostPartitioner), so rows are only split across batches when a
+        // single row exceeds the batch limits
+        return IterablePartitioner.partitionByCountAndBytes(
                 values,
                 getMultiPutBatchCount(),
                 getMultiPutBatchSizeBytes(),
                 extractTableNames(values).toString(),
                 TableCellAndValue::getSize);
+    }
+
+    private List<Callable<Void>> getMultiPutTasksForSingleHost(
+            final CassandraServer host, Collection<TableCellAndValue> values, final long timestamp) {
+        Iterable<List<TableCellAndValue>> partitioned = partitionMultiPutValues(values);
         List<Callable<Void>> tasks = new ArrayList<>();
         for (final List<TableCellAndValue> batch : partitioned) {
             final Set<TableReference> tableRefs = extractTableNames(batch);
@@ -1232,8 +1265,16 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
             final List<TableCellAndValue> batch,
             long timestamp)
             throws Exception {
+        return clientPool.runWithRetryOnServer(host, multiPutForSingleHostFunction(host, tableRefs, batch, timestamp));
+    }
+
+    private FunctionCheckedException<CassandraClient, Void, Exception> multiPutForSingleHostFunction(
+            final CassandraServer host,
+            final Set<TableReference> tableRefs,
+            final List<TableCellAndValue> batch,
+            long timestamp) {
         final MutationMap mutationMap = convertToMutations(batch, timestamp);
-        return clientPool.runWithRetryOnServer(host, new FunctionCheckedException<CassandraClient, Void, Exception>() {
+        return new FunctionCheckedException<CassandraClient, Void, Exception>() {
             @Override
             public Void apply(CassandraClient client) throws Exception {
                 return wrappingQueryRunner.batchMutate("multiPut", client, tableRefs, mutationMap, WRITE_CONSISTENCY);
@@ -1243,7 +1284,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
             public String toString() {
                 return "batch_mutate(" + host.cassandraHostName() + ", " + tableRefs + ", " + batch.size() + " values)";
             }
-        });
+        };
     }
 
     private static MutationMap convertToMutations(List<TableCellAndValue> batch, long timestamp) {
@@ -1331,7 +1372,6 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
                 executor, this, tableRef, rangeRequests, timestamp, concurrency);
     }
 
-    // TODO(unknown): after cassandra change: handle reverse ranges
     // TODO(unknown): after cassandra change: handle column filtering
     /**
      * For each row in the specified range, returns the most recent version strictly before timestamp. Requires a
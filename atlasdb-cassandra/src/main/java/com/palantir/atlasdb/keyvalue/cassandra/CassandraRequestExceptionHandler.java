@@ -69,9 +69,26 @@ class CassandraRequestExceptionHandler {
         return new CassandraRequestExceptionHandler(maxTriesSameHost, maxTriesTotal, blacklist);
     }
 
-    @SuppressWarnings("unchecked")
     <K extends Exception> void handleExceptionFromRequest(
             RetryableCassandraRequest<?, K> req, CassandraServer serverTried, Exception ex) throws K {
+        long backOffPeriod = handleExceptionAndGetBackoffPeriod(req, serverTried, ex);
+        if (backOffPeriod > 0) {
+            try {
+                Thread.sleep(backOffPeriod);
+            } catch (InterruptedException i) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(i);
+            }
+        }
+    }
+
+    /**
+     * Handles an exception as {@link #handleExceptionFromRequest} does, but returns the number of milliseconds to back
+     * off for before the request is retried, rather than sleeping for them.
+     */
+    @SuppressWarnings("unchecked")
+    <K extends Exception> long handleExceptionAndGetBackoffPeriod(
+            RetryableCassandraRequest<?, K> req, CassandraServer serverTried, Exception ex) throws K {
         if (!isRetryable(ex)) {
             throw (K) ex;
         }
@@ -91,8 +108,9 @@ class CassandraRequestExceptionHandler {
         }
 
         logNumberOfAttempts(ex, numberOfAttempts);
-        handleBackoff(req, serverTried, ex, strategy);
+        long backOffPeriod = getBackoffPeriod(req, serverTried, ex, strategy);
         handleRetryOnDifferentHosts(req, serverTried, ex, strategy);
+        return backOffPeriod;
     }
 
     @VisibleForTesting
@@ -143,13 +161,13 @@ class CassandraRequestExceptionHandler {
                 && !isExceptionNotImplicatingThisParticularNode(ex);
     }
 
-    private <K extends Exception> void handleBackoff(
+    private <K extends Exception> long getBackoffPeriod(
             RetryableCassandraRequest<?, K> req,
             CassandraServer serverTried,
             Exception ex,
             RequestExceptionHandlerStrategy strategy) {
         if (!shouldBackoff(ex, strategy)) {
-            return;
+            return 0;
         }
 
         long backOffPeriod = strategy.getBackoffPeriod(req.getNumberOfAttemptsOnHost(serverTried));
@@ -159,13 +177,7 @@ class CassandraRequestExceptionHandler {
                 SafeArg.of("sleepDuration", backOffPeriod),
                 SafeArg.of("cassandraHost", serverTried.cassandraHostName()),
                 SafeArg.of("proxy", CassandraLogHelper.host(serverTried.proxy())));
-
-        try {
-            Thread.sleep(backOffPeriod);
-        } catch (InterruptedException i) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException(i);
-        }
+        return backOffPeriod;
     }
 
     @VisibleForTesting
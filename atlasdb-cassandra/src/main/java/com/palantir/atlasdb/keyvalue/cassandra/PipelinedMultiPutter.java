@@ -0,0 +1,209 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import com.codahale.metrics.Meter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.atlasdb.keyvalue.cassandra.pool.CassandraServer;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.common.base.FunctionCheckedException;
+import com.palantir.common.base.Throwables;
+import com.palantir.logsafe.exceptions.SafeRuntimeException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Writes per-host mutation batches by pipelining them through
+ * {@link CassandraClientPool#runWithRetryOnServerAsync(CassandraServer, FunctionCheckedException)}, rather than
+ * occupying a thread of the key value service's executor per batch.
+ * <p>
+ * Each host has its own in-flight byte budget: a batch is only dispatched once the bytes of the batches still
+ * outstanding against that host leave room for it, although one batch is always allowed through so that batches
+ * larger than the budget still make progress. Hosts progress independently, so a slow host does not hold back writes
+ * to the others. The number of bytes successfully written to each host is published as a meter.
+ * <p>
+ * Batches are pipelined per host only; batches for different token ranges owned by the same host share its budget.
+ * Cancelling a batch that is still queued for a client stops it from being written, but a batch already being
+ * written runs to completion.
+ */
+final class PipelinedMultiPutter {
+    private static final String BYTES_WRITTEN = "bytesWritten";
+    private static final String HOST_TAG = "cassandraHost";
+
+    private final CassandraClientPool clientPool;
+    private final MetricsManager metricsManager;
+
+    PipelinedMultiPutter(CassandraClientPool clientPool, MetricsManager metricsManager) {
+        this.clientPool = clientPool;
+        this.metricsManager = metricsManager;
+    }
+
+    /**
+     * Writes all of the given batches, returning once all of them have succeeded. If any batch fails, all outstanding
+     * batches are cancelled and the failure is rethrown.
+     */
+    void put(Map<CassandraServer, List<Batch>> batchesByHost, long inFlightBytesPerHost) {
+        List<HostWriter> writers = new ArrayList<>(batchesByHost.size());
+        List<ListenableFuture<Void>> completions = new ArrayList<>(batchesByHost.size());
+        for (Map.Entry<CassandraServer, List<Batch>> hostAndBatches : batchesByHost.entrySet()) {
+            HostWriter writer =
+                    new HostWriter(hostAndBatches.getKey(), hostAndBatches.getValue(), inFlightBytesPerHost);
+            writers.add(writer);
+            completions.add(writer.completion);
+        }
+
+        writers.forEach(HostWriter::dispatch);
+        try {
+            Futures.allAsList(completions).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writers.forEach(HostWriter::cancel);
+            throw new SafeRuntimeException("Interrupted while waiting for batches to be written", e);
+        } catch (ExecutionException | CancellationException e) {
+            writers.forEach(HostWriter::cancel);
+            throw Throwables.unwrapAndThrowAtlasDbDependencyException(e);
+        }
+    }
+
+    private Meter bytesWrittenMeter(CassandraServer host) {
+        return metricsManager.registerOrGetTaggedMeter(
+                PipelinedMultiPutter.class, BYTES_WRITTEN, ImmutableMap.of(HOST_TAG, host.cassandraHostName()));
+    }
+
+    static final class Batch {
+        private final long sizeInBytes;
+        private final FunctionCheckedException<CassandraClient, Void, Exception> write;
+
+        Batch(long sizeInBytes, FunctionCheckedException<CassandraClient, Void, Exception> write) {
+            this.sizeInBytes = sizeInBytes;
+            this.write = write;
+        }
+
+        @Override
+        public String toString() {
+            return write.toString();
+        }
+    }
+
+    private final class HostWriter {
+        private final CassandraServer host;
+        private final long inFlightBytesLimit;
+        private final Meter bytesWritten;
+        private final SettableFuture<Void> completion = SettableFuture.create();
+
+        @GuardedBy("this")
+        private final Deque<Batch> pending;
+
+        @GuardedBy("this")
+        private final Set<ListenableFuture<Void>> inFlight = new HashSet<>();
+
+        @GuardedBy("this")
+        private long inFlightBytes = 0;
+
+        @GuardedBy("this")
+        private boolean dispatching = false;
+
+        private HostWriter(CassandraServer host, List<Batch> batches, long inFlightBytesLimit) {
+            this.host = host;
+            this.inFlightBytesLimit = inFlightBytesLimit;
+            this.bytesWritten = bytesWrittenMeter(host);
+            this.pending = new ArrayDeque<>(batches);
+        }
+
+        /**
+         * Writes that are already complete run their callback while they are being dispatched, which calls back into
+         * this method on the same thread. Those calls return at once, and the loop that is already running picks up
+         * the room they freed, so that dispatching many small batches does not recurse.
+         */
+        private synchronized void dispatch() {
+            if (dispatching) {
+                return;
+            }
+            dispatching = true;
+            try {
+                while (!completion.isDone() && canDispatchNextBatch()) {
+                    Batch batch = pending.poll();
+                    inFlightBytes += batch.sizeInBytes;
+                    ListenableFuture<Void> write = clientPool.runWithRetryOnServerAsync(host, batch.write);
+                    inFlight.add(write);
+                    Futures.addCallback(write, new BatchCallback(batch, write), MoreExecutors.directExecutor());
+                }
+                if (pending.isEmpty() && inFlight.isEmpty()) {
+                    completion.set(null);
+                }
+            } finally {
+                dispatching = false;
+            }
+        }
+
+        @GuardedBy("this")
+        private boolean canDispatchNextBatch() {
+            return !pending.isEmpty()
+                    && (inFlight.isEmpty() || inFlightBytes + pending.peek().sizeInBytes <= inFlightBytesLimit);
+        }
+
+        private synchronized void onBatchCompleted(Batch batch, ListenableFuture<Void> write) {
+            inFlight.remove(write);
+            inFlightBytes -= batch.sizeInBytes;
+        }
+
+        private void cancel() {
+            List<ListenableFuture<Void>> toCancel;
+            synchronized (this) {
+                pending.clear();
+                toCancel = new ArrayList<>(inFlight);
+            }
+            completion.cancel(false);
+            toCancel.forEach(future -> future.cancel(true));
+        }
+
+        private final class BatchCallback implements FutureCallback<Void> {
+            private final Batch batch;
+            private final ListenableFuture<Void> write;
+
+            private BatchCallback(Batch batch, ListenableFuture<Void> write) {
+                this.batch = batch;
+                this.write = write;
+            }
+
+            @Override
+            public void onSuccess(Void result) {
+                bytesWritten.mark(batch.sizeInBytes);
+                onBatchCompleted(batch, write);
+                dispatch();
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                onBatchCompleted(batch, write);
+                completion.setException(throwable);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.Value;
 import com.palantir.atlasdb.keyvalue.cassandra.paging.CassandraRangePagingIterable;
+import com.palantir.atlasdb.keyvalue.cassandra.paging.CassandraReverseRangePagingIterable;
 import com.palantir.atlasdb.keyvalue.cassandra.paging.ColumnGetter;
 import com.palantir.atlasdb.keyvalue.cassandra.paging.RowGetter;
 import com.palantir.atlasdb.keyvalue.cassandra.paging.ThriftColumnGetter;
@@ -81,12 +82,14 @@ public class RangeLoader {
             RangeRequest rangeRequest,
             Supplier<ResultsExtractor<T>> resultsExtractor,
             long startTs) {
-        if (rangeRequest.isReverse()) {
-            throw new UnsupportedOperationException();
-        }
         if (rangeRequest.isEmptyRange()) {
             return ClosableIterators.wrap(ImmutableList.<RowResult<T>>of().iterator());
         }
+        if (rangeRequest.isReverse()) {
+            CassandraReverseRangePagingIterable<T> rowResults = new CassandraReverseRangePagingIterable<>(
+                    rowGetter, slicePredicate, columnGetter, rangeRequest, resultsExtractor, startTs);
+            return ClosableIterators.wrap(rowResults.iterator());
+        }
 
         CassandraRangePagingIterable<T> rowResults = new CassandraRangePagingIterable<>(
                 rowGetter, slicePredicate, columnGetter, rangeRequest, resultsExtractor, startTs);
@@ -0,0 +1,272 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.cassandra.paging;
+
+import com.google.common.collect.Lists;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RangeRequests;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.cassandra.ResultsExtractor;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.util.paging.AbstractPagingIterable;
+import com.palantir.util.paging.SimpleTokenBackedResultsPage;
+import com.palantir.util.paging.TokenBackedBasicResultsPage;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.KeyRange;
+import org.apache.cassandra.thrift.KeySlice;
+import org.apache.cassandra.thrift.SlicePredicate;
+
+/**
+ * Pages through a reverse range request, starting from the highest row in the range.
+ *
+ * Cassandra can only scan rows in ascending order, so each page is read as an ascending scan over a window at the top
+ * of what remains of the range, and returned in reverse. The window is found by probing for the row keys above
+ * candidate starting points, which returns no values and at most one more key than a page holds: row keys are treated
+ * as fractions in the key space, and a candidate start is narrowed down until the window above it holds between half
+ * a page and a page of rows. The first candidate for each page is placed from the width of the previous window and the
+ * number of rows it held, so when rows are spread evenly, as they are for time-ordered rows, a page usually takes a
+ * single probe.
+ *
+ * The first page has no previous window, and the rows usually occupy a tiny part of the key space below the top of the
+ * range, so the search starts from the bottom instead: the lowest page of rows gives their density, and candidates
+ * move up from there in doubling steps until one holds at most a page above it. That takes a number of probes
+ * logarithmic in the number of rows, rather than in the width of the key space.
+ *
+ * If rows are written into a window between finding it and reading it, the window is searched for again, and after a
+ * few such attempts it is narrowed to the upper half instead until it fits, so that concurrent writers cannot keep
+ * a page from completing.
+ */
+public class CassandraReverseRangePagingIterable<T>
+        extends AbstractPagingIterable<RowResult<T>, TokenBackedBasicResultsPage<RowResult<T>, byte[]>> {
+    private static final int KEY_SPACE_WIDTH = Cell.MAX_NAME_LENGTH;
+    private static final int MAX_WINDOW_SEARCHES = 3;
+
+    private final RowGetter rowGetter;
+    private final SlicePredicate slicePredicate;
+    private final ColumnGetter columnGetter;
+    private final RangeRequest rangeRequest;
+    private final Supplier<ResultsExtractor<T>> resultsExtractor;
+    private final long timestamp;
+
+    private final int batchHint;
+    private final ColumnSelection selection;
+    private final byte[] lowestRow;
+
+    private volatile BigInteger lastWindowWidth;
+
+    public CassandraReverseRangePagingIterable(
+            RowGetter rowGetter,
+            SlicePredicate slicePredicate,
+            ColumnGetter columnGetter,
+            RangeRequest rangeRequest,
+            Supplier<ResultsExtractor<T>> resultsExtractor,
+            long timestamp) {
+        Preconditions.checkArgument(rangeRequest.isReverse(), "Range request must be reversed");
+        this.rowGetter = rowGetter;
+        this.slicePredicate = slicePredicate;
+        this.columnGetter = columnGetter;
+        this.rangeRequest = rangeRequest;
+        this.resultsExtractor = resultsExtractor;
+        this.timestamp = timestamp;
+
+        batchHint = rangeRequest.getBatchHint() == null ? 100 : rangeRequest.getBatchHint();
+        selection = RangeRequests.extractColumnSelection(rangeRequest);
+        lowestRow = rangeRequest.getEndExclusive().length == 0
+                ? PtBytes.EMPTY_BYTE_ARRAY
+                : RangeRequests.nextLexicographicName(rangeRequest.getEndExclusive());
+    }
+
+    @Override
+    protected TokenBackedBasicResultsPage<RowResult<T>, byte[]> getFirstPage() {
+        return getSinglePage(RangeRequests.startRowInclusiveOrLargestRow(rangeRequest));
+    }
+
+    @Override
+    protected TokenBackedBasicResultsPage<RowResult<T>, byte[]> getNextPage(
+            TokenBackedBasicResultsPage<RowResult<T>, byte[]> previous) {
+        return getSinglePage(previous.getTokenForNextPage());
+    }
+
+    private TokenBackedBasicResultsPage<RowResult<T>, byte[]> getSinglePage(byte[] highestRow) {
+        byte[] windowStart = findWindowStart(highestRow);
+        for (int attempt = 1; ; attempt++) {
+            List<KeySlice> rows = rowGetter.getRows("getRange", keyRange(windowStart, highestRow), slicePredicate);
+            if (rows.size() > batchHint) {
+                // rows were written into the window since it was found, so it no longer fits in a page
+                windowStart = attempt < MAX_WINDOW_SEARCHES
+                        ? findWindowStart(highestRow)
+                        : upperHalfOfWindow(windowStart, highestRow);
+                continue;
+            }
+            lastWindowWidth = scaleToTargetRows(position(highestRow).subtract(position(windowStart)), rows.size());
+
+            List<RowResult<T>> results = Lists.reverse(getRowResults(rows));
+            if (Arrays.equals(windowStart, lowestRow)) {
+                return SimpleTokenBackedResultsPage.create(rangeRequest.getEndExclusive(), results, false);
+            }
+            return SimpleTokenBackedResultsPage.create(
+                    RangeRequests.previousLexicographicName(windowStart), results, true);
+        }
+    }
+
+    private List<RowResult<T>> getRowResults(List<KeySlice> rows) {
+        Map<ByteBuffer, List<ColumnOrSuperColumn>> columnsByRow = columnGetter.getColumnsByRow(rows);
+        return Lists.newArrayList(resultsExtractor
+                .get()
+                .getPageFromRangeResults(columnsByRow, timestamp, selection, rangeRequest.getEndExclusive())
+                .getResults());
+    }
+
+    /**
+     * Returns the start of a window that ends at the given row and holds at most a page of rows. The window starts at
+     * the lowest row of the range if what remains of the range fits in a page.
+     */
+    private byte[] findWindowStart(byte[] highestRow) {
+        BigInteger floor = position(lowestRow);
+        BigInteger highest = position(highestRow);
+
+        // the window above overflowing holds more than a page of rows, and that above fitting holds at most a page
+        BigInteger overflowing = null;
+        BigInteger fitting = highest;
+        byte[] fittingStart = highestRow;
+        BigInteger step = null;
+
+        BigInteger distance = lastWindowWidth == null ? highest.subtract(floor) : lastWindowWidth;
+        while (overflowing == null) {
+            BigInteger candidate = highest.subtract(distance);
+            byte[] candidateStart = candidate.compareTo(floor) <= 0 ? lowestRow : key(candidate);
+            List<byte[]> keys = getRowKeysAbove(candidateStart, highestRow);
+            if (keys.size() > batchHint) {
+                overflowing = position(keys.get(0));
+                step = widthOf(keys);
+            } else if (candidateStart == lowestRow || isFullEnough(keys)) {
+                return candidateStart;
+            } else {
+                fitting = candidate;
+                fittingStart = candidateStart;
+                distance = distance.shiftLeft(1);
+            }
+        }
+
+        // move up from the overflowing rows while they occupy much less of the key space than the search does
+        while (overflowing.add(step.shiftLeft(1)).compareTo(fitting) < 0) {
+            BigInteger candidate = overflowing.add(step);
+            byte[] candidateStart = key(candidate);
+            List<byte[]> keys = getRowKeysAbove(candidateStart, highestRow);
+            if (keys.size() > batchHint) {
+                overflowing = position(keys.get(0));
+                step = step.shiftLeft(1).max(widthOf(keys));
+            } else if (isFullEnough(keys)) {
+                return candidateStart;
+            } else {
+                fitting = candidate;
+                fittingStart = candidateStart;
+            }
+        }
+
+        while (true) {
+            BigInteger candidate = overflowing.add(fitting).shiftRight(1);
+            if (candidate.compareTo(overflowing) <= 0) {
+                return fittingStart;
+            }
+            byte[] candidateStart = key(candidate);
+            List<byte[]> keys = getRowKeysAbove(candidateStart, highestRow);
+            if (keys.size() > batchHint) {
+                overflowing = position(keys.get(0));
+            } else if (isFullEnough(keys)) {
+                return candidateStart;
+            } else {
+                fitting = candidate;
+                fittingStart = candidateStart;
+            }
+        }
+    }
+
+    /**
+     * Narrows a window that overflowed to its upper half, or to the highest row alone once it cannot be halved.
+     */
+    private byte[] upperHalfOfWindow(byte[] windowStart, byte[] highestRow) {
+        BigInteger start = position(windowStart);
+        BigInteger middle = start.add(position(highestRow)).shiftRight(1);
+        return middle.compareTo(start) <= 0 ? highestRow : key(middle);
+    }
+
+    /**
+     * The width of the key space spanned by the given keys, which are in ascending order.
+     */
+    private static BigInteger widthOf(List<byte[]> keys) {
+        return position(keys.get(keys.size() - 1))
+                .subtract(position(keys.get(0)))
+                .max(BigInteger.ONE);
+    }
+
+    private boolean isFullEnough(List<byte[]> keys) {
+        return keys.size() >= minRowsPerPage();
+    }
+
+    private int minRowsPerPage() {
+        return Math.max(1, batchHint / 2);
+    }
+
+    /**
+     * Scales the width of a window holding the given number of rows to one expected to hold about three quarters of a
+     * page, so that the next window is as likely to come up short as it is to overflow.
+     */
+    private BigInteger scaleToTargetRows(BigInteger width, int rows) {
+        int targetRows = (minRowsPerPage() + batchHint + 1) / 2;
+        return width.multiply(BigInteger.valueOf(targetRows))
+                .divide(BigInteger.valueOf(Math.max(1, rows)))
+                .max(BigInteger.ONE);
+    }
+
+    private List<byte[]> getRowKeysAbove(byte[] windowStart, byte[] highestRow) {
+        return rowGetter.getRowKeysInRange(windowStart, highestRow, batchHint + 1);
+    }
+
+    private KeyRange keyRange(byte[] windowStart, byte[] highestRow) {
+        return new KeyRange(batchHint + 1).setStart_key(windowStart).setEnd_key(highestRow);
+    }
+
+    /**
+     * The position of a row key in the key space, as the fraction it represents with the binary point in front of it.
+     * Rows are ordered as their positions are, except that keys differing only in trailing zero bytes share one.
+     */
+    private static BigInteger position(byte[] key) {
+        return new BigInteger(1, Arrays.copyOf(key, KEY_SPACE_WIDTH));
+    }
+
+    private static byte[] key(BigInteger position) {
+        byte[] magnitude = position.toByteArray();
+        byte[] key = new byte[KEY_SPACE_WIDTH];
+        int length = Math.min(magnitude.length, KEY_SPACE_WIDTH);
+        System.arraycopy(magnitude, magnitude.length - length, key, KEY_SPACE_WIDTH - length, length);
+
+        int end = key.length;
+        while (end > 0 && key[end - 1] == 0) {
+            end--;
+        }
+        return Arrays.copyOf(key, end);
+    }
+}
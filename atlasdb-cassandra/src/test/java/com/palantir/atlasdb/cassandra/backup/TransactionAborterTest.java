@@ -22,6 +22,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -35,20 +36,36 @@ import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.TableMetadata;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Range;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
 import com.palantir.atlasdb.cassandra.backup.transaction.TransactionTableEntries;
 import com.palantir.atlasdb.cassandra.backup.transaction.TransactionTableEntry;
 import com.palantir.atlasdb.cassandra.backup.transaction.TransactionsTableInteraction;
+import com.palantir.atlasdb.keyvalue.cassandra.LightweightOppToken;
 import com.palantir.atlasdb.pue.PutUnlessExistsValue;
 import com.palantir.atlasdb.timelock.api.Namespace;
 import com.palantir.timestamp.FullyBoundedTimestampRange;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -63,6 +80,9 @@ public class TransactionAborterTest {
     private static final String TXN_TABLE_NAME = "txn_table";
     private static final Namespace NAMESPACE = Namespace.of("keyspace");
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     @Mock
     private CqlSession cqlSession;
 
@@ -90,6 +110,9 @@ public class TransactionAborterTest {
     @Mock
     private TableMetadata tableMetadata;
 
+    @Mock
+    private CqlMetadata cqlMetadata;
+
     private TransactionAborter transactionAborter;
 
     @Before
@@ -107,13 +130,15 @@ public class TransactionAborterTest {
         when(tableMetadata.getName()).thenReturn(TXN_TABLE_NAME);
         KeyspaceMetadata keyspaceMetadata = mock(KeyspaceMetadata.class);
         when(keyspaceMetadata.getTables()).thenReturn(ImmutableList.of(tableMetadata));
-        CqlMetadata cqlMetadata = mock(CqlMetadata.class);
         when(cqlMetadata.getKeyspaceMetadata(NAMESPACE)).thenReturn(keyspaceMetadata);
         when(cqlSession.getMetadata()).thenReturn(cqlMetadata);
 
         doReturn(ImmutableList.of(selectStatement))
                 .when(transactionInteraction)
                 .createSelectStatementsForScanningFullTimestampRange(any());
+        doReturn(ImmutableMap.of("scan", selectStatement))
+                .when(transactionInteraction)
+                .createSelectStatementsByScanId(any(), any());
         ResultSet selectResponse = createSelectResponse(ImmutableList.of());
         when(cqlSession.execute(selectStatement)).thenReturn(selectResponse);
 
@@ -308,6 +333,122 @@ public class TransactionAborterTest {
         verify(cqlSession, times(3)).execute(checkStatement);
     }
 
+    @Test
+    public void abortsTransactionsFoundByEveryScanAndCheckpointsScans() {
+        InMemoryCheckpointer checkpointer = new InMemoryCheckpointer();
+        setupScans(ImmutableMap.of("firstScan", mock(Statement.class), "secondScan", mock(Statement.class)));
+        when(cqlSession.execute(abortStatement)).thenReturn(createAbortResponse(true));
+
+        new TransactionAborter(cqlSession, NAMESPACE, checkpointer, 4, 1)
+                .abortTransactions(BACKUP_TIMESTAMP, List.of(transactionInteraction));
+
+        verify(cqlSession, times(2)).execute(abortStatement);
+        assertThat(checkpointer.completedScans).containsExactlyInAnyOrder("firstScan", "secondScan");
+    }
+
+    @Test
+    public void skipsScansCompletedBeforeRestart() {
+        InMemoryCheckpointer checkpointer = new InMemoryCheckpointer();
+        Statement firstSelect = mock(Statement.class);
+        Statement secondSelect = mock(Statement.class);
+        setupScans(ImmutableMap.of("firstScan", firstSelect, "secondScan", secondSelect));
+        when(cqlSession.execute(abortStatement)).thenReturn(createAbortResponse(true));
+        checkpointer.markComplete(BACKUP_TIMESTAMP, TXN_TABLE_NAME, "firstScan");
+
+        new TransactionAborter(cqlSession, NAMESPACE, checkpointer, 4, 1)
+                .abortTransactions(BACKUP_TIMESTAMP, List.of(transactionInteraction));
+
+        verify(cqlSession, never()).execute(firstSelect);
+        verify(cqlSession).execute(secondSelect);
+        verify(cqlSession, times(1)).execute(abortStatement);
+    }
+
+    @Test
+    public void doesNotCheckpointScansThatFailed() {
+        InMemoryCheckpointer checkpointer = new InMemoryCheckpointer();
+        Statement select = mock(Statement.class);
+        setupScans(ImmutableMap.of("scan", select));
+        when(cqlSession.execute(select)).thenThrow(new IllegalStateException("unavailable"));
+
+        assertThatThrownBy(() -> new TransactionAborter(cqlSession, NAMESPACE, checkpointer, 4, 1)
+                        .abortTransactions(BACKUP_TIMESTAMP, List.of(transactionInteraction)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(checkpointer.completedScans).isEmpty();
+    }
+
+    @Test
+    public void resumesFromScansCheckpointedToDiskBeforeFailure() throws IOException {
+        Path checkpoints = tempFolder.newFolder().toPath();
+        Statement firstSelect = mock(Statement.class);
+        Statement secondSelect = mock(Statement.class);
+        setupScans(ImmutableMap.of("firstScan", firstSelect, "secondScan", secondSelect));
+        when(cqlSession.execute(abortStatement)).thenReturn(createAbortResponse(true));
+        ResultSet secondSelectResponse = createSelectResponse(ImmutableList.of());
+        when(cqlSession.execute(secondSelect))
+                .thenThrow(new IllegalStateException("unavailable"))
+                .thenReturn(secondSelectResponse);
+
+        assertThatThrownBy(() -> new TransactionAborter(
+                                cqlSession, NAMESPACE, new FileTransactionAbortCheckpointer(checkpoints), 1, 1)
+                        .abortTransactions(BACKUP_TIMESTAMP, List.of(transactionInteraction)))
+                .isInstanceOf(IllegalStateException.class);
+        new TransactionAborter(cqlSession, NAMESPACE, new FileTransactionAbortCheckpointer(checkpoints), 1, 1)
+                .abortTransactions(BACKUP_TIMESTAMP, List.of(transactionInteraction));
+
+        verify(cqlSession, times(1)).execute(firstSelect);
+        verify(cqlSession, times(2)).execute(secondSelect);
+        verify(cqlSession, times(1)).execute(abortStatement);
+        assertThat(new FileTransactionAbortCheckpointer(checkpoints)
+                        .isComplete(BACKUP_TIMESTAMP, TXN_TABLE_NAME, "secondScan"))
+                .isTrue();
+    }
+
+    @Test
+    public void limitsConcurrentScansOnEachHost() {
+        Map<String, Statement> selects = IntStream.range(0, 8)
+                .boxed()
+                .collect(ImmutableMap.toImmutableMap(index -> "scan" + index, index -> {
+                    Statement select = mock(Statement.class);
+                    when(select.getRoutingKey(any(), any())).thenReturn(ByteBuffer.wrap(new byte[] {(byte) index}));
+                    return select;
+                }));
+        setupScans(selects);
+
+        LightweightOppToken token = new LightweightOppToken(new byte[] {1});
+        when(cqlMetadata.getTokenRanges()).thenReturn(ImmutableSet.of(Range.all()));
+        when(cqlMetadata.newToken(any())).thenReturn(token);
+        when(cqlMetadata.getReplicas(NAMESPACE, Range.all()))
+                .thenReturn(ImmutableSet.of(InetSocketAddress.createUnresolved("cassandra", 9042)));
+
+        AtomicInteger concurrentScans = new AtomicInteger();
+        AtomicInteger maxConcurrentScans = new AtomicInteger();
+        ResultSet emptyResponse = createSelectResponse(ImmutableList.of());
+        selects.values().forEach(select -> when(cqlSession.execute(select)).thenAnswer(_invocation -> {
+            maxConcurrentScans.accumulateAndGet(concurrentScans.incrementAndGet(), Math::max);
+            Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
+            concurrentScans.decrementAndGet();
+            return emptyResponse;
+        }));
+
+        new TransactionAborter(cqlSession, NAMESPACE, TransactionAbortCheckpointer.noOp(), 4, 1)
+                .abortTransactions(BACKUP_TIMESTAMP, List.of(transactionInteraction));
+
+        selects.values().forEach(select -> verify(cqlSession).execute(select));
+        assertThat(maxConcurrentScans).hasValue(1);
+    }
+
+    private void setupScans(Map<String, Statement> selectsByScanId) {
+        when(transactionInteraction.getTimestampRange()).thenReturn(TIMESTAMP_RANGE);
+        doReturn(selectsByScanId).when(transactionInteraction).createSelectStatementsByScanId(any(), any());
+        for (Statement select : selectsByScanId.values()) {
+            Row row = mock(Row.class);
+            when(transactionInteraction.extractTimestamps(row))
+                    .thenReturn(TransactionTableEntries.committedLegacy(BACKUP_TIMESTAMP + 1, BACKUP_TIMESTAMP + 2));
+            ResultSet selectResponse = createSelectResponse(ImmutableList.of(row));
+            when(cqlSession.execute(select)).thenReturn(selectResponse);
+        }
+    }
+
     private void setupAbortTimestampTask(
             ImmutableList<TransactionTableEntry> entries, FullyBoundedTimestampRange range) {
         when(transactionInteraction.getTimestampRange()).thenReturn(range);
@@ -336,4 +477,18 @@ public class TransactionAborterTest {
         when(response.all()).thenReturn(transactions);
         return response;
     }
+
+    private static final class InMemoryCheckpointer implements TransactionAbortCheckpointer {
+        private final Set<String> completedScans = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public boolean isComplete(long backupTimestamp, String transactionsTableName, String scanId) {
+            return completedScans.contains(scanId);
+        }
+
+        @Override
+        public void markComplete(long backupTimestamp, String transactionsTableName, String scanId) {
+            completedScans.add(scanId);
+        }
+    }
 }
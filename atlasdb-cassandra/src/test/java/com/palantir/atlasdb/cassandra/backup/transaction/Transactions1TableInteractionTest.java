@@ -26,14 +26,20 @@ import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.TableMetadata;
 import com.datastax.driver.core.policies.RetryPolicy;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Range;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraConstants;
+import com.palantir.atlasdb.keyvalue.cassandra.LightweightOppToken;
 import com.palantir.atlasdb.transaction.encoding.V1EncodingStrategy;
 import com.palantir.atlasdb.transaction.impl.TransactionConstants;
 import com.palantir.timestamp.FullyBoundedTimestampRange;
 import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.apache.commons.codec.binary.Hex;
 import org.junit.Test;
 
@@ -108,6 +114,61 @@ public class Transactions1TableInteractionTest {
                                 .getRowName())));
     }
 
+    @Test
+    public void selectStatementsAreSplitAlongTokenRanges() {
+        TableMetadata tableMetadata = mock(TableMetadata.class, RETURNS_DEEP_STUBS);
+        when(tableMetadata.getKeyspace().getName()).thenReturn("keyspace");
+        when(tableMetadata.getName()).thenReturn(TransactionConstants.TRANSACTION_TABLE.getTableName());
+
+        Transactions1TableInteraction txnInteraction =
+                new Transactions1TableInteraction(FullyBoundedTimestampRange.of(Range.closedOpen(1L, 50L)), mockPolicy);
+        Set<Range<LightweightOppToken>> tokenRanges = ImmutableSet.of(
+                Range.atMost(token(20L)), Range.openClosed(token(20L), token(100L)), Range.greaterThan(token(100L)));
+
+        Map<String, Statement> selects = txnInteraction.createSelectStatementsByScanId(tableMetadata, tokenRanges);
+        List<String> statements = selects.values().stream()
+                .map(statement -> statement.toString().trim().toLowerCase())
+                .collect(Collectors.toList());
+
+        assertThat(statements)
+                .hasSize(2)
+                .anySatisfy(statement -> assertThat(statement)
+                        .contains("token(key)>=token(0x" + encodedHex(1L) + ")")
+                        .contains("token(key)<=token(0x" + encodedHex(20L) + ")"))
+                .anySatisfy(statement -> assertThat(statement)
+                        .contains("token(key)>token(0x" + encodedHex(20L) + ")")
+                        .contains("token(key)<=token(0x" + encodedHex(49L) + ")"));
+    }
+
+    @Test
+    public void scanIdsNameTheScannedTokenRange() {
+        TableMetadata tableMetadata = mock(TableMetadata.class, RETURNS_DEEP_STUBS);
+        when(tableMetadata.getKeyspace().getName()).thenReturn("keyspace");
+        when(tableMetadata.getName()).thenReturn(TransactionConstants.TRANSACTION_TABLE.getTableName());
+
+        Transactions1TableInteraction txnInteraction =
+                new Transactions1TableInteraction(FullyBoundedTimestampRange.of(Range.closedOpen(1L, 50L)), mockPolicy);
+        Set<Range<LightweightOppToken>> tokenRanges =
+                ImmutableSet.of(Range.atMost(token(20L)), Range.greaterThan(token(20L)));
+
+        assertThat(txnInteraction.createSelectStatementsByScanId(tableMetadata, tokenRanges))
+                .containsOnlyKeys(
+                        "tokens:[" + token(1L) + "," + token(20L) + "]",
+                        "tokens:(" + token(20L) + "," + token(49L) + "]");
+        assertThat(txnInteraction.createSelectStatementsByScanId(tableMetadata, ImmutableSet.of()))
+                .containsOnlyKeys("tokens:[" + token(1L) + "," + token(49L) + "]");
+    }
+
+    private static LightweightOppToken token(long startTimestamp) {
+        return new LightweightOppToken(
+                V1EncodingStrategy.INSTANCE.encodeStartTimestampAsCell(startTimestamp).getRowName());
+    }
+
+    private static String encodedHex(long startTimestamp) {
+        return Hex.encodeHexString(
+                V1EncodingStrategy.INSTANCE.encodeStartTimestampAsCell(startTimestamp).getRowName());
+    }
+
     private static Row createRow(long start, long commit) {
         Row row = mock(Row.class);
         when(row.getBytes(CassandraConstants.ROW))
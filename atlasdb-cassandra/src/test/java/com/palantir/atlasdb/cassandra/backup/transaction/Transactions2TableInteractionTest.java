@@ -27,6 +27,7 @@ import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.TableMetadata;
 import com.datastax.driver.core.policies.RetryPolicy;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Range;
 import com.google.common.primitives.Longs;
 import com.palantir.atlasdb.keyvalue.api.Cell;
@@ -37,6 +38,7 @@ import com.palantir.timestamp.FullyBoundedTimestampRange;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.codec.binary.Hex;
 import org.junit.Before;
 import org.junit.Test;
@@ -107,6 +109,23 @@ public class Transactions2TableInteractionTest {
                 .containsExactlyInAnyOrderElementsOf(correctSelects);
     }
 
+    @Test
+    public void keysScansByTheirPartition() {
+        Range<Long> rangeWithinOnePartition = Range.closed(100L, 1000L);
+        Transactions2TableInteraction txnInteraction =
+                new Transactions2TableInteraction(FullyBoundedTimestampRange.of(rangeWithinOnePartition), mockPolicy);
+        Map<String, Statement> selects = txnInteraction.createSelectStatementsByScanId(tableMetadata, ImmutableSet.of());
+
+        List<String> scanIds = new ArrayList<>();
+        for (long row = 0; row < ROWS_PER_QUANTUM; row++) {
+            scanIds.add("partition:" + Hex.encodeHexString(encodeRowKeyFromRowValue(row), false));
+        }
+        assertThat(selects).containsOnlyKeys(scanIds);
+        assertThat(selects.values())
+                .extracting(statement -> statement.toString().trim().toLowerCase())
+                .containsExactlyInAnyOrderElementsOf(createSelectStatement(0L, ROWS_PER_QUANTUM - 1));
+    }
+
     private static List<String> createSelectStatement(long startInclusive, long endInclusive) {
         List<String> statements = new ArrayList<>();
         for (long row = startInclusive; row <= endInclusive; row++) {
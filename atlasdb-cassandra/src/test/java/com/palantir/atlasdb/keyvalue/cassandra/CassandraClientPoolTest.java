@@ -28,6 +28,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
 import com.palantir.atlasdb.cassandra.CassandraCredentialsConfig;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceRuntimeConfig;
@@ -55,6 +56,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -159,6 +161,49 @@ public class CassandraClientPoolTest {
         verifyNumberOfAttemptsOnHost(CASS_SERVER_1, cassandraClientPool, 1);
     }
 
+    @Test
+    public void asyncRequestCompletesWithResponseFromHost() throws Exception {
+        CassandraClientPool cassandraClientPool = clientPoolWithServersInCurrentPool(ImmutableSet.of(CASS_SERVER_1));
+        CassandraClientPoolingContainer container =
+                cassandraClientPool.getCurrentPools().get(CASS_SERVER_1);
+        when(container.runWithPooledResourceAsync(any())).thenReturn(Futures.immediateFuture("Response"));
+
+        assertThat(cassandraClientPool
+                        .runWithRetryOnServerAsync(CASS_SERVER_1, noOp())
+                        .get())
+                .isEqualTo("Response");
+        verify(container).runWithPooledResourceAsync(any());
+    }
+
+    @Test
+    public void asyncRequestRetriesUntilLimitThenFails() {
+        CassandraClientPool cassandraClientPool = clientPoolWithServersInCurrentPool(ImmutableSet.of(CASS_SERVER_1));
+        CassandraClientPoolingContainer container =
+                cassandraClientPool.getCurrentPools().get(CASS_SERVER_1);
+        when(container.runWithPooledResourceAsync(any()))
+                .thenAnswer(_invocation -> Futures.immediateFailedFuture(new SocketTimeoutException()));
+
+        assertThatThrownBy(() -> cassandraClientPool
+                        .runWithRetryOnServerAsync(CASS_SERVER_1, noOp())
+                        .get())
+                .hasCauseInstanceOf(AtlasDbDependencyException.class);
+        verify(container, Mockito.times(CassandraClientPoolImpl.getMaxTriesTotal()))
+                .runWithPooledResourceAsync(any());
+    }
+
+    @Test
+    public void asyncRequestFailsIfHostRejectsIt() {
+        CassandraClientPool cassandraClientPool = clientPoolWithServersInCurrentPool(ImmutableSet.of(CASS_SERVER_1));
+        CassandraClientPoolingContainer container =
+                cassandraClientPool.getCurrentPools().get(CASS_SERVER_1);
+        when(container.runWithPooledResourceAsync(any())).thenThrow(new RejectedExecutionException());
+
+        assertThatThrownBy(() -> cassandraClientPool
+                        .runWithRetryOnServerAsync(CASS_SERVER_1, noOp())
+                        .get())
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
     @Test
     public void shouldRetryOnSameNodeToFailureAndThenRedirect() {
         // TODO(ssouza): make 4 =
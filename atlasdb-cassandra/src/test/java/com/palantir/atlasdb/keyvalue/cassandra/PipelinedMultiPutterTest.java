@@ -0,0 +1,144 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.atlasdb.keyvalue.cassandra.pool.CassandraServer;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.common.exception.AtlasDbDependencyException;
+import com.palantir.logsafe.exceptions.SafeRuntimeException;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class PipelinedMultiPutterTest {
+    private static final CassandraServer SERVER_1 = CassandraServer.of(InetSocketAddress.createUnresolved("1", 9160));
+    private static final CassandraServer SERVER_2 = CassandraServer.of(InetSocketAddress.createUnresolved("2", 9160));
+
+    private final CassandraClientPool clientPool = mock(CassandraClientPool.class);
+    private final MetricsManager metricsManager = MetricsManagers.createForTests();
+    private final PipelinedMultiPutter putter = new PipelinedMultiPutter(clientPool, metricsManager);
+
+    @Test
+    public void writesAllBatchesForAllHosts() {
+        List<CassandraServer> written = new CopyOnWriteArrayList<>();
+        when(clientPool.runWithRetryOnServerAsync(any(), any())).thenAnswer(invocation -> {
+            written.add(invocation.getArgument(0));
+            return Futures.immediateFuture(null);
+        });
+
+        putter.put(
+                ImmutableMap.of(
+                        SERVER_1, ImmutableList.of(batch(10), batch(20)),
+                        SERVER_2, ImmutableList.of(batch(30))),
+                100);
+
+        assertThat(written).containsExactlyInAnyOrder(SERVER_1, SERVER_1, SERVER_2);
+        assertThat(metricsManager.getTaggedRegistry().getMetrics()).hasSize(2);
+    }
+
+    @Test
+    public void writesManyBatchesThatCompleteImmediatelyWithoutRecursing() {
+        int batches = 20_000;
+        List<Integer> stackDepths = new CopyOnWriteArrayList<>();
+        when(clientPool.runWithRetryOnServerAsync(any(), any())).thenAnswer(_invocation -> {
+            stackDepths.add(Thread.currentThread().getStackTrace().length);
+            return Futures.immediateFuture(null);
+        });
+
+        putter.put(ImmutableMap.of(SERVER_1, Collections.nCopies(batches, batch(1))), 1);
+
+        assertThat(stackDepths).hasSize(batches);
+        assertThat(Collections.max(stackDepths)).isLessThan(Collections.min(stackDepths) + 50);
+    }
+
+    @Test
+    public void doesNotExceedInFlightBytesPerHost() throws Exception {
+        List<SettableFuture<Void>> outstanding = new CopyOnWriteArrayList<>();
+        when(clientPool.runWithRetryOnServerAsync(eq(SERVER_1), any())).thenAnswer(_invocation -> {
+            SettableFuture<Void> future = SettableFuture.create();
+            outstanding.add(future);
+            return future;
+        });
+
+        CompletableFuture<Void> put = CompletableFuture.runAsync(() -> putter.put(
+                ImmutableMap.of(SERVER_1, ImmutableList.of(batch(60), batch(60), batch(60))), 100));
+
+        awaitOutstanding(outstanding, 1);
+        assertThat(outstanding).hasSize(1);
+        outstanding.get(0).set(null);
+        awaitOutstanding(outstanding, 2);
+        outstanding.get(1).set(null);
+        awaitOutstanding(outstanding, 3);
+        outstanding.get(2).set(null);
+
+        put.get(10, TimeUnit.SECONDS);
+        assertThat(outstanding).hasSize(3);
+    }
+
+    @Test
+    public void propagatesFailures() {
+        when(clientPool.runWithRetryOnServerAsync(any(), any()))
+                .thenReturn(Futures.immediateFailedFuture(new IllegalStateException("boom")));
+
+        assertThatThrownBy(() -> putter.put(ImmutableMap.of(SERVER_1, ImmutableList.of(batch(10))), 100))
+                .isInstanceOf(AtlasDbDependencyException.class);
+    }
+
+    @Test
+    public void restoresInterruptFlagAndCancelsOutstandingBatchesWhenInterrupted() {
+        SettableFuture<Void> outstanding = SettableFuture.create();
+        when(clientPool.runWithRetryOnServerAsync(any(), any())).thenReturn(outstanding);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> putter.put(ImmutableMap.of(SERVER_1, ImmutableList.of(batch(10))), 100))
+                    .isInstanceOf(SafeRuntimeException.class)
+                    .hasCauseInstanceOf(InterruptedException.class);
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+            assertThat(outstanding).isCancelled();
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private static void awaitOutstanding(List<?> outstanding, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (outstanding.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(outstanding).hasSize(expected);
+    }
+
+    private static PipelinedMultiPutter.Batch batch(long sizeInBytes) {
+        return new PipelinedMultiPutter.Batch(sizeInBytes, _client -> null);
+    }
+}
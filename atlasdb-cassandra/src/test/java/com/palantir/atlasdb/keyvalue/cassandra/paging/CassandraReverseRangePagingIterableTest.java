@@ -0,0 +1,245 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.cassandra.paging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedBytes;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.cassandra.CassandraKeyValueServices;
+import com.palantir.atlasdb.keyvalue.cassandra.ResultsExtractor;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.atlasdb.util.MetricsManagers;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.KeyRange;
+import org.apache.cassandra.thrift.KeySlice;
+import org.apache.cassandra.thrift.SlicePredicate;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CassandraReverseRangePagingIterableTest {
+    private static final MetricsManager METRICS_MANAGER = MetricsManagers.createForTests();
+    private static final byte[] COLUMN = PtBytes.toBytes("c");
+    private static final long WRITE_TIMESTAMP = 10L;
+    private static final long READ_TIMESTAMP = 20L;
+    private static final int BATCH_HINT = 10;
+
+    private final NavigableSet<byte[]> rows = new TreeSet<>(UnsignedBytes.lexicographicalComparator());
+    private final AtomicInteger reads = new AtomicInteger();
+    private final AtomicInteger readsWithConcurrentWrites = new AtomicInteger();
+    private final RowGetter rowGetter = mock(RowGetter.class);
+
+    @Before
+    public void setUp() {
+        when(rowGetter.getRows(anyString(), any(), any())).thenAnswer(invocation -> {
+            KeyRange keyRange = invocation.getArgument(1);
+            if (readsWithConcurrentWrites.getAndDecrement() > 0) {
+                writeRowsAbove(keyRange.getStart_key());
+            }
+            return getRowsInRange(keyRange.getStart_key(), keyRange.getEnd_key(), keyRange.getCount()).stream()
+                    .map(row -> new KeySlice(ByteBuffer.wrap(row), ImmutableList.of(column(row))))
+                    .collect(Collectors.toList());
+        });
+        when(rowGetter.getRowKeysInRange(any(), any(), anyInt())).thenAnswer(invocation -> {
+            byte[] startInclusive = invocation.getArgument(0);
+            byte[] endInclusive = invocation.getArgument(1);
+            return getRowsInRange(startInclusive, endInclusive, invocation.getArgument(2));
+        });
+    }
+
+    @Test
+    public void returnsEveryRowInDescendingOrder() {
+        for (long i = 0; i < 1_000; i++) {
+            rows.add(Longs.toByteArray(i * 7_919));
+        }
+
+        assertThat(getRange(RangeRequest.reverseBuilder().batchHint(BATCH_HINT).build()))
+                .containsExactlyElementsOf(rows.descendingSet());
+    }
+
+    @Test
+    public void respectsTheBoundsOfTheRange() {
+        for (long i = 0; i < 1_000; i++) {
+            rows.add(Longs.toByteArray(i));
+        }
+        RangeRequest request = RangeRequest.reverseBuilder()
+                .startRowInclusive(Longs.toByteArray(900))
+                .endRowExclusive(Longs.toByteArray(100))
+                .batchHint(BATCH_HINT)
+                .build();
+
+        assertThat(getRange(request))
+                .containsExactlyElementsOf(
+                        rows.subSet(Longs.toByteArray(100), false, Longs.toByteArray(900), true)
+                                .descendingSet());
+    }
+
+    @Test
+    public void returnsUnevenlySpreadRows() {
+        Random random = new Random(0);
+        for (int i = 0; i < 500; i++) {
+            byte[] row = new byte[1 + random.nextInt(8)];
+            random.nextBytes(row);
+            rows.add(row);
+            rows.add(Bytes.concat(PtBytes.toBytes("cluster"), row));
+        }
+        rows.add(PtBytes.toBytes("a"));
+        rows.add(Bytes.concat(PtBytes.toBytes("a"), new byte[1]));
+        rows.add(Bytes.concat(PtBytes.toBytes("a"), new byte[2]));
+
+        assertThat(getRange(RangeRequest.reverseBuilder().batchHint(BATCH_HINT).build()))
+                .containsExactlyElementsOf(rows.descendingSet());
+    }
+
+    @Test
+    public void readsEvenlySpreadRowsInAFewRequestsPerPage() {
+        for (long i = 0; i < 1_000; i++) {
+            rows.add(Longs.toByteArray(i * 1_000_003));
+        }
+
+        assertThat(getRange(RangeRequest.reverseBuilder().batchHint(BATCH_HINT).build()))
+                .hasSize(1_000);
+        int pages = 1_000 / BATCH_HINT;
+        assertThat(reads.get()).isLessThan(4 * pages);
+    }
+
+    @Test
+    public void findsTheFirstPageOfPrefixedTimeOrderedRowsInLogarithmicallyManyRequests() {
+        int numRows = 1_000;
+        long firstTimestamp = 1_650_000_000_000L;
+        for (long i = 0; i < numRows; i++) {
+            rows.add(Bytes.concat(PtBytes.toBytes("events"), Longs.toByteArray(firstTimestamp + i * 1_000)));
+        }
+
+        Iterator<RowResult<byte[]>> iterator =
+                getIterable(RangeRequest.reverseBuilder().batchHint(BATCH_HINT).build()).iterator();
+        assertThat(iterator.next().getRowName()).isEqualTo(rows.last());
+        int doublings = 32 - Integer.numberOfLeadingZeros(numRows / BATCH_HINT);
+        assertThat(reads.get()).isLessThanOrEqualTo(2 * doublings + 4);
+    }
+
+    @Test
+    public void completesPagesWhileRowsAreWrittenIntoEveryWindowRead() {
+        for (long i = 0; i < 1_000; i++) {
+            rows.add(Longs.toByteArray(i * 7_919));
+        }
+        List<byte[]> originalRows = new ArrayList<>(rows);
+        readsWithConcurrentWrites.set(10);
+
+        List<byte[]> results = getRange(RangeRequest.reverseBuilder().batchHint(BATCH_HINT).build());
+
+        assertThat(results).isSortedAccordingTo(UnsignedBytes.lexicographicalComparator().reversed());
+        assertThat(results).doesNotHaveDuplicates().containsAll(originalRows);
+    }
+
+    @Test
+    public void returnsNothingForAnEmptyTable() {
+        assertThat(getRange(RangeRequest.reverseBuilder().batchHint(BATCH_HINT).build()))
+                .isEmpty();
+    }
+
+    private List<byte[]> getRange(RangeRequest request) {
+        List<byte[]> results = new ArrayList<>();
+        for (RowResult<byte[]> result : getIterable(request)) {
+            assertThat(result.getOnlyColumnValue()).isEqualTo(result.getRowName());
+            results.add(result.getRowName());
+        }
+        return results;
+    }
+
+    private CassandraReverseRangePagingIterable<byte[]> getIterable(RangeRequest request) {
+        return new CassandraReverseRangePagingIterable<>(
+                rowGetter,
+                new SlicePredicate(),
+                CassandraReverseRangePagingIterableTest::getColumnsByRow,
+                request,
+                ByteArrayExtractor::new,
+                READ_TIMESTAMP);
+    }
+
+    /**
+     * Writes more than a page of rows just above the given row, as another writer might while a window is read.
+     */
+    private void writeRowsAbove(byte[] row) {
+        for (int i = 0; i <= BATCH_HINT; i++) {
+            rows.add(Bytes.concat(row, new byte[] {1, (byte) readsWithConcurrentWrites.get(), (byte) i}));
+        }
+    }
+
+    private List<byte[]> getRowsInRange(byte[] startInclusive, byte[] endInclusive, int maxResults) {
+        reads.incrementAndGet();
+        NavigableSet<byte[]> range = endInclusive.length == 0
+                ? rows.tailSet(startInclusive, true)
+                : rows.subSet(startInclusive, true, endInclusive, true);
+        return range.stream().limit(maxResults).collect(Collectors.toList());
+    }
+
+    private static Map<ByteBuffer, List<ColumnOrSuperColumn>> getColumnsByRow(List<KeySlice> slices) {
+        return slices.stream().collect(Collectors.toMap(KeySlice::bufferForKey, KeySlice::getColumns));
+    }
+
+    private static ColumnOrSuperColumn column(byte[] row) {
+        Column column = new Column(CassandraKeyValueServices.makeCompositeBuffer(COLUMN, WRITE_TIMESTAMP))
+                .setValue(row)
+                .setTimestamp(WRITE_TIMESTAMP);
+        return new ColumnOrSuperColumn().setColumn(column);
+    }
+
+    private static final class ByteArrayExtractor extends ResultsExtractor<byte[]> {
+        private final Map<Cell, byte[]> collector = new HashMap<>();
+
+        private ByteArrayExtractor() {
+            super(METRICS_MANAGER);
+        }
+
+        @Override
+        public void internalExtractResult(
+                long startTs, ColumnSelection selection, byte[] row, byte[] col, byte[] val, long ts) {
+            if (ts < startTs && selection.contains(col)) {
+                collector.put(Cell.create(row, col), val);
+            }
+        }
+
+        @Override
+        public Map<Cell, byte[]> asMap() {
+            return collector;
+        }
+    }
+}
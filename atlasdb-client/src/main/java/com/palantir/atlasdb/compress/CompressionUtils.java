@@ -15,35 +15,70 @@
  */
 package com.palantir.atlasdb.compress;
 
+import com.google.common.primitives.Ints;
 import com.palantir.atlasdb.table.description.ColumnValueDescription.Compression;
 import com.palantir.common.base.Throwables;
+import com.palantir.common.compression.LZ4ByteArrays;
+import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 import org.xerial.snappy.Snappy;
 
+/**
+ * Compresses column values. Snappy values are stored as bare Snappy buffers, as they always have been. LZ4 and
+ * DEFLATE values are framed: they start with a header naming their codec and uncompressed length, so a value is
+ * always decompressed with the codec that wrote it, whatever the column's compression is now.
+ * <p>
+ * This allows a compressed column to switch between compressions without rewriting its existing values: columns using
+ * any compression read both framed values and bare Snappy buffers, and the two can never be confused. Raw values
+ * cannot be told apart from either by their content, so uncompressed columns read all values as raw bytes, and
+ * changing a column from or to no compression requires rewriting its values.
+ */
 public final class CompressionUtils {
+    // A Snappy buffer starts with the uncompressed length as a varint, whose fifth byte can be at most 0x0F. Four
+    // 0xFF bytes followed by a codec id above 0x0F are therefore never the start of a valid Snappy buffer.
+    private static final byte[] FRAME_MAGIC = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+    private static final byte LZ4_FRAME_ID = 0x41;
+    private static final byte DEFLATE_FRAME_ID = 0x44;
+    private static final int FRAME_HEADER_LENGTH = FRAME_MAGIC.length + 1 + Integer.BYTES;
+
+    private static final ThreadLocal<Deflater> deflater =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(() -> new Inflater(true));
+
     private CompressionUtils() {
         // empty
     }
 
     public static byte[] compress(byte[] bytes, Compression compressionType) {
-        if (compressionType == Compression.SNAPPY) {
-            return compressWithSnappy(bytes);
-        } else if (compressionType == Compression.NONE) {
-            return bytes;
-        } else {
-            throw new UnsupportedOperationException();
+        switch (compressionType) {
+            case NONE:
+                return bytes;
+            case SNAPPY:
+                return compressWithSnappy(bytes);
+            case LZ4:
+                return compressWithLz4(bytes);
+            case DEFLATE:
+                return compressWithDeflate(bytes);
         }
+        throw new SafeIllegalStateException("Unknown compression", SafeArg.of("compression", compressionType));
     }
 
     public static byte[] decompress(byte[] bytes, Compression compressionType) {
-        if (compressionType == Compression.SNAPPY) {
-            return decompressWithSnappy(bytes);
-        } else if (compressionType == Compression.NONE) {
-            return bytes;
-        } else {
-            throw new UnsupportedOperationException();
+        switch (compressionType) {
+            case NONE:
+                return bytes;
+            case SNAPPY:
+            case LZ4:
+            case DEFLATE:
+                return isFramed(bytes) ? decompressFramed(bytes) : decompressWithSnappy(bytes);
         }
+        throw new SafeIllegalStateException("Unknown compression", SafeArg.of("compression", compressionType));
     }
 
     public static byte[] compressWithSnappy(byte[] bytes) {
@@ -64,4 +99,93 @@ public final class CompressionUtils {
             throw Throwables.throwUncheckedException(e);
         }
     }
+
+    private static byte[] compressWithLz4(byte[] bytes) {
+        byte[] framed = LZ4ByteArrays.compress(bytes, FRAME_HEADER_LENGTH);
+        writeFrameHeader(framed, LZ4_FRAME_ID, bytes.length);
+        return framed;
+    }
+
+    private static byte[] compressWithDeflate(byte[] bytes) {
+        Deflater compressor = deflater.get();
+        compressor.reset();
+        compressor.setInput(bytes);
+        compressor.finish();
+        byte[] framed = new byte[FRAME_HEADER_LENGTH + bytes.length + 16];
+        int length = FRAME_HEADER_LENGTH;
+        while (!compressor.finished()) {
+            if (length == framed.length) {
+                framed = Arrays.copyOf(framed, 2 * framed.length);
+            }
+            length += compressor.deflate(framed, length, framed.length - length);
+        }
+        writeFrameHeader(framed, DEFLATE_FRAME_ID, bytes.length);
+        return Arrays.copyOf(framed, length);
+    }
+
+    private static byte[] inflate(byte[] bytes, int uncompressedLength) {
+        Inflater decompressor = inflater.get();
+        decompressor.reset();
+        decompressor.setInput(bytes, FRAME_HEADER_LENGTH, bytes.length - FRAME_HEADER_LENGTH);
+        byte[] decompressed = new byte[uncompressedLength];
+        int length = 0;
+        try {
+            while (length < uncompressedLength) {
+                int inflated = decompressor.inflate(decompressed, length, uncompressedLength - length);
+                if (inflated == 0 && (decompressor.finished() || decompressor.needsInput())) {
+                    break;
+                }
+                length += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new SafeIllegalArgumentException("Cannot decompress these bytes using DEFLATE", e);
+        }
+        if (length != uncompressedLength) {
+            throw new SafeIllegalArgumentException(
+                    "DEFLATE value decompressed to an unexpected length",
+                    SafeArg.of("expectedLength", uncompressedLength),
+                    SafeArg.of("actualLength", length));
+        }
+        return decompressed;
+    }
+
+    private static void writeFrameHeader(byte[] framed, byte frameId, int uncompressedLength) {
+        System.arraycopy(FRAME_MAGIC, 0, framed, 0, FRAME_MAGIC.length);
+        framed[FRAME_MAGIC.length] = frameId;
+        System.arraycopy(Ints.toByteArray(uncompressedLength), 0, framed, FRAME_MAGIC.length + 1, Integer.BYTES);
+    }
+
+    private static boolean isFramed(byte[] bytes) {
+        if (bytes.length < FRAME_HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < FRAME_MAGIC.length; i++) {
+            if (bytes[i] != FRAME_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] decompressFramed(byte[] bytes) {
+        int uncompressedLength = Ints.fromBytes(
+                bytes[FRAME_MAGIC.length + 1],
+                bytes[FRAME_MAGIC.length + 2],
+                bytes[FRAME_MAGIC.length + 3],
+                bytes[FRAME_MAGIC.length + 4]);
+        if (uncompressedLength < 0) {
+            throw new SafeIllegalArgumentException(
+                    "Compressed value has a negative length", SafeArg.of("length", uncompressedLength));
+        }
+        byte frameId = bytes[FRAME_MAGIC.length];
+        switch (frameId) {
+            case LZ4_FRAME_ID:
+                return LZ4ByteArrays.decompress(bytes, FRAME_HEADER_LENGTH, uncompressedLength);
+            case DEFLATE_FRAME_ID:
+                return inflate(bytes, uncompressedLength);
+            default:
+                throw new SafeIllegalArgumentException(
+                        "Compressed value has an unknown codec", SafeArg.of("codecId", frameId));
+        }
+    }
 }
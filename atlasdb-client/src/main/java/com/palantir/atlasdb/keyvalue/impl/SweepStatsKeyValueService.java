@@ -15,10 +15,12 @@
  */
 package com.palantir.atlasdb.keyvalue.impl;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Functions;
 import com.google.common.collect.Collections2;
-import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
@@ -26,6 +28,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.ClusterAvailabilityStatus;
@@ -39,6 +42,8 @@ import com.palantir.atlasdb.schema.generated.SweepPriorityTable;
 import com.palantir.atlasdb.schema.generated.SweepPriorityTable.SweepPriorityNamedColumn;
 import com.palantir.atlasdb.schema.generated.SweepPriorityTable.SweepPriorityRow;
 import com.palantir.atlasdb.transaction.impl.TransactionConstants;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.atlasdb.util.MetricsManagers;
 import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.persist.Persistables;
 import com.palantir.logsafe.Preconditions;
@@ -47,22 +52,26 @@ import com.palantir.logsafe.UnsafeArg;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
 import com.palantir.timestamp.TimestampService;
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 /**
  * This kvs wrapper tracks the approximate number of writes to every table
  * since the last time the table was completely swept. This is used when
  * deciding the order in which tables should be swept.
+ *
+ * Writes are counted in {@link LongAdder}s, so that concurrent writers do not contend on a shared counter. A flush
+ * takes the counts accumulated so far and resets them in the same step, without blocking writers; writes recorded
+ * while a flush is in progress are left for the next flush. Flushes only run on a single scheduled thread, so at most
+ * one is ever in progress.
  */
 public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
 
@@ -80,22 +89,45 @@ public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
     private final Supplier<Long> writeSizeThreshold; // size of values which allows write stats to be flushed
     private final Supplier<Boolean> isEnabled; // for toggling legacy sweep enabled/disabled online
 
-    private final Multiset<TableReference> writesByTable = ConcurrentHashMultiset.create();
+    private final MetricsManager metricsManager;
+
+    private final ConcurrentMap<TableReference, TableWrites> writesByTable = new ConcurrentHashMap<>();
 
     private final Set<TableReference> clearedTables = ConcurrentHashMap.newKeySet();
 
-    private final AtomicInteger totalModifications = new AtomicInteger();
-    private final AtomicLong totalModificationsSize = new AtomicLong();
-    private final Lock flushLock = new ReentrantLock();
+    private final LongAdder totalModifications = new LongAdder();
+    private final LongAdder totalModificationsSize = new LongAdder();
     private final ScheduledExecutorService flushExecutor = PTExecutors.newSingleThreadScheduledExecutor();
 
+    /**
+     * @deprecated use {@link #create(KeyValueService, TimestampService, Supplier, Supplier, Supplier, MetricsManager)},
+     * so that the metrics of this service are reported.
+     */
+    @Deprecated
     public static SweepStatsKeyValueService create(
             KeyValueService delegate,
             TimestampService timestampService,
             Supplier<Integer> writeThreshold,
             Supplier<Long> writeSizeThreshold,
             Supplier<Boolean> isEnabled) {
-        return new SweepStatsKeyValueService(delegate, timestampService, writeThreshold, writeSizeThreshold, isEnabled);
+        return create(
+                delegate,
+                timestampService,
+                writeThreshold,
+                writeSizeThreshold,
+                isEnabled,
+                MetricsManagers.of(new MetricRegistry(), new DefaultTaggedMetricRegistry()));
+    }
+
+    public static SweepStatsKeyValueService create(
+            KeyValueService delegate,
+            TimestampService timestampService,
+            Supplier<Integer> writeThreshold,
+            Supplier<Long> writeSizeThreshold,
+            Supplier<Boolean> isEnabled,
+            MetricsManager metricsManager) {
+        return new SweepStatsKeyValueService(
+                delegate, timestampService, writeThreshold, writeSizeThreshold, isEnabled, metricsManager);
     }
 
     private SweepStatsKeyValueService(
@@ -103,12 +135,20 @@ public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
             TimestampService timestampService,
             Supplier<Integer> writeThreshold,
             Supplier<Long> writeSizeThreshold,
-            Supplier<Boolean> isEnabled) {
+            Supplier<Boolean> isEnabled,
+            MetricsManager metricsManager) {
         this.delegate = delegate;
         this.timestampService = timestampService;
         this.writeThreshold = writeThreshold;
         this.writeSizeThreshold = writeSizeThreshold;
         this.isEnabled = isEnabled;
+        this.metricsManager = metricsManager;
+        metricsManager.registerMetric(
+                SweepStatsKeyValueService.class, "unflushedModifications", (Gauge<Long>) totalModifications::sum);
+        metricsManager.registerMetric(
+                SweepStatsKeyValueService.class,
+                "unflushedModificationsSize",
+                (Gauge<Long>) totalModificationsSize::sum);
         this.flushExecutor.scheduleWithFixedDelay(
                 this::flushTask, FLUSH_DELAY_SECONDS, FLUSH_DELAY_SECONDS, TimeUnit.SECONDS);
     }
@@ -122,7 +162,7 @@ public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
     public void put(TableReference tableRef, Map<Cell, byte[]> values, long timestamp) {
         delegate().put(tableRef, values, timestamp);
         if (isEnabled.get()) {
-            writesByTable.add(tableRef, values.size());
+            recordWrites(tableRef, values.size());
             recordModifications(values.size());
             recordModificationsSize(values.entrySet().stream()
                     .mapToLong(cellEntry -> cellEntry.getValue().length)
@@ -137,7 +177,7 @@ public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
             int newWrites = 0;
             long writesSize = 0;
             for (Map.Entry<TableReference, ? extends Map<Cell, byte[]>> entry : valuesByTable.entrySet()) {
-                writesByTable.add(entry.getKey(), entry.getValue().size());
+                recordWrites(entry.getKey(), entry.getValue().size());
                 newWrites += entry.getValue().size();
                 writesSize += entry.getValue().entrySet().stream()
                         .mapToLong(cellEntry -> cellEntry.getValue().length)
@@ -152,7 +192,7 @@ public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
     public void putWithTimestamps(TableReference tableRef, Multimap<Cell, Value> cellValues) {
         delegate().putWithTimestamps(tableRef, cellValues);
         if (isEnabled.get()) {
-            writesByTable.add(tableRef, cellValues.size());
+            recordWrites(tableRef, cellValues.size());
             recordModifications(cellValues.size());
             recordModificationsSize(cellValues.entries().stream()
                     .mapToLong(cellEntry -> cellEntry.getValue().getContents().length)
@@ -183,8 +223,7 @@ public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
     public void truncateTables(Set<TableReference> tableRefs) {
         delegate().truncateTables(tableRefs);
         if (isEnabled.get()) {
-            clearedTables.addAll(tableRefs);
-            recordModifications(CLEAR_WEIGHT * tableRefs.size());
+            tableRefs.forEach(this::recordClear);
         }
     }
 
@@ -212,24 +251,45 @@ public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
         return clearedTables.contains(tableRef);
     }
 
+    @VisibleForTesting
+    long getUnflushedWrites(TableReference tableRef) {
+        TableWrites tableWrites = writesByTable.get(tableRef);
+        return tableWrites == null ? 0 : tableWrites.unflushed.sum();
+    }
+
     // This way of recording the number of writes to tables is obviously not
     // completely correct. It does no synchronization between processes (so
     // updates could be clobbered), and it makes little effort to ensure that
     // all updates are flushed. It is intended only to be "good enough" for
     // determining what tables have been written to a lot.
+    private void recordWrites(TableReference tableRef, int newWrites) {
+        TableWrites tableWrites = writesByTable.computeIfAbsent(tableRef, this::createTableWrites);
+        tableWrites.unflushed.add(newWrites);
+        tableWrites.written.inc(newWrites);
+    }
+
     private void recordModifications(int newWrites) {
-        totalModifications.addAndGet(newWrites);
+        totalModifications.add(newWrites);
     }
 
     private void recordModificationsSize(long modificationSize) {
-        totalModificationsSize.addAndGet(modificationSize);
+        totalModificationsSize.add(modificationSize);
     }
 
     private void recordClear(TableReference tableRef) {
         clearedTables.add(tableRef);
+        metricsManager
+                .registerOrGetTaggedCounter(
+                        SweepStatsKeyValueService.class, "clears", metricsManager.getTableNameTagFor(tableRef))
+                .inc();
         recordModifications(CLEAR_WEIGHT);
     }
 
+    private TableWrites createTableWrites(TableReference tableRef) {
+        return new TableWrites(metricsManager.registerOrGetTaggedCounter(
+                SweepStatsKeyValueService.class, "writes", metricsManager.getTableNameTagFor(tableRef)));
+    }
+
     private void flushTask() {
         if (!shouldFlush()) {
             log.debug(
@@ -243,24 +303,11 @@ public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
         }
 
         try {
-            if (flushLock.tryLock()) {
-                try {
-                    if (shouldFlush()) {
-                        // snapshot current values while holding the lock and flush
-                        totalModifications.set(0);
-                        totalModificationsSize.set(0);
-                        Multiset<TableReference> localWritesByTable = ImmutableMultiset.copyOf(writesByTable);
-                        writesByTable.clear();
-                        Set<TableReference> localClearedTables = ImmutableSet.copyOf(clearedTables);
-                        clearedTables.clear();
-
-                        // apply back pressure by only allowing one flush at a time
-                        flushWrites(localWritesByTable, localClearedTables);
-                    }
-                } finally {
-                    flushLock.unlock();
-                }
-            }
+            totalModifications.reset();
+            totalModificationsSize.reset();
+            Set<TableReference> localClearedTables = takeClearedTables();
+            Multiset<TableReference> localWritesByTable = takeWritesByTable();
+            flushWrites(localWritesByTable, localClearedTables);
         } catch (Throwable t) {
             if (!Thread.interrupted()) {
                 log.warn("Error occurred while flushing sweep stats", t);
@@ -269,8 +316,29 @@ public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
     }
 
     private boolean shouldFlush() {
-        return totalModifications.get() >= writeThreshold.get()
-                || totalModificationsSize.get() >= writeSizeThreshold.get();
+        return totalModifications.sum() >= writeThreshold.get()
+                || totalModificationsSize.sum() >= writeSizeThreshold.get();
+    }
+
+    private Set<TableReference> takeClearedTables() {
+        ImmutableSet.Builder<TableReference> taken = ImmutableSet.builder();
+        for (TableReference tableRef : clearedTables) {
+            if (clearedTables.remove(tableRef)) {
+                taken.add(tableRef);
+            }
+        }
+        return taken.build();
+    }
+
+    private Multiset<TableReference> takeWritesByTable() {
+        ImmutableMultiset.Builder<TableReference> taken = ImmutableMultiset.builder();
+        writesByTable.forEach((tableRef, tableWrites) -> {
+            long writes = tableWrites.unflushed.sumThenReset();
+            if (writes > 0) {
+                taken.addCopies(tableRef, Ints.saturatedCast(writes));
+            }
+        });
+        return taken.build();
     }
 
     private void flushWrites(Multiset<TableReference> writes, Set<TableReference> clears) {
@@ -350,4 +418,13 @@ public final class SweepStatsKeyValueService extends ForwardingKeyValueService {
         byte[] value = TransactionConstants.getValueForTimestamp(timestamp);
         delegate().putUnlessExists(TransactionConstants.TRANSACTION_TABLE, ImmutableMap.of(cell, value));
     }
+
+    private static final class TableWrites {
+        private final LongAdder unflushed = new LongAdder();
+        private final Counter written;
+
+        private TableWrites(Counter written) {
+            this.written = written;
+        }
+    }
 }
@@ -15,6 +15,7 @@
  */
 package com.palantir.atlasdb.stream;
 
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
@@ -27,6 +28,8 @@ import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
 import com.palantir.common.base.Throwables;
 import com.palantir.common.compression.StreamCompression;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.UnsafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
@@ -34,15 +37,20 @@ import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
 import com.palantir.util.ByteArrayIOStream;
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 
@@ -53,13 +61,28 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
     protected final TransactionManager txnMgr;
 
     private final StreamCompression compression;
+    private final Supplier<StreamStorePersistenceConfiguration> persistenceConfiguration;
+    private final Supplier<ExecutorService> prefetchExecutor = Suppliers.memoize(this::createPrefetchExecutor);
+    private final AtomicBoolean loggedPrefetchWithoutTransactionManager = new AtomicBoolean();
 
     protected AbstractGenericStreamStore(TransactionManager txManager, StreamCompression compression) {
+        this(txManager, compression, () -> StreamStorePersistenceConfigurations.DEFAULT_CONFIG);
+    }
+
+    protected AbstractGenericStreamStore(
+            TransactionManager txManager,
+            StreamCompression compression,
+            Supplier<StreamStorePersistenceConfiguration> persistenceConfiguration) {
         this.txnMgr = txManager;
         this.compression = compression;
+        this.persistenceConfiguration = persistenceConfiguration;
     }
 
     private long getNumberOfBlocksFromMetadata(StreamMetadata metadata) {
+        if (metadata.getChunkIdsCount() > 0) {
+            // Chunked streams have no blocks of their own.
+            return 0;
+        }
         return (metadata.getLength() + BLOCK_SIZE_IN_BYTES - 1) / BLOCK_SIZE_IN_BYTES;
     }
 
@@ -99,7 +122,52 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
-    private InputStream getStream(Transaction transaction, T id, StreamMetadata metadata) {
+    @Override
+    public Optional<InputStream> loadStreamRange(Transaction transaction, T id, long offset, long length) {
+        Preconditions.checkArgument(
+                offset >= 0 && length >= 0,
+                "Offset and length must be non-negative",
+                SafeArg.of("offset", offset),
+                SafeArg.of("length", length));
+        Map<T, StreamMetadata> idToMetadata = getMetadata(transaction, ImmutableSet.of(id));
+        if (idToMetadata.isEmpty()) {
+            return Optional.empty();
+        }
+
+        StreamMetadata metadata = getOnlyStreamMetadata(idToMetadata);
+        checkStreamStored(id, metadata);
+        if (compression != StreamCompression.NONE || metadata.getChunkIdsCount() > 0) {
+            // Offsets into a compressed or chunked stream do not correspond to its stored blocks, so we have to read
+            // from the start.
+            return Optional.of(skipAndLimit(getStream(transaction, id, metadata), offset, length));
+        }
+
+        long end = offset + Math.min(length, Math.max(0L, metadata.getLength() - offset));
+        if (offset >= end) {
+            return Optional.of(new ByteArrayInputStream(new byte[0]));
+        }
+        long firstBlock = offset / BLOCK_SIZE_IN_BYTES;
+        long endBlock = (end + BLOCK_SIZE_IN_BYTES - 1) / BLOCK_SIZE_IN_BYTES;
+        InputStream blocks = makeStream(transaction, id, metadata, firstBlock, endBlock - firstBlock);
+        return Optional.of(skipAndLimit(blocks, offset - firstBlock * BLOCK_SIZE_IN_BYTES, end - offset));
+    }
+
+    private static InputStream skipAndLimit(InputStream stream, long bytesToSkip, long limit) {
+        try {
+            ByteStreams.skipFully(stream, bytesToSkip);
+        } catch (EOFException e) {
+            // The range starts beyond the end of the stream.
+        } catch (IOException e) {
+            throw Throwables.rewrapAndThrowUncheckedException("Could not seek to the start of the range.", e);
+        }
+        return ByteStreams.limit(stream, limit);
+    }
+
+    protected final InputStream getStream(Transaction transaction, T id, StreamMetadata metadata) {
+        if (metadata != null && metadata.getChunkIdsCount() > 0) {
+            checkStreamStored(id, metadata);
+            return loadChunkedStream(transaction, metadata.getChunkIdsList());
+        }
         try {
             return compression.decompress(tryGetStream(transaction, id, metadata));
         } catch (FileNotFoundException e) {
@@ -118,22 +186,20 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
             loadSingleBlockToOutputStream(transaction, id, 0, ios);
             return ios.getInputStream();
         } else {
-            return makeStream(transaction, id, metadata);
+            return makeStream(transaction, id, metadata, 0L, getNumberOfBlocksFromMetadata(metadata));
         }
     }
 
-    private InputStream makeStream(Transaction parent, T id, StreamMetadata metadata) {
-        long totalBlocks = getNumberOfBlocksFromMetadata(metadata);
-        int blocksInMemory = getNumberOfBlocksThatFitInMemory();
-
+    private InputStream makeStream(
+            Transaction parent, T id, StreamMetadata metadata, long startBlock, long totalBlocks) {
         BlockGetter pageRefresher = new BlockGetter() {
             @Override
             public void get(long firstBlock, long numBlocks, OutputStream destination) {
                 if (parent.isUncommitted()) {
-                    loadNBlocksToOutputStream(parent, id, firstBlock, numBlocks, destination);
+                    loadNBlocksToOutputStream(parent, id, startBlock + firstBlock, numBlocks, destination);
                 } else {
                     txnMgr.runTaskReadOnly(txn -> {
-                        loadNBlocksToOutputStream(txn, id, firstBlock, numBlocks, destination);
+                        loadNBlocksToOutputStream(txn, id, startBlock + firstBlock, numBlocks, destination);
                         return null;
                     });
                 }
@@ -145,6 +211,30 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
             }
         };
 
+        long prefetchBlocks = persistenceConfiguration.get().readPrefetchBytes() / BLOCK_SIZE_IN_BYTES;
+        if (prefetchBlocks > 0 && isVisibleOutsideOf(parent, id, metadata)) {
+            // Prefetches run concurrently with the caller, which may commit or abort the parent transaction at any
+            // point, so they never use it; each reads its blocks in a read-only transaction of its own. That only
+            // sees the same blocks as the parent if the stream was committed before the parent started.
+            BlockGetter prefetchingBlockGetter = new BlockGetter() {
+                @Override
+                public void get(long firstBlock, long numBlocks, OutputStream destination) {
+                    txnMgr.runTaskReadOnly(txn -> {
+                        loadNBlocksToOutputStream(txn, id, startBlock + firstBlock, numBlocks, destination);
+                        return null;
+                    });
+                }
+
+                @Override
+                public int expectedBlockLength() {
+                    return BLOCK_SIZE_IN_BYTES;
+                }
+            };
+            return PrefetchingBlockInputStream.create(
+                    prefetchingBlockGetter, totalBlocks, Ints.saturatedCast(prefetchBlocks), prefetchExecutor.get());
+        }
+
+        int blocksInMemory = getNumberOfBlocksThatFitInMemory();
         try {
             return BlockConsumingInputStream.create(pageRefresher, totalBlocks, blocksInMemory);
         } catch (IOException e) {
@@ -152,6 +242,37 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
         }
     }
 
+    /**
+     * Returns whether other transactions see the same stream as the parent. While the parent is uncommitted, that is
+     * the case if the stream was committed before the parent started rather than stored by the parent itself, which
+     * is checked by reading its metadata in a new read-only transaction.
+     */
+    private boolean isVisibleOutsideOf(Transaction parent, T id, StreamMetadata metadata) {
+        if (txnMgr == null) {
+            if (loggedPrefetchWithoutTransactionManager.compareAndSet(false, true)) {
+                log.warn("Stream blocks are not prefetched, because this stream store has no transaction manager"
+                        + " to prefetch them with. They are loaded as they are read instead.");
+            }
+            return false;
+        }
+        if (!parent.isUncommitted()) {
+            return true;
+        }
+        StreamMetadata committedMetadata =
+                txnMgr.runTaskReadOnly(txn -> getMetadata(txn, ImmutableSet.of(id)).get(id));
+        return metadata.equals(committedMetadata);
+    }
+
+    /**
+     * The prefetch threads belong to this store and exit once idle; the pool is shut down when the transaction
+     * manager is closed.
+     */
+    private ExecutorService createPrefetchExecutor() {
+        ExecutorService executor = PTExecutors.newCachedThreadPool("stream-store-prefetch");
+        txnMgr.registerClosingCallback(executor::shutdownNow);
+        return executor;
+    }
+
     protected int getNumberOfBlocksThatFitInMemory() {
         int inMemoryThreshold = (int) getInMemoryThreshold(); // safe; actually defined as an int in generated code.
         int blocksInMemory = inMemoryThreshold / BLOCK_SIZE_IN_BYTES;
@@ -221,6 +342,9 @@ public abstract class AbstractGenericStreamStore<T> implements GenericStreamStor
         fos.close();
     }
 
+    /** Returns the concatenation of the given chunks, each of which is a stream in this store. */
+    protected abstract InputStream loadChunkedStream(Transaction tx, List<Long> chunkIds);
+
     protected abstract File createTempFile(T id) throws IOException;
 
     protected abstract void loadSingleBlockToOutputStream(Transaction tx, T streamId, long blockId, OutputStream os);
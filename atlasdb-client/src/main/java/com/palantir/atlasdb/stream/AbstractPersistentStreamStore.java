@@ -16,11 +16,15 @@
 package com.palantir.atlasdb.stream;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.CountingInputStream;
+import com.google.common.primitives.Bytes;
 import com.google.protobuf.ByteString;
 import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.protos.generated.StreamPersistence.Status;
@@ -31,22 +35,39 @@ import com.palantir.atlasdb.transaction.api.TransactionTask;
 import com.palantir.atlasdb.transaction.impl.TxTask;
 import com.palantir.common.base.Throwables;
 import com.palantir.common.compression.StreamCompression;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import com.palantir.util.Pair;
 import com.palantir.util.crypto.Sha256Hash;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
 public abstract class AbstractPersistentStreamStore extends AbstractGenericStreamStore<Long>
         implements PersistentStreamStore {
+    private static final Supplier<ExecutorService> blockWriteExecutor =
+            Suppliers.memoize(() -> PTExecutors.newCachedThreadPool("stream-store-block-writer"));
+    private static final byte[] CHUNK_REFERENCE_PREFIX = PtBytes.toBytes("chunk-of-stream-");
+
     private final StreamStoreBackoffStrategy backoffStrategy;
     private final StreamCompression compression;
+    private final Supplier<StreamStorePersistenceConfiguration> persistenceConfiguration;
 
     protected AbstractPersistentStreamStore(TransactionManager txManager, StreamCompression compression) {
         this(txManager, compression, () -> StreamStorePersistenceConfigurations.DEFAULT_CONFIG);
@@ -56,8 +77,9 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
             TransactionManager txManager,
             StreamCompression compression,
             Supplier<StreamStorePersistenceConfiguration> persistenceConfiguration) {
-        super(txManager, compression);
+        super(txManager, compression, persistenceConfiguration);
         this.compression = compression;
+        this.persistenceConfiguration = persistenceConfiguration;
         this.backoffStrategy = StandardPeriodicBackoffStrategy.create(persistenceConfiguration);
     }
 
@@ -158,6 +180,14 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
 
     // This method is overridden in generated code. Changes to this method may have unintended consequences.
     protected StreamMetadata storeBlocksAndGetFinalMetadata(@Nullable Transaction tx, long id, InputStream stream) {
+        int averageChunkBytes = persistenceConfiguration.get().contentDefinedChunkAverageBytes();
+        if (!streamOperationIsTransactional(tx) && averageChunkBytes > 0) {
+            return storeChunksAndGetFinalMetadata(id, stream, averageChunkBytes);
+        }
+        return storeBlocksAndGetUnchunkedMetadata(tx, id, stream);
+    }
+
+    private StreamMetadata storeBlocksAndGetUnchunkedMetadata(@Nullable Transaction tx, long id, InputStream stream) {
         MessageDigest digest = Sha256Hash.getMessageDigest();
         try (InputStream hashingStream = new DigestInputStream(stream, digest);
                 InputStream compressingStream = compression.compress(hashingStream)) {
@@ -170,6 +200,118 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
         }
     }
 
+    /**
+     * Splits the stream into content-defined chunks and stores each chunk as a stream of its own, reusing any stream
+     * already stored with the same hash. Each chunk is marked as used by a reference derived from this stream's id,
+     * which is removed when this stream is cleaned up, so a chunk is itself cleaned up once no stream contains it.
+     */
+    private StreamMetadata storeChunksAndGetFinalMetadata(long id, InputStream stream, int averageChunkBytes) {
+        MessageDigest digest = Sha256Hash.getMessageDigest();
+        List<Long> chunkIds = new ArrayList<>();
+        long length = 0;
+        try (InputStream hashingStream = new DigestInputStream(stream, digest)) {
+            ContentDefinedChunker chunker = new ContentDefinedChunker(hashingStream, averageChunkBytes);
+            for (byte[] chunk = chunker.nextChunk(); chunk != null; chunk = chunker.nextChunk()) {
+                chunkIds.add(storeChunk(id, chunk));
+                length += chunk.length;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Record the chunks stored so far, so that cleaning up the failed stream releases them.
+            StreamMetadata metadata = StreamMetadata.newBuilder()
+                    .setStatus(Status.FAILED)
+                    .setLength(length)
+                    .setHash(ByteString.EMPTY)
+                    .addAllChunkIds(chunkIds)
+                    .build();
+            storeMetadataAndIndex(id, metadata);
+            log.error(
+                    "Could not store stream {}. Failed after {} bytes.",
+                    SafeArg.of("stream", id),
+                    SafeArg.of("length", length),
+                    e);
+            throw Throwables.rewrapAndThrowUncheckedException("Failed to store stream.", e);
+        }
+        return StreamMetadata.newBuilder()
+                .setStatus(Status.STORED)
+                .setLength(length)
+                .setHash(ByteString.copyFrom(digest.digest()))
+                .addAllChunkIds(chunkIds)
+                .build();
+    }
+
+    private long storeChunk(long streamId, byte[] chunk) {
+        com.palantir.logsafe.Preconditions.checkNotNull(txnMgr, "Transaction manager must not be null");
+        Sha256Hash hash = Sha256Hash.computeHash(chunk);
+        Long existingChunkId = txnMgr.runTaskWithRetry(tx -> {
+            Long chunkId = lookupStreamIdByHash(tx, hash);
+            if (chunkId == null) {
+                return null;
+            }
+            try {
+                markStreamsAsUsed(tx, ImmutableMap.of(chunkId, getChunkReference(streamId)));
+                return chunkId;
+            } catch (StreamCleanedException e) {
+                // The existing chunk is being cleaned up, so we store a new copy instead.
+                return null;
+            }
+        });
+        if (existingChunkId != null) {
+            return existingChunkId;
+        }
+
+        long chunkId = storeEmptyMetadata();
+        StreamMetadata metadata = storeBlocksAndGetUnchunkedMetadata(null, chunkId, new ByteArrayInputStream(chunk));
+        txnMgr.runTaskThrowOnConflict((TxTask) tx -> {
+            putMetadataAndHashIndexTask(tx, chunkId, metadata);
+            markStreamsAsUsedInternal(tx, ImmutableMap.of(chunkId, getChunkReference(streamId)));
+            return null;
+        });
+        return chunkId;
+    }
+
+    /**
+     * Releases the chunks of a stream that is being deleted, so that each chunk is cleaned up in turn once no other
+     * stream contains it. Called by the generated cleanup code for every stream it deletes.
+     */
+    protected final void unmarkChunksOfDeletedStream(Transaction tx, long streamId, StreamMetadata metadata) {
+        if (metadata.getChunkIdsCount() == 0) {
+            return;
+        }
+        byte[] reference = getChunkReference(streamId);
+        Map<Long, byte[]> chunkIdsToReference = new HashMap<>();
+        for (long chunkId : metadata.getChunkIdsList()) {
+            chunkIdsToReference.put(chunkId, reference);
+        }
+        unmarkStreamsAsUsed(tx, chunkIdsToReference);
+    }
+
+    private static byte[] getChunkReference(long streamId) {
+        return Bytes.concat(CHUNK_REFERENCE_PREFIX, PtBytes.toBytes(streamId));
+    }
+
+    @Override
+    protected InputStream loadChunkedStream(Transaction tx, List<Long> chunkIds) {
+        // Every chunk is looked up in the caller's transaction, so the whole stream is read from one snapshot.
+        Map<Long, StreamMetadata> chunkIdsToMetadata = getMetadata(tx, ImmutableSet.copyOf(chunkIds));
+        for (long chunkId : chunkIds) {
+            if (!chunkIdsToMetadata.containsKey(chunkId)) {
+                throw new SafeIllegalStateException(
+                        "A chunk of a chunked stream is missing", SafeArg.of("chunkId", chunkId));
+            }
+        }
+        Iterator<InputStream> chunks = Iterators.transform(
+                chunkIds.iterator(), chunkId -> loadChunk(tx, chunkId, chunkIdsToMetadata.get(chunkId)));
+        return new SequenceInputStream(Iterators.asEnumeration(chunks));
+    }
+
+    private InputStream loadChunk(Transaction tx, long chunkId, StreamMetadata metadata) {
+        if (tx.isUncommitted()) {
+            return getStream(tx, chunkId, metadata);
+        }
+        // The reader has outlived the caller's transaction; chunks are immutable, so any later snapshot will do.
+        return txnMgr.runTaskReadOnly(readTx -> getStream(readTx, chunkId, metadata));
+    }
+
     protected final StreamMetadata storeBlocksAndGetHashlessMetadata(
             @Nullable Transaction tx, long id, InputStream stream) {
         CountingInputStream countingStream = new CountingInputStream(stream);
@@ -202,22 +344,23 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
     }
 
     private void storeBlocksFromStream(@Nullable Transaction tx, long id, InputStream stream) throws IOException {
+        int maxBlocksInFlight = persistenceConfiguration.get().maxBlocksInFlightPerWrite();
+        if (!streamOperationIsTransactional(tx) && maxBlocksInFlight > 1) {
+            storeBlocksFromStreamConcurrently(id, stream, maxBlocksInFlight);
+            return;
+        }
+
         long blockNumber = 0;
 
         while (true) {
-            byte[] bytesToStore = new byte[BLOCK_SIZE_IN_BYTES];
-            int length = ByteStreams.read(stream, bytesToStore, 0, BLOCK_SIZE_IN_BYTES);
-            // Store only relevant data if it only filled a partial block
-            if (length == 0) {
+            byte[] bytesToStore = readBlock(stream);
+            if (bytesToStore == null) {
                 break;
             }
-            if (length < BLOCK_SIZE_IN_BYTES) {
+            storeBlockWithNonNullTransaction(tx, id, blockNumber, bytesToStore);
+            if (bytesToStore.length < BLOCK_SIZE_IN_BYTES) {
                 // This is the last block.
-                storeBlockWithNonNullTransaction(tx, id, blockNumber, PtBytes.head(bytesToStore, length));
                 break;
-            } else {
-                // Store a full block.
-                storeBlockWithNonNullTransaction(tx, id, blockNumber, bytesToStore);
             }
             blockNumber++;
             if (!streamOperationIsTransactional(tx)) {
@@ -226,6 +369,69 @@ public abstract class AbstractPersistentStreamStore extends AbstractGenericStrea
         }
     }
 
+    /**
+     * Writes blocks in their own transactions on a shared executor while the calling thread carries on reading the
+     * stream, so that reading, hashing and compressing overlap with the writes. The number of blocks read but not yet
+     * written is bounded by {@code maxBlocksInFlight}. Blocks may be written out of order; if any write fails, no
+     * further blocks are submitted and the failure is rethrown once the writes in flight have finished.
+     */
+    private void storeBlocksFromStreamConcurrently(long id, InputStream stream, int maxBlocksInFlight)
+            throws IOException {
+        Semaphore blocksInFlight = new Semaphore(maxBlocksInFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            long blockNumber = 0;
+            while (failure.get() == null) {
+                byte[] bytesToStore = readBlock(stream);
+                if (bytesToStore == null) {
+                    break;
+                }
+                blocksInFlight.acquire();
+                long blockToStore = blockNumber;
+                blockWriteExecutor.get().execute(() -> {
+                    try {
+                        storeBlockWithNonNullTransaction(null, id, blockToStore, bytesToStore);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        blocksInFlight.release();
+                    }
+                });
+                if (bytesToStore.length < BLOCK_SIZE_IN_BYTES) {
+                    // This is the last block.
+                    break;
+                }
+                blockNumber++;
+                backoffStrategy.accept(blockNumber);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to write a stream block");
+        } finally {
+            // Wait for every write in flight, so that the caller never records metadata for a partially written stream.
+            blocksInFlight.acquireUninterruptibly(maxBlocksInFlight);
+        }
+        Throwable writeFailure = failure.get();
+        if (writeFailure != null) {
+            throw Throwables.throwUncheckedException(writeFailure);
+        }
+    }
+
+    /**
+     * Reads the next block from the stream, returning a shorter array for the final partial block, or null if the
+     * stream has no more bytes.
+     */
+    @Nullable
+    private static byte[] readBlock(InputStream stream) throws IOException {
+        byte[] bytesToStore = new byte[BLOCK_SIZE_IN_BYTES];
+        int length = ByteStreams.read(stream, bytesToStore, 0, BLOCK_SIZE_IN_BYTES);
+        if (length == 0) {
+            return null;
+        }
+        // Store only relevant data if it only filled a partial block
+        return length < BLOCK_SIZE_IN_BYTES ? PtBytes.head(bytesToStore, length) : bytesToStore;
+    }
+
     private boolean streamOperationIsTransactional(@Nullable Transaction tx) {
         // TODO (jkong): I'm using tx == null as a proxy for whether the entire operation should be done
         // transactionally or not (null implies nontransactional).
@@ -0,0 +1,108 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.stream;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Ints;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import javax.annotation.Nullable;
+
+/**
+ * Splits a stream into chunks whose boundaries depend only on the bytes near them, using a gear rolling hash over
+ * (roughly) the last 64 bytes. Inserting or removing bytes therefore only moves the boundaries around the edit, and
+ * streams that share long runs of bytes produce mostly identical chunks, which the stream store can then deduplicate.
+ * <p>
+ * Chunks are between a quarter of and four times the average chunk size, except that the final chunk may be shorter.
+ */
+final class ContentDefinedChunker {
+    // Changing the seed changes where streams are split, and so stops new chunks deduplicating against old ones.
+    private static final long GEAR_SEED = 0x5eed_c0de_ca11_ab1eL;
+    private static final long[] GEAR = createGearTable();
+
+    private final InputStream stream;
+    private final int minChunkBytes;
+    private final long boundaryMask;
+    private final byte[] window;
+    private int bytesInWindow = 0;
+    private boolean exhausted = false;
+
+    ContentDefinedChunker(InputStream stream, int averageChunkBytes) {
+        Preconditions.checkArgument(
+                averageChunkBytes >= 64,
+                "Average chunk size must be at least 64 bytes",
+                SafeArg.of("averageChunkBytes", averageChunkBytes));
+        this.stream = stream;
+        this.minChunkBytes = averageChunkBytes / 4;
+        this.window = new byte[Ints.saturatedCast(4L * averageChunkBytes)];
+        // A boundary is found after each byte with probability 2^-bits, so bits ~ log2(average - minimum). The mask
+        // selects the high bits of the hash, because only those depend on the whole 64 byte window.
+        int bits = 63 - Long.numberOfLeadingZeros(averageChunkBytes - minChunkBytes);
+        this.boundaryMask = -1L << (Long.SIZE - bits);
+    }
+
+    /**
+     * Returns the next chunk of the stream, or null if the stream has no more bytes.
+     */
+    @Nullable
+    byte[] nextChunk() throws IOException {
+        fillWindow();
+        if (bytesInWindow == 0) {
+            return null;
+        }
+        int chunkLength = findBoundary();
+        byte[] chunk = Arrays.copyOf(window, chunkLength);
+        System.arraycopy(window, chunkLength, window, 0, bytesInWindow - chunkLength);
+        bytesInWindow -= chunkLength;
+        return chunk;
+    }
+
+    private void fillWindow() throws IOException {
+        if (!exhausted && bytesInWindow < window.length) {
+            int read = ByteStreams.read(stream, window, bytesInWindow, window.length - bytesInWindow);
+            bytesInWindow += read;
+            exhausted = bytesInWindow < window.length;
+        }
+    }
+
+    private int findBoundary() {
+        if (bytesInWindow <= minChunkBytes) {
+            return bytesInWindow;
+        }
+        // The hash only depends on the last 64 bytes, so there is no need to hash the start of a minimum-size chunk.
+        long hash = 0;
+        for (int i = Math.max(0, minChunkBytes - Long.SIZE); i < bytesInWindow; i++) {
+            hash = (hash << 1) + GEAR[window[i] & 0xFF];
+            if (i + 1 >= minChunkBytes && (hash & boundaryMask) == 0) {
+                return i + 1;
+            }
+        }
+        return bytesInWindow;
+    }
+
+    private static long[] createGearTable() {
+        Random random = new Random(GEAR_SEED);
+        long[] gear = new long[256];
+        for (int i = 0; i < gear.length; i++) {
+            gear[i] = random.nextLong();
+        }
+        return gear;
+    }
+}
@@ -54,6 +54,13 @@ public interface GenericStreamStore<ID> {
      */
     Map<ID, InputStream> loadStreams(Transaction tx, Set<ID> ids);
 
+    /**
+     * Loads up to {@code length} bytes of the stream with ID id, starting {@code offset} bytes into the stream,
+     * returning {@code Optional.empty} if no such stream exists. The returned stream is empty if the offset is beyond
+     * the end of the stream. For uncompressed stream stores only the blocks overlapping the range are read.
+     */
+    Optional<InputStream> loadStreamRange(Transaction tx, ID id, long offset, long length);
+
     /**
      * Loads the whole stream, and saves it to a local temporary file.
      */
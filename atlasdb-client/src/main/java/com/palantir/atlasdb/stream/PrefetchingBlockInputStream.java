@@ -0,0 +1,159 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.stream;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.common.base.Throwables;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An {@link InputStream} over blocks provided by a {@link BlockGetter}, which loads upcoming blocks in parallel ahead
+ * of the reader. Each block is fetched by its own task, so a {@link BlockGetter} that opens a transaction per call
+ * reads several blocks concurrently. At most {@code maxBlocksInFlight} blocks are being fetched or held unread at any
+ * time, which bounds the memory used by the stream.
+ */
+public final class PrefetchingBlockInputStream extends InputStream {
+    private final BlockGetter blockGetter;
+    private final long numBlocks;
+    private final int maxBlocksInFlight;
+    private final ListeningExecutorService executor;
+    private final Deque<ListenableFuture<byte[]>> blocksInFlight;
+
+    private long nextBlockToFetch;
+    private byte[] buffer;
+    private int positionInBuffer;
+    private boolean closed;
+
+    private PrefetchingBlockInputStream(
+            BlockGetter blockGetter, long numBlocks, int maxBlocksInFlight, ExecutorService executor) {
+        this.blockGetter = blockGetter;
+        this.numBlocks = numBlocks;
+        this.maxBlocksInFlight = maxBlocksInFlight;
+        this.executor = MoreExecutors.listeningDecorator(executor);
+        this.blocksInFlight = new ArrayDeque<>(maxBlocksInFlight);
+        this.nextBlockToFetch = 0L;
+        this.buffer = new byte[0];
+        this.positionInBuffer = 0;
+    }
+
+    public static PrefetchingBlockInputStream create(
+            BlockGetter blockGetter, long numBlocks, int maxBlocksInFlight, ExecutorService executor) {
+        Preconditions.checkArgument(
+                maxBlocksInFlight > 0,
+                "Must be able to fetch at least one block at a time",
+                SafeArg.of("maxBlocksInFlight", maxBlocksInFlight));
+        PrefetchingBlockInputStream stream =
+                new PrefetchingBlockInputStream(blockGetter, numBlocks, maxBlocksInFlight, executor);
+        stream.fetchAhead();
+        return stream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (positionInBuffer >= buffer.length && !refillBuffer()) {
+            return -1;
+        }
+        return buffer[positionInBuffer++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+        Preconditions.checkNotNull(bytes, "Cannot read into a null array!");
+        if (off < 0 || len < 0 || len > bytes.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int bytesRead = 0;
+        while (bytesRead < len) {
+            if (positionInBuffer >= buffer.length && !refillBuffer()) {
+                break;
+            }
+            int bytesToCopy = Math.min(buffer.length - positionInBuffer, len - bytesRead);
+            System.arraycopy(buffer, positionInBuffer, bytes, off + bytesRead, bytesToCopy);
+            positionInBuffer += bytesToCopy;
+            bytesRead += bytesToCopy;
+        }
+
+        return bytesRead == 0 ? -1 : bytesRead;
+    }
+
+    @Override
+    public int available() {
+        return buffer.length - positionInBuffer;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            blocksInFlight.forEach(future -> future.cancel(true));
+            blocksInFlight.clear();
+            buffer = new byte[0];
+            positionInBuffer = 0;
+        }
+    }
+
+    private boolean refillBuffer() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        ListenableFuture<byte[]> nextBlock = blocksInFlight.pollFirst();
+        if (nextBlock == null) {
+            return false;
+        }
+        fetchAhead();
+        try {
+            buffer = nextBlock.get();
+            positionInBuffer = 0;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("Interrupted while waiting for a stream block");
+        } catch (ExecutionException e) {
+            close();
+            throw Throwables.throwUncheckedException(e.getCause());
+        }
+    }
+
+    private void fetchAhead() {
+        while (blocksInFlight.size() < maxBlocksInFlight && nextBlockToFetch < numBlocks) {
+            long block = nextBlockToFetch++;
+            blocksInFlight.addLast(executor.submit(() -> fetchBlock(block)));
+        }
+    }
+
+    private byte[] fetchBlock(long block) throws IOException {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(blockGetter.expectedBlockLength())) {
+            blockGetter.get(block, 1, outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+}
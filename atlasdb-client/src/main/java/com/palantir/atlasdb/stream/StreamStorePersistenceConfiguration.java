@@ -56,11 +56,59 @@ public interface StreamStorePersistenceConfiguration {
         return 0;
     }
 
+    /**
+     * The maximum number of blocks that a nontransactional storeStream() may be writing at once. Each block is written
+     * in its own transaction, so with a value above one the calling thread keeps reading, hashing and compressing the
+     * stream while earlier blocks are written concurrently; at most this many blocks are held in memory awaiting a
+     * write. The default of one writes blocks one after another on the calling thread.
+     *
+     * This parameter is live reloadable; a new value applies to streams stored after the reload.
+     */
+    @Value.Default
+    default int maxBlocksInFlightPerWrite() {
+        return 1;
+    }
+
+    /**
+     * The number of bytes of upcoming blocks that streams loaded from the store may fetch ahead of the reader. Blocks
+     * are fetched in parallel, each in its own read-only transaction rather than the loading transaction, so
+     * prefetching requires the store to have a transaction manager, and only applies to streams committed before the
+     * loading transaction started. Other streams, such as those stored earlier in the loading transaction, are loaded
+     * synchronously as the reader reaches them, as are all streams with the default of zero.
+     *
+     * This parameter is live reloadable; a new value applies to streams loaded after the reload.
+     */
+    @Value.Default
+    default long readPrefetchBytes() {
+        return 0;
+    }
+
+    /**
+     * The average size in bytes of the content-defined chunks that nontransactional storeStream() splits streams
+     * into. Each chunk is stored as a stream of its own and shared by every stream containing it, so streams that
+     * differ by small edits store only the chunks around the edits. Chunk boundaries depend only on nearby bytes, and
+     * chunks are between a quarter of and four times this size. The default of zero stores streams unchunked.
+     * Streams stored within a transaction are never chunked.
+     *
+     * This parameter is live reloadable; a new value applies to streams stored after the reload, and streams are
+     * readable whether or not they were chunked. Chunks only deduplicate against chunks stored with the same value.
+     */
+    @Value.Default
+    default int contentDefinedChunkAverageBytes() {
+        return 0;
+    }
+
     @Value.Check
     default void check() {
         Preconditions.checkState(
                 numBlocksToWriteBeforePause() > 0, "Number of blocks to write before pausing must be positive");
         Preconditions.checkState(
                 writePauseDurationMillis() >= 0, "Pause duration between batches of writes must be non-negative");
+        Preconditions.checkState(
+                maxBlocksInFlightPerWrite() > 0, "Number of blocks in flight per write must be positive");
+        Preconditions.checkState(readPrefetchBytes() >= 0, "Number of bytes to prefetch must be non-negative");
+        Preconditions.checkState(
+                contentDefinedChunkAverageBytes() == 0 || contentDefinedChunkAverageBytes() >= 64,
+                "Average chunk size must be zero, to disable chunking, or at least 64 bytes");
     }
 }
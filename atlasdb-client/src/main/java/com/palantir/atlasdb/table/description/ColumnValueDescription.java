@@ -61,9 +61,18 @@ public final class ColumnValueDescription {
         }
     }
 
+    /**
+     * How column values are compressed. LZ4 is faster than Snappy at a similar ratio, and DEFLATE compresses
+     * considerably better at a higher CPU cost. Values compressed with LZ4 or DEFLATE record their codec, so a column
+     * may be moved between compressed formats without rewriting it (see {@link CompressionUtils}); but they cannot be
+     * read by versions of AtlasDB that predate those formats. Moving a column to or from no compression requires
+     * rewriting its values.
+     */
     public enum Compression {
         SNAPPY,
-        NONE;
+        NONE,
+        LZ4,
+        DEFLATE;
 
         public TableMetadataPersistence.Compression persistToProto() {
             return TableMetadataPersistence.Compression.valueOf(name());
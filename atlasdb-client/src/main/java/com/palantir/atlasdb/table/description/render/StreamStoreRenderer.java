@@ -372,6 +372,11 @@ public class StreamStoreRenderer {
             private void getNumberOfBlocksFromMetadata() {
                 line("private long getNumberOfBlocksFromMetadata(StreamMetadata metadata) {");
                 {
+                    line("if (metadata.getChunkIdsCount() > 0) {");
+                    {
+                        line("return 0;");
+                    }
+                    line("}");
                     line("return (metadata.getLength() + BLOCK_SIZE_IN_BYTES - 1) / BLOCK_SIZE_IN_BYTES;");
                 }
                 line("}");
@@ -637,6 +642,7 @@ public class StreamStoreRenderer {
                     line("for (Entry<", StreamMetadataRow, ", StreamMetadata> e : metadatas.entrySet()) {");
                     {
                         line(StreamId, " streamId = e.getKey().getId();");
+                        line("unmarkChunksOfDeletedStream(t, streamId, e.getValue());");
                         line("long blocks = getNumberOfBlocksFromMetadata(e.getValue());");
                         line("for (long i = 0; i < blocks; i++) {");
                         {
@@ -15,12 +15,14 @@
  */
 package com.palantir.atlasdb.transaction.impl;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.codahale.metrics.Counter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.math.LongMath;
 import com.google.common.primitives.UnsignedBytes;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -34,38 +36,79 @@ import com.palantir.atlasdb.keyvalue.impl.Cells;
 import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.TransactionFailedException;
 import com.palantir.atlasdb.transaction.service.TransactionService;
+import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.Throwables;
+import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
-import com.palantir.util.Pair;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 
+/**
+ * Caches every cell read or written through this transaction, so that repeated reads are served locally. The cache is
+ * bounded by the approximate number of bytes it holds, rather than by a number of cells, and evicts cells once that
+ * budget is exceeded. Cells are cached under a key that refers to the table by an instance shared across the cells of
+ * that table, so a lookup never builds the table's name.
+ */
 public class CachingTransaction extends ForwardingTransaction {
 
     private static final SafeLogger log = SafeLoggerFactory.get(CachingTransaction.class);
-    private static final long DEFAULT_MAX_CACHED_CELLS = 10_000_000;
+    private static final long DEFAULT_MAX_CACHED_BYTES = 128L * 1024 * 1024;
+
+    /**
+     * An approximation of the memory taken to hold a cell in the cache beyond the bytes of its row, column and value.
+     */
+    private static final int CACHED_CELL_OVERHEAD = 128;
 
     private final Transaction delegate;
-    private final Cache<Pair<String, Cell>, byte[]> cellCache;
+    private final Optional<MetricsManager> metricsManager;
+    private final ConcurrentMap<TableReference, CachedTable> tables = new ConcurrentHashMap<>();
+    private final Cache<CachedCell, byte[]> cellCache;
 
     public CachingTransaction(Transaction delegate) {
-        this(delegate, DEFAULT_MAX_CACHED_CELLS);
+        this(delegate, DEFAULT_MAX_CACHED_BYTES, Optional.empty());
     }
 
+    /**
+     * @deprecated use {@link #CachingTransaction(Transaction, long, MetricsManager)}, which bounds the cache by bytes
+     * rather than cells. The number of cells is converted to bytes by counting only the overhead of caching each cell.
+     */
+    @Deprecated
     public CachingTransaction(Transaction delegate, long maxCachedCells) {
+        this(delegate, LongMath.saturatedMultiply(maxCachedCells, CACHED_CELL_OVERHEAD), Optional.empty());
+    }
+
+    /**
+     * @param maxCachedBytes the approximate number of bytes of cells that may be cached
+     * @param metricsManager used to report the hits and misses of the cache for each table
+     */
+    public CachingTransaction(Transaction delegate, long maxCachedBytes, MetricsManager metricsManager) {
+        this(delegate, maxCachedBytes, Optional.of(metricsManager));
+    }
+
+    private CachingTransaction(Transaction delegate, long maxCachedBytes, Optional<MetricsManager> metricsManager) {
+        Preconditions.checkArgument(
+                maxCachedBytes >= 0,
+                "Cannot cache a negative number of bytes",
+                SafeArg.of("maxCachedBytes", maxCachedBytes));
         this.delegate = delegate;
-        cellCache = CacheBuilder.newBuilder()
-                .maximumSize(maxCachedCells)
-                .softValues()
+        this.metricsManager = metricsManager;
+        // the cache belongs to a single transaction, so its upkeep is cheap enough to do on the calling thread
+        cellCache = Caffeine.newBuilder()
+                .executor(MoreExecutors.directExecutor())
+                .maximumWeight(maxCachedBytes)
+                .weigher(CachingTransaction::weigh)
                 .recordStats()
                 .build();
     }
@@ -83,10 +126,18 @@ public class CachingTransaction extends ForwardingTransaction {
         }
 
         if (columnSelection.allColumnsSelected()) {
+            // The cache cannot tell which columns a row has, so every cell read counts as a miss.
             NavigableMap<byte[], RowResult<byte[]>> loaded = super.getRows(tableRef, rows, columnSelection);
-            cacheLoadedRows(tableRef, loaded.values());
+            CachedTable cachedTable = getCachedTable(tableRef);
+            cachedTable.recordLookups(0, loaded.values().stream().mapToInt(row -> row.getColumns().size()).sum());
+            cacheLoadedRows(cachedTable, loaded.values());
             return loaded;
         } else {
+            // Lookups are counted in cells. A row with any uncached cell is read in full, so all of its cells count as
+            // misses, even the ones that were cached.
+            CachedTable cachedTable = getCachedTable(tableRef);
+            int hits = 0;
+            int misses = 0;
             Set<byte[]> toLoad = Collections.newSetFromMap(new IdentityHashMap<>());
             ImmutableSortedMap.Builder<byte[], RowResult<byte[]>> inCache =
                     ImmutableSortedMap.orderedBy(UnsignedBytes.lexicographicalComparator());
@@ -96,23 +147,30 @@ public class CachingTransaction extends ForwardingTransaction {
                 boolean nonEmpty = false;
                 boolean shouldLoad = false;
                 for (byte[] col : columnSelection.getSelectedColumns()) {
-                    byte[] val = getCachedCellIfPresent(tableRef, Cell.create(row, col));
+                    byte[] val = cellCache.getIfPresent(cachedTable.key(Cell.create(row, col)));
                     if (val == null) {
                         shouldLoad = true;
                         break;
-                    } else if (val.length != 0) {
+                    }
+                    if (val.length != 0) {
                         matches.put(col, val);
                         nonEmpty = true;
                     }
                 }
                 if (shouldLoad) {
-                    toLoad.add(row);
-                } else if (nonEmpty) {
-                    inCache.put(row, RowResult.create(row, matches.build()));
+                    if (toLoad.add(row)) {
+                        misses += columnSelection.getSelectedColumns().size();
+                    }
+                } else {
+                    hits += columnSelection.getSelectedColumns().size();
+                    if (nonEmpty) {
+                        inCache.put(row, RowResult.create(row, matches.build()));
+                    }
                 }
             }
+            cachedTable.recordLookups(hits, misses);
             SortedMap<byte[], RowResult<byte[]>> results = super.getRows(tableRef, toLoad, columnSelection);
-            cacheLoadedRows(tableRef, toLoad, columnSelection.getSelectedColumns(), results);
+            cacheLoadedRows(cachedTable, toLoad, columnSelection.getSelectedColumns(), results);
             inCache.putAll(results);
             return inCache.build();
         }
@@ -142,10 +200,11 @@ public class CachingTransaction extends ForwardingTransaction {
             return Futures.immediateFuture(ImmutableMap.of());
         }
 
+        CachedTable cachedTable = getCachedTable(tableRef);
         Set<Cell> toLoad = new HashSet<>();
         Map<Cell, byte[]> cacheHit = Maps.newHashMapWithExpectedSize(cells.size());
         for (Cell cell : cells) {
-            byte[] val = getCachedCellIfPresent(tableRef, cell);
+            byte[] val = cellCache.getIfPresent(cachedTable.key(cell));
             if (val != null) {
                 if (val.length > 0) {
                     cacheHit.put(cell, val);
@@ -154,11 +213,12 @@ public class CachingTransaction extends ForwardingTransaction {
                 toLoad.add(cell);
             }
         }
+        cachedTable.recordLookups(cells.size() - toLoad.size(), toLoad.size());
 
         return Futures.transform(
                 cellLoader.load(tableRef, toLoad),
                 loadedCells -> {
-                    cacheLoadedCells(tableRef, toLoad, loadedCells);
+                    cacheLoadedCells(cachedTable, toLoad, loadedCells);
                     cacheHit.putAll(loadedCells);
                     return cacheHit;
                 },
@@ -178,25 +238,26 @@ public class CachingTransaction extends ForwardingTransaction {
     }
 
     private void addToCache(TableReference tableRef, Map<Cell, byte[]> values) {
+        CachedTable cachedTable = getCachedTable(tableRef);
         for (Map.Entry<Cell, byte[]> e : values.entrySet()) {
             byte[] value = e.getValue();
             if (value == null) {
                 value = PtBytes.EMPTY_BYTE_ARRAY;
             }
-            cacheLoadedCell(tableRef, e.getKey(), value);
+            cacheLoadedCell(cachedTable, e.getKey(), value);
         }
     }
 
-    private void cacheLoadedRows(TableReference tableRef, Iterable<RowResult<byte[]>> rowView) {
+    private void cacheLoadedRows(CachedTable cachedTable, Iterable<RowResult<byte[]>> rowView) {
         for (RowResult<byte[]> loadedRow : rowView) {
             for (Map.Entry<Cell, byte[]> e : loadedRow.getCells()) {
-                cacheLoadedCell(tableRef, e.getKey(), e.getValue());
+                cacheLoadedCell(cachedTable, e.getKey(), e.getValue());
             }
         }
     }
 
     private void cacheLoadedRows(
-            TableReference tableRef,
+            CachedTable cachedTable,
             Iterable<byte[]> toLoad,
             Collection<byte[]> columnNames,
             SortedMap<byte[], RowResult<byte[]>> toCache) {
@@ -208,27 +269,43 @@ public class CachingTransaction extends ForwardingTransaction {
                 if (value == null) {
                     value = PtBytes.EMPTY_BYTE_ARRAY;
                 }
-                cacheLoadedCell(tableRef, Cell.create(row, columnName), value);
+                cacheLoadedCell(cachedTable, Cell.create(row, columnName), value);
             }
         }
     }
 
-    private void cacheLoadedCells(TableReference tableRef, Set<Cell> toLoad, Map<Cell, byte[]> toCache) {
+    private void cacheLoadedCells(CachedTable cachedTable, Set<Cell> toLoad, Map<Cell, byte[]> toCache) {
         for (Cell key : toLoad) {
             byte[] value = toCache.get(key);
             if (value == null) {
                 value = PtBytes.EMPTY_BYTE_ARRAY;
             }
-            cacheLoadedCell(tableRef, key, value);
+            cacheLoadedCell(cachedTable, key, value);
         }
     }
 
-    private byte[] getCachedCellIfPresent(TableReference tableRef, Cell cell) {
-        return cellCache.getIfPresent(Pair.create(tableRef.getQualifiedName(), cell));
+    private void cacheLoadedCell(CachedTable cachedTable, Cell cell, byte[] value) {
+        cellCache.put(cachedTable.key(cell), value);
+    }
+
+    private CachedTable getCachedTable(TableReference tableRef) {
+        return tables.computeIfAbsent(tableRef, this::createCachedTable);
+    }
+
+    private CachedTable createCachedTable(TableReference tableRef) {
+        return metricsManager
+                .map(metrics -> {
+                    Map<String, String> tableTag = metrics.getTableNameTagFor(tableRef);
+                    return new CachedTable(
+                            metrics.registerOrGetTaggedCounter(CachingTransaction.class, "cacheHits", tableTag),
+                            metrics.registerOrGetTaggedCounter(CachingTransaction.class, "cacheMisses", tableTag));
+                })
+                .orElseGet(() -> new CachedTable(new Counter(), new Counter()));
     }
 
-    private void cacheLoadedCell(TableReference tableRef, Cell cell, byte[] value) {
-        cellCache.put(Pair.create(tableRef.getQualifiedName(), cell), value);
+    private static int weigh(CachedCell cachedCell, byte[] value) {
+        Cell cell = cachedCell.cell;
+        return CACHED_CELL_OVERHEAD + cell.getRowName().length + cell.getColumnName().length + value.length;
     }
 
     // Log cache stats on commit or abort.
@@ -273,4 +350,53 @@ public class CachingTransaction extends ForwardingTransaction {
     private interface CellLoader {
         ListenableFuture<Map<Cell, byte[]>> load(TableReference tableReference, Set<Cell> toRead);
     }
+
+    /**
+     * The cache's view of a table. Cells are keyed by the table's instance, which is compared by identity.
+     */
+    private static final class CachedTable {
+        private final Counter hits;
+        private final Counter misses;
+
+        private CachedTable(Counter hits, Counter misses) {
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        private CachedCell key(Cell cell) {
+            return new CachedCell(this, cell);
+        }
+
+        private void recordLookups(int numberOfHits, int numberOfMisses) {
+            hits.inc(numberOfHits);
+            misses.inc(numberOfMisses);
+        }
+    }
+
+    private static final class CachedCell {
+        private final CachedTable table;
+        private final Cell cell;
+
+        private CachedCell(CachedTable table, Cell cell) {
+            this.table = table;
+            this.cell = cell;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            CachedCell that = (CachedCell) other;
+            return table == that.table && cell.equals(that.cell);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(table) + cell.hashCode();
+        }
+    }
 }
@@ -19,10 +19,14 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.atlasdb.util.MetricsManagers;
 import com.palantir.timestamp.TimestampService;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -31,9 +35,13 @@ import org.junit.Test;
 
 public class SweepStatsKeyValueServiceTest {
     private static final byte[] ROW = "row".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] COLUMN = "column".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VALUE = "value".getBytes(StandardCharsets.UTF_8);
     private static final TableReference TABLE = TableReference.createWithEmptyNamespace("table");
+    private static final TableReference OTHER_TABLE = TableReference.createWithEmptyNamespace("other");
 
     private KeyValueService delegate = mock(KeyValueService.class);
+    private MetricsManager metricsManager = MetricsManagers.createAlwaysSafeAndFilteringForTests();
     private AtomicBoolean isSweepEnabled;
 
     private SweepStatsKeyValueService kvs;
@@ -47,7 +55,8 @@ public class SweepStatsKeyValueServiceTest {
                 timestampService,
                 () -> AtlasDbConstants.DEFAULT_SWEEP_WRITE_THRESHOLD,
                 () -> AtlasDbConstants.DEFAULT_SWEEP_WRITE_SIZE_THRESHOLD,
-                () -> isSweepEnabled.get());
+                () -> isSweepEnabled.get(),
+                metricsManager);
     }
 
     @Test
@@ -71,6 +80,26 @@ public class SweepStatsKeyValueServiceTest {
         assertThat(kvs.hasBeenCleared(TABLE)).isFalse();
     }
 
+    @Test
+    public void writesAreCountedPerTableAndReportedAsMetrics() {
+        kvs.put(TABLE, ImmutableMap.of(Cell.create(ROW, COLUMN), VALUE), 1L);
+        kvs.multiPut(
+                ImmutableMap.of(
+                        TABLE,
+                        ImmutableMap.of(Cell.create(ROW, ROW), VALUE, Cell.create(COLUMN, COLUMN), VALUE),
+                        OTHER_TABLE,
+                        ImmutableMap.of(Cell.create(ROW, COLUMN), VALUE)),
+                1L);
+
+        assertThat(kvs.getUnflushedWrites(TABLE)).isEqualTo(3);
+        assertThat(kvs.getUnflushedWrites(OTHER_TABLE)).isEqualTo(1);
+        assertThat(metricsManager
+                        .registerOrGetTaggedCounter(
+                                SweepStatsKeyValueService.class, "writes", metricsManager.getTableNameTagFor(TABLE))
+                        .getCount())
+                .isEqualTo(3);
+    }
+
     @Test
     public void otherDeleteRangeDoesNotCountAsClearingTheTable() throws Exception {
         RangeRequest request = RangeRequest.builder().startRowInclusive(ROW).build();
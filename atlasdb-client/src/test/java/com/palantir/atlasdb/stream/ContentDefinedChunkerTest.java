@@ -0,0 +1,90 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.palantir.util.crypto.Sha256Hash;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class ContentDefinedChunkerTest {
+    private static final int AVERAGE_CHUNK_BYTES = 1024;
+
+    @Test
+    public void emptyStreamHasNoChunks() throws IOException {
+        assertThat(chunk(new byte[0])).isEmpty();
+    }
+
+    @Test
+    public void chunksConcatenateToStreamAndRespectSizeBounds() throws IOException {
+        byte[] data = randomBytes(100_000);
+
+        List<byte[]> chunks = chunk(data);
+
+        ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks) {
+            concatenated.write(chunk);
+        }
+        assertThat(concatenated.toByteArray()).isEqualTo(data);
+        assertThat(chunks.subList(0, chunks.size() - 1))
+                .allSatisfy(chunk -> assertThat(chunk.length)
+                        .isBetween(AVERAGE_CHUNK_BYTES / 4, AVERAGE_CHUNK_BYTES * 4));
+    }
+
+    @Test
+    public void insertionOnlyChangesChunksNearTheEdit() throws IOException {
+        byte[] data = randomBytes(100_000);
+        byte[] edited = new byte[data.length + 1];
+        System.arraycopy(data, 0, edited, 0, 50_000);
+        edited[50_000] = 42;
+        System.arraycopy(data, 50_000, edited, 50_001, data.length - 50_000);
+
+        Set<Sha256Hash> originalChunks = hashes(chunk(data));
+        Set<Sha256Hash> editedChunks = hashes(chunk(edited));
+
+        editedChunks.removeAll(originalChunks);
+        assertThat(editedChunks).hasSizeLessThanOrEqualTo(3);
+    }
+
+    private static List<byte[]> chunk(byte[] data) throws IOException {
+        ContentDefinedChunker chunker = new ContentDefinedChunker(new ByteArrayInputStream(data), AVERAGE_CHUNK_BYTES);
+        List<byte[]> chunks = new ArrayList<>();
+        for (byte[] chunk = chunker.nextChunk(); chunk != null; chunk = chunker.nextChunk()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static Set<Sha256Hash> hashes(List<byte[]> chunks) {
+        Set<Sha256Hash> hashes = new HashSet<>();
+        chunks.forEach(chunk -> hashes.add(Sha256Hash.computeHash(chunk)));
+        return hashes;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(0).nextBytes(data);
+        return data;
+    }
+}
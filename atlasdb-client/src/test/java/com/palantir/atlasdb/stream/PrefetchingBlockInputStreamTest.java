@@ -0,0 +1,118 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Test;
+
+public class PrefetchingBlockInputStreamTest {
+    private static final int BLOCK_LENGTH = 3;
+
+    private final byte[] stored = "divisible".getBytes(StandardCharsets.UTF_8);
+    private final List<Long> requestedBlocks = new ArrayList<>();
+    private final BlockGetter threeByteBlocks = new BlockGetter() {
+        @Override
+        public void get(long firstBlock, long numBlocks, OutputStream destination) {
+            synchronized (requestedBlocks) {
+                requestedBlocks.add(firstBlock);
+            }
+            try {
+                destination.write(stored, BLOCK_LENGTH * (int) firstBlock, BLOCK_LENGTH * (int) numBlocks);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int expectedBlockLength() {
+            return BLOCK_LENGTH;
+        }
+    };
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void readsAllBlocksInOrder() throws IOException {
+        PrefetchingBlockInputStream stream = PrefetchingBlockInputStream.create(threeByteBlocks, 3, 2, executor);
+
+        assertThat(ByteStreams.toByteArray(stream)).isEqualTo(stored);
+        assertThat(stream.read()).isEqualTo(-1);
+    }
+
+    @Test
+    public void readsSingleBytes() throws IOException {
+        PrefetchingBlockInputStream stream = PrefetchingBlockInputStream.create(threeByteBlocks, 3, 1, executor);
+
+        for (byte expected : stored) {
+            assertThat(stream.read()).isEqualTo(expected & 0xff);
+        }
+        assertThat(stream.read()).isEqualTo(-1);
+    }
+
+    @Test
+    public void fetchesNoMoreThanMaxBlocksAhead() throws IOException {
+        PrefetchingBlockInputStream stream = PrefetchingBlockInputStream.create(
+                threeByteBlocks, 3, 2, MoreExecutors.newDirectExecutorService());
+        assertThat(requestedBlocks).containsExactly(0L, 1L);
+
+        stream.read();
+        assertThat(requestedBlocks).containsExactly(0L, 1L, 2L);
+    }
+
+    @Test
+    public void propagatesFailuresFromBlockGetter() {
+        BlockGetter failing = new BlockGetter() {
+            @Override
+            public void get(long firstBlock, long numBlocks, OutputStream destination) {
+                throw new IllegalStateException("boom");
+            }
+
+            @Override
+            public int expectedBlockLength() {
+                return BLOCK_LENGTH;
+            }
+        };
+        PrefetchingBlockInputStream stream = PrefetchingBlockInputStream.create(failing, 3, 2, executor);
+
+        assertThatThrownBy(stream::read).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+    }
+
+    @Test
+    public void cannotReadAfterClose() {
+        PrefetchingBlockInputStream stream = PrefetchingBlockInputStream.create(threeByteBlocks, 3, 2, executor);
+        stream.close();
+
+        assertThatThrownBy(stream::read).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.common.compression;
+
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+import java.util.Arrays;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * Compresses whole byte arrays as raw LZ4 blocks, for values small enough that the framing and checksums of
+ * {@link LZ4CompressingInputStream} would be a significant overhead. The uncompressed length is not recorded, so
+ * callers must store it themselves.
+ */
+public final class LZ4ByteArrays {
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor DECOMPRESSOR =
+            LZ4Factory.fastestInstance().safeDecompressor();
+
+    private LZ4ByteArrays() {
+        // utility
+    }
+
+    /**
+     * Returns the compressed form of {@code bytes}, preceded by {@code headerLength} zero bytes that the caller may
+     * overwrite with a header of its own.
+     */
+    public static byte[] compress(byte[] bytes, int headerLength) {
+        byte[] compressed = new byte[headerLength + COMPRESSOR.maxCompressedLength(bytes.length)];
+        int compressedLength =
+                COMPRESSOR.compress(bytes, 0, bytes.length, compressed, headerLength, compressed.length - headerLength);
+        return Arrays.copyOf(compressed, headerLength + compressedLength);
+    }
+
+    /**
+     * Decompresses the block that starts {@code offset} bytes into {@code bytes} and runs to the end of the array.
+     *
+     * @throws SafeIllegalArgumentException if the block is malformed or does not decompress to exactly
+     * {@code uncompressedLength} bytes
+     */
+    public static byte[] decompress(byte[] bytes, int offset, int uncompressedLength) {
+        byte[] decompressed = new byte[uncompressedLength];
+        int decompressedLength;
+        try {
+            decompressedLength = DECOMPRESSOR.decompress(
+                    bytes, offset, bytes.length - offset, decompressed, 0, uncompressedLength);
+        } catch (LZ4Exception e) {
+            throw new SafeIllegalArgumentException("Cannot decompress these bytes using LZ4", e);
+        }
+        if (decompressedLength != uncompressedLength) {
+            throw new SafeIllegalArgumentException(
+                    "LZ4 block decompressed to an unexpected length",
+                    SafeArg.of("expectedLength", uncompressedLength),
+                    SafeArg.of("actualLength", decompressedLength));
+        }
+        return decompressed;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.common.compression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class LZ4ByteArraysTest {
+    private static final int HEADER_LENGTH = 3;
+
+    @Test
+    public void roundTripsAfterHeader() {
+        byte[] original = new byte[10_000];
+        new Random(0).nextBytes(original);
+        Arrays.fill(original, 0, 5_000, (byte) 7);
+
+        byte[] compressed = LZ4ByteArrays.compress(original, HEADER_LENGTH);
+
+        assertThat(compressed.length).isLessThan(original.length);
+        assertThat(Arrays.copyOf(compressed, HEADER_LENGTH)).containsOnly(0);
+        assertThat(LZ4ByteArrays.decompress(compressed, HEADER_LENGTH, original.length))
+                .isEqualTo(original);
+    }
+
+    @Test
+    public void rejectsWrongUncompressedLength() {
+        byte[] compressed = LZ4ByteArrays.compress(new byte[100], HEADER_LENGTH);
+
+        assertThatThrownBy(() -> LZ4ByteArrays.decompress(compressed, HEADER_LENGTH, 99))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LZ4ByteArrays.decompress(compressed, HEADER_LENGTH, 101))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
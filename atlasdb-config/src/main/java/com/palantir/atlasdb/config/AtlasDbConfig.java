@@ -26,6 +26,7 @@ import com.palantir.atlasdb.memory.InMemoryAtlasDbConfig;
 import com.palantir.atlasdb.spi.KeyValueServiceConfig;
 import com.palantir.atlasdb.sweep.queue.config.TargetedSweepInstallConfig;
 import com.palantir.exception.NotInitializedException;
+import com.palantir.lock.client.TransactionStarterPoolConfig;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import com.palantir.logsafe.logger.SafeLogger;
@@ -198,6 +199,12 @@ public abstract class AtlasDbConfig {
         return LockWatchCachingConfig.builder().build();
     }
 
+    /**
+     * If set, transactions are started on TimeLock ahead of time and held in a small pool, removing a round trip
+     * from most transaction starts. This is only supported when using TimeLock.
+     */
+    public abstract Optional<TransactionStarterPoolConfig> transactionStarterPool();
+
     /**
      * The number of milliseconds to wait between each batch of cells
      * processed by the background sweeper.
@@ -69,6 +69,7 @@ import com.palantir.lock.client.RemoteTimelockServiceAdapter;
 import com.palantir.lock.client.RequestBatchersFactory;
 import com.palantir.lock.client.TimeLockClient;
 import com.palantir.lock.client.TimestampCorroboratingTimelockService;
+import com.palantir.lock.client.TransactionStarterPoolConfig;
 import com.palantir.lock.client.metrics.TimeLockFeedbackBackgroundTask;
 import com.palantir.lock.impl.LegacyTimelockService;
 import com.palantir.lock.v2.DefaultNamespacedTimelockRpcClient;
@@ -266,7 +267,8 @@ public final class DefaultLockAndTimestampServiceFactory implements LockAndTimes
                 timeLockFeedbackBackgroundTask,
                 timelockRequestBatcherProviders,
                 schemas,
-                config.lockWatchCaching());
+                config.lockWatchCaching(),
+                config.transactionStarterPool());
 
         TimeLockMigrator migrator = TimeLockMigrator.create(
                 lockAndTimestampServices.managedTimestampService(), invalidator, config.initializeAsync());
@@ -291,7 +293,8 @@ public final class DefaultLockAndTimestampServiceFactory implements LockAndTimes
             Optional<TimeLockFeedbackBackgroundTask> timeLockFeedbackBackgroundTask,
             Optional<TimeLockRequestBatcherProviders> timelockRequestBatcherProviders,
             Set<Schema> schemas,
-            LockWatchCachingConfig cachingConfig) {
+            LockWatchCachingConfig cachingConfig,
+            Optional<TransactionStarterPoolConfig> transactionStarterPoolConfig) {
         AtlasDbDialogueServiceProvider serviceProvider = AtlasDbDialogueServiceProvider.create(
                 timelockServerListConfig, reloadingFactory, userAgent, metricsManager.getTaggedRegistry());
 
@@ -336,7 +339,13 @@ public final class DefaultLockAndTimestampServiceFactory implements LockAndTimes
                         batcherProviders.startTransactions().getBatcher(multiClientTimelockServiceSupplier)));
 
         TimeLockHelperServices timeLockHelperServices = TimeLockHelperServices.create(
-                timelockNamespace, metricsManager, schemas, lockWatchingService, cachingConfig, requestBatcherProvider);
+                timelockNamespace,
+                metricsManager,
+                schemas,
+                lockWatchingService,
+                cachingConfig,
+                requestBatcherProvider,
+                transactionStarterPoolConfig);
         LockWatchManagerInternal lockWatchManager = timeLockHelperServices.lockWatchManager();
 
         RemoteTimelockServiceAdapter remoteTimelockServiceAdapter = RemoteTimelockServiceAdapter.create(
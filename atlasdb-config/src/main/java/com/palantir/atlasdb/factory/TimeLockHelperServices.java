@@ -24,6 +24,7 @@ import com.palantir.atlasdb.timelock.api.Namespace;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.lock.client.LockWatchStarter;
 import com.palantir.lock.client.RequestBatchersFactory;
+import com.palantir.lock.client.TransactionStarterPoolConfig;
 import com.palantir.lock.watch.LockWatchCache;
 import java.util.Optional;
 import java.util.Set;
@@ -43,13 +44,31 @@ public interface TimeLockHelperServices {
             LockWatchStarter lockWatchStarter,
             LockWatchCachingConfig lockWatchCachingConfig,
             Supplier<Optional<RequestBatchersFactory.MultiClientRequestBatchers>> requestBatcherProvider) {
+        return create(
+                namespace,
+                metricsManager,
+                schemas,
+                lockWatchStarter,
+                lockWatchCachingConfig,
+                requestBatcherProvider,
+                Optional.empty());
+    }
+
+    static TimeLockHelperServices create(
+            String namespace,
+            MetricsManager metricsManager,
+            Set<Schema> schemas,
+            LockWatchStarter lockWatchStarter,
+            LockWatchCachingConfig lockWatchCachingConfig,
+            Supplier<Optional<RequestBatchersFactory.MultiClientRequestBatchers>> requestBatcherProvider,
+            Optional<TransactionStarterPoolConfig> transactionStarterPoolConfig) {
 
         LockWatchManagerInternal lockWatchManager =
                 LockWatchManagerImpl.create(metricsManager, schemas, lockWatchStarter, lockWatchCachingConfig);
         LockWatchCache lockWatchCache = lockWatchManager.getCache();
 
-        RequestBatchersFactory requestBatchersFactory =
-                RequestBatchersFactory.create(lockWatchCache, Namespace.of(namespace), requestBatcherProvider.get());
+        RequestBatchersFactory requestBatchersFactory = RequestBatchersFactory.create(
+                lockWatchCache, Namespace.of(namespace), requestBatcherProvider.get(), transactionStarterPoolConfig);
 
         return ImmutableTimeLockHelperServices.builder()
                 .lockWatchManager(lockWatchManager)
@@ -409,7 +409,8 @@ public abstract class TransactionManagers {
                                 new TimelockTimestampServiceAdapter(lockAndTimestampServices.timelock()),
                                 sweepConfig.map(SweepConfig::writeThreshold),
                                 sweepConfig.map(SweepConfig::writeSizeThreshold),
-                                () -> true);
+                                () -> true,
+                                metricsManager);
                     }
 
                     kvs = TracingKeyValueService.create(kvs);
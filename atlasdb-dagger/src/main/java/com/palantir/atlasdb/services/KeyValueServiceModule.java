@@ -68,7 +68,12 @@ public class KeyValueServiceModule {
 
         SweepConfig sweepConfig = config.atlasDbRuntimeConfig().sweep();
         kvs = SweepStatsKeyValueService.create(
-                kvs, tss, sweepConfig::writeThreshold, sweepConfig::writeSizeThreshold, () -> true);
+                kvs,
+                tss,
+                sweepConfig::writeThreshold,
+                sweepConfig::writeSizeThreshold,
+                () -> true,
+                metricsManager);
 
         TransactionTables.createTables(kvs);
         ImmutableSet<Schema> schemas = ImmutableSet.<Schema>builder()
@@ -0,0 +1,162 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.dbkvs.ImmutableDbKeyValueServiceConfig;
+import com.palantir.atlasdb.keyvalue.dbkvs.ImmutablePostgresDdlConfig;
+import com.palantir.atlasdb.keyvalue.dbkvs.impl.ConnectionManagerAwareDbKvs;
+import com.palantir.atlasdb.keyvalue.impl.TestResourceManager;
+import com.palantir.conjure.java.api.config.service.HumanReadableDuration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+/**
+ * Reads the same table through a key value service using {@link PostgresArrayQueryFactory} and one using the default
+ * {@link PostgresQueryFactory}, and checks that both return the same values.
+ */
+public class DbKvsPostgresArrayPointReadsIntegrationTest {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.array_point_reads");
+    private static final int NUM_ROWS = 2_000;
+    private static final byte[] FIRST_COLUMN = PtBytes.toBytes("a");
+    private static final byte[] SECOND_COLUMN = PtBytes.toBytes("b");
+    private static final long FIRST_TIMESTAMP = 10L;
+    private static final long SECOND_TIMESTAMP = 20L;
+
+    @ClassRule
+    public static final TestResourceManager ARRAY_TRM =
+            new TestResourceManager(DbKvsPostgresArrayPointReadsIntegrationTest::createKvsWithArrayBoundPointReads);
+
+    @ClassRule
+    public static final TestResourceManager DEFAULT_TRM = new TestResourceManager(DbKvsPostgresTestSuite::createKvs);
+
+    private KeyValueService arrayKvs;
+    private KeyValueService defaultKvs;
+
+    @Before
+    public void setUp() {
+        arrayKvs = ARRAY_TRM.getDefaultKvs();
+        defaultKvs = DEFAULT_TRM.getDefaultKvs();
+        arrayKvs.createTable(TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+
+        Map<Cell, byte[]> firstValues = new HashMap<>();
+        Map<Cell, byte[]> secondValues = new HashMap<>();
+        for (int row = 0; row < NUM_ROWS; row++) {
+            firstValues.put(Cell.create(row(row), FIRST_COLUMN), PtBytes.toBytes("first" + row));
+            if (row % 2 == 0) {
+                secondValues.put(Cell.create(row(row), FIRST_COLUMN), PtBytes.toBytes("second" + row));
+                secondValues.put(Cell.create(row(row), SECOND_COLUMN), PtBytes.toBytes("other" + row));
+            }
+        }
+        arrayKvs.put(TABLE, firstValues, FIRST_TIMESTAMP);
+        arrayKvs.put(TABLE, secondValues, SECOND_TIMESTAMP);
+    }
+
+    @After
+    public void tearDown() {
+        arrayKvs.dropTable(TABLE);
+    }
+
+    @Test
+    public void emptyCellBatchReturnsNothing() {
+        assertSameCells(ImmutableMap.of(), 0);
+    }
+
+    @Test
+    public void smallCellBatchWithMixedTimestampsMatchesDefaultFactory() {
+        assertSameCells(
+                ImmutableMap.of(
+                        Cell.create(row(0), FIRST_COLUMN), SECOND_TIMESTAMP,
+                        Cell.create(row(0), SECOND_COLUMN), SECOND_TIMESTAMP + 1,
+                        Cell.create(row(2), FIRST_COLUMN), SECOND_TIMESTAMP + 1,
+                        Cell.create(row(3), SECOND_COLUMN), SECOND_TIMESTAMP + 1),
+                3);
+    }
+
+    @Test
+    public void largeCellBatchMatchesDefaultFactory() {
+        Map<Cell, Long> timestampByCell = new HashMap<>();
+        for (int row = 0; row < NUM_ROWS; row++) {
+            timestampByCell.put(
+                    Cell.create(row(row), FIRST_COLUMN), row % 3 == 0 ? SECOND_TIMESTAMP : SECOND_TIMESTAMP + 1);
+            timestampByCell.put(Cell.create(row(row), SECOND_COLUMN), SECOND_TIMESTAMP + 1);
+        }
+        assertSameCells(timestampByCell, NUM_ROWS + NUM_ROWS / 2);
+    }
+
+    @Test
+    public void emptyRowBatchReturnsNothing() {
+        assertSameRows(ImmutableList.of(), ColumnSelection.all(), 0);
+    }
+
+    @Test
+    public void duplicateRowsMatchDefaultFactory() {
+        assertSameRows(ImmutableList.of(row(0), row(1), row(0), row(1)), ColumnSelection.all(), 3);
+    }
+
+    @Test
+    public void largeRowBatchMatchesDefaultFactory() {
+        List<byte[]> rows = new ArrayList<>();
+        for (int row = 0; row < NUM_ROWS; row++) {
+            rows.add(row(row));
+        }
+        assertSameRows(rows, ColumnSelection.all(), NUM_ROWS + NUM_ROWS / 2);
+        assertSameRows(rows, ColumnSelection.create(ImmutableList.of(SECOND_COLUMN)), NUM_ROWS / 2);
+    }
+
+    private void assertSameCells(Map<Cell, Long> timestampByCell, int expectedSize) {
+        Map<Cell, Value> arrayRead = arrayKvs.get(TABLE, timestampByCell);
+        assertThat(arrayRead).hasSize(expectedSize).isEqualTo(defaultKvs.get(TABLE, timestampByCell));
+    }
+
+    private void assertSameRows(List<byte[]> rows, ColumnSelection columns, int expectedSize) {
+        long timestamp = SECOND_TIMESTAMP + 1;
+        Map<Cell, Value> arrayRead = arrayKvs.getRows(TABLE, rows, columns, timestamp);
+        assertThat(arrayRead).hasSize(expectedSize).isEqualTo(defaultKvs.getRows(TABLE, rows, columns, timestamp));
+    }
+
+    private static byte[] row(int row) {
+        return Ints.toByteArray(row);
+    }
+
+    private static KeyValueService createKvsWithArrayBoundPointReads() {
+        return ConnectionManagerAwareDbKvs.create(ImmutableDbKeyValueServiceConfig.builder()
+                .connection(DbKvsPostgresTestSuite.getConnectionConfig())
+                .ddl(ImmutablePostgresDdlConfig.builder()
+                        .compactInterval(HumanReadableDuration.days(2))
+                        .useArrayBoundPointReads(true)
+                        .build())
+                .build());
+    }
+}
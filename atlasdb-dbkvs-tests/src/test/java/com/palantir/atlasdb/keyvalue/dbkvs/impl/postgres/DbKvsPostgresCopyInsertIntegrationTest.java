@@ -0,0 +1,138 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.dbkvs.ImmutableDbKeyValueServiceConfig;
+import com.palantir.atlasdb.keyvalue.dbkvs.ImmutablePostgresDdlConfig;
+import com.palantir.atlasdb.keyvalue.dbkvs.impl.ConnectionManagerAwareDbKvs;
+import com.palantir.atlasdb.keyvalue.impl.TestResourceManager;
+import com.palantir.conjure.java.api.config.service.HumanReadableDuration;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class DbKvsPostgresCopyInsertIntegrationTest {
+    private static final int COPY_INSERT_THRESHOLD = 10;
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.copy_insert");
+    private static final long TIMESTAMP = 100L;
+
+    @ClassRule
+    public static final TestResourceManager TRM =
+            new TestResourceManager(DbKvsPostgresCopyInsertIntegrationTest::createKvsWithCopyInsert);
+
+    private KeyValueService kvs;
+
+    @Before
+    public void setUp() {
+        kvs = TRM.getDefaultKvs();
+        kvs.createTable(TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+    }
+
+    @After
+    public void tearDown() {
+        kvs.dropTable(TABLE);
+    }
+
+    @Test
+    public void putsAtOrAboveThresholdAreCopiedAndReadable() {
+        Map<Cell, byte[]> values = values(0, 5 * COPY_INSERT_THRESHOLD);
+        values.put(cell(-1), PtBytes.EMPTY_BYTE_ARRAY);
+
+        kvs.put(TABLE, values, TIMESTAMP);
+
+        assertReadable(values);
+    }
+
+    @Test
+    public void putsBelowThresholdAreStillInserted() {
+        Map<Cell, byte[]> values = values(0, COPY_INSERT_THRESHOLD - 1);
+
+        kvs.put(TABLE, values, TIMESTAMP);
+
+        assertReadable(values);
+    }
+
+    @Test
+    public void repeatingACopiedPutIsIdempotent() {
+        Map<Cell, byte[]> values = values(0, 2 * COPY_INSERT_THRESHOLD);
+
+        kvs.put(TABLE, values, TIMESTAMP);
+        kvs.put(TABLE, values, TIMESTAMP);
+
+        assertReadable(values);
+    }
+
+    @Test
+    public void copyFailsAsAWholeIfAnyCellAlreadyExists() {
+        kvs.put(TABLE, ImmutableMap.of(cell(3), PtBytes.toBytes("existing")), TIMESTAMP);
+
+        assertThatThrownBy(() -> kvs.put(TABLE, values(0, 2 * COPY_INSERT_THRESHOLD), TIMESTAMP))
+                .isInstanceOf(KeyAlreadyExistsException.class);
+
+        Map<Cell, Value> read = kvs.get(TABLE, ImmutableMap.of(cell(3), TIMESTAMP + 1, cell(4), TIMESTAMP + 1));
+        assertThat(read).containsOnlyKeys(cell(3));
+        assertThat(read.get(cell(3)).getContents()).isEqualTo(PtBytes.toBytes("existing"));
+    }
+
+    private void assertReadable(Map<Cell, byte[]> values) {
+        Map<Cell, Long> timestamps = new HashMap<>();
+        values.keySet().forEach(cell -> timestamps.put(cell, TIMESTAMP + 1));
+        Map<Cell, Value> read = kvs.get(TABLE, timestamps);
+
+        assertThat(read).hasSameSizeAs(values);
+        values.forEach((cell, value) -> {
+            assertThat(read.get(cell).getContents()).isEqualTo(value);
+            assertThat(read.get(cell).getTimestamp()).isEqualTo(TIMESTAMP);
+        });
+    }
+
+    private static Map<Cell, byte[]> values(int fromInclusive, int toExclusive) {
+        Map<Cell, byte[]> values = new HashMap<>();
+        for (int i = fromInclusive; i < toExclusive; i++) {
+            values.put(cell(i), PtBytes.toBytes("value" + i));
+        }
+        return values;
+    }
+
+    private static Cell cell(int row) {
+        return Cell.create(Ints.toByteArray(row), PtBytes.toBytes("c"));
+    }
+
+    private static KeyValueService createKvsWithCopyInsert() {
+        return ConnectionManagerAwareDbKvs.create(ImmutableDbKeyValueServiceConfig.builder()
+                .connection(DbKvsPostgresTestSuite.getConnectionConfig())
+                .ddl(ImmutablePostgresDdlConfig.builder()
+                        .compactInterval(HumanReadableDuration.days(2))
+                        .copyInsertThreshold(COPY_INSERT_THRESHOLD)
+                        .build())
+                .build());
+    }
+}
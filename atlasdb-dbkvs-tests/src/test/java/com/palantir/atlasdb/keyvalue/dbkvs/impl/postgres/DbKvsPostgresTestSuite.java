@@ -43,6 +43,8 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({
     DbKvsPostgresTargetedSweepIntegrationTest.class,
     DbKvsPostgresKeyValueServiceTest.class,
+    DbKvsPostgresCopyInsertIntegrationTest.class,
+    DbKvsPostgresArrayPointReadsIntegrationTest.class,
     DbKvsPostgresSerializableTransactionTest.class,
     DbKvsPostgresSweepTaskRunnerTest.class,
     DbKvsBackgroundSweeperIntegrationTest.class,
@@ -21,6 +21,8 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.conjure.java.api.config.service.HumanReadableDuration;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
 import org.immutables.value.Value;
 
 @JsonDeserialize(as = ImmutablePostgresDdlConfig.class)
@@ -50,4 +52,34 @@ public abstract class PostgresDdlConfig extends DdlConfig {
     public HumanReadableDuration compactInterval() {
         return HumanReadableDuration.seconds(0);
     }
+
+    /**
+     * Puts of at least this many cells into a single table are written with {@code COPY ... FROM STDIN} in binary
+     * format rather than a batched {@code INSERT}, which is considerably cheaper for bulk loads. Puts are split into
+     * batches of at most {@link #mutationBatchCount()} cells before being written, so this must not exceed that limit.
+     * Non-positive values disable the {@code COPY} path.
+     */
+    @Value.Default
+    public int copyInsertThreshold() {
+        return 0;
+    }
+
+    /**
+     * If true, multi-row and multi-cell point reads bind their keys as arrays rather than as one parameter group per
+     * key, so that each kind of read uses a single SQL statement (and plan) regardless of the number of keys requested.
+     */
+    @Value.Default
+    public boolean useArrayBoundPointReads() {
+        return false;
+    }
+
+    @Value.Check
+    protected final void checkPostgresConfig() {
+        Preconditions.checkState(
+                copyInsertThreshold() <= mutationBatchCount(),
+                "Postgres 'copyInsertThreshold' must not exceed 'mutationBatchCount', as puts are split into batches"
+                        + " of at most that many cells and would never be copied.",
+                SafeArg.of("copyInsertThreshold", copyInsertThreshold()),
+                SafeArg.of("mutationBatchCount", mutationBatchCount()));
+    }
 }
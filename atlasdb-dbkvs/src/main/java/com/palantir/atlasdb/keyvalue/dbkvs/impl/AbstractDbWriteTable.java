@@ -74,13 +74,7 @@ public abstract class AbstractDbWriteTable implements DbWriteTable {
 
     private void put(List<Object[]> args) {
         try {
-            String prefixedTableName = prefixedTableNames.get(tableRef, conns);
-            conns.get()
-                    .insertManyUnregisteredQuery(
-                            "/* INSERT_ONE (" + prefixedTableName + ") */"
-                                    + " INSERT INTO " + prefixedTableName + " (row_name, col_name, ts, val) "
-                                    + " VALUES (?, ?, ?, ?) ",
-                            args);
+            insert(prefixedTableNames.get(tableRef, conns), args);
         } catch (PalantirSqlException e) {
             if (ExceptionCheck.isUniqueConstraintViolation(e)) {
                 throw new KeyAlreadyExistsException("primary key violation", e);
@@ -89,6 +83,19 @@ public abstract class AbstractDbWriteTable implements DbWriteTable {
         }
     }
 
+    /**
+     * Inserts the given rows, each of which is {@code {row_name, col_name, ts, val}}. Implementations must fail with a
+     * {@link PalantirSqlException} indicating a unique constraint violation if any of the rows already exist.
+     */
+    protected void insert(String prefixedTableName, List<Object[]> args) {
+        conns.get()
+                .insertManyUnregisteredQuery(
+                        "/* INSERT_ONE (" + prefixedTableName + ") */"
+                                + " INSERT INTO " + prefixedTableName + " (row_name, col_name, ts, val) "
+                                + " VALUES (?, ?, ?, ?) ",
+                        args);
+    }
+
     @Override
     public void putSentinels(Iterable<Cell> cells) {
         byte[] value = new byte[0];
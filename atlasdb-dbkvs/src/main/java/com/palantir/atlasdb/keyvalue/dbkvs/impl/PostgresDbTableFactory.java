@@ -17,6 +17,7 @@ package com.palantir.atlasdb.keyvalue.dbkvs.impl;
 
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.dbkvs.PostgresDdlConfig;
+import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresArrayQueryFactory;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresDdlTable;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresPrefixedTableNames;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres.PostgresQueryFactory;
@@ -51,7 +52,11 @@ public class PostgresDbTableFactory implements DbTableFactory {
 
     @Override
     public DbReadTable createRead(TableReference tableRef, ConnectionSupplier conns) {
-        return new DbReadTable(conns, new PostgresQueryFactory(DbKvs.internalTableName(tableRef), config));
+        String tableName = DbKvs.internalTableName(tableRef);
+        PostgresQueryFactory queryFactory = config.useArrayBoundPointReads()
+                ? new PostgresArrayQueryFactory(tableName, config)
+                : new PostgresQueryFactory(tableName, config);
+        return new DbReadTable(conns, queryFactory);
     }
 
     @Override
@@ -0,0 +1,214 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
+
+import com.google.common.collect.Iterables;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.dbkvs.PostgresDdlConfig;
+import com.palantir.atlasdb.keyvalue.dbkvs.impl.FullQuery;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A {@link PostgresQueryFactory} whose multi-row and multi-cell point reads bind their keys as {@code bytea[]} (and
+ * {@code int8[]}) arrays joined via {@code unnest}, rather than generating one {@code (?, ?)} group per key. The SQL
+ * text of each query therefore depends only on its shape and not on the number of keys, so Postgres can reuse a single
+ * prepared statement and plan however requests are batched.
+ */
+public class PostgresArrayQueryFactory extends PostgresQueryFactory {
+    private final String tableName;
+
+    public PostgresArrayQueryFactory(String tableName, PostgresDdlConfig config) {
+        super(tableName, config);
+        this.tableName = tableName;
+    }
+
+    @Override
+    public FullQuery getLatestRowsQuery(Iterable<byte[]> rows, long ts, ColumnSelection columns, boolean includeValue) {
+        String query = " /* GET_LATEST_ROWS_INNER_ARRAY (" + tableName + ") */ "
+                + " SELECT m.row_name, m.col_name, max(m.ts) as ts "
+                + "   FROM " + prefixedTableName() + " m "
+                + "  WHERE m.row_name = ANY(?::bytea[]) "
+                + "    AND m.ts < ? "
+                + columnSelectionClause(columns)
+                + " GROUP BY m.row_name, m.col_name ";
+        return withColumnSelectionArg(
+                        FullQuery.builder()
+                                .append(wrapQueryWithIncludeValue("GET_LATEST_ROW_ARRAY", query, includeValue))
+                                .addArg(toByteArrays(rows))
+                                .addArg(ts),
+                        columns)
+                .build();
+    }
+
+    @Override
+    public FullQuery getLatestRowsQuery(
+            Collection<Map.Entry<byte[], Long>> rows, ColumnSelection columns, boolean includeValue) {
+        String query = " /* GET_LATEST_ROWS_INNER_ARRAY (" + tableName + ") */ "
+                + " SELECT m.row_name, m.col_name, max(m.ts) as ts "
+                + "   FROM " + prefixedTableName() + " m,"
+                + "     unnest(?::bytea[], ?::int8[]) t(row_name, ts) "
+                + "  WHERE m.row_name = t.row_name "
+                + "    AND m.ts < t.ts "
+                + columnSelectionClause(columns)
+                + " GROUP BY m.row_name, m.col_name ";
+        String wrappedQuery = wrapQueryWithIncludeValue("GET_LATEST_ROW_ARRAY", query, includeValue);
+        return withColumnSelectionArg(withRowTsArgs(FullQuery.builder().append(wrappedQuery), rows), columns)
+                .build();
+    }
+
+    @Override
+    public FullQuery getAllRowsQuery(Iterable<byte[]> rows, long ts, ColumnSelection columns, boolean includeValue) {
+        String query = " /* GET_ALL_ROWS_ARRAY (" + tableName + ") */ "
+                + " SELECT m.row_name, m.col_name, m.ts" + (includeValue ? ", m.val " : " ")
+                + "   FROM " + prefixedTableName() + " m "
+                + "  WHERE m.row_name = ANY(?::bytea[]) "
+                + "    AND m.ts < ? "
+                + columnSelectionClause(columns);
+        return withColumnSelectionArg(
+                        FullQuery.builder().append(query).addArg(toByteArrays(rows)).addArg(ts), columns)
+                .build();
+    }
+
+    @Override
+    public FullQuery getAllRowsQuery(
+            Collection<Map.Entry<byte[], Long>> rows, ColumnSelection columns, boolean includeValue) {
+        String query = " /* GET_ALL_ROWS_ARRAY (" + tableName + ") */ "
+                + " SELECT m.row_name, m.col_name, m.ts" + (includeValue ? ", m.val " : " ")
+                + "   FROM " + prefixedTableName() + " m,"
+                + "     unnest(?::bytea[], ?::int8[]) t(row_name, ts) "
+                + "  WHERE m.row_name = t.row_name "
+                + "    AND m.ts < t.ts "
+                + columnSelectionClause(columns);
+        return withColumnSelectionArg(withRowTsArgs(FullQuery.builder().append(query), rows), columns)
+                .build();
+    }
+
+    @Override
+    public FullQuery getLatestCellsQuery(Iterable<Cell> cells, long ts, boolean includeValue) {
+        String query = " /* GET_LATEST_CELLS_INNER_ARRAY (" + tableName + ") */ "
+                + " SELECT m.row_name, m.col_name, max(m.ts) as ts "
+                + "   FROM " + prefixedTableName() + " m,"
+                + "     unnest(?::bytea[], ?::bytea[]) t(row_name, col_name) "
+                + "  WHERE m.row_name = t.row_name "
+                + "    AND m.col_name = t.col_name "
+                + "    AND m.ts < ? "
+                + " GROUP BY m.row_name, m.col_name ";
+        return withCellArgs(
+                        FullQuery.builder()
+                                .append(wrapQueryWithIncludeValue("GET_LATEST_CELLS_ARRAY", query, includeValue)),
+                        cells)
+                .addArg(ts)
+                .build();
+    }
+
+    @Override
+    public FullQuery getLatestCellsQuery(Collection<Map.Entry<Cell, Long>> cells, boolean includeValue) {
+        String query = " /* GET_LATEST_CELLS_INNER_ARRAY (" + tableName + ") */ "
+                + " SELECT m.row_name, m.col_name, max(m.ts) as ts "
+                + "   FROM " + prefixedTableName() + " m,"
+                + "     unnest(?::bytea[], ?::bytea[], ?::int8[]) t(row_name, col_name, ts) "
+                + "  WHERE m.row_name = t.row_name "
+                + "    AND m.col_name = t.col_name "
+                + "    AND m.ts < t.ts "
+                + " GROUP BY m.row_name, m.col_name ";
+        return withCellTsArgs(
+                        FullQuery.builder()
+                                .append(wrapQueryWithIncludeValue("GET_LATEST_CELLS_ARRAY", query, includeValue)),
+                        cells)
+                .build();
+    }
+
+    @Override
+    public FullQuery getAllCellsQuery(Iterable<Cell> cells, long ts, boolean includeValue) {
+        String query = " /* GET_ALL_CELLS_ARRAY (" + tableName + ") */ "
+                + " SELECT m.row_name, m.col_name, m.ts" + (includeValue ? ", m.val " : " ")
+                + "   FROM " + prefixedTableName() + " m,"
+                + "     unnest(?::bytea[], ?::bytea[]) t(row_name, col_name) "
+                + "  WHERE m.row_name = t.row_name "
+                + "    AND m.col_name = t.col_name "
+                + "    AND m.ts < ? ";
+        return withCellArgs(FullQuery.builder().append(query), cells)
+                .addArg(ts)
+                .build();
+    }
+
+    @Override
+    public FullQuery getAllCellsQuery(Collection<Map.Entry<Cell, Long>> cells, boolean includeValue) {
+        String query = " /* GET_ALL_CELLS_ARRAY (" + tableName + ") */ "
+                + " SELECT m.row_name, m.col_name, m.ts" + (includeValue ? ", m.val " : " ")
+                + "   FROM " + prefixedTableName() + " m,"
+                + "     unnest(?::bytea[], ?::bytea[], ?::int8[]) t(row_name, col_name, ts) "
+                + "  WHERE m.row_name = t.row_name "
+                + "    AND m.col_name = t.col_name "
+                + "    AND m.ts < t.ts ";
+        return withCellTsArgs(FullQuery.builder().append(query), cells).build();
+    }
+
+    private static String columnSelectionClause(ColumnSelection columns) {
+        return columns.allColumnsSelected() ? "" : "    AND m.col_name = ANY(?::bytea[]) ";
+    }
+
+    private static FullQuery.Builder withColumnSelectionArg(FullQuery.Builder builder, ColumnSelection columns) {
+        return columns.allColumnsSelected() ? builder : builder.addArg(toByteArrays(columns.getSelectedColumns()));
+    }
+
+    private static FullQuery.Builder withRowTsArgs(
+            FullQuery.Builder builder, Collection<Map.Entry<byte[], Long>> rows) {
+        byte[][] rowNames = new byte[rows.size()][];
+        long[] timestamps = new long[rows.size()];
+        int index = 0;
+        for (Map.Entry<byte[], Long> entry : rows) {
+            rowNames[index] = entry.getKey();
+            timestamps[index] = entry.getValue();
+            index++;
+        }
+        return builder.addArg(rowNames).addArg(timestamps);
+    }
+
+    private static FullQuery.Builder withCellArgs(FullQuery.Builder builder, Iterable<Cell> cells) {
+        int size = Iterables.size(cells);
+        byte[][] rowNames = new byte[size][];
+        byte[][] columnNames = new byte[size][];
+        int index = 0;
+        for (Cell cell : cells) {
+            rowNames[index] = cell.getRowName();
+            columnNames[index] = cell.getColumnName();
+            index++;
+        }
+        return builder.addArg(rowNames).addArg(columnNames);
+    }
+
+    private static FullQuery.Builder withCellTsArgs(
+            FullQuery.Builder builder, Collection<Map.Entry<Cell, Long>> cells) {
+        byte[][] rowNames = new byte[cells.size()][];
+        byte[][] columnNames = new byte[cells.size()][];
+        long[] timestamps = new long[cells.size()];
+        int index = 0;
+        for (Map.Entry<Cell, Long> entry : cells) {
+            rowNames[index] = entry.getKey().getRowName();
+            columnNames[index] = entry.getKey().getColumnName();
+            timestamps[index] = entry.getValue();
+            index++;
+        }
+        return builder.addArg(rowNames).addArg(columnNames).addArg(timestamps);
+    }
+
+    private static byte[][] toByteArrays(Iterable<byte[]> values) {
+        return Iterables.toArray(values, byte[].class);
+    }
+}
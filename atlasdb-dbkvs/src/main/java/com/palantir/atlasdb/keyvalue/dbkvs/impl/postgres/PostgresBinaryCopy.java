@@ -0,0 +1,102 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.exception.PalantirSqlException;
+import com.palantir.logsafe.logger.SafeLogger;
+import com.palantir.logsafe.logger.SafeLoggerFactory;
+import com.palantir.nexus.db.sql.SqlConnection;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.List;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+/**
+ * Bulk inserts {@code (row_name, col_name, ts, val)} rows with {@code COPY ... FROM STDIN (FORMAT binary)}.
+ * <p>
+ * As with a batched {@code INSERT}, the copy fails with a unique constraint violation if any row already exists, in
+ * which case none of the rows are written.
+ */
+final class PostgresBinaryCopy {
+    private static final SafeLogger log = SafeLoggerFactory.get(PostgresBinaryCopy.class);
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final short NUM_COLUMNS = 4;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private PostgresBinaryCopy() {
+        // Utility class
+    }
+
+    static void copyIn(SqlConnection conn, String prefixedTableName, List<Object[]> rows) {
+        String sql = "COPY " + prefixedTableName + " (row_name, col_name, ts, val) FROM STDIN (FORMAT binary)";
+        PGCopyOutputStream copyStream = null;
+        try {
+            PGConnection pgConnection = conn.getUnderlyingConnection().unwrap(PGConnection.class);
+            copyStream = new PGCopyOutputStream(pgConnection, sql, COPY_BUFFER_SIZE);
+            write(copyStream, rows);
+            copyStream.close();
+        } catch (SQLException e) {
+            cancelQuietly(copyStream);
+            throw PalantirSqlException.create(e);
+        } catch (IOException e) {
+            cancelQuietly(copyStream);
+            throw new PalantirSqlException("Failed to copy rows into " + prefixedTableName, e);
+        }
+    }
+
+    @VisibleForTesting
+    static void write(OutputStream stream, List<Object[]> rows) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.write(SIGNATURE);
+        out.writeInt(0); // flags
+        out.writeInt(0); // header extension length
+        for (Object[] row : rows) {
+            out.writeShort(NUM_COLUMNS);
+            writeBytes(out, (byte[]) row[0]);
+            writeBytes(out, (byte[]) row[1]);
+            out.writeInt(Long.BYTES);
+            out.writeLong((Long) row[2]);
+            writeBytes(out, (byte[]) row[3]);
+        }
+        out.writeShort(-1); // trailer
+        out.flush();
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void cancelQuietly(PGCopyOutputStream copyStream) {
+        if (copyStream == null || !copyStream.isActive()) {
+            return;
+        }
+        try {
+            copyStream.cancelCopy();
+        } catch (SQLException e) {
+            log.warn("Failed to cancel copy after error", e);
+        }
+    }
+}
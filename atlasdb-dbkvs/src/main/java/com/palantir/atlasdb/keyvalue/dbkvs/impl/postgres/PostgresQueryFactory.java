@@ -249,7 +249,7 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         return Joiner.on(',').join(Iterables.limit(Iterables.cycle(params), numEntries));
     }
 
-    private String wrapQueryWithIncludeValue(String wrappedName, String query, boolean includeValue) {
+    protected String wrapQueryWithIncludeValue(String wrappedName, String query, boolean includeValue) {
         if (!includeValue) {
             return query;
         }
@@ -283,7 +283,7 @@ public class PostgresQueryFactory extends AbstractDbQueryFactory {
         return fullQuery;
     }
 
-    private String prefixedTableName() {
+    protected String prefixedTableName() {
         return config.tablePrefix() + tableName;
     }
 
@@ -16,17 +16,30 @@
 package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
 
 import com.palantir.atlasdb.keyvalue.api.TableReference;
-import com.palantir.atlasdb.keyvalue.dbkvs.DdlConfig;
+import com.palantir.atlasdb.keyvalue.dbkvs.PostgresDdlConfig;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.AbstractDbWriteTable;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.ConnectionSupplier;
 import com.palantir.atlasdb.keyvalue.dbkvs.impl.PrefixedTableNames;
+import java.util.List;
 
 public class PostgresWriteTable extends AbstractDbWriteTable {
+    private final int copyInsertThreshold;
+
     public PostgresWriteTable(
-            DdlConfig config,
+            PostgresDdlConfig config,
             ConnectionSupplier conns,
             TableReference tableRef,
             PrefixedTableNames prefixedTableNames) {
         super(config, conns, tableRef, prefixedTableNames);
+        this.copyInsertThreshold = config.copyInsertThreshold();
+    }
+
+    @Override
+    protected void insert(String prefixedTableName, List<Object[]> args) {
+        if (copyInsertThreshold > 0 && args.size() >= copyInsertThreshold) {
+            PostgresBinaryCopy.copyIn(conns.get(), prefixedTableName, args);
+        } else {
+            super.insert(prefixedTableName, args);
+        }
     }
 }
@@ -0,0 +1,50 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.dbkvs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import org.junit.Test;
+
+public class PostgresDdlConfigTest {
+    @Test
+    public void copyInsertIsDisabledByDefault() {
+        assertThat(ImmutablePostgresDdlConfig.builder().build().copyInsertThreshold())
+                .isZero();
+    }
+
+    @Test
+    public void copyInsertThresholdMayEqualMutationBatchCount() {
+        PostgresDdlConfig config = ImmutablePostgresDdlConfig.builder()
+                .mutationBatchCount(500)
+                .copyInsertThreshold(500)
+                .build();
+
+        assertThat(config.copyInsertThreshold()).isEqualTo(500);
+    }
+
+    @Test
+    public void copyInsertThresholdMustNotExceedMutationBatchCount() {
+        assertThatThrownBy(() -> ImmutablePostgresDdlConfig.builder()
+                        .mutationBatchCount(500)
+                        .copyInsertThreshold(501)
+                        .build())
+                .isInstanceOf(SafeIllegalStateException.class)
+                .hasMessageContaining("'copyInsertThreshold' must not exceed 'mutationBatchCount'");
+    }
+}
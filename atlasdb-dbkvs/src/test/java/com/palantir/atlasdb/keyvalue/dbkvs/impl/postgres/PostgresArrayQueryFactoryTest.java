@@ -0,0 +1,79 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.dbkvs.ImmutablePostgresDdlConfig;
+import com.palantir.atlasdb.keyvalue.dbkvs.impl.FullQuery;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class PostgresArrayQueryFactoryTest {
+    private static final long TIMESTAMP = 100L;
+
+    private final PostgresArrayQueryFactory queryFactory = new PostgresArrayQueryFactory(
+            "test_table", ImmutablePostgresDdlConfig.builder().build());
+
+    @Test
+    public void latestCellsQueryTextDoesNotDependOnNumberOfCells() {
+        FullQuery small = queryFactory.getLatestCellsQuery(cells(1), TIMESTAMP, true);
+        FullQuery large = queryFactory.getLatestCellsQuery(cells(50), TIMESTAMP, true);
+
+        assertThat(small.getQuery()).isEqualTo(large.getQuery());
+        assertThat(large.getArgs()).hasSize(3);
+        assertThat((byte[][]) large.getArgs()[0]).hasSize(50);
+        assertThat((byte[][]) large.getArgs()[1]).hasSize(50);
+        assertThat(large.getArgs()[2]).isEqualTo(TIMESTAMP);
+    }
+
+    @Test
+    public void latestCellsWithTimestampsBindsTimestampArray() {
+        FullQuery query = queryFactory.getLatestCellsQuery(
+                ImmutableMap.of(cell(1), 5L, cell(2), 7L).entrySet(), false);
+
+        assertThat(query.getArgs()).hasSize(3);
+        assertThat((long[]) query.getArgs()[2]).containsExactly(5L, 7L);
+    }
+
+    @Test
+    public void rowsQueryBindsSelectedColumnsAsArray() {
+        List<byte[]> rows = ImmutableList.of(PtBytes.toBytes("a"), PtBytes.toBytes("b"));
+        ColumnSelection columns = ColumnSelection.create(ImmutableList.of(PtBytes.toBytes("c")));
+
+        FullQuery query = queryFactory.getAllRowsQuery(rows, TIMESTAMP, columns, true);
+
+        assertThat(query.getQuery()).contains("m.col_name = ANY(?::bytea[])");
+        assertThat(query.getArgs()).hasSize(3);
+        assertThat((byte[][]) query.getArgs()[0]).hasSize(2);
+        assertThat((byte[][]) query.getArgs()[2]).hasSize(1);
+    }
+
+    private static List<Cell> cells(int count) {
+        return IntStream.range(0, count).mapToObj(PostgresArrayQueryFactoryTest::cell).collect(Collectors.toList());
+    }
+
+    private static Cell cell(int index) {
+        return Cell.create(PtBytes.toBytes("row" + index), PtBytes.toBytes("col" + index));
+    }
+}
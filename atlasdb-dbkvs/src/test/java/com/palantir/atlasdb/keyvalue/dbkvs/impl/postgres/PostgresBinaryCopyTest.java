@@ -0,0 +1,69 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.dbkvs.impl.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+public class PostgresBinaryCopyTest {
+    private static final byte[] ROW = {1, 2};
+    private static final byte[] COLUMN = {3};
+    private static final byte[] VALUE = {4, 5, 6};
+
+    @Test
+    public void writesHeaderRowsAndTrailerInBinaryCopyFormat() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PostgresBinaryCopy.write(bytes, ImmutableList.of(new Object[] {ROW, COLUMN, 42L, VALUE}));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        byte[] signature = new byte[11];
+        in.readFully(signature);
+        assertThat(signature).containsExactly('P', 'G', 'C', 'O', 'P', 'Y', '\n', 0xFF, '\r', '\n', 0);
+        assertThat(in.readInt()).as("flags").isZero();
+        assertThat(in.readInt()).as("header extension length").isZero();
+
+        assertThat(in.readShort()).as("column count").isEqualTo((short) 4);
+        assertThat(readField(in)).isEqualTo(ROW);
+        assertThat(readField(in)).isEqualTo(COLUMN);
+        assertThat(in.readInt()).isEqualTo(Long.BYTES);
+        assertThat(in.readLong()).isEqualTo(42L);
+        assertThat(readField(in)).isEqualTo(VALUE);
+
+        assertThat(in.readShort()).as("trailer").isEqualTo((short) -1);
+        assertThat(in.available()).isZero();
+    }
+
+    @Test
+    public void writesNullValuesWithNegativeLength() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PostgresBinaryCopy.write(bytes, ImmutableList.of(new Object[] {ROW, COLUMN, 1L, null}));
+
+        // header (19) + column count (2) + row (4 + 2) + column (4 + 1) + ts (4 + 8) + null value (4) + trailer (2)
+        assertThat(bytes.size()).isEqualTo(19 + 2 + 6 + 5 + 12 + 4 + 2);
+    }
+
+    private static byte[] readField(DataInputStream in) throws IOException {
+        byte[] field = new byte[in.readInt()];
+        in.readFully(field);
+        return field;
+    }
+}
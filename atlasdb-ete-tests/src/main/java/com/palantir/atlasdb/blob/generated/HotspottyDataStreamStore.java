@@ -174,6 +174,9 @@ public final class HotspottyDataStreamStore extends AbstractPersistentStreamStor
     }
 
     private long getNumberOfBlocksFromMetadata(StreamMetadata metadata) {
+        if (metadata.getChunkIdsCount() > 0) {
+            return 0;
+        }
         return (metadata.getLength() + BLOCK_SIZE_IN_BYTES - 1) / BLOCK_SIZE_IN_BYTES;
     }
 
@@ -314,6 +317,7 @@ public final class HotspottyDataStreamStore extends AbstractPersistentStreamStor
         Set<HotspottyDataStreamValueTable.HotspottyDataStreamValueRow> streamValueToDelete = new HashSet<>();
         for (Entry<HotspottyDataStreamMetadataTable.HotspottyDataStreamMetadataRow, StreamMetadata> e : metadatas.entrySet()) {
             Long streamId = e.getKey().getId();
+            unmarkChunksOfDeletedStream(t, streamId, e.getValue());
             long blocks = getNumberOfBlocksFromMetadata(e.getValue());
             for (long i = 0; i < blocks; i++) {
                 streamValueToDelete.add(HotspottyDataStreamValueTable.HotspottyDataStreamValueRow.of(streamId, i));
@@ -40,10 +40,24 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import javax.annotation.concurrent.ThreadSafe;
 
+/**
+ * The value store and the snapshot store have a single writer at a time: applying events, storing snapshots and
+ * flushing committed values all happen under the update lock, as they must observe events in order. Everything that
+ * only concerns a single transaction runs without that lock: transaction scoped caches are created, looked up and
+ * removed in a concurrent {@link CacheStore}, and each snapshot handed to a transaction is an immutable view of the
+ * value store. Only starting transactions, and committing transactions that have values to flush, wait for the lock.
+ *
+ * Timestamps whose state is removed are queued, and are removed from the snapshot store straight away if the update
+ * lock is free, and otherwise by the thread holding it, before it releases the lock.
+ */
 @ThreadSafe
 public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopingCache {
     private static final SafeLogger log = SafeLoggerFactory.get(LockWatchValueScopingCacheImpl.class);
@@ -52,6 +66,8 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
     private final CacheStore cacheStore;
     private final ValueStore valueStore;
     private final SnapshotStore snapshotStore;
+    private final Lock updateLock = new ReentrantLock();
+    private final Queue<StartTimestamp> removedTimestamps = new ConcurrentLinkedQueue<>();
 
     private volatile Optional<LockWatchVersion> currentVersion = Optional.empty();
 
@@ -91,64 +107,64 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
         return proxyFactory.newValueCacheProxy();
     }
 
+    /**
+     * The update for the transactions is computed relative to the current version, and so must be computed and
+     * applied under the update lock: applying an update computed from an older version could skip snapshots.
+     */
     @Override
-    public synchronized void processStartTransactions(Set<Long> startTimestamps) {
-        TransactionsLockWatchUpdate updateForTransactions =
-                eventCache.getUpdateForTransactions(startTimestamps, currentVersion);
+    public void processStartTransactions(Set<Long> startTimestamps) {
+        updateLock.lock();
+        try {
+            TransactionsLockWatchUpdate updateForTransactions =
+                    eventCache.getUpdateForTransactions(startTimestamps, currentVersion);
 
-        Optional<LockWatchVersion> latestVersionFromUpdate = computeMaxUpdateVersion(updateForTransactions);
+            Optional<LockWatchVersion> latestVersionFromUpdate = computeMaxUpdateVersion(updateForTransactions);
 
-        if (updateForTransactions.clearCache()) {
-            clearCache(updateForTransactions, latestVersionFromUpdate);
-        }
+            if (updateForTransactions.clearCache()) {
+                clearCache(updateForTransactions, latestVersionFromUpdate);
+            }
 
-        updateStores(updateForTransactions);
-        updateCurrentVersion(latestVersionFromUpdate);
+            updateStores(updateForTransactions);
+            updateCurrentVersion(latestVersionFromUpdate);
+        } finally {
+            removeQueuedTimestampsAndUnlock();
+        }
     }
 
     @Override
-    public synchronized void updateCacheWithCommitTimestampsInformation(Set<Long> startTimestamps) {
+    public void updateCacheWithCommitTimestampsInformation(Set<Long> startTimestamps) {
         startTimestamps.forEach(this::processCommitUpdate);
     }
 
     @Override
-    public synchronized void ensureStateRemoved(long startTimestamp) {
+    public void ensureStateRemoved(long startTimestamp) {
         StartTimestamp startTs = StartTimestamp.of(startTimestamp);
-        snapshotStore.removeTimestamp(startTs);
+        removedTimestamps.add(startTs);
         cacheStore.removeCache(startTs);
+        if (updateLock.tryLock()) {
+            removeQueuedTimestampsAndUnlock();
+        }
     }
 
+    /**
+     * The events between the start of the transaction and the latest version must be read under the update lock, so
+     * that no event newer than those invalidating the cached values can be applied to the value store before the
+     * values are flushed to it.
+     */
     @Override
-    public synchronized void onSuccessfulCommit(long startTimestamp) {
+    public void onSuccessfulCommit(long startTimestamp) {
         StartTimestamp startTs = StartTimestamp.of(startTimestamp);
         TransactionScopedCache cache = cacheStore.getCache(startTs);
         cache.finalise();
 
         Map<CellReference, CacheValue> cachedValues = cache.getValueDigest().loadedValues();
         if (!cachedValues.isEmpty()) {
-
-            CommitUpdate commitUpdate = eventCache.getEventUpdate(startTimestamp);
-            commitUpdate.accept(new CommitUpdate.Visitor<Void>() {
-                @Override
-                public Void invalidateAll() {
-                    // This might happen due to an election or if we exceeded the maximum number of events held in
-                    // memory. Either way, the values are just not pushed to the central cache. If it needs to throw
-                    // because of read-write conflicts, that is handled in the PreCommitCondition.
-                    return null;
-                }
-
-                @Override
-                public Void invalidateSome(Set<LockDescriptor> invalidatedLocks) {
-                    Set<CellReference> invalidatedCells = invalidatedLocks.stream()
-                            .map(AtlasLockDescriptorUtils::candidateCells)
-                            .flatMap(List::stream)
-                            .collect(Collectors.toSet());
-                    KeyedStream.stream(cachedValues)
-                            .filterKeys(cellReference -> !invalidatedCells.contains(cellReference))
-                            .forEach(valueStore::putValue);
-                    return null;
-                }
-            });
+            updateLock.lock();
+            try {
+                flushCachedValues(startTimestamp, cachedValues);
+            } finally {
+                removeQueuedTimestampsAndUnlock();
+            }
         }
         ensureStateRemoved(startTimestamp);
     }
@@ -169,7 +185,36 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
         return cacheStore.getReadOnlyCache(StartTimestamp.of(startTs));
     }
 
-    private synchronized void processCommitUpdate(long startTimestamp) {
+    private void flushCachedValues(long startTimestamp, Map<CellReference, CacheValue> cachedValues) {
+        CommitUpdate commitUpdate = eventCache.getEventUpdate(startTimestamp);
+        commitUpdate.accept(new CommitUpdate.Visitor<Void>() {
+            @Override
+            public Void invalidateAll() {
+                // This might happen due to an election or if we exceeded the maximum number of events held in
+                // memory. Either way, the values are just not pushed to the central cache. If it needs to throw
+                // because of read-write conflicts, that is handled in the PreCommitCondition.
+                return null;
+            }
+
+            @Override
+            public Void invalidateSome(Set<LockDescriptor> invalidatedLocks) {
+                Set<CellReference> invalidatedCells = invalidatedLocks.stream()
+                        .map(AtlasLockDescriptorUtils::candidateCells)
+                        .flatMap(List::stream)
+                        .collect(Collectors.toSet());
+                KeyedStream.stream(cachedValues)
+                        .filterKeys(cellReference -> !invalidatedCells.contains(cellReference))
+                        .forEach(valueStore::putValue);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Creating the read-only cache only concerns this transaction, so it does not take the update lock. If the cache
+     * is cleared concurrently, the transaction's cache is simply no longer present and caching is disabled for it.
+     */
+    private void processCommitUpdate(long startTimestamp) {
         StartTimestamp startTs = StartTimestamp.of(startTimestamp);
         TransactionScopedCache cache = cacheStore.getCache(startTs);
         cache.finalise();
@@ -178,7 +223,8 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
     }
 
     /**
-     * In order to maintain the necessary invariants, we need to do the following:
+     * Must be called holding the update lock. In order to maintain the necessary invariants, we need to do the
+     * following:
      *
      *  1. For each new event, we apply it to the cache. The effects of this application is described in
      *     {@link LockWatchValueScopingCache}.
@@ -190,7 +236,7 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
      *  3. For each transaction, we must create a transaction scoped cache. We do this now as we have tighter guarantees
      *     around when the cache is created, and thus deleted.
      */
-    private synchronized void updateStores(TransactionsLockWatchUpdate updateForTransactions) {
+    private void updateStores(TransactionsLockWatchUpdate updateForTransactions) {
         Multimap<Sequence, StartTimestamp> reversedMap = createSequenceTimestampMultimap(updateForTransactions);
 
         // Without this block, updates with no events would not store a snapshot.
@@ -216,14 +262,14 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
         }
     }
 
-    private synchronized boolean isNewEvent(LockWatchEvent event) {
+    private boolean isNewEvent(LockWatchEvent event) {
         return currentVersion
                 .map(LockWatchVersion::version)
                 .map(current -> current < event.sequence())
                 .orElse(true);
     }
 
-    private synchronized void assertNoSnapshotsMissing(Multimap<Sequence, StartTimestamp> reversedMap) {
+    private void assertNoSnapshotsMissing(Multimap<Sequence, StartTimestamp> reversedMap) {
         Set<Sequence> sequences = reversedMap.keySet();
         if (sequences.stream().map(snapshotStore::getSnapshotForSequence).anyMatch(Optional::isEmpty)) {
             log.warn(
@@ -239,7 +285,7 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
         }
     }
 
-    private synchronized void updateCurrentVersion(Optional<LockWatchVersion> maybeUpdateVersion) {
+    private void updateCurrentVersion(Optional<LockWatchVersion> maybeUpdateVersion) {
         maybeUpdateVersion
                 .filter(this::shouldUpdateVersion)
                 .ifPresent(updateVersion -> currentVersion = Optional.of(updateVersion));
@@ -250,11 +296,11 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
                 .max(Comparator.comparingLong(LockWatchVersion::version));
     }
 
-    private synchronized boolean shouldUpdateVersion(LockWatchVersion updateVersion) {
+    private boolean shouldUpdateVersion(LockWatchVersion updateVersion) {
         return currentVersion.isEmpty() || currentVersion.get().version() < updateVersion.version();
     }
 
-    private synchronized void clearCache(
+    private void clearCache(
             TransactionsLockWatchUpdate updateForTransactions, Optional<LockWatchVersion> latestVersionFromUpdate) {
         LockWatchEvent firstEvent = null;
         LockWatchEvent lastEvent = null;
@@ -275,6 +321,28 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
         currentVersion = Optional.empty();
     }
 
+    /**
+     * Must be called holding the update lock, which it releases. A thread that queues a timestamp while the lock is
+     * held fails to take it, so the queue is checked again once the lock is released: the timestamp is then removed
+     * either here or by whichever thread took the lock in the meantime, before that thread releases it.
+     */
+    private void removeQueuedTimestampsAndUnlock() {
+        do {
+            try {
+                removeQueuedTimestamps();
+            } finally {
+                updateLock.unlock();
+            }
+        } while (!removedTimestamps.isEmpty() && updateLock.tryLock());
+    }
+
+    private void removeQueuedTimestamps() {
+        StartTimestamp timestamp;
+        while ((timestamp = removedTimestamps.poll()) != null) {
+            snapshotStore.removeTimestamp(timestamp);
+        }
+    }
+
     private static Multimap<Sequence, StartTimestamp> createSequenceTimestampMultimap(
             TransactionsLockWatchUpdate updateForTransactions) {
         return KeyedStream.stream(updateForTransactions.startTsToSequence())
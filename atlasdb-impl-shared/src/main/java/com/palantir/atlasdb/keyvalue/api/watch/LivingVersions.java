@@ -0,0 +1,238 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.api.watch;
+
+import java.util.Optional;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Counts the live start timestamps at each lock watch version, in order to track the earliest version that a live
+ * transaction started at.
+ *
+ * Versions are kept in ascending order in a circular array, paired with their counts. Transactions almost always start
+ * at the latest version and, as the oldest transactions finish, the earliest versions drain, so both of the common
+ * operations are constant time at the ends of the array. Versions whose count has dropped to zero are left in place
+ * until they reach the front, and are compacted away once they make up most of the array. Mutations synchronise on
+ * this object, while the earliest live version is published for reading without locks.
+ */
+@ThreadSafe
+final class LivingVersions {
+    private static final int MIN_CAPACITY = 16;
+
+    @GuardedBy("this")
+    private long[] sequences = new long[MIN_CAPACITY];
+
+    @GuardedBy("this")
+    private int[] counts = new int[MIN_CAPACITY];
+
+    @GuardedBy("this")
+    private int head = 0;
+
+    /** The number of versions held, including those whose count is zero. */
+    @GuardedBy("this")
+    private int length = 0;
+
+    @GuardedBy("this")
+    private int liveVersions = 0;
+
+    private volatile Optional<Sequence> earliestLiveSequence = Optional.empty();
+
+    Optional<Sequence> getEarliestLiveSequence() {
+        return earliestLiveSequence;
+    }
+
+    synchronized void add(long sequence) {
+        int position = search(sequence);
+        if (position >= 0) {
+            increment(position);
+        } else {
+            ensureCapacity();
+            // growing drops drained versions, which moves the insertion point
+            int insertionPoint = -search(sequence) - 1;
+            if (insertionPoint == 0 && length > 0) {
+                head = (head - 1) & mask();
+                length++;
+                setAt(0, sequence, 1);
+                liveVersions++;
+            } else {
+                insertAt(insertionPoint, sequence);
+            }
+        }
+        publishEarliest();
+    }
+
+    synchronized void remove(long sequence) {
+        int position = search(sequence);
+        if (position < 0 || countAt(position) == 0) {
+            return;
+        }
+        int remaining = countAt(position) - 1;
+        counts[physical(position)] = remaining;
+        if (remaining == 0) {
+            liveVersions--;
+            while (length > 0 && countAt(0) == 0) {
+                head = (head + 1) & mask();
+                length--;
+            }
+            if (length > MIN_CAPACITY && length > 2 * liveVersions) {
+                compact();
+            }
+        }
+        publishEarliest();
+    }
+
+    synchronized void clear() {
+        sequences = new long[MIN_CAPACITY];
+        counts = new int[MIN_CAPACITY];
+        head = 0;
+        length = 0;
+        liveVersions = 0;
+        earliestLiveSequence = Optional.empty();
+    }
+
+    @GuardedBy("this")
+    private void increment(int position) {
+        int index = physical(position);
+        if (counts[index] == 0) {
+            liveVersions++;
+        }
+        counts[index]++;
+    }
+
+    /**
+     * Returns the position of the sequence if present, or {@code -(insertion point) - 1} otherwise, as for
+     * {@link java.util.Arrays#binarySearch(long[], long)}. The latest version is checked first, as it is by far the
+     * most likely to be looked up.
+     */
+    @GuardedBy("this")
+    private int search(long sequence) {
+        if (length == 0) {
+            return -1;
+        }
+        long last = sequenceAt(length - 1);
+        if (sequence == last) {
+            return length - 1;
+        } else if (sequence > last) {
+            return -length - 1;
+        }
+        int low = 0;
+        int high = length - 2;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midSequence = sequenceAt(mid);
+            if (midSequence < sequence) {
+                low = mid + 1;
+            } else if (midSequence > sequence) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    @GuardedBy("this")
+    private void insertAt(int position, long sequence) {
+        for (int current = length; current > position; current--) {
+            int from = physical(current - 1);
+            setAt(current, sequences[from], counts[from]);
+        }
+        length++;
+        setAt(position, sequence, 1);
+        liveVersions++;
+    }
+
+    @GuardedBy("this")
+    private void ensureCapacity() {
+        if (length == sequences.length) {
+            resize(sequences.length * 2);
+        }
+    }
+
+    @GuardedBy("this")
+    private void compact() {
+        int capacity = MIN_CAPACITY;
+        while (capacity < liveVersions * 2) {
+            capacity <<= 1;
+        }
+        resize(capacity);
+    }
+
+    /**
+     * Copies the versions with live timestamps to the start of new arrays of the given capacity.
+     */
+    @GuardedBy("this")
+    private void resize(int capacity) {
+        long[] newSequences = new long[capacity];
+        int[] newCounts = new int[capacity];
+        int newLength = 0;
+        for (int position = 0; position < length; position++) {
+            int index = physical(position);
+            if (counts[index] > 0) {
+                newSequences[newLength] = sequences[index];
+                newCounts[newLength] = counts[index];
+                newLength++;
+            }
+        }
+        sequences = newSequences;
+        counts = newCounts;
+        head = 0;
+        length = newLength;
+    }
+
+    @GuardedBy("this")
+    private void publishEarliest() {
+        Optional<Sequence> published = earliestLiveSequence;
+        if (length == 0) {
+            if (published.isPresent()) {
+                earliestLiveSequence = Optional.empty();
+            }
+        } else {
+            long earliest = sequenceAt(0);
+            if (published.isEmpty() || published.get().value() != earliest) {
+                earliestLiveSequence = Optional.of(Sequence.of(earliest));
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private long sequenceAt(int position) {
+        return sequences[physical(position)];
+    }
+
+    @GuardedBy("this")
+    private int countAt(int position) {
+        return counts[physical(position)];
+    }
+
+    @GuardedBy("this")
+    private void setAt(int position, long sequence, int count) {
+        int index = physical(position);
+        sequences[index] = sequence;
+        counts[index] = count;
+    }
+
+    @GuardedBy("this")
+    private int physical(int position) {
+        return (head + position) & mask();
+    }
+
+    @GuardedBy("this")
+    private int mask() {
+        return sequences.length - 1;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.api.watch;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An open-addressing hash table keyed by primitive longs. Mutations synchronise on the table, while reads take no
+ * locks at all.
+ *
+ * Reads are safe without locking because every slot holds an immutable entry that is replaced whole, so a reader
+ * always sees a key together with its own value, and because a slot never becomes empty again once used, so a
+ * concurrent mutation can never cut a reader's probe sequence short. Removed entries are replaced by a tombstone;
+ * tombstones are dropped when the table is rebuilt into a fresh array, which readers of the old array do not observe.
+ */
+@ThreadSafe
+final class LongKeyedTable<V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final Entry<?> TOMBSTONE = new Entry<>(0L, null);
+
+    private volatile AtomicReferenceArray<Entry<V>> slots = new AtomicReferenceArray<>(MIN_CAPACITY);
+
+    @GuardedBy("this")
+    private int size = 0;
+
+    @GuardedBy("this")
+    private int usedSlots = 0;
+
+    synchronized int size() {
+        return size;
+    }
+
+    @Nullable
+    V get(long key) {
+        AtomicReferenceArray<Entry<V>> table = slots;
+        int mask = table.length() - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            Entry<V> entry = table.get(index);
+            if (entry == null) {
+                return null;
+            }
+            if (entry != TOMBSTONE && entry.key == key) {
+                return entry.value;
+            }
+        }
+    }
+
+    /**
+     * Associates the key with the value if it has no value, returning the existing value otherwise.
+     */
+    @Nullable
+    synchronized V putIfAbsent(long key, V value) {
+        AtomicReferenceArray<Entry<V>> table = slots;
+        int mask = table.length() - 1;
+        int firstTombstone = -1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            Entry<V> entry = table.get(index);
+            if (entry == null) {
+                if (firstTombstone >= 0) {
+                    table.set(firstTombstone, new Entry<>(key, value));
+                } else {
+                    table.set(index, new Entry<>(key, value));
+                    usedSlots++;
+                }
+                size++;
+                rebuildIfCrowded();
+                return null;
+            }
+            if (entry == TOMBSTONE) {
+                if (firstTombstone < 0) {
+                    firstTombstone = index;
+                }
+            } else if (entry.key == key) {
+                return entry.value;
+            }
+        }
+    }
+
+    /**
+     * Replaces the value of the key only if it already has one, returning the value replaced.
+     */
+    @Nullable
+    synchronized V replace(long key, V value) {
+        AtomicReferenceArray<Entry<V>> table = slots;
+        int index = indexOf(table, key);
+        if (index < 0) {
+            return null;
+        }
+        return table.getAndSet(index, new Entry<>(key, value)).value;
+    }
+
+    @Nullable
+    synchronized V remove(long key) {
+        AtomicReferenceArray<Entry<V>> table = slots;
+        int index = indexOf(table, key);
+        if (index < 0) {
+            return null;
+        }
+        size--;
+        return table.getAndSet(index, tombstone()).value;
+    }
+
+    synchronized void clear() {
+        slots = new AtomicReferenceArray<>(MIN_CAPACITY);
+        size = 0;
+        usedSlots = 0;
+    }
+
+    /**
+     * Visits every entry in an unspecified order. Entries added or removed concurrently may or may not be visited.
+     */
+    void forEach(EntryConsumer<? super V> consumer) {
+        AtomicReferenceArray<Entry<V>> table = slots;
+        for (int index = 0; index < table.length(); index++) {
+            Entry<V> entry = table.get(index);
+            if (entry != null && entry != TOMBSTONE) {
+                consumer.accept(entry.key, entry.value);
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private void rebuildIfCrowded() {
+        // at most half of the slots are ever used, so every probe sequence reaches an empty slot
+        if (usedSlots * 2 <= slots.length()) {
+            return;
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < size * 4) {
+            capacity <<= 1;
+        }
+        AtomicReferenceArray<Entry<V>> rebuilt = new AtomicReferenceArray<>(capacity);
+        int mask = capacity - 1;
+        forEach((key, value) -> {
+            int index = hash(key) & mask;
+            while (rebuilt.get(index) != null) {
+                index = (index + 1) & mask;
+            }
+            rebuilt.set(index, new Entry<>(key, value));
+        });
+        usedSlots = size;
+        slots = rebuilt;
+    }
+
+    private static <V> int indexOf(AtomicReferenceArray<Entry<V>> table, long key) {
+        int mask = table.length() - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            Entry<V> entry = table.get(index);
+            if (entry == null) {
+                return -1;
+            }
+            if (entry != TOMBSTONE && entry.key == key) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Start timestamps are handed out in dense batches, so the key is scrambled before its low bits pick a slot.
+     */
+    private static int hash(long key) {
+        long scrambled = key * 0x9E3779B97F4A7C15L;
+        return (int) (scrambled ^ (scrambled >>> 32));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Entry<V> tombstone() {
+        return (Entry<V>) TOMBSTONE;
+    }
+
+    interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private static final class Entry<V> {
+        private final long key;
+        private final V value;
+
+        private Entry(long key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
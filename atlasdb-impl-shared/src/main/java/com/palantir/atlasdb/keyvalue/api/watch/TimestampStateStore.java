@@ -19,8 +19,6 @@ package com.palantir.atlasdb.keyvalue.api.watch;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Multimaps;
 import com.google.common.collect.SortedSetMultimap;
 import com.google.common.collect.TreeMultimap;
 import com.palantir.atlasdb.transaction.api.TransactionLockWatchFailedException;
@@ -33,9 +31,10 @@ import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
 import java.util.Collection;
-import java.util.NavigableMap;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.TreeMap;
 import javax.annotation.concurrent.NotThreadSafe;
 import org.immutables.value.Value;
 
@@ -53,11 +52,10 @@ import org.immutables.value.Value;
  * 1. Each timestamp is independent of each other, and thus updates should not interact. Updates to the same key may
  *    be executed in any order (and indeed, an update may race the initial put), but these should be handled by the
  *    caller.
- * 2. The entries in the living versions multimap may not be independent (as a single version may correspond to many
- *    timestamps), but the update concurrency should be handled by the data structure.
- * 3. Calls to {@link #getEarliestLiveSequence()} are synchronised on the livingVersions map, and thus are blocking;
- *    this method should be called sparsely. Given that it is only used for retentioning events, which can be eventually
- *    consistent (as it is always correct to keep more events rather than less), this is acceptable for performance.
+ * 2. The living versions may not be independent (as a single version may correspond to many timestamps), but the
+ *    update concurrency is handled by {@link LivingVersions}.
+ * 3. Reads, including {@link #getEarliestLiveSequence()}, never block: timestamps are held in a {@link LongKeyedTable}
+ *    and the earliest live version is published by {@link LivingVersions}, both of which serve reads without locks.
  */
 @NotThreadSafe
 final class TimestampStateStore {
@@ -66,23 +64,23 @@ final class TimestampStateStore {
     @VisibleForTesting
     static final int MAXIMUM_SIZE = 20_000;
 
-    private final NavigableMap<StartTimestamp, TimestampVersionInfo> timestampMap = new ConcurrentSkipListMap<>();
-    private final SortedSetMultimap<Sequence, StartTimestamp> livingVersions =
-            Multimaps.synchronizedSortedSetMultimap(TreeMultimap.create());
+    private final LongKeyedTable<TimestampVersionInfo> timestampMap = new LongKeyedTable<>();
+    private final LivingVersions livingVersions = new LivingVersions();
 
     void putStartTimestamps(Collection<Long> startTimestamps, LockWatchVersion version) {
         validateStateSize();
 
-        startTimestamps.stream().map(StartTimestamp::of).forEach(startTimestamp -> {
-            TimestampVersionInfo previous = timestampMap.putIfAbsent(startTimestamp, TimestampVersionInfo.of(version));
+        TimestampVersionInfo versionInfo = TimestampVersionInfo.of(version);
+        for (long startTimestamp : startTimestamps) {
+            TimestampVersionInfo previous = timestampMap.putIfAbsent(startTimestamp, versionInfo);
             Preconditions.checkArgument(previous == null, "Start timestamp already present in map");
-            livingVersions.put(Sequence.of(version.version()), startTimestamp);
-        });
+            livingVersions.add(version.version());
+        }
     }
 
     void putCommitUpdates(Collection<TransactionUpdate> transactionUpdates, LockWatchVersion newVersion) {
         transactionUpdates.forEach(transactionUpdate -> {
-            StartTimestamp startTimestamp = StartTimestamp.of(transactionUpdate.startTs());
+            long startTimestamp = transactionUpdate.startTs();
             TimestampVersionInfo previousEntry = timestampMap.get(startTimestamp);
             if (previousEntry == null) {
                 throw new TransactionLockWatchFailedException("Start timestamp missing from map");
@@ -98,9 +96,10 @@ final class TimestampStateStore {
     }
 
     void remove(long startTimestamp) {
-        Optional.ofNullable(timestampMap.remove(StartTimestamp.of(startTimestamp)))
-                .ifPresent(entry -> livingVersions.remove(
-                        Sequence.of(entry.version().version()), StartTimestamp.of(startTimestamp)));
+        TimestampVersionInfo removed = timestampMap.remove(startTimestamp);
+        if (removed != null) {
+            livingVersions.remove(removed.version().version());
+        }
     }
 
     void clear() {
@@ -109,50 +108,48 @@ final class TimestampStateStore {
     }
 
     Optional<LockWatchVersion> getStartVersion(long startTimestamp) {
-        return Optional.ofNullable(timestampMap.get(StartTimestamp.of(startTimestamp)))
-                .map(TimestampVersionInfo::version);
+        return Optional.ofNullable(timestampMap.get(startTimestamp)).map(TimestampVersionInfo::version);
     }
 
     Optional<TimestampVersionInfo> getTimestampInfo(long startTimestamp) {
-        return Optional.ofNullable(timestampMap.get(StartTimestamp.of(startTimestamp)));
+        return Optional.ofNullable(timestampMap.get(startTimestamp));
     }
 
-    /**
-     * As per the documentation of {@link Multimaps#synchronizedSortedSetMultimap(SortedSetMultimap)}, we must
-     * synchronise on the collection when using any kind of collection view, including keySet. While this impacts the
-     * concurrency of this class, this method does not need to be called on every transaction, and thus should not
-     * impact performance.
-     */
     Optional<Sequence> getEarliestLiveSequence() {
-        synchronized (livingVersions) {
-            return Optional.ofNullable(Iterables.getFirst(livingVersions.keySet(), null));
-        }
+        return livingVersions.getEarliestLiveSequence();
     }
 
     @VisibleForTesting
     Optional<CommitInfo> getCommitInfo(long startTimestamp) {
-        return Optional.ofNullable(timestampMap.get(StartTimestamp.of(startTimestamp)))
-                .flatMap(TimestampVersionInfo::commitInfo);
+        return Optional.ofNullable(timestampMap.get(startTimestamp)).flatMap(TimestampVersionInfo::commitInfo);
     }
 
     @VisibleForTesting
     TimestampStateStoreState getStateForTesting() {
         // This method doesn't need to read a thread-safe snapshot of timestampMap and livingVersions
+        Map<StartTimestamp, TimestampVersionInfo> timestamps = new TreeMap<>();
+        SortedSetMultimap<Sequence, StartTimestamp> versions = TreeMultimap.create();
+        timestampMap.forEach((startTimestamp, versionInfo) -> {
+            timestamps.put(StartTimestamp.of(startTimestamp), versionInfo);
+            versions.put(Sequence.of(versionInfo.version().version()), StartTimestamp.of(startTimestamp));
+        });
         return ImmutableTimestampStateStoreState.builder()
-                .timestampMap(timestampMap)
-                .livingVersions(livingVersions)
+                .timestampMap(timestamps)
+                .livingVersions(versions)
                 .build();
     }
 
     private void validateStateSize() {
-        if (timestampMap.size() > MAXIMUM_SIZE || livingVersions.size() > MAXIMUM_SIZE) {
+        int size = timestampMap.size();
+        if (size > MAXIMUM_SIZE) {
+            LongSummaryStatistics liveTimestamps = new LongSummaryStatistics();
+            timestampMap.forEach((startTimestamp, unused) -> liveTimestamps.accept(startTimestamp));
             log.warn(
                     "Timestamp state store has exceeded its maximum size. This likely indicates a memory leak",
-                    SafeArg.of("timestampMapSize", timestampMap.size()),
-                    SafeArg.of("livingVersionsSize", livingVersions.size()),
+                    SafeArg.of("timestampMapSize", size),
                     SafeArg.of("maximumSize", MAXIMUM_SIZE),
-                    SafeArg.of("minimumLiveTimestamp", timestampMap.firstEntry()),
-                    SafeArg.of("maximumLiveTimestamp", timestampMap.lastEntry()),
+                    SafeArg.of("minimumLiveTimestamp", liveTimestamps.getMin()),
+                    SafeArg.of("maximumLiveTimestamp", liveTimestamps.getMax()),
                     SafeArg.of("minimumLiveVersion", getEarliestLiveSequence()));
             throw new SafeIllegalStateException("Exceeded maximum timestamp state store size");
         }
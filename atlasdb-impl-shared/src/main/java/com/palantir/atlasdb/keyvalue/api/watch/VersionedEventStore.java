@@ -18,28 +18,38 @@ package com.palantir.atlasdb.keyvalue.api.watch;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.primitives.Ints;
 import com.palantir.atlasdb.keyvalue.api.cache.CacheMetrics;
 import com.palantir.lock.watch.LockWatchEvent;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.UnsafeArg;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.NavigableMap;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.stream.Collectors;
-
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Holds lock watch events indexed by their sequence in a ring buffer. Events always form a contiguous range of
+ * sequences (each batch is contiguous, and the event log never admits a batch that would leave a gap after the events
+ * it already has), so the event for a sequence is found in constant time from its offset within the range, and
+ * retention, which always removes the oldest events, just advances the start of the range.
+ *
+ * Mutations synchronise on the store. The range is published as an immutable {@link Window} over the ring, so reads
+ * take no locks: slots are only written outside the published range before a new window is published, or, when an
+ * existing event is overwritten, with an event for the same sequence. Slots are only cleared by retention, after the
+ * window has moved past them; the event log ensures that no reads run concurrently with retention.
+ */
+@ThreadSafe
 final class VersionedEventStore {
-    private static final boolean INCLUSIVE = true;
+    private static final int MIN_CAPACITY = 16;
     private static final Sequence MAX_VERSION = Sequence.of(Long.MAX_VALUE);
 
     private final int minEvents;
     private final int maxEvents;
-    private final NavigableMap<Sequence, LockWatchEvent> eventMap = new ConcurrentSkipListMap<>();
+    private volatile Window window = Window.empty(new LockWatchEvent[MIN_CAPACITY]);
 
     VersionedEventStore(CacheMetrics cacheMetrics, int minEvents, int maxEvents) {
         Preconditions.checkArgument(minEvents > 0, "minEvents must be positive", SafeArg.of("minEvents", minEvents));
@@ -50,90 +60,165 @@ final class VersionedEventStore {
                 SafeArg.of("maxEvents", maxEvents));
         this.maxEvents = maxEvents;
         this.minEvents = minEvents;
-        cacheMetrics.setEventsHeldInMemory(eventMap::size);
+        cacheMetrics.setEventsHeldInMemory(() -> window.size);
     }
 
     Collection<LockWatchEvent> getEventsBetweenVersionsInclusive(Optional<Long> maybeStartVersion, long endVersion) {
-        Optional<Long> startVersion = maybeStartVersion.or(this::getFirstKey).filter(version -> version <= endVersion);
+        Window current = window;
+        if (current.size == 0) {
+            return ImmutableList.of();
+        }
+        long startVersion = Math.max(maybeStartVersion.orElse(current.first), current.first);
+        long lastVersion = Math.min(endVersion, current.last());
+        if (startVersion > lastVersion) {
+            return ImmutableList.of();
+        }
 
-        return startVersion
-                .map(version -> getValuesBetweenInclusive(endVersion, version))
-                .orElseGet(ImmutableList::of);
+        ImmutableList.Builder<LockWatchEvent> events =
+                ImmutableList.builderWithExpectedSize(Ints.checkedCast(lastVersion - startVersion + 1));
+        for (long sequence = startVersion; sequence <= lastVersion; sequence++) {
+            events.add(current.get(sequence));
+        }
+        return events.build();
     }
 
-    LockWatchEvents retentionEvents(Optional<Sequence> earliestSequenceToKeep) {
-        if (eventMap.size() < minEvents) {
+    synchronized LockWatchEvents retentionEvents(Optional<Sequence> earliestSequenceToKeep) {
+        int size = window.size;
+        if (size < minEvents) {
             return LockWatchEvents.builder().build();
         }
 
         // Guarantees that we remove some events while still also potentially performing further retention - note
-        // that each call to retentionEventsInternal modifies eventMap.
-        if (eventMap.size() > maxEvents) {
-            List<LockWatchEvent> overMaxSizeEvents = retentionEventsInternal(eventMap.size() - maxEvents, MAX_VERSION);
+        // that each call to retentionEventsInternal modifies the window.
+        if (size > maxEvents) {
+            List<LockWatchEvent> overMaxSizeEvents = retentionEventsInternal(size - maxEvents, MAX_VERSION);
             List<LockWatchEvent> restOfEvents =
-                    retentionEventsInternal(eventMap.size() - minEvents, earliestSequenceToKeep.orElse(MAX_VERSION));
+                    retentionEventsInternal(window.size - minEvents, earliestSequenceToKeep.orElse(MAX_VERSION));
             return ImmutableLockWatchEvents.builder()
                     .addAllEvents(overMaxSizeEvents)
                     .addAllEvents(restOfEvents)
                     .build();
         } else {
             return ImmutableLockWatchEvents.builder()
-                    .addAllEvents(retentionEventsInternal(
-                            eventMap.size() - minEvents, earliestSequenceToKeep.orElse(MAX_VERSION)))
+                    .addAllEvents(
+                            retentionEventsInternal(size - minEvents, earliestSequenceToKeep.orElse(MAX_VERSION)))
                     .build();
         }
     }
 
+    /**
+     * Removes up to the given number of the oldest events, stopping at the first event whose sequence is not below the
+     * given version.
+     */
+    @GuardedBy("this")
     private List<LockWatchEvent> retentionEventsInternal(int numToRetention, Sequence maxVersion) {
-        List<LockWatchEvent> events = new ArrayList<>(numToRetention);
-
-        // The correctness of this depends upon eventMap's entrySet returning entries in ascending sorted order.
-        List<Map.Entry<Sequence, LockWatchEvent>> eventsToClear = eventMap.entrySet().stream()
-                .limit(numToRetention)
-                .filter(entry -> entry.getKey().value() < maxVersion.value())
-                .collect(Collectors.toList());
-
-        eventsToClear.forEach(entry -> {
-            eventMap.remove(entry.getKey());
-            events.add(entry.getValue());
-        });
+        Window current = window;
+        long removable = maxVersion.value() > current.first ? maxVersion.value() - current.first : 0;
+        int toRemove = (int) Math.min(numToRetention, removable);
+        if (toRemove <= 0) {
+            return ImmutableList.of();
+        }
 
-        return events;
+        ImmutableList.Builder<LockWatchEvent> events = ImmutableList.builderWithExpectedSize(toRemove);
+        for (long sequence = current.first; sequence < current.first + toRemove; sequence++) {
+            events.add(current.get(sequence));
+        }
+        window = new Window(current.ring, current.first + toRemove, current.size - toRemove);
+        for (long sequence = current.first; sequence < current.first + toRemove; sequence++) {
+            current.ring[current.index(sequence)] = null;
+        }
+        return events.build();
     }
 
     boolean containsEntryLessThanOrEqualTo(long version) {
-        return eventMap.floorKey(Sequence.of(version)) != null;
+        Window current = window;
+        return current.size > 0 && current.first <= version;
     }
 
-    long putAll(LockWatchEvents events) {
+    synchronized long putAll(LockWatchEvents events) {
         Preconditions.checkState(
                 !events.events().isEmpty(),
                 "Not expecting addition of empty lock watch events",
                 UnsafeArg.of("lockWatchEvents", events));
-        events.events().forEach(event -> eventMap.put(Sequence.of(event.sequence()), event));
-        return getLastKey();
+        Window current = window;
+        long batchFirst = events.events().get(0).sequence();
+        long batchLast = batchFirst + events.events().size() - 1;
+        long first = batchFirst;
+        long last = batchLast;
+        if (current.size > 0) {
+            Preconditions.checkState(
+                    batchFirst <= current.last() + 1 && batchLast + 1 >= current.first,
+                    "Lock watch events must be contiguous with the events already stored",
+                    SafeArg.of("firstStoredSequence", current.first),
+                    SafeArg.of("lastStoredSequence", current.last()),
+                    SafeArg.of("firstNewSequence", batchFirst),
+                    SafeArg.of("lastNewSequence", batchLast));
+            first = Math.min(first, current.first);
+            last = Math.max(last, current.last());
+        }
+
+        int size = Ints.checkedCast(last - first + 1);
+        LockWatchEvent[] ring = current.ring.length >= size ? current.ring : grow(current, size);
+        Window updated = new Window(ring, first, size);
+        events.events().forEach(event -> ring[updated.index(event.sequence())] = event);
+        window = updated;
+        return last;
     }
 
-    void clear() {
-        eventMap.clear();
+    synchronized void clear() {
+        window = Window.empty(new LockWatchEvent[MIN_CAPACITY]);
     }
 
     @VisibleForTesting
     VersionedEventStoreState getStateForTesting() {
-        return ImmutableVersionedEventStoreState.builder().eventMap(eventMap).build();
+        Window current = window;
+        ImmutableSortedMap.Builder<Sequence, LockWatchEvent> eventMap = ImmutableSortedMap.naturalOrder();
+        for (long sequence = current.first; sequence < current.first + current.size; sequence++) {
+            eventMap.put(Sequence.of(sequence), current.get(sequence));
+        }
+        return ImmutableVersionedEventStoreState.builder()
+                .eventMap(eventMap.build())
+                .build();
     }
 
-    private Collection<LockWatchEvent> getValuesBetweenInclusive(long endVersion, long startVersion) {
-        return eventMap.subMap(Sequence.of(startVersion), INCLUSIVE, Sequence.of(endVersion), INCLUSIVE)
-                .values();
+    private static LockWatchEvent[] grow(Window current, int size) {
+        int capacity = current.ring.length;
+        while (capacity < size) {
+            capacity = Math.multiplyExact(capacity, 2);
+        }
+        LockWatchEvent[] ring = new LockWatchEvent[capacity];
+        int mask = capacity - 1;
+        for (long sequence = current.first; sequence < current.first + current.size; sequence++) {
+            ring[(int) sequence & mask] = current.get(sequence);
+        }
+        return ring;
     }
 
-    private Optional<Long> getFirstKey() {
-        return Optional.ofNullable(eventMap.firstEntry()).map(Entry::getKey).map(Sequence::value);
-    }
+    private static final class Window {
+        private final LockWatchEvent[] ring;
+        private final long first;
+        private final int size;
 
-    private long getLastKey() {
-        Preconditions.checkState(!eventMap.isEmpty(), "Cannot get last key from empty map");
-        return eventMap.lastKey().value();
+        private Window(LockWatchEvent[] ring, long first, int size) {
+            this.ring = ring;
+            this.first = first;
+            this.size = size;
+        }
+
+        private static Window empty(LockWatchEvent[] ring) {
+            return new Window(ring, 0, 0);
+        }
+
+        private long last() {
+            return first + size - 1;
+        }
+
+        private LockWatchEvent get(long sequence) {
+            return ring[index(sequence)];
+        }
+
+        private int index(long sequence) {
+            return (int) sequence & (ring.length - 1);
+        }
     }
 }
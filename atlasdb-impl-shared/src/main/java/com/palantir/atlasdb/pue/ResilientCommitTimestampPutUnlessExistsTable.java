@@ -16,10 +16,11 @@
 
 package com.palantir.atlasdb.pue;
 
-import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.Futures;
@@ -41,9 +42,18 @@ import com.palantir.util.RateLimitedLogger;
 import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -55,37 +65,39 @@ public class ResilientCommitTimestampPutUnlessExistsTable implements PutUnlessEx
     private static final RateLimitedLogger log = new RateLimitedLogger(
             SafeLoggerFactory.get(ResilientCommitTimestampPutUnlessExistsTable.class), 1.0 / 3600);
     private static final int TOUCH_CACHE_SIZE = 1000;
-    private static final Duration COMMIT_THRESHOLD = Duration.ofSeconds(1);
+    private static final Duration COMMIT_THRESHOLD_PER_STAGING_VALUE = Duration.ofSeconds(1);
+    private static final int MAX_LOGGED_STAGING_VALUES = 10;
 
     private final ConsensusForgettingStore store;
     private final TwoPhaseEncodingStrategy encodingStrategy;
     private final Supplier<Boolean> acceptStagingReadsAsCommitted;
     private final Clock clock;
     private final PutUnlessExistsTableMetrics metrics;
-    private final Map<ByteBuffer, Object> rowLocks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ByteBuffer, CompletableFuture<Void>> rowsBeingTouched = new ConcurrentHashMap<>();
     private final AtomicLong fallbacks = new AtomicLong(0);
 
-    private final LoadingCache<CellInfo, Long> touchCache = Caffeine.newBuilder()
+    /**
+     * Staging values seen by a single get are committed together, by the thread performing the get. Concurrent gets
+     * that see the same staging value wait for the first to commit it rather than repeating the work, as the cache
+     * holds an in-flight future for every staging value being committed. Failed commits are not cached.
+     */
+    private final AsyncLoadingCache<CellInfo, Long> touchCache = Caffeine.newBuilder()
             .maximumSize(TOUCH_CACHE_SIZE)
-            .build(new CacheLoader<>() {
+            .buildAsync(new AsyncCacheLoader<>() {
                 @Override
-                @Nonnull
-                public Long load(@Nonnull CellInfo cellInfo) {
-                    metrics.touchCacheLoad().time(() -> {
-                        FollowUpAction followUpAction = FollowUpAction.PUT;
-                        if (shouldTouch()) {
-                            synchronized (
-                                    rowLocks.computeIfAbsent(
-                                            ByteBuffer.wrap(cellInfo.cell().getRowName()), x -> x)) {
-                                followUpAction = touchAndReturn(cellInfo);
-                            }
-                        }
-                        if (followUpAction == FollowUpAction.PUT) {
-                            store.put(ImmutableMap.of(
-                                    cellInfo.cell(), encodingStrategy.transformStagingToCommitted(cellInfo.value())));
-                        }
-                    });
-                    return cellInfo.commitTs();
+                public CompletableFuture<Long> asyncLoad(@Nonnull CellInfo cellInfo, @Nonnull Executor executor) {
+                    return asyncLoadAll(Set.of(cellInfo), executor).thenApply(loaded -> loaded.get(cellInfo));
+                }
+
+                @Override
+                public CompletableFuture<Map<CellInfo, Long>> asyncLoadAll(
+                        @Nonnull Set<? extends CellInfo> cellInfos, @Nonnull Executor _executor) {
+                    try {
+                        return CompletableFuture.completedFuture(
+                                metrics.touchCacheLoad().timeSupplier(() -> commitStagingValues(cellInfos)));
+                    } catch (RuntimeException e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
                 }
             });
 
@@ -146,33 +158,81 @@ public class ResilientCommitTimestampPutUnlessExistsTable implements PutUnlessEx
                 MoreExecutors.directExecutor());
     }
 
-    private FollowUpAction touchAndReturn(CellInfo cellAndValue) {
-        if (!shouldTouch()) {
-            return FollowUpAction.PUT;
+    private Map<CellInfo, Long> commitStagingValues(Set<? extends CellInfo> cellInfos) {
+        Map<Cell, CellInfo> cellsToPut = new HashMap<>();
+        Map<ByteBuffer, Map<Cell, CellInfo>> cellsByRow = new HashMap<>();
+        for (CellInfo cellInfo : cellInfos) {
+            cellsToPut.put(cellInfo.cell(), cellInfo);
+            cellsByRow
+                    .computeIfAbsent(ByteBuffer.wrap(cellInfo.cell().getRowName()), _row -> new HashMap<>())
+                    .put(cellInfo.cell(), cellInfo);
+        }
+
+        if (shouldTouch()) {
+            cellsByRow.forEach((row, rowCells) -> touchRow(row, rowCells).forEach(cellsToPut::remove));
+        }
+        if (!cellsToPut.isEmpty()) {
+            store.put(KeyedStream.stream(cellsToPut)
+                    .map(cellInfo -> encodingStrategy.transformStagingToCommitted(cellInfo.value()))
+                    .collectToMap());
+        }
+        return cellInfos.stream().collect(Collectors.toMap(cellInfo -> cellInfo, CellInfo::commitTs));
+    }
+
+    /**
+     * Touches of cells in the same row are serialised: a thread touching a row registers a future for it, and any
+     * other thread wanting to touch the row waits for that future to complete before registering its own.
+     *
+     * @return the cells that were found to have been committed already, and so should not be put
+     */
+    private Set<Cell> touchRow(ByteBuffer row, Map<Cell, CellInfo> rowCells) {
+        CompletableFuture<Void> touched = new CompletableFuture<>();
+        CompletableFuture<Void> inProgress;
+        while ((inProgress = rowsBeingTouched.putIfAbsent(row, touched)) != null) {
+            inProgress.join();
         }
-        Cell cell = cellAndValue.cell();
-        byte[] actual = cellAndValue.value();
         try {
-            store.checkAndTouch(cell, actual);
-            return FollowUpAction.PUT;
-        } catch (CheckAndSetException e) {
-            long startTs = cellAndValue.startTs();
-            PutUnlessExistsValue<Long> currentValue = encodingStrategy.decodeValueAsCommitTimestamp(startTs, actual);
-            Long commitTs = currentValue.value();
-            PutUnlessExistsValue<Long> kvsValue = encodingStrategy.decodeValueAsCommitTimestamp(
-                    startTs, Iterables.getOnlyElement(e.getActualValues()));
-            Preconditions.checkState(
-                    kvsValue.equals(PutUnlessExistsValue.committed(commitTs)),
-                    "Failed to persist a staging value for commit timestamp because an unexpected value "
-                            + "was found in the KVS",
-                    SafeArg.of("kvsValue", kvsValue),
-                    SafeArg.of("stagingValue", currentValue));
-            return FollowUpAction.NONE;
+            return touchAndReturnCommitted(rowCells);
+        } finally {
+            rowsBeingTouched.remove(row, touched);
+            touched.complete(null);
+        }
+    }
+
+    /**
+     * Touches each cell once, in turn, so that a cell found to have been committed already does not cause the cells
+     * touched before it to be touched again.
+     */
+    private Set<Cell> touchAndReturnCommitted(Map<Cell, CellInfo> cellInfos) {
+        Set<Cell> committed = new HashSet<>();
+        if (!shouldTouch()) {
+            return committed;
+        }
+        for (CellInfo cellAndValue : cellInfos.values()) {
+            try {
+                store.checkAndTouch(cellAndValue.cell(), cellAndValue.value());
+            } catch (CheckAndSetException e) {
+                long startTs = cellAndValue.startTs();
+                PutUnlessExistsValue<Long> currentValue =
+                        encodingStrategy.decodeValueAsCommitTimestamp(startTs, cellAndValue.value());
+                Long commitTs = currentValue.value();
+                PutUnlessExistsValue<Long> kvsValue = encodingStrategy.decodeValueAsCommitTimestamp(
+                        startTs, Iterables.getOnlyElement(e.getActualValues()));
+                Preconditions.checkState(
+                        kvsValue.equals(PutUnlessExistsValue.committed(commitTs)),
+                        "Failed to persist a staging value for commit timestamp because an unexpected value "
+                                + "was found in the KVS",
+                        SafeArg.of("kvsValue", kvsValue),
+                        SafeArg.of("stagingValue", currentValue));
+                committed.add(cellAndValue.cell());
+            }
         }
+        return committed;
     }
 
     private Map<Long, Long> processReads(Map<Cell, byte[]> reads, Map<Long, Cell> startTsToCell) {
         ImmutableMap.Builder<Long, Long> resultBuilder = ImmutableMap.builder();
+        List<CellInfo> stagingValues = new ArrayList<>();
         for (Map.Entry<Long, Cell> startTsAndCell : startTsToCell.entrySet()) {
             Cell cell = startTsAndCell.getValue();
             Optional<byte[]> maybeActual = Optional.ofNullable(reads.get(cell));
@@ -187,38 +247,71 @@ public class ResilientCommitTimestampPutUnlessExistsTable implements PutUnlessEx
             Long commitTs = currentValue.value();
             if (currentValue.isCommitted()) {
                 resultBuilder.put(startTs, commitTs);
-                continue;
+            } else {
+                stagingValues.add(ImmutableCellInfo.of(cell, startTs, commitTs, actual));
             }
-            try {
-                Instant startTime = clock.instant();
-                resultBuilder.put(startTs, touchCache.get(ImmutableCellInfo.of(cell, startTs, commitTs, actual)));
-                Duration timeTaken = Duration.between(startTime, clock.instant());
-                if (timeTaken.compareTo(COMMIT_THRESHOLD) >= 0) {
-                    acceptStagingUntil = clock.instant().plusSeconds(60);
-                    log.log(logger -> logger.warn(
-                            "Committing a staging value for the transactions table took too long. "
-                                    + "Treating staging values as committed for 60 seconds to ensure liveness.",
-                            SafeArg.of("startTs", startTs),
-                            SafeArg.of("commitTs", commitTs),
-                            SafeArg.of("timeTaken", timeTaken)));
-                    fallbacks.incrementAndGet();
-                }
-                /**
-                 * This in particular catches {@link com.palantir.atlasdb.keyvalue.api.RetryLimitReachedException}
-                 */
-            } catch (AtlasDbDependencyException e) {
+        }
+
+        if (!stagingValues.isEmpty()) {
+            commitStagingValuesOrFallBack(stagingValues)
+                    .forEach((cellInfo, commitTs) -> resultBuilder.put(cellInfo.startTs(), commitTs));
+        }
+        return resultBuilder.build();
+    }
+
+    /**
+     * Staging values are touched one at a time, so committing a batch is only considered slow if it took longer than
+     * committing each value on its own would be allowed to take.
+     */
+    private Map<CellInfo, Long> commitStagingValuesOrFallBack(List<CellInfo> stagingValues) {
+        try {
+            Instant startTime = clock.instant();
+            Map<CellInfo, Long> committed = getUnchecked(touchCache.getAll(stagingValues));
+            Duration timeTaken = Duration.between(startTime, clock.instant());
+            if (timeTaken.compareTo(COMMIT_THRESHOLD_PER_STAGING_VALUE.multipliedBy(stagingValues.size())) >= 0) {
                 acceptStagingUntil = clock.instant().plusSeconds(60);
                 log.log(logger -> logger.warn(
-                        "Encountered exception attempting to commit a staging value for the transactions table. "
+                        "Committing staging values for the transactions table took too long. "
                                 + "Treating staging values as committed for 60 seconds to ensure liveness.",
-                        SafeArg.of("startTs", startTs),
-                        SafeArg.of("commitTs", commitTs),
-                        e));
+                        SafeArg.of("commitTsByStartTs", getLoggableTimestamps(stagingValues)),
+                        SafeArg.of("numberOfStagingValues", stagingValues.size()),
+                        SafeArg.of("timeTaken", timeTaken)));
                 fallbacks.incrementAndGet();
-                throw e;
             }
+            return committed;
+            /**
+             * This in particular catches {@link com.palantir.atlasdb.keyvalue.api.RetryLimitReachedException}
+             */
+        } catch (AtlasDbDependencyException e) {
+            acceptStagingUntil = clock.instant().plusSeconds(60);
+            log.log(logger -> logger.warn(
+                    "Encountered exception attempting to commit staging values for the transactions table. "
+                            + "Treating staging values as committed for 60 seconds to ensure liveness.",
+                    SafeArg.of("commitTsByStartTs", getLoggableTimestamps(stagingValues)),
+                    SafeArg.of("numberOfStagingValues", stagingValues.size()),
+                    e));
+            fallbacks.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private static Map<Long, Long> getLoggableTimestamps(List<CellInfo> stagingValues) {
+        return stagingValues.stream()
+                .limit(MAX_LOGGED_STAGING_VALUES)
+                .collect(Collectors.toMap(CellInfo::startTs, CellInfo::commitTs));
+    }
+
+    /**
+     * The staging values are committed by this thread unless another get is already committing them, in which case
+     * this waits for that get to finish. Either way, a failure is rethrown as it was thrown while committing.
+     */
+    private static <T> T getUnchecked(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
         }
-        return resultBuilder.build();
     }
 
     private boolean shouldTouch() {
@@ -239,9 +332,4 @@ public class ResilientCommitTimestampPutUnlessExistsTable implements PutUnlessEx
         @Value.Parameter
         byte[] value();
     }
-
-    private enum FollowUpAction {
-        PUT,
-        NONE;
-    }
 }
@@ -0,0 +1,126 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.sweep.queue;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.atlasdb.autobatch.Autobatchers;
+import com.palantir.atlasdb.autobatch.BatchElement;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
+import com.palantir.atlasdb.futures.AtlasFutures;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.table.description.SweepStrategy.SweeperStrategy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces concurrent enqueues into the sweep queue, so that the writes of all transactions committing at the same
+ * time are persisted by a single enqueue to the delegate. The delegate partitions the combined writes by shard, fine
+ * partition and start timestamp exactly as it would have partitioned each enqueue separately, but issues one put per
+ * sweep queue table for the whole batch. Each call returns only once its writes are persisted.
+ *
+ * The writes of each call are validated on their own before they are combined, so a transaction writing too many
+ * cells to one shard fails only its own call. If the combined enqueue fails, the writes of each call are enqueued
+ * separately, so that only the calls whose own writes cannot be persisted fail.
+ */
+final class BatchingSweepQueueWriter implements MultiTableSweepQueueWriter {
+    private final MultiTableSweepQueueWriter delegate;
+    private final DisruptorAutobatcher<List<WriteInfo>, Void> autobatcher;
+
+    private BatchingSweepQueueWriter(
+            MultiTableSweepQueueWriter delegate, DisruptorAutobatcher<List<WriteInfo>, Void> autobatcher) {
+        this.delegate = delegate;
+        this.autobatcher = autobatcher;
+    }
+
+    static BatchingSweepQueueWriter create(SweepQueueWriter delegate) {
+        return create(delegate, delegate::validate);
+    }
+
+    @VisibleForTesting
+    static BatchingSweepQueueWriter create(MultiTableSweepQueueWriter delegate, Consumer<List<WriteInfo>> validator) {
+        DisruptorAutobatcher<List<WriteInfo>, Void> autobatcher = Autobatchers.<List<WriteInfo>, Void>independent(
+                        elements -> processBatch(delegate, validator, elements))
+                .safeLoggablePurpose("batching-sweep-queue-writer")
+                .batchFunctionTimeout(Duration.ofMinutes(5))
+                .build();
+        return new BatchingSweepQueueWriter(delegate, autobatcher);
+    }
+
+    @Override
+    public void enqueue(List<WriteInfo> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        AtlasFutures.getUnchecked(autobatcher.apply(writes));
+    }
+
+    @Override
+    public Optional<SweeperStrategy> getSweepStrategy(TableReference tableReference) {
+        return delegate.getSweepStrategy(tableReference);
+    }
+
+    @Override
+    public void close() {
+        autobatcher.close();
+        delegate.close();
+    }
+
+    @VisibleForTesting
+    static void processBatch(
+            MultiTableSweepQueueWriter delegate,
+            Consumer<List<WriteInfo>> validator,
+            List<BatchElement<List<WriteInfo>, Void>> elements) {
+        List<BatchElement<List<WriteInfo>, Void>> validElements = new ArrayList<>();
+        for (BatchElement<List<WriteInfo>, Void> element : elements) {
+            try {
+                validator.accept(element.argument());
+                validElements.add(element);
+            } catch (RuntimeException e) {
+                element.result().setException(e);
+            }
+        }
+        if (validElements.isEmpty()) {
+            return;
+        }
+
+        List<WriteInfo> allWrites = new ArrayList<>();
+        validElements.forEach(element -> allWrites.addAll(element.argument()));
+        try {
+            delegate.enqueue(allWrites);
+        } catch (RuntimeException e) {
+            if (validElements.size() == 1) {
+                validElements.get(0).result().setException(e);
+            } else {
+                validElements.forEach(element -> enqueueSeparately(delegate, element));
+            }
+            return;
+        }
+        validElements.forEach(element -> element.result().set(null));
+    }
+
+    private static void enqueueSeparately(
+            MultiTableSweepQueueWriter delegate, BatchElement<List<WriteInfo>, Void> element) {
+        try {
+            delegate.enqueue(element.argument());
+            element.result().set(null);
+        } catch (RuntimeException e) {
+            element.result().setException(e);
+        }
+    }
+}
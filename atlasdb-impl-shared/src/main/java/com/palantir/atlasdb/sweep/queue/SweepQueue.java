@@ -41,16 +41,16 @@ import java.util.function.Supplier;
 public final class SweepQueue implements MultiTableSweepQueueWriter {
     private static final SafeLogger log = SafeLoggerFactory.get(SweepQueue.class);
     private final ShardProgress progress;
-    private final SweepQueueWriter writer;
+    private final MultiTableSweepQueueWriter writer;
     private final SweepQueueReader reader;
     private final SweepQueueDeleter deleter;
     private final SweepQueueCleaner cleaner;
     private final Supplier<Integer> numShards;
     private final TargetedSweepMetrics metrics;
 
-    private SweepQueue(SweepQueueFactory factory, TargetedSweepFollower follower) {
+    private SweepQueue(SweepQueueFactory factory, TargetedSweepFollower follower, boolean batchWrites) {
         this.progress = factory.progress;
-        this.writer = factory.createWriter();
+        this.writer = batchWrites ? BatchingSweepQueueWriter.create(factory.createWriter()) : factory.createWriter();
         this.reader = factory.createReader();
         this.deleter = factory.createDeleter(follower);
         this.cleaner = factory.createCleaner();
@@ -66,9 +66,26 @@ public final class SweepQueue implements MultiTableSweepQueueWriter {
             TransactionService transaction,
             TargetedSweepFollower follower,
             ReadBatchingRuntimeContext readBatchingRuntimeContext) {
+        return create(
+                metrics, kvs, timelock, shardsConfig, transaction, follower, readBatchingRuntimeContext, false);
+    }
+
+    /**
+     * Creates a SweepQueue. If batchWrites is true, concurrent enqueues are coalesced so that the writes of
+     * transactions committing at the same time are persisted together.
+     */
+    public static SweepQueue create(
+            TargetedSweepMetrics metrics,
+            KeyValueService kvs,
+            TimelockService timelock,
+            Supplier<Integer> shardsConfig,
+            TransactionService transaction,
+            TargetedSweepFollower follower,
+            ReadBatchingRuntimeContext readBatchingRuntimeContext,
+            boolean batchWrites) {
         SweepQueueFactory factory =
                 SweepQueueFactory.create(metrics, kvs, timelock, shardsConfig, transaction, readBatchingRuntimeContext);
-        return new SweepQueue(factory, follower);
+        return new SweepQueue(factory, follower, batchWrites);
     }
 
     /**
@@ -111,6 +128,11 @@ public final class SweepQueue implements MultiTableSweepQueueWriter {
         return writer.getSweepStrategy(tableReference);
     }
 
+    @Override
+    public void close() {
+        writer.close();
+    }
+
     /**
      * Sweep the next batch for the shard and strategy specified by shardStrategy, with the sweep timestamp sweepTs.
      * After successful deletes, the persisted information about the writes is removed, and progress is updated
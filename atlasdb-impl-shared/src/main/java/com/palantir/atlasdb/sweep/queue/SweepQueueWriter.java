@@ -44,6 +44,14 @@ class SweepQueueWriter implements MultiTableSweepQueueWriter {
         log.debug("Enqueued {} writes into the sweep queue.", SafeArg.of("writes", writes.size()));
     }
 
+    /**
+     * Throws if the writes would exceed the number of cells that may be persisted into a single shard, as enqueueing
+     * them would.
+     */
+    void validate(List<WriteInfo> writes) {
+        SweepQueueUtils.validateNumberOfCellsWritten(partitioner.filterAndPartition(writes).values());
+    }
+
     @Override
     public Optional<SweeperStrategy> getSweepStrategy(TableReference tableReference) {
         return partitioner.getStrategyForTable(tableReference);
@@ -53,6 +53,7 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
     private static final SafeLogger log = SafeLoggerFactory.get(TargetedSweeper.class);
 
     private final boolean shouldResetAndStopSweep;
+    private final boolean batchSweepQueueWrites;
     private final Supplier<TargetedSweepRuntimeConfig> runtime;
     private final List<Follower> followers;
     private final MetricsManager metricsManager;
@@ -78,6 +79,7 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
                 new BackgroundSweepScheduler(install.conservativeThreads(), SweeperStrategy.CONSERVATIVE);
         this.thoroughScheduler = new BackgroundSweepScheduler(install.thoroughThreads(), SweeperStrategy.THOROUGH);
         this.shouldResetAndStopSweep = install.resetTargetedSweepQueueProgressAndStopSweep();
+        this.batchSweepQueueWrites = install.batchSweepQueueWrites();
         this.followers = followers;
         this.metricsConfiguration = install.metricsConfiguration();
     }
@@ -168,7 +170,8 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
                 ReadBatchingRuntimeContext.builder()
                         .maximumPartitions(this::getPartitionBatchLimit)
                         .cellsThreshold(() -> runtime.get().batchCellThreshold())
-                        .build());
+                        .build(),
+                batchSweepQueueWrites);
         timestampsSupplier = timestamps;
         timeLock = timelockService;
         isInitialized = true;
@@ -217,6 +220,9 @@ public class TargetedSweeper implements MultiTableSweepQueueWriter, BackgroundSw
     public void close() {
         conservativeScheduler.close();
         thoroughScheduler.close();
+        if (queue != null) {
+            queue.close();
+        }
     }
 
     @Override
@@ -41,6 +41,16 @@ public class TargetedSweepInstallConfig {
         return AtlasDbConstants.DEFAULT_ENABLE_SWEEP_QUEUE_WRITES;
     }
 
+    /**
+     * If true, concurrent writes to the sweep queue are coalesced, so that transactions committing at the same time
+     * persist their sweep queue entries with a single put per sweep queue table rather than one each. A transaction
+     * still only proceeds with its commit once its own entries have been persisted.
+     */
+    @Value.Default
+    public boolean batchSweepQueueWrites() {
+        return false;
+    }
+
     /**
      * The number of background threads dedicated to running targeted sweep of tables with SweepStrategy CONSERVATIVE.
      */
@@ -21,12 +21,16 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.transaction.impl.TransactionRetryStrategy;
 import com.palantir.conjure.java.api.config.service.HumanReadableDuration;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.util.Optional;
 import org.immutables.value.Value;
 
 @JsonDeserialize(as = ImmutableTransactionConfig.class)
 @JsonSerialize(as = ImmutableTransactionConfig.class)
 @Value.Immutable
 public abstract class TransactionConfig {
+    private static final long MAX_LOCAL_WRITE_SPILL_THRESHOLD_BYTES = 1L << 30;
 
     @Value.Default
     public long getLockAcquireTimeoutMillis() {
@@ -62,6 +66,62 @@ public abstract class TransactionConfig {
         return HumanReadableDuration.minutes(15);
     }
 
+    /**
+     * If true, independent stages of committing a transaction with writes run concurrently: write/write conflict
+     * checking overlaps with writing to the sweep queue, and serializable read/write conflict checking overlaps with
+     * the user pre-commit condition. Every stage still completes before any stage that the commit protocol orders
+     * after it begins.
+     */
+    @Value.Default
+    public boolean overlapCommitStages() {
+        return false;
+    }
+
+    /**
+     * If true, transactions buffer their writes to each table in sorted runs packed into byte arrays once they exceed
+     * a few megabytes, rather than keeping a skip list node and set of objects per write. This substantially reduces
+     * the heap used by transactions that write a lot of data, at some cost to reading back their own writes.
+     */
+    @Value.Default
+    public boolean packLocalWrites() {
+        return false;
+    }
+
+    /**
+     * If present and {@link #packLocalWrites()} is true, once the packed writes of a transaction to a table exceed
+     * this many bytes they are spilled to a memory-mapped temporary file, so that they are no longer held on the heap.
+     * This must be at most 1 GiB.
+     */
+    public abstract Optional<Long> localWriteSpillThresholdBytes();
+
+    @Value.Check
+    protected void checkLocalWriteSpillThresholdBytes() {
+        localWriteSpillThresholdBytes()
+                .ifPresent(threshold -> Preconditions.checkArgument(
+                        threshold >= 0 && threshold <= MAX_LOCAL_WRITE_SPILL_THRESHOLD_BYTES,
+                        "Local write spill threshold must be non-negative and at most 1 GiB",
+                        SafeArg.of("localWriteSpillThresholdBytes", threshold)));
+    }
+
+    /**
+     * If present, asynchronous reads ({@code getAsync}) that return at least this many cells are split into partitions
+     * by the hash of each cell, and the partitions are post-filtered concurrently on a pool owned by the transaction
+     * manager, with a thread per processor. Post-filtering loads the commit timestamps of the values read and drops
+     * or reloads those not visible to the transaction, and is otherwise done in a single pass on the reading thread.
+     * Synchronous reads are always post-filtered on the reading thread, as they would block the pool's threads on
+     * I/O. This must be positive.
+     */
+    public abstract Optional<Integer> parallelPostFilteringThreshold();
+
+    @Value.Check
+    protected void checkParallelPostFilteringThreshold() {
+        parallelPostFilteringThreshold()
+                .ifPresent(threshold -> Preconditions.checkArgument(
+                        threshold > 0,
+                        "Parallel post-filtering threshold must be positive",
+                        SafeArg.of("parallelPostFilteringThreshold", threshold)));
+    }
+
     /**
      * TODO(fdesouza): Remove this once PDS-95791 is resolved.
      * @deprecated Remove this once PDS-95791 is resolved.
@@ -17,14 +17,29 @@ package com.palantir.atlasdb.transaction.impl;
 
 import com.palantir.atlasdb.transaction.api.Transaction;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
+import com.palantir.atlasdb.util.MetricsManager;
+import java.util.function.Function;
 
 public class CachingTransactionManager extends WrappingTransactionManager {
+    private final Function<Transaction, CachingTransaction> cachingTransactionFactory;
+
     public CachingTransactionManager(TransactionManager delegate) {
         super(delegate);
+        this.cachingTransactionFactory = CachingTransaction::new;
+    }
+
+    /**
+     * @param maxCachedBytes the approximate number of bytes of cells each transaction may cache
+     */
+    public CachingTransactionManager(
+            TransactionManager delegate, long maxCachedBytes, MetricsManager metricsManager) {
+        super(delegate);
+        this.cachingTransactionFactory =
+                transaction -> new CachingTransaction(transaction, maxCachedBytes, metricsManager);
     }
 
     @Override
     protected Transaction wrap(Transaction transaction) {
-        return new CachingTransaction(transaction);
+        return cachingTransactionFactory.apply(transaction);
     }
 }
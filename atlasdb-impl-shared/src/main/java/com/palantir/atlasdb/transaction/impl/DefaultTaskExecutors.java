@@ -22,12 +22,16 @@ import com.palantir.common.concurrent.PTExecutors;
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 final class DefaultTaskExecutors {
     private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(5);
     private static final int SINGLE_THREAD = 1;
+    private static final int COMMIT_STAGE_THREADS = 64;
+
+    static final int POST_FILTER_THREADS = Runtime.getRuntime().availableProcessors();
 
     @VisibleForTesting
     static final int DEFAULT_QUEUE_CAPACITY = 50_000;
@@ -46,4 +50,37 @@ final class DefaultTaskExecutors {
                 new NamedThreadFactory("atlas-delete-executor", true),
                 new ThreadPoolExecutor.AbortPolicy());
     }
+
+    /**
+     * Runs the stages of a commit that may overlap with the stage running on the committing thread. Each commit has
+     * at most one such stage outstanding. Once every thread is busy, stages run on the committing thread instead, so
+     * those commits run their stages sequentially.
+     */
+    static ExecutorService createDefaultCommitStageExecutor() {
+        return PTExecutors.newThreadPoolExecutor(
+                0,
+                COMMIT_STAGE_THREADS,
+                DEFAULT_IDLE_TIMEOUT.toMillis(),
+                TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                new NamedThreadFactory("atlas-commit-stages", true),
+                (stage, executor) -> stage.run());
+    }
+
+    /**
+     * Post-filters partitions of large asynchronous reads. The pool is shared by all transactions of a transaction
+     * manager and has one thread per processor, as its tasks only issue asynchronous requests and process their
+     * results. Its queue holds one partition per thread; once it is full, partitions run on the reading thread rather
+     * than waiting behind the reads of other transactions.
+     */
+    static ExecutorService createDefaultPostFilterExecutor() {
+        return PTExecutors.newThreadPoolExecutor(
+                POST_FILTER_THREADS,
+                POST_FILTER_THREADS,
+                DEFAULT_IDLE_TIMEOUT.toMillis(),
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(POST_FILTER_THREADS),
+                new NamedThreadFactory("atlas-post-filter", true),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
 }
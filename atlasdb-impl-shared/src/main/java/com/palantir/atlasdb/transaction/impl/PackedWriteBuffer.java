@@ -0,0 +1,1067 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.transaction.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.impl.Cells;
+import com.palantir.common.base.Throwables;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * A sorted map of a transaction's local writes to one table that keeps cells and values packed into byte arenas,
+ * rather than as a skip list node, a {@link Cell} and a pair of arrays per write.
+ * <p>
+ * Writes first land in a small skip list. Once that holds more than the configured number of bytes, it is frozen
+ * into an immutable sorted run: one arena holding every entry back to back, an array of offsets into it to binary
+ * search, and a bloom filter so that lookups of cells a run does not hold rarely touch it. Lookups consult the skip
+ * list and then each run, newest first, and iteration merges them in order. Runs held in memory are merged as they
+ * accumulate, into runs of at most {@link #MAX_RUN_BYTES}, so that their number stays proportional to the bytes they
+ * hold. If a spill threshold is configured, once the runs held in memory exceed it they are merged into a temporary
+ * file, which is memory mapped and then deleted, so that its space is reclaimed when the buffer is garbage collected
+ * even if the process dies first. Spilled runs are merged by size tier, so that their number grows only with the
+ * logarithm of the bytes spilled. Packing, spilling and merging all happen on the thread whose put fills the skip
+ * list, while it holds the lock that puts share, so that put and any puts concurrent with it wait for the file I/O.
+ * Reads never wait for it. The number of writes in the buffer is counted as they are put, so that its size is
+ * known without merging the runs; views count their writes by iterating over them.
+ * <p>
+ * Written values are never removed, so every mutating operation other than {@link #put} is unsupported, as are
+ * descending views. Puts may run concurrently with each other and with reads. Reads never block, and iterators are
+ * weakly consistent, as for {@link ConcurrentSkipListMap}.
+ */
+final class PackedWriteBuffer extends AbstractMap<Cell, byte[]> implements ConcurrentNavigableMap<Cell, byte[]> {
+    static final long DEFAULT_MEMTABLE_BYTES = 4 * 1024 * 1024;
+
+    @VisibleForTesting
+    static final int MAX_IN_MEMORY_RUNS = 8;
+
+    @VisibleForTesting
+    static final long MAX_RUN_BYTES = 1L << 30;
+
+    private static final int ENTRY_HEADER_BYTES = 3 * Integer.BYTES;
+    private static final int SPILL_BUFFER_BYTES = 64 * 1024;
+    private static final double BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final Store store;
+
+    @Nullable
+    private final Cell lowerBound;
+
+    private final boolean lowerInclusive;
+
+    @Nullable
+    private final Cell upperBound;
+
+    private final boolean upperInclusive;
+
+    PackedWriteBuffer(long memtableBytes, Optional<Long> spillThresholdBytes) {
+        this(new Store(memtableBytes, spillThresholdBytes), null, false, null, false);
+    }
+
+    private PackedWriteBuffer(
+            Store store,
+            @Nullable Cell lowerBound,
+            boolean lowerInclusive,
+            @Nullable Cell upperBound,
+            boolean upperInclusive) {
+        this.store = store;
+        this.lowerBound = lowerBound;
+        this.lowerInclusive = lowerInclusive;
+        this.upperBound = upperBound;
+        this.upperInclusive = upperInclusive;
+    }
+
+    /**
+     * Bytes of writes held on the heap. This is exact for writes that have been packed, and an estimate for those
+     * still in the skip list. Views of the buffer report the bytes of the whole buffer.
+     */
+    long bytesInMemory() {
+        return store.bytesInMemory();
+    }
+
+    /**
+     * Bytes of writes that have been spilled to temporary files. Views of the buffer report the bytes of the whole
+     * buffer.
+     */
+    long bytesSpilled() {
+        return store.bytesSpilled();
+    }
+
+    @VisibleForTesting
+    int spilledRunCount() {
+        return store.current.spilledRuns.size();
+    }
+
+    @Override
+    public byte[] put(Cell key, byte[] value) {
+        Preconditions.checkNotNull(value, "Values in a write buffer may not be null");
+        Preconditions.checkArgument(inRange(key), "Cell is outside the range of this view of the write buffer");
+        return store.put(key, value);
+    }
+
+    @Override
+    public byte[] get(Object key) {
+        if (!(key instanceof Cell) || !inRange((Cell) key)) {
+            return null;
+        }
+        return store.get((Cell) key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return isWholeBuffer() ? store.size() == 0 : !entryIterator().hasNext();
+    }
+
+    @Override
+    public int size() {
+        return isWholeBuffer() ? store.size() : Iterators.size(entryIterator());
+    }
+
+    @Override
+    public Set<Map.Entry<Cell, byte[]>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Cell, byte[]>> iterator() {
+                return entryIterator();
+            }
+
+            @Override
+            public int size() {
+                return PackedWriteBuffer.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return PackedWriteBuffer.this.isEmpty();
+            }
+        };
+    }
+
+    @Override
+    public NavigableSet<Cell> keySet() {
+        return new KeySet(this);
+    }
+
+    @Override
+    public NavigableSet<Cell> navigableKeySet() {
+        return keySet();
+    }
+
+    @Override
+    public Comparator<? super Cell> comparator() {
+        return null;
+    }
+
+    @Override
+    public Map.Entry<Cell, byte[]> firstEntry() {
+        Iterator<Map.Entry<Cell, byte[]>> entries = entryIterator();
+        return entries.hasNext() ? entries.next() : null;
+    }
+
+    @Override
+    public Map.Entry<Cell, byte[]> lastEntry() {
+        return Iterators.getLast(entryIterator(), null);
+    }
+
+    @Override
+    public Cell firstKey() {
+        return keyOrThrow(firstEntry());
+    }
+
+    @Override
+    public Cell lastKey() {
+        return keyOrThrow(lastEntry());
+    }
+
+    @Override
+    public Map.Entry<Cell, byte[]> lowerEntry(Cell key) {
+        return headMap(key, false).lastEntry();
+    }
+
+    @Override
+    public Cell lowerKey(Cell key) {
+        return keyOrNull(lowerEntry(key));
+    }
+
+    @Override
+    public Map.Entry<Cell, byte[]> floorEntry(Cell key) {
+        return headMap(key, true).lastEntry();
+    }
+
+    @Override
+    public Cell floorKey(Cell key) {
+        return keyOrNull(floorEntry(key));
+    }
+
+    @Override
+    public Map.Entry<Cell, byte[]> ceilingEntry(Cell key) {
+        return tailMap(key, true).firstEntry();
+    }
+
+    @Override
+    public Cell ceilingKey(Cell key) {
+        return keyOrNull(ceilingEntry(key));
+    }
+
+    @Override
+    public Map.Entry<Cell, byte[]> higherEntry(Cell key) {
+        return tailMap(key, false).firstEntry();
+    }
+
+    @Override
+    public Cell higherKey(Cell key) {
+        return keyOrNull(higherEntry(key));
+    }
+
+    @Override
+    public PackedWriteBuffer subMap(Cell fromKey, boolean fromInclusive, Cell toKey, boolean toInclusive) {
+        return newView(
+                Preconditions.checkNotNull(fromKey, "fromKey"),
+                fromInclusive,
+                Preconditions.checkNotNull(toKey, "toKey"),
+                toInclusive);
+    }
+
+    @Override
+    public PackedWriteBuffer headMap(Cell toKey, boolean inclusive) {
+        return newView(null, false, Preconditions.checkNotNull(toKey, "toKey"), inclusive);
+    }
+
+    @Override
+    public PackedWriteBuffer tailMap(Cell fromKey, boolean inclusive) {
+        return newView(Preconditions.checkNotNull(fromKey, "fromKey"), inclusive, null, false);
+    }
+
+    @Override
+    public PackedWriteBuffer subMap(Cell fromKey, Cell toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public PackedWriteBuffer headMap(Cell toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public PackedWriteBuffer tailMap(Cell fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    @Override
+    public ConcurrentNavigableMap<Cell, byte[]> descendingMap() {
+        throw new UnsupportedOperationException("Write buffers cannot be traversed in descending order");
+    }
+
+    @Override
+    public NavigableSet<Cell> descendingKeySet() {
+        throw new UnsupportedOperationException("Write buffers cannot be traversed in descending order");
+    }
+
+    @Override
+    public Map.Entry<Cell, byte[]> pollFirstEntry() {
+        throw new UnsupportedOperationException("Writes cannot be removed from a write buffer");
+    }
+
+    @Override
+    public Map.Entry<Cell, byte[]> pollLastEntry() {
+        throw new UnsupportedOperationException("Writes cannot be removed from a write buffer");
+    }
+
+    @Override
+    public byte[] remove(Object key) {
+        throw new UnsupportedOperationException("Writes cannot be removed from a write buffer");
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        throw new UnsupportedOperationException("Writes cannot be removed from a write buffer");
+    }
+
+    @Override
+    public byte[] putIfAbsent(Cell key, byte[] value) {
+        throw new UnsupportedOperationException("Write buffers only support unconditional puts");
+    }
+
+    @Override
+    public boolean replace(Cell key, byte[] oldValue, byte[] newValue) {
+        throw new UnsupportedOperationException("Write buffers only support unconditional puts");
+    }
+
+    @Override
+    public byte[] replace(Cell key, byte[] value) {
+        throw new UnsupportedOperationException("Write buffers only support unconditional puts");
+    }
+
+    private Iterator<Map.Entry<Cell, byte[]>> entryIterator() {
+        return store.iterator(lowerBound, lowerInclusive, upperBound, upperInclusive);
+    }
+
+    private boolean isWholeBuffer() {
+        return lowerBound == null && upperBound == null;
+    }
+
+    private boolean inRange(Cell cell) {
+        return !tooLow(cell) && !tooHigh(cell);
+    }
+
+    private boolean tooLow(Cell cell) {
+        if (lowerBound == null) {
+            return false;
+        }
+        int cmp = cell.compareTo(lowerBound);
+        return cmp < 0 || (cmp == 0 && !lowerInclusive);
+    }
+
+    private boolean tooHigh(Cell cell) {
+        if (upperBound == null) {
+            return false;
+        }
+        int cmp = cell.compareTo(upperBound);
+        return cmp > 0 || (cmp == 0 && !upperInclusive);
+    }
+
+    /**
+     * Narrows this view, rejecting bounds outside it in the same way as the views of {@link ConcurrentSkipListMap}.
+     */
+    private PackedWriteBuffer newView(
+            @Nullable Cell fromKey, boolean fromInclusive, @Nullable Cell toKey, boolean toInclusive) {
+        if (fromKey == null) {
+            fromKey = lowerBound;
+            fromInclusive = lowerInclusive;
+        } else if (lowerBound != null) {
+            int cmp = fromKey.compareTo(lowerBound);
+            if (cmp < 0 || (cmp == 0 && !lowerInclusive && fromInclusive)) {
+                throw new SafeIllegalArgumentException("Lower bound is outside the range of this view");
+            }
+        }
+        if (toKey == null) {
+            toKey = upperBound;
+            toInclusive = upperInclusive;
+        } else if (upperBound != null) {
+            int cmp = toKey.compareTo(upperBound);
+            if (cmp > 0 || (cmp == 0 && !upperInclusive && toInclusive)) {
+                throw new SafeIllegalArgumentException("Upper bound is outside the range of this view");
+            }
+        }
+        if (fromKey != null && toKey != null && fromKey.compareTo(toKey) > 0) {
+            throw new SafeIllegalArgumentException("Lower bound of a view must not be greater than its upper bound");
+        }
+        return new PackedWriteBuffer(store, fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    private static Cell keyOrThrow(@Nullable Map.Entry<Cell, byte[]> entry) {
+        if (entry == null) {
+            throw new NoSuchElementException();
+        }
+        return entry.getKey();
+    }
+
+    @Nullable
+    private static Cell keyOrNull(@Nullable Map.Entry<Cell, byte[]> entry) {
+        return entry == null ? null : entry.getKey();
+    }
+
+    /**
+     * The writes shared by a buffer and all of its views. Puts hold the read lock, so that they can run concurrently
+     * with each other but not with a flush, which swaps in a new generation under the write lock. Reads never lock:
+     * each generation is immutable apart from its skip list, so a read sees a consistent set of runs.
+     */
+    private static final class Store {
+        private final long memtableBytesLimit;
+        private final long spillThresholdBytes;
+        private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+        private final AtomicLong memtableBytes = new AtomicLong();
+        private final AtomicInteger size = new AtomicInteger();
+        private volatile Generation current = new Generation(ImmutableList.of(), ImmutableList.of());
+
+        Store(long memtableBytesLimit, Optional<Long> spillThresholdBytes) {
+            Preconditions.checkArgument(
+                    memtableBytesLimit > 0 && memtableBytesLimit <= MAX_RUN_BYTES,
+                    "Write buffer memtable size must be positive and at most the maximum size of a run",
+                    SafeArg.of("memtableBytes", memtableBytesLimit),
+                    SafeArg.of("maxRunBytes", MAX_RUN_BYTES));
+            spillThresholdBytes.ifPresent(threshold -> Preconditions.checkArgument(
+                    threshold >= 0 && threshold <= MAX_RUN_BYTES,
+                    "Write buffer spill threshold must be non-negative and at most the maximum size of a run",
+                    SafeArg.of("spillThresholdBytes", threshold),
+                    SafeArg.of("maxRunBytes", MAX_RUN_BYTES)));
+            this.memtableBytesLimit = memtableBytesLimit;
+            this.spillThresholdBytes = spillThresholdBytes.orElse(Long.MAX_VALUE);
+        }
+
+        byte[] put(Cell cell, byte[] value) {
+            byte[] previous;
+            boolean shouldFlush;
+            flushLock.readLock().lock();
+            try {
+                Generation generation = current;
+                previous = generation.memtable.put(cell, value);
+                long addedBytes = previous == null
+                        ? Cells.getApproxSizeOfCell(cell) + value.length
+                        : value.length - previous.length;
+                shouldFlush = memtableBytes.addAndGet(addedBytes) > memtableBytesLimit;
+                if (previous == null) {
+                    previous = generation.getFromRuns(cell);
+                }
+                if (previous == null) {
+                    // puts of the same cell are serialised by the skip list, so only the first finds no value
+                    size.incrementAndGet();
+                }
+            } finally {
+                flushLock.readLock().unlock();
+            }
+            if (shouldFlush) {
+                flush();
+            }
+            return previous;
+        }
+
+        @Nullable
+        byte[] get(Cell cell) {
+            Generation generation = current;
+            byte[] value = generation.memtable.get(cell);
+            return value != null ? value : generation.getFromRuns(cell);
+        }
+
+        Iterator<Map.Entry<Cell, byte[]>> iterator(
+                @Nullable Cell lowerBound,
+                boolean lowerInclusive,
+                @Nullable Cell upperBound,
+                boolean upperInclusive) {
+            Generation generation = current;
+            ConcurrentNavigableMap<Cell, byte[]> memtable = lowerBound == null
+                    ? generation.memtable
+                    : generation.memtable.tailMap(lowerBound, lowerInclusive);
+            List<PeekingIterator<Map.Entry<Cell, byte[]>>> sources = new ArrayList<>(generation.runs.size() + 1);
+            sources.add(Iterators.peekingIterator(memtable.entrySet().iterator()));
+            for (PackedRun run : generation.runs) {
+                sources.add(run.iterator(lowerBound, lowerInclusive));
+            }
+            return new MergingIterator(sources, upperBound, upperInclusive);
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        long bytesInMemory() {
+            Generation generation = current;
+            return memtableBytes.get()
+                    + generation.inMemoryRuns.stream()
+                            .mapToLong(PackedRun::sizeInBytes)
+                            .sum()
+                    + generation.spilledRuns.stream()
+                            .mapToLong(PackedRun::offsetsSizeInBytes)
+                            .sum();
+        }
+
+        long bytesSpilled() {
+            return current.spilledRuns.stream().mapToLong(PackedRun::arenaSizeInBytes).sum();
+        }
+
+        private void flush() {
+            flushLock.writeLock().lock();
+            try {
+                if (memtableBytes.get() <= memtableBytesLimit) {
+                    // another put flushed while we were waiting for the lock
+                    return;
+                }
+                Generation generation = current;
+                List<PackedRun> inMemoryRuns = new ArrayList<>(generation.inMemoryRuns.size() + 1);
+                inMemoryRuns.add(PackedRun.pack(() -> generation.memtable.entrySet().iterator()));
+                inMemoryRuns.addAll(generation.inMemoryRuns);
+                if (inMemoryRuns.size() > MAX_IN_MEMORY_RUNS + 2 * (totalArenaBytes(inMemoryRuns) / MAX_RUN_BYTES)) {
+                    inMemoryRuns = compact(inMemoryRuns);
+                }
+
+                List<PackedRun> spilledRuns = generation.spilledRuns;
+                if (totalArenaBytes(inMemoryRuns) > spillThresholdBytes) {
+                    spilledRuns = compactNewestSpilledRuns(ImmutableList.<PackedRun>builder()
+                            .add(PackedRun.spill(mergedEntries(inMemoryRuns)))
+                            .addAll(generation.spilledRuns)
+                            .build());
+                    inMemoryRuns = ImmutableList.of();
+                }
+
+                current = new Generation(inMemoryRuns, spilledRuns);
+                memtableBytes.set(0);
+            } finally {
+                flushLock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Merges consecutive runs, newest first, into as few runs of at most {@link #MAX_RUN_BYTES} as a single pass
+         * allows. Any two adjacent runs left held more than that many bytes between them, so there are at most one
+         * more than twice as many runs left as there are multiples of {@link #MAX_RUN_BYTES} in the runs given.
+         */
+        private static List<PackedRun> compact(List<PackedRun> newestFirst) {
+            ImmutableList.Builder<PackedRun> compacted = ImmutableList.builder();
+            List<PackedRun> group = new ArrayList<>();
+            long groupBytes = 0;
+            for (PackedRun run : newestFirst) {
+                if (!group.isEmpty() && groupBytes + run.arenaSizeInBytes() > MAX_RUN_BYTES) {
+                    compacted.add(merge(group));
+                    group = new ArrayList<>();
+                    groupBytes = 0;
+                }
+                group.add(run);
+                groupBytes += run.arenaSizeInBytes();
+            }
+            if (!group.isEmpty()) {
+                compacted.add(merge(group));
+            }
+            return compacted.build();
+        }
+
+        /**
+         * Merges the two newest spilled runs into a new spilled run for as long as the newest is at least half the
+         * size of the one before it and the merged run fits in {@link #MAX_RUN_BYTES}. Each spilled run is then less
+         * than half the size of the next older one unless the two do not fit in a single run, so the number of spilled
+         * runs, and of mapped files, grows with the logarithm of the bytes spilled rather than with the number of
+         * spills, and each spilled byte is rewritten a logarithmic number of times.
+         */
+        private static List<PackedRun> compactNewestSpilledRuns(List<PackedRun> newestFirst) {
+            Deque<PackedRun> runs = new ArrayDeque<>(newestFirst);
+            while (runs.size() > 1) {
+                PackedRun newest = runs.removeFirst();
+                PackedRun previous = runs.getFirst();
+                long mergedBytes = newest.arenaSizeInBytes() + previous.arenaSizeInBytes();
+                if (2 * newest.arenaSizeInBytes() < previous.arenaSizeInBytes() || mergedBytes > MAX_RUN_BYTES) {
+                    runs.addFirst(newest);
+                    break;
+                }
+                runs.removeFirst();
+                runs.addFirst(PackedRun.spill(mergedEntries(ImmutableList.of(newest, previous))));
+            }
+            return ImmutableList.copyOf(runs);
+        }
+
+        private static PackedRun merge(List<PackedRun> runs) {
+            return runs.size() == 1 ? runs.get(0) : PackedRun.pack(mergedEntries(runs));
+        }
+
+        private static Supplier<Iterator<Map.Entry<Cell, byte[]>>> mergedEntries(List<PackedRun> runs) {
+            List<PackedRun> newestFirst = ImmutableList.copyOf(runs);
+            return () -> {
+                List<PeekingIterator<Map.Entry<Cell, byte[]>>> sources = new ArrayList<>(newestFirst.size());
+                for (PackedRun run : newestFirst) {
+                    sources.add(run.iterator(null, false));
+                }
+                return new MergingIterator(sources, null, false);
+            };
+        }
+
+        private static long totalArenaBytes(List<PackedRun> runs) {
+            return runs.stream().mapToLong(PackedRun::arenaSizeInBytes).sum();
+        }
+    }
+
+    private static final class Generation {
+        private final ConcurrentSkipListMap<Cell, byte[]> memtable = new ConcurrentSkipListMap<>();
+        private final List<PackedRun> inMemoryRuns;
+        private final List<PackedRun> spilledRuns;
+
+        /**
+         * Newest first. Runs are only ever spilled after every run held in memory at the time has been merged into
+         * them, so runs held in memory are always newer than spilled runs.
+         */
+        private final List<PackedRun> runs;
+
+        Generation(List<PackedRun> inMemoryRuns, List<PackedRun> spilledRuns) {
+            this.inMemoryRuns = inMemoryRuns;
+            this.spilledRuns = spilledRuns;
+            this.runs = ImmutableList.<PackedRun>builder()
+                    .addAll(inMemoryRuns)
+                    .addAll(spilledRuns)
+                    .build();
+        }
+
+        @Nullable
+        byte[] getFromRuns(Cell cell) {
+            for (PackedRun run : runs) {
+                byte[] value = run.get(cell);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * An immutable sorted run of writes. Each entry is laid out in the arena as the lengths of its row name, column
+     * name and value, followed by their bytes. The arena is either on the heap or a mapping of a spilled file; only
+     * absolute reads are used, so a run can be read from many threads at once.
+     */
+    private static final class PackedRun {
+        private final ByteBuffer arena;
+        private final int[] offsets;
+        private final BloomFilter<Cell> cells;
+
+        private PackedRun(ByteBuffer arena, int[] offsets, BloomFilter<Cell> cells) {
+            this.arena = arena;
+            this.offsets = offsets;
+            this.cells = cells;
+        }
+
+        static PackedRun pack(Supplier<Iterator<Map.Entry<Cell, byte[]>>> entries) {
+            RunLayout layout = RunLayout.of(entries);
+            ByteBuffer arena = ByteBuffer.allocate(Ints.checkedCast(layout.bytes));
+            int[] offsets = new int[layout.count];
+            BloomFilter<Cell> cells = layout.newBloomFilter();
+            Iterator<Map.Entry<Cell, byte[]>> iterator = entries.get();
+            for (int index = 0; index < offsets.length; index++) {
+                Map.Entry<Cell, byte[]> entry = iterator.next();
+                offsets[index] = arena.position();
+                Cell cell = entry.getKey();
+                arena.putInt(cell.getRowName().length)
+                        .putInt(cell.getColumnName().length)
+                        .putInt(entry.getValue().length)
+                        .put(cell.getRowName())
+                        .put(cell.getColumnName())
+                        .put(entry.getValue());
+                cells.put(cell);
+            }
+            return new PackedRun(arena, offsets, cells);
+        }
+
+        static PackedRun spill(Supplier<Iterator<Map.Entry<Cell, byte[]>>> entries) {
+            RunLayout layout = RunLayout.of(entries);
+            int[] offsets = new int[layout.count];
+            BloomFilter<Cell> cells = layout.newBloomFilter();
+            try {
+                Path file = Files.createTempFile("atlasdb-transaction-writes-", ".run");
+                try (FileChannel channel =
+                        FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    DataOutputStream output = new DataOutputStream(
+                            new BufferedOutputStream(Channels.newOutputStream(channel), SPILL_BUFFER_BYTES));
+                    Iterator<Map.Entry<Cell, byte[]>> iterator = entries.get();
+                    for (int index = 0; index < offsets.length; index++) {
+                        Map.Entry<Cell, byte[]> entry = iterator.next();
+                        offsets[index] = output.size();
+                        Cell cell = entry.getKey();
+                        output.writeInt(cell.getRowName().length);
+                        output.writeInt(cell.getColumnName().length);
+                        output.writeInt(entry.getValue().length);
+                        output.write(cell.getRowName());
+                        output.write(cell.getColumnName());
+                        output.write(entry.getValue());
+                        cells.put(cell);
+                    }
+                    output.flush();
+                    ByteBuffer arena = channel.map(FileChannel.MapMode.READ_ONLY, 0, layout.bytes);
+                    return new PackedRun(arena, offsets, cells);
+                } finally {
+                    // the mapping outlives both the channel and, on POSIX file systems, the file itself
+                    if (!file.toFile().delete()) {
+                        file.toFile().deleteOnExit();
+                    }
+                }
+            } catch (IOException e) {
+                throw Throwables.rewrapAndThrowUncheckedException("Failed to spill transaction writes to disk", e);
+            }
+        }
+
+        @Nullable
+        byte[] get(Cell cell) {
+            if (!cells.mightContain(cell)) {
+                return null;
+            }
+            int index = ceilingIndex(cell, true);
+            return index < offsets.length && compareAt(index, cell) == 0 ? valueAt(offsets[index]) : null;
+        }
+
+        PeekingIterator<Map.Entry<Cell, byte[]>> iterator(@Nullable Cell lowerBound, boolean lowerInclusive) {
+            int start = lowerBound == null ? 0 : ceilingIndex(lowerBound, lowerInclusive);
+            return Iterators.peekingIterator(new AbstractIterator<Map.Entry<Cell, byte[]>>() {
+                private int next = start;
+
+                @Override
+                protected Map.Entry<Cell, byte[]> computeNext() {
+                    if (next >= offsets.length) {
+                        return endOfData();
+                    }
+                    return entryAt(offsets[next++]);
+                }
+            });
+        }
+
+        long sizeInBytes() {
+            return arenaSizeInBytes() + offsetsSizeInBytes();
+        }
+
+        long arenaSizeInBytes() {
+            return arena.capacity();
+        }
+
+        long offsetsSizeInBytes() {
+            return (long) offsets.length * Integer.BYTES;
+        }
+
+        /**
+         * Returns the index of the first entry after {@code cell}, or at it if {@code inclusive}.
+         */
+        private int ceilingIndex(Cell cell, boolean inclusive) {
+            int low = 0;
+            int high = offsets.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compareAt(mid, cell);
+                if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compareAt(int index, Cell cell) {
+            int offset = offsets[index];
+            int rowLength = arena.getInt(offset);
+            int columnLength = arena.getInt(offset + Integer.BYTES);
+            int rowOffset = offset + ENTRY_HEADER_BYTES;
+            int cmp = compareUnsigned(rowOffset, rowLength, cell.getRowName());
+            if (cmp != 0) {
+                return cmp;
+            }
+            return compareUnsigned(rowOffset + rowLength, columnLength, cell.getColumnName());
+        }
+
+        private int compareUnsigned(int offset, int length, byte[] other) {
+            if (arena.hasArray()) {
+                int start = arena.arrayOffset() + offset;
+                return Arrays.compareUnsigned(arena.array(), start, start + length, other, 0, other.length);
+            }
+            int commonLength = Math.min(length, other.length);
+            for (int i = 0; i < commonLength; i++) {
+                int cmp = Integer.compare(Byte.toUnsignedInt(arena.get(offset + i)), Byte.toUnsignedInt(other[i]));
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return Integer.compare(length, other.length);
+        }
+
+        private Map.Entry<Cell, byte[]> entryAt(int offset) {
+            int rowLength = arena.getInt(offset);
+            int columnLength = arena.getInt(offset + Integer.BYTES);
+            int rowOffset = offset + ENTRY_HEADER_BYTES;
+            Cell cell = Cell.create(copy(rowOffset, rowLength), copy(rowOffset + rowLength, columnLength));
+            return Maps.immutableEntry(cell, valueAt(offset));
+        }
+
+        private byte[] valueAt(int offset) {
+            int rowLength = arena.getInt(offset);
+            int columnLength = arena.getInt(offset + Integer.BYTES);
+            int valueLength = arena.getInt(offset + 2 * Integer.BYTES);
+            return copy(offset + ENTRY_HEADER_BYTES + rowLength + columnLength, valueLength);
+        }
+
+        private byte[] copy(int offset, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer slice = arena.duplicate();
+            slice.position(offset);
+            slice.get(bytes);
+            return bytes;
+        }
+    }
+
+    private static final class RunLayout {
+        private final long bytes;
+        private final int count;
+
+        private RunLayout(long bytes, int count) {
+            this.bytes = bytes;
+            this.count = count;
+        }
+
+        static RunLayout of(Supplier<Iterator<Map.Entry<Cell, byte[]>>> entries) {
+            long bytes = 0;
+            int count = 0;
+            for (Iterator<Map.Entry<Cell, byte[]>> iterator = entries.get(); iterator.hasNext(); ) {
+                Map.Entry<Cell, byte[]> entry = iterator.next();
+                bytes += ENTRY_HEADER_BYTES
+                        + entry.getKey().getRowName().length
+                        + entry.getKey().getColumnName().length
+                        + entry.getValue().length;
+                count++;
+            }
+            Preconditions.checkArgument(
+                    bytes <= Integer.MAX_VALUE,
+                    "Writes are too large to pack into a single run",
+                    SafeArg.of("bytes", bytes));
+            return new RunLayout(bytes, count);
+        }
+
+        BloomFilter<Cell> newBloomFilter() {
+            return BloomFilter.create(CellFunnel.INSTANCE, Math.max(count, 1), BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY);
+        }
+    }
+
+    private enum CellFunnel implements Funnel<Cell> {
+        INSTANCE;
+
+        @Override
+        public void funnel(Cell cell, PrimitiveSink into) {
+            into.putInt(cell.getRowName().length).putBytes(cell.getRowName()).putBytes(cell.getColumnName());
+        }
+    }
+
+    /**
+     * Merges sources that are each sorted by cell, ending at the upper bound. Where several sources hold the same
+     * cell, the value from the earliest source wins, so sources must be given newest first.
+     */
+    private static final class MergingIterator extends AbstractIterator<Map.Entry<Cell, byte[]>> {
+        private final PriorityQueue<Source> sources;
+
+        @Nullable
+        private final Cell upperBound;
+
+        private final boolean upperInclusive;
+
+        MergingIterator(
+                List<PeekingIterator<Map.Entry<Cell, byte[]>>> iterators,
+                @Nullable Cell upperBound,
+                boolean upperInclusive) {
+            this.sources = new PriorityQueue<>(Math.max(iterators.size(), 1));
+            for (int i = 0; i < iterators.size(); i++) {
+                if (iterators.get(i).hasNext()) {
+                    sources.add(new Source(iterators.get(i), i));
+                }
+            }
+            this.upperBound = upperBound;
+            this.upperInclusive = upperInclusive;
+        }
+
+        @Override
+        protected Map.Entry<Cell, byte[]> computeNext() {
+            Source newest = sources.poll();
+            if (newest == null) {
+                return endOfData();
+            }
+            Map.Entry<Cell, byte[]> entry = newest.iterator.next();
+            if (upperBound != null) {
+                int cmp = entry.getKey().compareTo(upperBound);
+                if (cmp > 0 || (cmp == 0 && !upperInclusive)) {
+                    sources.clear();
+                    return endOfData();
+                }
+            }
+            requeue(newest);
+            while (!sources.isEmpty() && sources.peek().cell().equals(entry.getKey())) {
+                Source shadowed = sources.poll();
+                shadowed.iterator.next();
+                requeue(shadowed);
+            }
+            return entry;
+        }
+
+        private void requeue(Source source) {
+            if (source.iterator.hasNext()) {
+                sources.add(source);
+            }
+        }
+    }
+
+    private static final class Source implements Comparable<Source> {
+        private final PeekingIterator<Map.Entry<Cell, byte[]>> iterator;
+        private final int age;
+
+        Source(PeekingIterator<Map.Entry<Cell, byte[]>> iterator, int age) {
+            this.iterator = iterator;
+            this.age = age;
+        }
+
+        Cell cell() {
+            return iterator.peek().getKey();
+        }
+
+        @Override
+        public int compareTo(Source other) {
+            int cmp = cell().compareTo(other.cell());
+            return cmp != 0 ? cmp : Integer.compare(age, other.age);
+        }
+    }
+
+    private static final class KeySet extends AbstractSet<Cell> implements NavigableSet<Cell> {
+        private final PackedWriteBuffer map;
+
+        KeySet(PackedWriteBuffer map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<Cell> iterator() {
+            return Iterators.transform(map.entryIterator(), Map.Entry::getKey);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return map.containsKey(object);
+        }
+
+        @Override
+        public Comparator<? super Cell> comparator() {
+            return null;
+        }
+
+        @Override
+        public Cell first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public Cell last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public Cell lower(Cell cell) {
+            return map.lowerKey(cell);
+        }
+
+        @Override
+        public Cell floor(Cell cell) {
+            return map.floorKey(cell);
+        }
+
+        @Override
+        public Cell ceiling(Cell cell) {
+            return map.ceilingKey(cell);
+        }
+
+        @Override
+        public Cell higher(Cell cell) {
+            return map.higherKey(cell);
+        }
+
+        @Override
+        public Cell pollFirst() {
+            throw new UnsupportedOperationException("Writes cannot be removed from a write buffer");
+        }
+
+        @Override
+        public Cell pollLast() {
+            throw new UnsupportedOperationException("Writes cannot be removed from a write buffer");
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            throw new UnsupportedOperationException("Writes cannot be removed from a write buffer");
+        }
+
+        @Override
+        public NavigableSet<Cell> descendingSet() {
+            throw new UnsupportedOperationException("Write buffers cannot be traversed in descending order");
+        }
+
+        @Override
+        public Iterator<Cell> descendingIterator() {
+            throw new UnsupportedOperationException("Write buffers cannot be traversed in descending order");
+        }
+
+        @Override
+        public NavigableSet<Cell> subSet(Cell fromElement, boolean fromInclusive, Cell toElement, boolean toInclusive) {
+            return new KeySet(map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        @Override
+        public NavigableSet<Cell> headSet(Cell toElement, boolean inclusive) {
+            return new KeySet(map.headMap(toElement, inclusive));
+        }
+
+        @Override
+        public NavigableSet<Cell> tailSet(Cell fromElement, boolean inclusive) {
+            return new KeySet(map.tailMap(fromElement, inclusive));
+        }
+
+        @Override
+        public SortedSet<Cell> subSet(Cell fromElement, Cell toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<Cell> headSet(Cell toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<Cell> tailSet(Cell fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+}
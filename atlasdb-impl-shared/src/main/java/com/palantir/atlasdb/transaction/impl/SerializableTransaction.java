@@ -157,6 +157,8 @@ public class SerializableTransaction extends SnapshotTransaction {
             int defaultGetRangesConcurrency,
             MultiTableSweepQueueWriter sweepQueue,
             ExecutorService deleteExecutor,
+            ExecutorService commitStageExecutor,
+            ExecutorService postFilterExecutor,
             boolean validateLocksOnReads,
             Supplier<TransactionConfig> transactionConfig,
             ConflictTracer conflictTracer,
@@ -183,6 +185,8 @@ public class SerializableTransaction extends SnapshotTransaction {
                 defaultGetRangesConcurrency,
                 sweepQueue,
                 deleteExecutor,
+                commitStageExecutor,
+                postFilterExecutor,
                 validateLocksOnReads,
                 transactionConfig,
                 conflictTracer,
@@ -863,6 +867,8 @@ public class SerializableTransaction extends SnapshotTransaction {
                 defaultGetRangesConcurrency,
                 sweepQueue,
                 deleteExecutor,
+                commitStageExecutor,
+                postFilterExecutor,
                 validateLocksOnReads,
                 transactionConfig,
                 conflictTracer,
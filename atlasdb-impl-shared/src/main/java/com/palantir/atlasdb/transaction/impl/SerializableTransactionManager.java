@@ -565,6 +565,8 @@ public class SerializableTransactionManager extends SnapshotTransactionManager {
                 defaultGetRangesConcurrency,
                 sweepQueueWriter,
                 deleteExecutor,
+                commitStageExecutor,
+                postFilterExecutor,
                 validateLocksOnReads,
                 transactionConfig,
                 conflictTracer,
@@ -111,6 +111,7 @@ import com.palantir.common.base.BatchingVisitables;
 import com.palantir.common.base.ClosableIterator;
 import com.palantir.common.base.ClosableIterators;
 import com.palantir.common.base.ForwardingClosableIterator;
+import com.palantir.common.base.Throwables;
 import com.palantir.common.collect.IteratorUtils;
 import com.palantir.common.collect.MapEntries;
 import com.palantir.common.streams.KeyedStream;
@@ -163,7 +164,9 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -196,6 +199,8 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     private static final SafeLogger transactionLengthLogger = SafeLoggerFactory.get("txn.length");
     private static final SafeLogger constraintLogger = SafeLoggerFactory.get("dualschema.constraints");
 
+    private static final int POST_FILTER_PARALLELISM = DefaultTaskExecutors.POST_FILTER_THREADS;
+
     private static final int BATCH_SIZE_GET_FIRST_PAGE = 1000;
     private static final long TXN_LENGTH_THRESHOLD = Duration.ofMinutes(30).toMillis();
 
@@ -252,6 +257,8 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     protected final int defaultGetRangesConcurrency;
     private final Set<TableReference> involvedTables = ConcurrentHashMap.newKeySet();
     protected final ExecutorService deleteExecutor;
+    protected final ExecutorService commitStageExecutor;
+    protected final ExecutorService postFilterExecutor;
     private final Timer.Context transactionTimerContext;
     protected final TransactionOutcomeMetrics transactionOutcomeMetrics;
     protected final boolean validateLocksOnReads;
@@ -288,6 +295,8 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             int defaultGetRangesConcurrency,
             MultiTableSweepQueueWriter sweepQueue,
             ExecutorService deleteExecutor,
+            ExecutorService commitStageExecutor,
+            ExecutorService postFilterExecutor,
             boolean validateLocksOnReads,
             Supplier<TransactionConfig> transactionConfig,
             ConflictTracer conflictTracer,
@@ -317,6 +326,8 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         this.defaultGetRangesConcurrency = defaultGetRangesConcurrency;
         this.sweepQueue = sweepQueue;
         this.deleteExecutor = deleteExecutor;
+        this.commitStageExecutor = commitStageExecutor;
+        this.postFilterExecutor = postFilterExecutor;
         this.hasReads = false;
         this.transactionOutcomeMetrics = TransactionOutcomeMetrics.create(metricsManager);
         this.validateLocksOnReads = validateLocksOnReads;
@@ -1241,7 +1252,16 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     }
 
     private ConcurrentNavigableMap<Cell, byte[]> getLocalWrites(TableReference tableRef) {
-        return writesByTable.computeIfAbsent(tableRef, unused -> new ConcurrentSkipListMap<>());
+        return writesByTable.computeIfAbsent(tableRef, unused -> createLocalWriteBuffer());
+    }
+
+    private ConcurrentNavigableMap<Cell, byte[]> createLocalWriteBuffer() {
+        TransactionConfig currentTransactionConfig = transactionConfig.get();
+        if (!currentTransactionConfig.packLocalWrites()) {
+            return new ConcurrentSkipListMap<>();
+        }
+        return new PackedWriteBuffer(
+                PackedWriteBuffer.DEFAULT_MEMTABLE_BYTES, currentTransactionConfig.localWriteSpillThresholdBytes());
     }
 
     /**
@@ -1366,6 +1386,17 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             return Futures.immediateFuture(resultsAccumulator);
         }
 
+        Optional<Integer> parallelThreshold = transactionConfig.get().parallelPostFilteringThreshold();
+        // Partitions read through the immediate services would do blocking I/O on the post-filter threads.
+        if (POST_FILTER_PARALLELISM > 1
+                && parallelThreshold.isPresent()
+                && rawResults.size() >= parallelThreshold.get()
+                && asyncKeyValueService != immediateKeyValueService
+                && asyncTransactionService != immediateTransactionService) {
+            return getWithPostFilteringInParallel(
+                    tableRef, rawResults, transformer, asyncKeyValueService, asyncTransactionService);
+        }
+
         return Futures.transformAsync(
                 Futures.immediateFuture(rawResults),
                 remainingResultsToPostFilter -> getWithPostFilteringIterate(
@@ -1378,6 +1409,62 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                 MoreExecutors.directExecutor());
     }
 
+    /**
+     * Splits the results into partitions by the hash of each cell, and post-filters the partitions concurrently: one
+     * on this thread and the rest on the post-filter executor. Whether a value is visible to this transaction does
+     * not depend on any other cell, so each partition is post-filtered just as if it had been read on its own. The
+     * services must be asynchronous, so that the post-filter threads only issue requests and process their results.
+     */
+    private <T> ListenableFuture<Collection<Map.Entry<Cell, T>>> getWithPostFilteringInParallel(
+            TableReference tableRef,
+            Map<Cell, Value> rawResults,
+            Function<Value, T> transformer,
+            AsyncKeyValueService asyncKeyValueService,
+            AsyncTransactionService asyncTransactionService) {
+        List<Map<Cell, Value>> partitions = partitionByHash(rawResults, POST_FILTER_PARALLELISM);
+        List<ListenableFuture<Collection<Map.Entry<Cell, T>>>> partitionResults = new ArrayList<>(partitions.size());
+        for (Map<Cell, Value> partition : partitions.subList(1, partitions.size())) {
+            partitionResults.add(Futures.submitAsync(
+                    () -> getWithPostFilteringIterate(
+                            tableRef,
+                            partition,
+                            new ArrayList<>(partition.size()),
+                            transformer,
+                            asyncKeyValueService,
+                            asyncTransactionService),
+                    postFilterExecutor));
+        }
+        Map<Cell, Value> ownPartition = partitions.get(0);
+        partitionResults.add(getWithPostFilteringIterate(
+                tableRef,
+                ownPartition,
+                new ArrayList<>(ownPartition.size()),
+                transformer,
+                asyncKeyValueService,
+                asyncTransactionService));
+
+        return Futures.transform(
+                Futures.allAsList(partitionResults),
+                results -> {
+                    List<Map.Entry<Cell, T>> postFiltered = new ArrayList<>(rawResults.size());
+                    results.forEach(postFiltered::addAll);
+                    return postFiltered;
+                },
+                MoreExecutors.directExecutor());
+    }
+
+    private static List<Map<Cell, Value>> partitionByHash(Map<Cell, Value> rawResults, int numPartitions) {
+        List<Map<Cell, Value>> partitions = new ArrayList<>(numPartitions);
+        for (int i = 0; i < numPartitions; i++) {
+            partitions.add(Maps.newHashMapWithExpectedSize(rawResults.size() / numPartitions + 1));
+        }
+        for (Map.Entry<Cell, Value> entry : rawResults.entrySet()) {
+            Cell cell = entry.getKey();
+            partitions.get(Math.floorMod(cell.hashCode(), numPartitions)).put(cell, entry.getValue());
+        }
+        return partitions;
+    }
+
     private <T> ListenableFuture<Collection<Map.Entry<Cell, T>>> getWithPostFilteringIterate(
             TableReference tableReference,
             Map<Cell, Value> remainingResultsToPostFilter,
@@ -1840,6 +1927,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             return;
         }
 
+        boolean overlapStages = transactionConfig.get().overlapCommitStages();
         timedAndTraced("commitStage", () -> {
             // Acquire row locks and a lock on the start timestamp row in the transactions table.
             // This must happen before conflict checking, otherwise we could complete the checks and then have someone
@@ -1849,13 +1937,16 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             try {
                 // Conflict checking. We can actually do this later without compromising correctness, but there is no
                 // reason to postpone this check - we waste resources writing unnecessarily if these are going to fail.
-                timedAndTraced(
-                        "commitCheckingForConflicts",
-                        () -> throwIfConflictOnCommit(commitLocksToken, transactionService));
-
                 // Write to the targeted sweep queue. We must do this before writing to the key value service -
                 // otherwise we may have hanging values that targeted sweep won't know about.
-                timedAndTraced("writingToSweepQueue", () -> sweepQueue.enqueue(writesByTable, getStartTimestamp()));
+                // The two are independent of each other, so they may overlap.
+                runCommitStages(
+                        overlapStages,
+                        () -> timedAndTraced(
+                                "commitCheckingForConflicts",
+                                () -> throwIfConflictOnCommit(commitLocksToken, transactionService)),
+                        () -> timedAndTraced(
+                                "writingToSweepQueue", () -> sweepQueue.enqueue(writesByTable, getStartTimestamp())));
 
                 // Introduced for txn4 - Prevents sweep from making progress beyond immutableTs before entries were
                 // put into the sweep queue. This ensures that sweep must process writes to the sweep queue done by
@@ -1887,14 +1978,18 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                 // commitTs + 1. This must happen before the lock check for thorough tables, because the lock check
                 // verifies the immutable timestamp hasn't moved forward - thorough sweep might sweep a conflict out
                 // from underneath us.
-                timedAndTraced(
-                        "readWriteConflictCheck", () -> throwIfReadWriteConflictForSerializable(commitTimestamp));
-
                 // Verify that our locks and pre-commit conditions are still valid before we actually commit;
                 // this throwIfPreCommitRequirementsNotMet is required by the transaction protocol for correctness.
                 // We check the pre-commit conditions first since they may operate similarly to read write conflict
                 // handling - we should check lock validity last to ensure that sweep hasn't affected the checks.
-                timedAndTraced("userPreCommitCondition", () -> throwIfPreCommitConditionInvalid(commitTimestamp));
+                // Neither check depends on the other, so they may overlap; the user's condition stays on this thread.
+                runCommitStages(
+                        overlapStages,
+                        () -> timedAndTraced(
+                                "readWriteConflictCheck",
+                                () -> throwIfReadWriteConflictForSerializable(commitTimestamp)),
+                        () -> timedAndTraced(
+                                "userPreCommitCondition", () -> throwIfPreCommitConditionInvalid(commitTimestamp)));
 
                 // Not timed, because this just calls ConjureTimelockServiceBlocking.refreshLockLeases, and that is
                 // timed.
@@ -1916,6 +2011,45 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         });
     }
 
+    /**
+     * Runs two commit stages that the protocol does not order relative to each other. Sequentially, {@code first}
+     * runs before {@code second}. Otherwise {@code first} runs on the commit stage executor while {@code second} runs
+     * on this thread, and this returns once both have finished, throwing the failure of {@code first} in preference
+     * to that of {@code second} just as running them sequentially would.
+     */
+    private void runCommitStages(boolean concurrently, Runnable first, Runnable second) {
+        if (!concurrently) {
+            first.run();
+            second.run();
+            return;
+        }
+
+        Future<?> firstStage = commitStageExecutor.submit(first);
+        RuntimeException secondStageFailure = null;
+        try {
+            second.run();
+        } catch (RuntimeException e) {
+            secondStageFailure = e;
+        }
+
+        try {
+            firstStage.get();
+        } catch (ExecutionException e) {
+            if (secondStageFailure != null) {
+                e.getCause().addSuppressed(secondStageFailure);
+            }
+            throw Throwables.throwUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            firstStage.cancel(true);
+            Thread.currentThread().interrupt();
+            throw Throwables.throwUncheckedException(e);
+        }
+
+        if (secondStageFailure != null) {
+            throw secondStageFailure;
+        }
+    }
+
     private void traced(String spanName, Runnable runnable) {
         try (CloseableTracer tracer = CloseableTracer.startSpan(spanName)) {
             runnable.run();
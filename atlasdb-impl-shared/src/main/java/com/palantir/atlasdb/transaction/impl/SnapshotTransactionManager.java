@@ -97,6 +97,8 @@ import javax.validation.constraints.NotNull;
     final boolean allowHiddenTableAccess;
     final ExecutorService getRangesExecutor;
     final ExecutorService deleteExecutor;
+    final ExecutorService commitStageExecutor;
+    final ExecutorService postFilterExecutor;
     final int defaultGetRangesConcurrency;
     final MultiTableSweepQueueWriter sweepQueueWriter;
     final boolean validateLocksOnReads;
@@ -151,6 +153,8 @@ import javax.validation.constraints.NotNull;
         this.defaultGetRangesConcurrency = defaultGetRangesConcurrency;
         this.sweepQueueWriter = sweepQueueWriter;
         this.deleteExecutor = deleteExecutor;
+        this.commitStageExecutor = DefaultTaskExecutors.createDefaultCommitStageExecutor();
+        this.postFilterExecutor = DefaultTaskExecutors.createDefaultPostFilterExecutor();
         this.validateLocksOnReads = validateLocksOnReads;
         this.transactionConfig = transactionConfig;
         this.conflictTracer = conflictTracer;
@@ -312,6 +316,8 @@ import javax.validation.constraints.NotNull;
                 defaultGetRangesConcurrency,
                 sweepQueueWriter,
                 deleteExecutor,
+                commitStageExecutor,
+                postFilterExecutor,
                 validateLocksOnReads,
                 transactionConfig,
                 conflictTracer,
@@ -354,6 +360,8 @@ import javax.validation.constraints.NotNull;
                 defaultGetRangesConcurrency,
                 sweepQueueWriter,
                 deleteExecutor,
+                commitStageExecutor,
+                postFilterExecutor,
                 validateLocksOnReads,
                 transactionConfig,
                 conflictTracer,
@@ -395,6 +403,8 @@ import javax.validation.constraints.NotNull;
             shutdownRunner.shutdownSafely(cleaner::close);
             shutdownRunner.shutdownSafely(keyValueService::close);
             shutdownRunner.shutdownSafely(() -> shutdownExecutor(deleteExecutor));
+            shutdownRunner.shutdownSafely(() -> shutdownExecutor(commitStageExecutor));
+            shutdownRunner.shutdownSafely(() -> shutdownExecutor(postFilterExecutor));
             shutdownRunner.shutdownSafely(() -> shutdownExecutor(getRangesExecutor));
             shutdownRunner.shutdownSafely(this::closeLockServiceIfPossible);
 
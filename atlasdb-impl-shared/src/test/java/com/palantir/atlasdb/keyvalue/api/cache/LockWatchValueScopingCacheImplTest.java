@@ -19,16 +19,19 @@ package com.palantir.atlasdb.keyvalue.api.cache;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import com.codahale.metrics.Gauge;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.CellReference;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
@@ -50,19 +53,29 @@ import com.palantir.lock.watch.LockWatchStateUpdate;
 import com.palantir.lock.watch.TransactionUpdate;
 import com.palantir.lock.watch.UnlockEvent;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import org.assertj.core.api.IterableAssert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public final class LockWatchValueScopingCacheImplTest {
     private static final long TIMESTAMP_1 = 5L;
@@ -486,6 +499,104 @@ public final class LockWatchValueScopingCacheImplTest {
                         + " old to process. Transactions should be retried.");
     }
 
+    @Test
+    public void removalQueuedWhileUpdateLockIsHeldIsAppliedBeforeTheLockIsReleased() throws Exception {
+        BlockingSnapshotStore blockingSnapshotStore = new BlockingSnapshotStore(snapshotStore);
+        valueCache = new LockWatchValueScopingCacheImpl(
+                eventCache, 20_000, 0.0, ImmutableSet.of(TABLE), blockingSnapshotStore, () -> {}, metrics);
+        processStartTransactionsUpdate(LOCK_WATCH_SNAPSHOT, TIMESTAMP_1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            blockingSnapshotStore.blockNextStore();
+            Future<?> update =
+                    executor.submit(() -> processStartTransactionsUpdate(SUCCESS_WITH_NO_UPDATES, TIMESTAMP_2));
+            blockingSnapshotStore.awaitBlocked();
+
+            // the update holds the lock, so the removal is only queued
+            valueCache.ensureStateRemoved(TIMESTAMP_1);
+            assertThat(snapshotStore.getSnapshot(StartTimestamp.of(TIMESTAMP_1))).isPresent();
+
+            blockingSnapshotStore.unblock();
+            update.get();
+            assertThat(snapshotStore.getSnapshot(StartTimestamp.of(TIMESTAMP_1))).isEmpty();
+            assertThat(snapshotStore.getSnapshot(StartTimestamp.of(TIMESTAMP_2))).isPresent();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void commitUpdatesRacingRemovalsDoNotRecreateState() throws Exception {
+        long[] timestamps = LongStream.range(1_000, 1_500).toArray();
+        processStartTransactionsUpdate(LOCK_WATCH_SNAPSHOT, timestamps);
+        LongStream.of(timestamps).forEach(timestamp -> processEventCacheCommit(timestamp, 0L));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (long timestamp : timestamps) {
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> commitUpdate = executor.submit(() -> {
+                    barrier.await();
+                    valueCache.updateCacheWithCommitTimestampsInformation(ImmutableSet.of(timestamp));
+                    return null;
+                });
+                Future<?> removal = executor.submit(() -> {
+                    barrier.await();
+                    valueCache.ensureStateRemoved(timestamp);
+                    return null;
+                });
+                commitUpdate.get();
+                removal.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(getTransactionCacheCount()).isZero();
+        LongStream.of(timestamps).forEach(timestamp -> assertThat(
+                        snapshotStore.getSnapshot(StartTimestamp.of(timestamp)))
+                .isEmpty());
+    }
+
+    @Test
+    public void concurrentlyStartedCommittedAndRemovedTransactionsLeaveNoStateBehind() throws Exception {
+        processStartTransactionsUpdate(LOCK_WATCH_SNAPSHOT, TIMESTAMP_1);
+        valueCache.ensureStateRemoved(TIMESTAMP_1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> transactions = new ArrayList<>();
+        try {
+            for (long timestamp = 1_000; timestamp < 1_500; timestamp++) {
+                long startTimestamp = timestamp;
+                transactions.add(executor.submit(() -> {
+                    processStartTransactionsUpdate(SUCCESS_WITH_NO_UPDATES, startTimestamp);
+                    if (startTimestamp % 2 == 0) {
+                        getRemotelyReadCells(valueCache.getTransactionScopedCache(startTimestamp), TABLE, CELL_1);
+                        processSuccessfulCommit(startTimestamp, 0L);
+                    } else {
+                        valueCache.ensureStateRemoved(startTimestamp);
+                    }
+                }));
+            }
+            for (Future<?> transaction : transactions) {
+                transaction.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(getTransactionCacheCount()).isZero();
+        LongStream.range(1_000, 1_500).forEach(timestamp -> assertThat(
+                        snapshotStore.getSnapshot(StartTimestamp.of(timestamp)))
+                .isEmpty());
+
+        // the values read by the committed transactions were flushed to the central cache
+        processStartTransactionsUpdate(SUCCESS_WITH_NO_UPDATES, TIMESTAMP_2);
+        assertThatRemotelyReadCells(valueCache.getTransactionScopedCache(TIMESTAMP_2), TABLE, CELL_1)
+                .isEmpty();
+    }
+
     private static void assertNoRowsCached(TransactionScopedCache scopedCache) {
         Set<Cell> remoteReads = new HashSet<>();
         Set<byte[]> remoteRowReads = Collections.newSetFromMap(new IdentityHashMap<>());
@@ -536,6 +647,13 @@ public final class LockWatchValueScopingCacheImplTest {
         return LockWatchStateUpdate.success(LEADER, sequence, ImmutableList.of());
     }
 
+    private int getTransactionCacheCount() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Gauge<Integer>> gauge = ArgumentCaptor.forClass(Gauge.class);
+        verify(metrics, atLeastOnce()).setTransactionCacheInstanceCountGauge(gauge.capture());
+        return gauge.getValue().getValue();
+    }
+
     private static Iterable<Cell> getRemotelyReadCells(
             TransactionScopedCache cache, TableReference table, Cell... cells) {
         Set<Cell> remoteReads = new HashSet<>();
@@ -586,4 +704,60 @@ public final class LockWatchValueScopingCacheImplTest {
     private static byte[] createBytes(int value) {
         return new byte[] {(byte) value};
     }
+
+    /**
+     * Blocks the next snapshot stored, which is stored under the update lock, until it is unblocked.
+     */
+    private static final class BlockingSnapshotStore implements SnapshotStore {
+        private final SnapshotStore delegate;
+        private final AtomicBoolean blockNextStore = new AtomicBoolean();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch unblocked = new CountDownLatch(1);
+
+        private BlockingSnapshotStore(SnapshotStore delegate) {
+            this.delegate = delegate;
+        }
+
+        void blockNextStore() {
+            blockNextStore.set(true);
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            blocked.await();
+        }
+
+        void unblock() {
+            unblocked.countDown();
+        }
+
+        @Override
+        public void storeSnapshot(
+                Sequence sequence, Collection<StartTimestamp> timestamps, ValueCacheSnapshot snapshot) {
+            if (blockNextStore.getAndSet(false)) {
+                blocked.countDown();
+                Uninterruptibles.awaitUninterruptibly(unblocked);
+            }
+            delegate.storeSnapshot(sequence, timestamps, snapshot);
+        }
+
+        @Override
+        public Optional<ValueCacheSnapshot> getSnapshot(StartTimestamp timestamp) {
+            return delegate.getSnapshot(timestamp);
+        }
+
+        @Override
+        public Optional<ValueCacheSnapshot> getSnapshotForSequence(Sequence sequence) {
+            return delegate.getSnapshotForSequence(sequence);
+        }
+
+        @Override
+        public void removeTimestamp(StartTimestamp timestamp) {
+            delegate.removeTimestamp(timestamp);
+        }
+
+        @Override
+        public void reset() {
+            delegate.reset();
+        }
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.api.watch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public final class LongKeyedTableTest {
+    private final LongKeyedTable<String> table = new LongKeyedTable<>();
+
+    @Test
+    public void putIfAbsentDoesNotOverwrite() {
+        assertThat(table.putIfAbsent(1L, "a")).isNull();
+        assertThat(table.putIfAbsent(1L, "b")).isEqualTo("a");
+        assertThat(table.get(1L)).isEqualTo("a");
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void replaceOnlyUpdatesPresentKeys() {
+        assertThat(table.replace(1L, "a")).isNull();
+        assertThat(table.get(1L)).isNull();
+
+        table.putIfAbsent(1L, "a");
+        assertThat(table.replace(1L, "b")).isEqualTo("a");
+        assertThat(table.get(1L)).isEqualTo("b");
+    }
+
+    @Test
+    public void removedKeysCanBeAddedAgain() {
+        table.putIfAbsent(1L, "a");
+        assertThat(table.remove(1L)).isEqualTo("a");
+        assertThat(table.remove(1L)).isNull();
+        assertThat(table.get(1L)).isNull();
+        assertThat(table.size()).isZero();
+
+        assertThat(table.putIfAbsent(1L, "b")).isNull();
+        assertThat(table.get(1L)).isEqualTo("b");
+    }
+
+    @Test
+    public void matchesMapUnderRandomOperations() {
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000);
+            String value = Integer.toString(i);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertThat(table.putIfAbsent(key, value)).isEqualTo(expected.putIfAbsent(key, value));
+                    break;
+                case 2:
+                    assertThat(table.remove(key)).isEqualTo(expected.remove(key));
+                    break;
+                default:
+                    assertThat(table.get(key)).isEqualTo(expected.get(key));
+            }
+        }
+
+        Map<Long, String> visited = new HashMap<>();
+        table.forEach(visited::put);
+        assertThat(visited).isEqualTo(expected);
+        assertThat(table.size()).isEqualTo(expected.size());
+    }
+
+    @Test
+    public void clearRemovesAllEntries() {
+        table.putIfAbsent(1L, "a");
+        table.putIfAbsent(2L, "b");
+        table.clear();
+
+        assertThat(table.size()).isZero();
+        assertThat(table.get(1L)).isNull();
+        table.forEach((key, value) -> {
+            throw new AssertionError("Unexpected entry");
+        });
+    }
+}
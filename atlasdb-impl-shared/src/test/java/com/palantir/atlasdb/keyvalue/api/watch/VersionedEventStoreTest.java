@@ -27,6 +27,8 @@ import com.palantir.lock.watch.LockWatchEvent;
 import com.palantir.lock.watch.UnlockEvent;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -209,6 +211,44 @@ public final class VersionedEventStoreTest {
         assertThat(eventStore.containsEntryLessThanOrEqualTo(SEQ_4.value())).isTrue();
     }
 
+    @Test
+    public void putAllRetainsEventsAcrossGrowth() {
+        eventStore = new VersionedEventStore(CACHE_METRICS, 1, 1_000);
+        for (long sequence = 0; sequence < 100; sequence += 10) {
+            eventStore.putAll(makeEvents(LongStream.range(sequence, sequence + 10)));
+        }
+        eventStore.retentionEvents(Optional.of(Sequence.of(37L)));
+        eventStore.putAll(makeEvents(LongStream.range(100, 150)));
+
+        assertThat(eventStore.getEventsBetweenVersionsInclusive(Optional.empty(), Long.MAX_VALUE))
+                .extracting(LockWatchEvent::sequence)
+                .containsExactlyElementsOf(
+                        LongStream.range(37, 150).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void putAllAcceptsEventsOverlappingTheStart() {
+        eventStore.putAll(makeEvents(EVENT_3, EVENT_4));
+        assertThat(eventStore.putAll(makeEvents(EVENT_1, EVENT_2, EVENT_3))).isEqualTo(EVENT_4.sequence());
+        assertThat(eventStore.getStateForTesting().eventMap().keySet()).containsExactly(SEQ_1, SEQ_2, SEQ_3, SEQ_4);
+    }
+
+    @Test
+    public void putAllThrowsIfEventsWouldLeaveAGap() {
+        eventStore.putAll(makeEvents(EVENT_1, EVENT_2));
+        assertThatThrownBy(() -> eventStore.putAll(makeEvents(EVENT_4, EVENT_5)))
+                .isInstanceOf(SafeIllegalStateException.class)
+                .hasMessageContaining("Lock watch events must be contiguous with the events already stored");
+    }
+
+    private LockWatchEvents makeEvents(LongStream sequences) {
+        return LockWatchEvents.builder()
+                .addAllEvents(sequences
+                        .mapToObj(sequence -> UnlockEvent.builder(ImmutableSet.of()).build(sequence))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
     private LockWatchEvents makeEvents(LockWatchEvent... events) {
         return LockWatchEvents.builder().addEvents(events).build();
     }
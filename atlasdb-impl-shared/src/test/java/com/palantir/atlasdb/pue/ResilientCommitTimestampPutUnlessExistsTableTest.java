@@ -218,6 +218,45 @@ public class ResilientCommitTimestampPutUnlessExistsTableTest {
         verify(spiedStore, times(102)).put(anyMap());
     }
 
+    @Test
+    public void stagingValuesReadTogetherAreCommittedTogether() throws ExecutionException, InterruptedException {
+        setupStagingValues(5);
+        spiedStore.stopFailingPuts();
+
+        Map<Long, Long> expected = LongStream.range(0, 5).boxed().collect(Collectors.toMap(x -> x, x -> x));
+        assertThat(pueTable.get(expected.keySet()).get()).containsExactlyInAnyOrderEntriesOf(expected);
+        assertThat(pueTable.get(expected.keySet()).get()).containsExactlyInAnyOrderEntriesOf(expected);
+
+        if (validating) {
+            verify(spiedKvs, times(5)).checkAndSet(any());
+        } else {
+            verify(spiedKvs, never()).checkAndSet(any());
+        }
+        verify(spiedStore, times(1 + 1)).put(anyMap());
+    }
+
+    @Test
+    public void cellsCommittedElsewhereDoNotCauseOtherCellsToBeTouchedAgain()
+            throws ExecutionException, InterruptedException {
+        Assume.assumeTrue(validating);
+        setupStagingValues(5);
+        spiedStore.stopFailingPuts();
+
+        TwoPhaseEncodingStrategy strategy = TwoPhaseEncodingStrategy.INSTANCE;
+        Cell committedCell = strategy.encodeStartTimestampAsCell(2L);
+        byte[] stagingValue = strategy.encodeCommitTimestampAsValue(2L, PutUnlessExistsValue.staging(2L));
+        byte[] committedValue = strategy.encodeCommitTimestampAsValue(2L, PutUnlessExistsValue.committed(2L));
+        doThrow(new CheckAndSetException(
+                        "done elsewhere", committedCell, stagingValue, ImmutableList.of(committedValue)))
+                .when(spiedStore)
+                .checkAndTouch(committedCell, stagingValue);
+
+        Map<Long, Long> expected = LongStream.range(0, 5).boxed().collect(Collectors.toMap(x -> x, x -> x));
+        assertThat(pueTable.get(expected.keySet()).get()).containsExactlyInAnyOrderEntriesOf(expected);
+
+        verify(spiedStore, times(5)).checkAndTouch(any(Cell.class), any(byte[].class));
+    }
+
     @Test
     public void noSuperfluousCasOrPuts() {
         setupStagingValues(50);
@@ -317,7 +356,7 @@ public class ResilientCommitTimestampPutUnlessExistsTableTest {
         Assume.assumeTrue(validating);
         setupStagingValues(5);
         spiedStore.stopFailingPuts();
-        spiedStore.startSlowPue();
+        spiedStore.startSlowPue(Duration.ofSeconds(2));
 
         assertThat(pueTable.get(0L).get()).isEqualTo(0L);
         assertThat(pueTable.get(1L).get()).isEqualTo(1L);
@@ -332,6 +371,21 @@ public class ResilientCommitTimestampPutUnlessExistsTableTest {
         verify(spiedStore, times(1 + 3)).put(anyMap());
     }
 
+    @Test
+    public void doNotAcceptStagingAsCommittedWhenLargeBatchIsSlowOnlyInTotal()
+            throws ExecutionException, InterruptedException {
+        Assume.assumeTrue(validating);
+        setupStagingValues(5);
+        spiedStore.stopFailingPuts();
+        spiedStore.startSlowPue(Duration.ofMillis(500));
+
+        assertThat(pueTable.get(ImmutableList.of(0L, 1L, 2L, 3L)).get()).hasSize(4);
+        verify(spiedKvs, times(4)).checkAndSet(any());
+
+        assertThat(pueTable.get(4L).get()).isEqualTo(4L);
+        verify(spiedKvs, times(5)).checkAndSet(any());
+    }
+
     @Test
     public void acceptStagingAsCommittedWhenRetryingTooMuch() throws ExecutionException, InterruptedException {
         Assume.assumeTrue(validating);
@@ -447,8 +501,8 @@ public class ResilientCommitTimestampPutUnlessExistsTableTest {
             return maximumConcurrentTouches.get();
         }
 
-        public void startSlowPue() {
-            millisForPue = Duration.ofSeconds(2).toMillis();
+        public void startSlowPue(Duration timePerTouch) {
+            millisForPue = timePerTouch.toMillis();
         }
 
         /**
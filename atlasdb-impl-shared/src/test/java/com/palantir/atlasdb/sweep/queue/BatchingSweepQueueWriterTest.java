@@ -0,0 +1,158 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.sweep.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.atlasdb.autobatch.BatchElement;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher.DisruptorFuture;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.Test;
+
+public class BatchingSweepQueueWriterTest {
+    private static final TableReference TABLE_REF = TableReference.createFromFullyQualifiedName("test.test");
+
+    private final List<List<WriteInfo>> enqueued = Collections.synchronizedList(new ArrayList<>());
+    private final MultiTableSweepQueueWriter delegate = writes -> enqueued.add(ImmutableList.copyOf(writes));
+    private final Consumer<List<WriteInfo>> noValidation = writes -> {};
+
+    @Test
+    public void enqueuesWritesOfWholeBatchTogetherAndCompletesEveryElement() {
+        List<BatchElement<List<WriteInfo>, Void>> elements = ImmutableList.of(
+                element(writeAt(1L, 10L)), element(writeAt(2L, 20L), writeAt(3L, 20L)), element(writeAt(4L, 30L)));
+
+        BatchingSweepQueueWriter.processBatch(delegate, noValidation, elements);
+
+        assertThat(enqueued)
+                .containsExactly(
+                        ImmutableList.of(writeAt(1L, 10L), writeAt(2L, 20L), writeAt(3L, 20L), writeAt(4L, 30L)));
+        assertThat(elements).allSatisfy(element -> assertThat(element.result()).isDone());
+    }
+
+    @Test
+    public void failsOnlyElementsThatAreInvalid() {
+        Consumer<List<WriteInfo>> validator = writes -> {
+            if (writes.size() > 1) {
+                throw new SafeIllegalArgumentException("too many writes");
+            }
+        };
+        BatchElement<List<WriteInfo>, Void> invalid = element(writeAt(2L, 20L), writeAt(3L, 20L));
+        List<BatchElement<List<WriteInfo>, Void>> elements =
+                ImmutableList.of(element(writeAt(1L, 10L)), invalid, element(writeAt(4L, 30L)));
+
+        BatchingSweepQueueWriter.processBatch(delegate, validator, elements);
+
+        assertThat(enqueued).containsExactly(ImmutableList.of(writeAt(1L, 10L), writeAt(4L, 30L)));
+        assertFailed(invalid);
+        elements.stream().filter(element -> element != invalid).forEach(BatchingSweepQueueWriterTest::assertSucceeded);
+    }
+
+    @Test
+    public void failsOnlyElementsThatTheDelegateFailsToEnqueueSeparately() {
+        WriteInfo failingWrite = writeAt(2L, 20L);
+        MultiTableSweepQueueWriter partiallyFailingDelegate = writes -> {
+            if (writes.contains(failingWrite)) {
+                throw new SafeIllegalStateException("boom");
+            }
+            enqueued.add(ImmutableList.copyOf(writes));
+        };
+        BatchElement<List<WriteInfo>, Void> failing = element(failingWrite);
+        List<BatchElement<List<WriteInfo>, Void>> elements =
+                ImmutableList.of(element(writeAt(1L, 10L)), failing, element(writeAt(3L, 30L)));
+
+        BatchingSweepQueueWriter.processBatch(partiallyFailingDelegate, noValidation, elements);
+
+        assertThat(enqueued).containsExactly(ImmutableList.of(writeAt(1L, 10L)), ImmutableList.of(writeAt(3L, 30L)));
+        assertFailed(failing);
+        elements.stream().filter(element -> element != failing).forEach(BatchingSweepQueueWriterTest::assertSucceeded);
+    }
+
+    @Test
+    public void failsEveryElementIfDelegateFailsForEachOfThem() {
+        MultiTableSweepQueueWriter failingDelegate = writes -> {
+            throw new SafeIllegalStateException("boom");
+        };
+        List<BatchElement<List<WriteInfo>, Void>> elements =
+                ImmutableList.of(element(writeAt(1L, 10L)), element(writeAt(2L, 20L)));
+
+        BatchingSweepQueueWriter.processBatch(failingDelegate, noValidation, elements);
+
+        elements.forEach(BatchingSweepQueueWriterTest::assertFailed);
+    }
+
+    @Test
+    public void concurrentEnqueuesAllReachDelegate() throws Exception {
+        ExecutorService executor = PTExecutors.newFixedThreadPool(8);
+        try (BatchingSweepQueueWriter writer = BatchingSweepQueueWriter.create(delegate, noValidation)) {
+            List<Future<?>> futures = LongStream.range(0, 100)
+                    .mapToObj(timestamp ->
+                            executor.submit(() -> writer.enqueue(ImmutableList.of(writeAt(timestamp, timestamp)))))
+                    .collect(Collectors.toList());
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(enqueued.stream().flatMap(List::stream).map(WriteInfo::timestamp))
+                .containsExactlyInAnyOrderElementsOf(
+                        LongStream.range(0, 100).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void doesNotEnqueueEmptyWrites() {
+        try (BatchingSweepQueueWriter writer = BatchingSweepQueueWriter.create(delegate, noValidation)) {
+            writer.enqueue(ImmutableList.of());
+        }
+        assertThat(enqueued).isEmpty();
+    }
+
+    private static void assertSucceeded(BatchElement<List<WriteInfo>, Void> element) {
+        assertThat(element.result()).isDone();
+        assertThatCode(() -> element.result().get()).doesNotThrowAnyException();
+    }
+
+    private static void assertFailed(BatchElement<List<WriteInfo>, Void> element) {
+        assertThat(element.result()).isDone();
+        assertThatThrownBy(() -> element.result().get()).isInstanceOf(ExecutionException.class);
+    }
+
+    @SafeVarargs
+    private static BatchElement<List<WriteInfo>, Void> element(WriteInfo... writes) {
+        return BatchElement.of(ImmutableList.copyOf(writes), new DisruptorFuture<>("test"));
+    }
+
+    private static WriteInfo writeAt(long row, long timestamp) {
+        return WriteInfo.write(TABLE_REF, Cell.create(new byte[] {(byte) row}, new byte[] {1}), timestamp);
+    }
+}
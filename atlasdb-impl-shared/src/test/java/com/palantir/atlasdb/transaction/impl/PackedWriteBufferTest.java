@@ -0,0 +1,172 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.transaction.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class PackedWriteBufferTest {
+    private static final long MEMTABLE_BYTES = 256;
+    private static final Cell FIRST = cell(10, 1);
+    private static final Cell MIDDLE = cell(20, 1);
+    private static final Cell LAST = cell(30, 1);
+
+    @Test
+    public void putReturnsPreviousValueFromPackedRuns() {
+        PackedWriteBuffer buffer = new PackedWriteBuffer(MEMTABLE_BYTES, Optional.empty());
+
+        assertThat(buffer.put(FIRST, value(1))).isNull();
+        fillPastMemtable(buffer);
+
+        assertThat(buffer.put(FIRST, value(2))).isEqualTo(value(1));
+        assertThat(buffer.get(FIRST)).isEqualTo(value(2));
+        fillPastMemtable(buffer);
+        assertThat(buffer.get(FIRST)).isEqualTo(value(2));
+        assertThat(buffer.containsKey(cell(0, 0))).isFalse();
+    }
+
+    @Test
+    public void iteratesInOrderWithLatestValues() {
+        PackedWriteBuffer buffer = new PackedWriteBuffer(MEMTABLE_BYTES, Optional.empty());
+        NavigableMap<Cell, byte[]> expected = putRandomWrites(buffer);
+
+        assertThat(buffer.bytesInMemory()).isPositive();
+        assertThat(buffer.bytesSpilled()).isZero();
+        assertThat(buffer).hasSameSizeAs(expected);
+        assertSameWrites(buffer, expected);
+        assertSameWrites(buffer.tailMap(MIDDLE), expected.tailMap(MIDDLE, true));
+        assertSameWrites(buffer.headMap(MIDDLE), expected.headMap(MIDDLE, false));
+        assertSameWrites(buffer.subMap(FIRST, false, LAST, true), expected.subMap(FIRST, false, LAST, true));
+        assertThat(buffer.ceilingKey(MIDDLE)).isEqualTo(expected.ceilingKey(MIDDLE));
+        assertThat(buffer.lastKey()).isEqualTo(expected.lastKey());
+    }
+
+    @Test
+    public void spilledWritesRemainReadable() {
+        PackedWriteBuffer buffer = new PackedWriteBuffer(MEMTABLE_BYTES, Optional.of(8 * MEMTABLE_BYTES));
+        NavigableMap<Cell, byte[]> expected = putRandomWrites(buffer);
+
+        assertThat(buffer.bytesSpilled()).isPositive();
+        assertSameWrites(buffer, expected);
+        assertSameWrites(buffer.subMap(FIRST, LAST), expected.subMap(FIRST, true, LAST, false));
+        expected.forEach((cell, value) -> assertThat(buffer.get(cell)).isEqualTo(value));
+    }
+
+    @Test
+    public void sizeCountsEachCellOnceAcrossRuns() {
+        PackedWriteBuffer buffer = new PackedWriteBuffer(MEMTABLE_BYTES, Optional.of(8 * MEMTABLE_BYTES));
+        assertThat(buffer).isEmpty();
+
+        NavigableMap<Cell, byte[]> expected = putRandomWrites(buffer);
+
+        assertThat(buffer).isNotEmpty().hasSameSizeAs(expected);
+        assertThat(buffer.headMap(MIDDLE)).hasSameSizeAs(expected.headMap(MIDDLE, false));
+    }
+
+    @Test
+    public void spilledRunsAreMergedAsTheyAccumulate() {
+        PackedWriteBuffer buffer = new PackedWriteBuffer(MEMTABLE_BYTES, Optional.of(0L));
+        NavigableMap<Cell, byte[]> expected = new TreeMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            Cell cell = cell(i, 0);
+            expected.put(cell, value(i));
+            buffer.put(cell, value(i));
+        }
+
+        // each spilled run is less than half the size of the one before it
+        assertThat(buffer.bytesSpilled()).isGreaterThan(500 * MEMTABLE_BYTES);
+        assertThat(buffer.spilledRunCount()).isLessThanOrEqualTo(64 - Long.numberOfLeadingZeros(buffer.bytesSpilled()));
+        assertSameWrites(buffer, expected);
+    }
+
+    @Test
+    public void viewsRejectCellsOutsideTheirRange() {
+        PackedWriteBuffer buffer = new PackedWriteBuffer(MEMTABLE_BYTES, Optional.empty());
+        buffer.put(FIRST, value(1));
+        buffer.put(LAST, value(3));
+        PackedWriteBuffer view = buffer.subMap(MIDDLE, LAST);
+
+        assertThat(view).isEmpty();
+        assertThat(view.get(FIRST)).isNull();
+        assertThatThrownBy(() -> view.put(LAST, value(4))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> view.tailMap(FIRST)).isInstanceOf(IllegalArgumentException.class);
+
+        view.put(MIDDLE, value(2));
+        assertThat(buffer.get(MIDDLE)).isEqualTo(value(2));
+        assertThat(buffer.keySet()).containsExactly(FIRST, MIDDLE, LAST);
+    }
+
+    @Test
+    public void writesCannotBeRemoved() {
+        PackedWriteBuffer buffer = new PackedWriteBuffer(MEMTABLE_BYTES, Optional.empty());
+        buffer.put(FIRST, value(1));
+
+        assertThatThrownBy(() -> buffer.remove(FIRST)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(buffer::clear).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(buffer::pollFirstEntry).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(buffer.get(FIRST)).isEqualTo(value(1));
+    }
+
+    private static NavigableMap<Cell, byte[]> putRandomWrites(PackedWriteBuffer buffer) {
+        NavigableMap<Cell, byte[]> expected = new TreeMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 5_000; i++) {
+            Cell cell = cell(random.nextInt(40), random.nextInt(20));
+            byte[] value = new byte[1 + random.nextInt(32)];
+            random.nextBytes(value);
+            byte[] previous = expected.put(cell, value);
+            assertThat(buffer.put(cell, value)).isEqualTo(previous);
+        }
+        return expected;
+    }
+
+    private static void fillPastMemtable(PackedWriteBuffer buffer) {
+        for (int i = 0; i < MEMTABLE_BYTES; i++) {
+            buffer.put(cell(100, i), value(i));
+        }
+    }
+
+    private static void assertSameWrites(Map<Cell, byte[]> actual, Map<Cell, byte[]> expected) {
+        assertThat(comparable(actual)).containsExactlyElementsOf(comparable(expected));
+    }
+
+    private static List<Map.Entry<Cell, ByteBuffer>> comparable(Map<Cell, byte[]> writes) {
+        List<Map.Entry<Cell, ByteBuffer>> entries = new ArrayList<>();
+        writes.forEach((cell, value) -> entries.add(Maps.immutableEntry(cell, ByteBuffer.wrap(value))));
+        return entries;
+    }
+
+    private static Cell cell(int row, int column) {
+        return Cell.create(Ints.toByteArray(row), Ints.toByteArray(column));
+    }
+
+    private static byte[] value(int value) {
+        return Ints.toByteArray(value);
+    }
+}
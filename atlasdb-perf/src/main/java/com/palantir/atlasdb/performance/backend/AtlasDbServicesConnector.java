@@ -22,6 +22,8 @@ import com.palantir.atlasdb.services.DaggerAtlasDbServices;
 import com.palantir.atlasdb.services.ServicesConfigModule;
 import com.palantir.atlasdb.spi.KeyValueServiceConfig;
 import com.palantir.atlasdb.spi.KeyValueServiceRuntimeConfig;
+import com.palantir.atlasdb.transaction.ImmutableTransactionConfig;
+import com.palantir.atlasdb.transaction.TransactionConfig;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import java.io.Closeable;
 import java.util.Optional;
@@ -41,6 +43,10 @@ public class AtlasDbServicesConnector implements Closeable {
     private AtlasDbServices services;
 
     public AtlasDbServices connect() {
+        return connect(ImmutableTransactionConfig.builder().build());
+    }
+
+    public AtlasDbServices connect(TransactionConfig transactionConfig) {
         if (services != null) {
             throw new SafeIllegalStateException("connect() has already been called");
         }
@@ -52,8 +58,9 @@ public class AtlasDbServicesConnector implements Closeable {
                 dburi.getKeyValueServiceInstrumentation().getKeyValueServiceRuntimeConfig(dburi.getAddress());
         ImmutableAtlasDbConfig atlasDbConfig =
                 ImmutableAtlasDbConfig.builder().keyValueService(config).build();
-        ImmutableAtlasDbRuntimeConfig atlasDbRuntimeConfig =
-                ImmutableAtlasDbRuntimeConfig.defaultRuntimeConfig().withKeyValueService(runtimeConfig);
+        ImmutableAtlasDbRuntimeConfig atlasDbRuntimeConfig = ImmutableAtlasDbRuntimeConfig.defaultRuntimeConfig()
+                .withKeyValueService(runtimeConfig)
+                .withTransaction(transactionConfig);
         ServicesConfigModule servicesConfigModule = ServicesConfigModule.create(atlasDbConfig, atlasDbRuntimeConfig);
 
         services = DaggerAtlasDbServices.builder()
@@ -0,0 +1,110 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.performance.benchmarks;
+
+import com.palantir.atlasdb.timelock.paxos.AcceptorCache;
+import com.palantir.atlasdb.timelock.paxos.AcceptorCacheDigest;
+import com.palantir.atlasdb.timelock.paxos.AcceptorCacheImpl;
+import com.palantir.atlasdb.timelock.paxos.AcceptorCacheKey;
+import com.palantir.atlasdb.timelock.paxos.InvalidAcceptorCacheKeyException;
+import com.palantir.atlasdb.timelock.paxos.WithSeq;
+import com.palantir.paxos.Client;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the {@link AcceptorCache} under the load of a TimeLock node serving many clients. Prepares and
+ * accepts for small batches of clients update the cache, while remote nodes poll it for the updates since their
+ * last cache key.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 1)
+@Fork(value = 1)
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AcceptorCacheBenchmark {
+    private static final int CLIENTS_PER_UPDATE = 8;
+
+    @Param({"1000", "10000"})
+    public int numClients;
+
+    private AcceptorCache cache;
+    private Client[] clients;
+    private final AtomicLong sequenceNumber = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class PollerState {
+        private AcceptorCacheKey cacheKey;
+    }
+
+    @Setup
+    public void setUp() {
+        cache = new AcceptorCacheImpl();
+        clients = IntStream.range(0, numClients)
+                .mapToObj(index -> Client.of("client-" + index))
+                .toArray(Client[]::new);
+        cache.updateSequenceNumbers(Arrays.stream(clients)
+                .map(client -> WithSeq.of(client, sequenceNumber.incrementAndGet()))
+                .collect(Collectors.toSet()));
+    }
+
+    @Benchmark
+    @Group("updatesAndPolls")
+    @GroupThreads(2)
+    public void update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<WithSeq<Client>> updates = new HashSet<>();
+        for (int i = 0; i < CLIENTS_PER_UPDATE; i++) {
+            updates.add(WithSeq.of(clients[random.nextInt(clients.length)], sequenceNumber.incrementAndGet()));
+        }
+        cache.updateSequenceNumbers(updates);
+    }
+
+    @Benchmark
+    @Group("updatesAndPolls")
+    @GroupThreads(6)
+    public Optional<AcceptorCacheDigest> poll(PollerState poller) throws InvalidAcceptorCacheKeyException {
+        if (poller.cacheKey == null) {
+            AcceptorCacheDigest digest = cache.getAllUpdates();
+            poller.cacheKey = digest.newCacheKey();
+            return Optional.of(digest);
+        }
+        Optional<AcceptorCacheDigest> digest = cache.updatesSinceCacheKey(poller.cacheKey);
+        digest.ifPresent(updates -> poller.cacheKey = updates.newCacheKey());
+        return digest;
+    }
+}
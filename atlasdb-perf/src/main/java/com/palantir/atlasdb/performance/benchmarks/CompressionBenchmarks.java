@@ -0,0 +1,124 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.performance.benchmarks;
+
+import com.palantir.atlasdb.compress.CompressionUtils;
+import com.palantir.atlasdb.table.description.ColumnValueDescription.Compression;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of compressing and decompressing column values with each {@link Compression}, for values shaped like
+ * serialized records, packed binary rows and incompressible data.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 1)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CompressionBenchmarks {
+    private static final String[] WORDS = {
+        "id", "name", "owner", "created", "modified", "status", "ACTIVE", "DELETED", "type", "dataset", "branch",
+        "transaction", "version", "path", "properties", "true", "false", "null"
+    };
+
+    @Param({"SNAPPY", "LZ4", "DEFLATE"})
+    public Compression compression;
+
+    @Param({"RECORD", "BINARY", "RANDOM"})
+    public ValueShape shape;
+
+    @Param({"256", "16384"})
+    public int valueSize;
+
+    private byte[] value;
+    private byte[] compressedValue;
+
+    public enum ValueShape {
+        /** JSON-like text drawn from a small vocabulary, with random identifiers. */
+        RECORD,
+        /** Fixed-width rows of longs and small integers, as written by packed value types. */
+        BINARY,
+        RANDOM
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        switch (shape) {
+            case RECORD:
+                value = createRecordValue(random, valueSize);
+                break;
+            case BINARY:
+                value = createBinaryValue(random, valueSize);
+                break;
+            case RANDOM:
+                value = new byte[valueSize];
+                random.nextBytes(value);
+                break;
+        }
+        compressedValue = CompressionUtils.compress(value, compression);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return CompressionUtils.compress(value, compression);
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return CompressionUtils.decompress(compressedValue, compression);
+    }
+
+    private static byte[] createRecordValue(Random random, int size) {
+        StringBuilder record = new StringBuilder(size + 64).append('{');
+        while (record.length() < size) {
+            record.append('"')
+                    .append(WORDS[random.nextInt(WORDS.length)])
+                    .append("\": \"")
+                    .append(WORDS[random.nextInt(WORDS.length)])
+                    .append('-')
+                    .append(Long.toHexString(random.nextLong()))
+                    .append("\", ");
+        }
+        return Arrays.copyOf(record.toString().getBytes(StandardCharsets.UTF_8), size);
+    }
+
+    private static byte[] createBinaryValue(Random random, int size) {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        long timestamp = 1_000_000_000L;
+        while (buffer.remaining() >= 2 * Long.BYTES + Integer.BYTES) {
+            timestamp += random.nextInt(1000);
+            buffer.putLong(timestamp).putLong(random.nextInt(100)).putInt(random.nextInt(4));
+        }
+        return buffer.array();
+    }
+}
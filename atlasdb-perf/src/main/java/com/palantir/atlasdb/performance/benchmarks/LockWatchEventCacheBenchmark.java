@@ -0,0 +1,117 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.performance.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.keyvalue.api.cache.CacheMetrics;
+import com.palantir.atlasdb.keyvalue.api.watch.LockWatchEventCacheImpl;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.StringLockDescriptor;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.watch.CommitUpdate;
+import com.palantir.lock.watch.LockEvent;
+import com.palantir.lock.watch.LockWatchEventCache;
+import com.palantir.lock.watch.LockWatchReferences;
+import com.palantir.lock.watch.LockWatchStateUpdate;
+import com.palantir.lock.watch.TransactionUpdate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the client side {@link LockWatchEventCache} through the life of a transaction on a table with lock
+ * watches enabled: each transaction starts with an update carrying a new lock event, commits at the latest version,
+ * reads the events relevant to its commit, and is then removed from the cache.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 1)
+@Fork(value = 1)
+@Threads(4)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LockWatchEventCacheBenchmark {
+    private static final UUID LEADER = UUID.randomUUID();
+    private static final LockToken LOCK_TOKEN = LockToken.of(UUID.randomUUID());
+    private static final ImmutableSet<LockDescriptor> DESCRIPTORS =
+            ImmutableSet.of(StringLockDescriptor.of("benchmark-descriptor"));
+
+    private final AtomicLong timestamp = new AtomicLong();
+    private final Object versionLock = new Object();
+    private LockWatchEventCache cache;
+    private long version;
+
+    @Setup
+    public void setUp() {
+        cache = LockWatchEventCacheImpl.create(CacheMetrics.create(MetricsManagers.createForTests()));
+        cache.processStartTransactionsUpdate(
+                ImmutableSet.of(),
+                LockWatchStateUpdate.snapshot(
+                        LEADER,
+                        version,
+                        ImmutableSet.of(),
+                        ImmutableSet.of(LockWatchReferences.entireTable("benchmark.table"))));
+    }
+
+    @Benchmark
+    public CommitUpdate startCommitAndRemove() {
+        long startTs = timestamp.incrementAndGet();
+        long latestVersion = start(startTs);
+
+        long commitTs = timestamp.incrementAndGet();
+        cache.processGetCommitTimestampsUpdate(
+                ImmutableList.of(TransactionUpdate.builder()
+                        .startTs(startTs)
+                        .commitTs(commitTs)
+                        .writesToken(LOCK_TOKEN)
+                        .build()),
+                LockWatchStateUpdate.success(LEADER, latestVersion, ImmutableList.of()));
+        CommitUpdate commitUpdate = cache.getCommitUpdate(startTs);
+
+        cache.removeTransactionStateFromCache(startTs);
+        return commitUpdate;
+    }
+
+    /**
+     * Versions must reach the cache in order, as an update that skips a version is rejected, so the next event is
+     * created and processed under a lock.
+     */
+    private long start(long startTs) {
+        synchronized (versionLock) {
+            version++;
+            cache.processStartTransactionsUpdate(
+                    ImmutableSet.of(startTs),
+                    LockWatchStateUpdate.success(
+                            LEADER,
+                            version,
+                            ImmutableList.of(LockEvent.builder(DESCRIPTORS, LOCK_TOKEN).build(version))));
+            return version;
+        }
+    }
+}
@@ -18,7 +18,9 @@ package com.palantir.atlasdb.performance.benchmarks;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
 import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.performance.benchmarks.table.ConsecutiveNarrowTable;
@@ -28,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Scope;
@@ -66,6 +69,30 @@ public class TransactionGetBenchmarks {
         });
     }
 
+    private Map<Cell, byte[]> getCellsAsyncInner(ConsecutiveNarrowTable table) {
+        final int getCellsSize = 1000;
+        return table.getTransactionManager().runTaskThrowOnConflict(txn -> {
+            Set<Cell> request = table.getCellsRequest(getCellsSize);
+            Map<Cell, byte[]> result = Futures.getUnchecked(txn.getAsync(table.getTableRef(), request));
+            Preconditions.checkState(
+                    result.size() == getCellsSize, "expected %s cells, found %s cells", getCellsSize, result.size());
+            return result;
+        });
+    }
+
+    private Map<byte[], RowResult<byte[]>> getRowsInner(ConsecutiveNarrowTable table) {
+        final int getRowsSize = 1000;
+        return table.getTransactionManager().runTaskThrowOnConflict(txn -> {
+            List<byte[]> request = table.getCellsRequest(getRowsSize).stream()
+                    .map(Cell::getRowName)
+                    .collect(Collectors.toList());
+            Map<byte[], RowResult<byte[]>> result = txn.getRows(table.getTableRef(), request, ColumnSelection.all());
+            Preconditions.checkState(
+                    result.size() == getRowsSize, "expected %s rows, found %s rows", getRowsSize, result.size());
+            return result;
+        });
+    }
+
     private List<RowResult<byte[]>> getSingleRowWithRangeQueryInner(final ConsecutiveNarrowTable table) {
         return table.getTransactionManager().runTaskThrowOnConflict(txn -> {
             RangeRequest request = Iterables.getOnlyElement(table.getRangeRequests(1, 1, false));
@@ -125,6 +152,56 @@ public class TransactionGetBenchmarks {
         return getCellsInner(table);
     }
 
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 5, timeUnit = TimeUnit.SECONDS)
+    public Object getCellsAsync(ConsecutiveNarrowTable.CleanNarrowTable table) {
+        return getCellsAsyncInner(table);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public Object getCellsDirtyAsync(ConsecutiveNarrowTable.DirtyNarrowTable table) {
+        return getCellsAsyncInner(table);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 5, timeUnit = TimeUnit.SECONDS)
+    public Object getCellsAsyncParallelPostFiltering(
+            ConsecutiveNarrowTable.ParallelPostFilteringCleanNarrowTable table) {
+        return getCellsAsyncInner(table);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public Object getCellsDirtyAsyncParallelPostFiltering(
+            ConsecutiveNarrowTable.ParallelPostFilteringDirtyNarrowTable table) {
+        return getCellsAsyncInner(table);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 5, timeUnit = TimeUnit.SECONDS)
+    public Object getRows(ConsecutiveNarrowTable.CleanNarrowTable table) {
+        return getRowsInner(table);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Warmup(time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(time = 10, timeUnit = TimeUnit.SECONDS)
+    public Object getRowsDirty(ConsecutiveNarrowTable.DirtyNarrowTable table) {
+        return getRowsInner(table);
+    }
+
     @Benchmark
     @Threads(1)
     @Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
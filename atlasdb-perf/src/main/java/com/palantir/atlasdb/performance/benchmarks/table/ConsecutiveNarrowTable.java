@@ -26,6 +26,8 @@ import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.performance.backend.AtlasDbServicesConnector;
 import com.palantir.atlasdb.performance.benchmarks.Benchmarks;
 import com.palantir.atlasdb.services.AtlasDbServices;
+import com.palantir.atlasdb.transaction.ImmutableTransactionConfig;
+import com.palantir.atlasdb.transaction.TransactionConfig;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -53,6 +55,7 @@ public abstract class ConsecutiveNarrowTable {
     private static final int REGENERATING_NUM_ROWS = 500;
     private static final List<byte[]> ROW_LIST = populateRowNames();
     private static final int DEFAULT_NUM_ROWS = 10_000;
+    private static final int PARALLEL_POST_FILTERING_THRESHOLD = 100;
 
     private Random random = new Random(Tables.RANDOM_SEED);
     private AtlasDbServicesConnector connector;
@@ -89,10 +92,14 @@ public abstract class ConsecutiveNarrowTable {
 
     protected abstract void setupData();
 
+    protected TransactionConfig getTransactionConfig() {
+        return ImmutableTransactionConfig.builder().build();
+    }
+
     @Setup(Level.Trial)
     public void setup(AtlasDbServicesConnector conn) {
         this.connector = conn;
-        services = conn.connect();
+        services = conn.connect(getTransactionConfig());
         if (!services.getKeyValueService().getAllTableNames().contains(getTableRef())) {
             Benchmarks.createTable(getKvs(), getTableRef(), Tables.ROW_COMPONENT, Tables.COLUMN_NAME);
             setupData();
@@ -165,6 +172,32 @@ public abstract class ConsecutiveNarrowTable {
         }
     }
 
+    /**
+     * The clean table, read by transactions that post-filter large reads concurrently.
+     */
+    @State(Scope.Benchmark)
+    public static class ParallelPostFilteringCleanNarrowTable extends CleanNarrowTable {
+        @Override
+        protected TransactionConfig getTransactionConfig() {
+            return ImmutableTransactionConfig.builder()
+                    .parallelPostFilteringThreshold(PARALLEL_POST_FILTERING_THRESHOLD)
+                    .build();
+        }
+    }
+
+    /**
+     * The dirty table, read by transactions that post-filter large reads concurrently.
+     */
+    @State(Scope.Benchmark)
+    public static class ParallelPostFilteringDirtyNarrowTable extends DirtyNarrowTable {
+        @Override
+        protected TransactionConfig getTransactionConfig() {
+            return ImmutableTransactionConfig.builder()
+                    .parallelPostFilteringThreshold(PARALLEL_POST_FILTERING_THRESHOLD)
+                    .build();
+        }
+    }
+
     public static int rowNumber(byte[] row) {
         return Ints.fromByteArray(row);
     }
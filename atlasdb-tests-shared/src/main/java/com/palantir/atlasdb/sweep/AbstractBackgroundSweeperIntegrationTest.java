@@ -89,7 +89,8 @@ public abstract class AbstractBackgroundSweeperIntegrationTest {
                 services.getTimestampService(),
                 () -> AtlasDbConstants.DEFAULT_SWEEP_WRITE_THRESHOLD,
                 () -> AtlasDbConstants.DEFAULT_SWEEP_WRITE_SIZE_THRESHOLD,
-                () -> true);
+                () -> true,
+                metricsManager);
         SweepStrategyManager ssm = SweepStrategyManagers.createDefault(kvs);
         txService = TransactionServices.createV1TransactionService(kvs);
         txManager = SweepTestUtils.setupTxManager(
@@ -16,8 +16,11 @@
 package com.palantir.atlasdb.compress;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.google.common.collect.ImmutableList;
 import com.palantir.atlasdb.table.description.ColumnValueDescription.Compression;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import org.junit.Test;
 
@@ -69,4 +72,53 @@ public class CompressionUtilsTest {
         }
         assertThat(threwIllegalArgumentException).isTrue();
     }
+
+    @Test
+    public void framedCompressionsRoundTrip() {
+        byte[] original = "a fairly repetitive value, a fairly repetitive value".getBytes(StandardCharsets.UTF_8);
+        for (Compression compression : ImmutableList.of(Compression.LZ4, Compression.DEFLATE)) {
+            byte[] compressed = CompressionUtils.compress(original, compression);
+            assertThat(compressed).isNotEqualTo(original);
+            assertThat(CompressionUtils.decompress(compressed, compression)).isEqualTo(original);
+            assertThat(CompressionUtils.decompress(CompressionUtils.compress(new byte[0], compression), compression))
+                    .isEmpty();
+        }
+    }
+
+    @Test
+    public void valuesAreReadWithTheCodecThatWroteThem() {
+        byte[] original = new byte[1024];
+        byte[] snappy = CompressionUtils.compress(original, Compression.SNAPPY);
+        byte[] lz4 = CompressionUtils.compress(original, Compression.LZ4);
+        byte[] deflate = CompressionUtils.compress(original, Compression.DEFLATE);
+
+        for (Compression compression : ImmutableList.of(Compression.SNAPPY, Compression.LZ4, Compression.DEFLATE)) {
+            assertThat(CompressionUtils.decompress(snappy, compression)).isEqualTo(original);
+            assertThat(CompressionUtils.decompress(lz4, compression)).isEqualTo(original);
+            assertThat(CompressionUtils.decompress(deflate, compression)).isEqualTo(original);
+        }
+    }
+
+    @Test
+    public void uncompressedValuesAreNotGuessedFromTheirContent() {
+        byte[] raw = new byte[] {1, 2, 3};
+        assertThatThrownBy(() -> CompressionUtils.decompress(raw, Compression.LZ4))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompressionUtils.decompress(raw, Compression.DEFLATE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void uncompressedColumnsReadFramedLookingValuesAsRawBytes() {
+        byte[] raw = CompressionUtils.compress(new byte[16], Compression.LZ4);
+        assertThat(CompressionUtils.decompress(raw, Compression.NONE)).isEqualTo(raw);
+    }
+
+    @Test
+    public void corruptFramedValuesAreRejected() {
+        byte[] compressed = CompressionUtils.compress(new byte[1024], Compression.LZ4);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length - 1);
+        assertThatThrownBy(() -> CompressionUtils.decompress(truncated, Compression.LZ4))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
 }
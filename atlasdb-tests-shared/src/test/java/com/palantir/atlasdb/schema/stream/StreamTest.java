@@ -50,6 +50,7 @@ import com.palantir.atlasdb.schema.stream.generated.TestHashComponentsStreamMeta
 import com.palantir.atlasdb.schema.stream.generated.TestHashComponentsStreamMetadataTable.TestHashComponentsStreamMetadataRow;
 import com.palantir.atlasdb.schema.stream.generated.TestHashComponentsStreamStore;
 import com.palantir.atlasdb.schema.stream.generated.TestHashComponentsStreamValueTable.TestHashComponentsStreamValueRow;
+import com.palantir.atlasdb.stream.ImmutableStreamStorePersistenceConfiguration;
 import com.palantir.atlasdb.stream.PersistentStreamStore;
 import com.palantir.atlasdb.table.description.Schemas;
 import com.palantir.atlasdb.transaction.api.Transaction;
@@ -289,6 +290,58 @@ public class StreamTest extends AtlasDbTestCase {
         storeAndCheckByteStreams(maxMemStore, getIncompressibleBytes(20_000_000));
     }
 
+    @Test
+    public void testStoreStreamWithConcurrentBlockWrites() throws IOException {
+        PersistentStreamStore store = StreamTestStreamStore.of(
+                txManager,
+                StreamTestTableFactory.of(),
+                () -> ImmutableStreamStorePersistenceConfiguration.builder()
+                        .maxBlocksInFlightPerWrite(3)
+                        .build());
+        byte[] bytesToStore = getIncompressibleBytes(StreamTestStreamStore.BLOCK_SIZE_IN_BYTES * 7 + 10);
+
+        Pair<Long, Sha256Hash> idAndHash = store.storeStream(new ByteArrayInputStream(bytesToStore));
+
+        assertThat(idAndHash.rhSide).isEqualTo(Sha256Hash.computeHash(bytesToStore));
+        verifyLoadingStreams(store, idAndHash.lhSide, bytesToStore);
+    }
+
+    @Test
+    public void testChunkedStreamsShareUnchangedChunks() throws IOException {
+        PersistentStreamStore store = StreamTestStreamStore.of(
+                txManager,
+                StreamTestTableFactory.of(),
+                () -> ImmutableStreamStorePersistenceConfiguration.builder()
+                        .contentDefinedChunkAverageBytes(4096)
+                        .build());
+        byte[] original = getIncompressibleBytes(200_000);
+        byte[] edited = new byte[original.length + 10];
+        System.arraycopy(original, 0, edited, 0, 100_000);
+        System.arraycopy(original, 100_000, edited, 100_010, original.length - 100_000);
+
+        long originalId = store.storeStream(new ByteArrayInputStream(original)).lhSide;
+        Pair<Long, Sha256Hash> editedIdAndHash = store.storeStream(new ByteArrayInputStream(edited));
+
+        assertThat(editedIdAndHash.rhSide).isEqualTo(Sha256Hash.computeHash(edited));
+        verifyLoadingStreams(store, originalId, original);
+        verifyLoadingStreams(store, editedIdAndHash.lhSide, edited);
+
+        StreamMetadata originalMetadata = txManager.runTaskThrowOnConflict(
+                t -> getMetadata(StreamTestTableFactory.of(), t, originalId));
+        StreamMetadata editedMetadata = txManager.runTaskThrowOnConflict(
+                t -> getMetadata(StreamTestTableFactory.of(), t, editedIdAndHash.lhSide));
+        assertThat(originalMetadata.getLength()).isEqualTo(original.length);
+        assertThat(originalMetadata.getChunkIdsCount()).isGreaterThan(1);
+        Set<Long> newChunks = new HashSet<>(editedMetadata.getChunkIdsList());
+        newChunks.removeAll(originalMetadata.getChunkIdsList());
+        assertThat(newChunks).hasSizeLessThanOrEqualTo(3);
+
+        Optional<InputStream> range = txManager.runTaskThrowOnConflict(
+                t -> store.loadStreamRange(t, editedIdAndHash.lhSide, 99_990, 30));
+        assertThat(range).isPresent();
+        assertStreamHasBytes(range.get(), Arrays.copyOfRange(edited, 99_990, 100_020));
+    }
+
     private long storeAndCheckByteStreams(PersistentStreamStore store, byte[] bytesToStore) throws IOException {
         byte[] reference = PtBytes.toBytes("ref");
 
@@ -374,6 +427,41 @@ public class StreamTest extends AtlasDbTestCase {
         });
     }
 
+    @Test
+    public void readFromPrefetchingStreamStoredInSameTransaction() throws IOException {
+        PersistentStreamStore store = StreamTestStreamStore.of(
+                txManager,
+                StreamTestTableFactory.of(),
+                () -> ImmutableStreamStorePersistenceConfiguration.builder()
+                        .readPrefetchBytes(2L * StreamTestStreamStore.BLOCK_SIZE_IN_BYTES)
+                        .build());
+        byte[] data = getIncompressibleBytes(StreamTestStreamStore.BLOCK_SIZE_IN_BYTES * 3 + 10);
+        long id = timestampService.getFreshTimestamp();
+
+        txManager.runTaskThrowOnConflict(t -> {
+            store.storeStreams(t, ImmutableMap.of(id, new ByteArrayInputStream(data)));
+            try (InputStream stream = store.loadStream(t, id)) {
+                assertStreamHasBytes(stream, data);
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void readFromPrefetchingStreamStoredInEarlierTransaction() throws IOException {
+        PersistentStreamStore store = StreamTestStreamStore.of(
+                txManager,
+                StreamTestTableFactory.of(),
+                () -> ImmutableStreamStorePersistenceConfiguration.builder()
+                        .readPrefetchBytes(2L * StreamTestStreamStore.BLOCK_SIZE_IN_BYTES)
+                        .build());
+        byte[] data = getIncompressibleBytes(StreamTestStreamStore.BLOCK_SIZE_IN_BYTES * 3 + 10);
+
+        long id = storeStream(store, data, PtBytes.toBytes("ref"));
+
+        verifyLoadingStreams(store, id, data);
+    }
+
     @Test
     public void testOverwrite() throws IOException {
         Random rand = new Random();
@@ -29,6 +29,8 @@ import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.transaction.api.Transaction;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.atlasdb.util.MetricsManagers;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
@@ -64,6 +66,8 @@ public class CachingTransactionTest {
     private final TableReference table = TableReference.createWithEmptyNamespace("table");
     private final Mockery mockery = new Mockery();
     private final Transaction transaction = mockery.mock(Transaction.class);
+    private final MetricsManager metricsManager = MetricsManagers.createForTests();
+    private final Function<Transaction, Transaction> transactionWrapper;
     private final Transaction cachingTransaction;
     private final String name;
     private final Map<String, BiFunction<Set<Cell>, Map<Cell, byte[]>, Expectations>> expectationsMapping =
@@ -74,6 +78,7 @@ public class CachingTransactionTest {
 
     public CachingTransactionTest(String name, Function<Transaction, Transaction> transactionWrapper) {
         this.name = name;
+        this.transactionWrapper = transactionWrapper;
         cachingTransaction = transactionWrapper.apply(new CachingTransaction(transaction));
     }
 
@@ -163,12 +168,122 @@ public class CachingTransactionTest {
         testGetCellResults(cell, emptyCellValueMap);
     }
 
+    @Test
+    public void testCacheHitsAndMissesAreCountedPerTable() {
+        final Cell cell = Cell.create(ROW_BYTES, COL_BYTES);
+        final Map<Cell, byte[]> cellValueMap = ImmutableMap.of(cell, VALUE_BYTES);
+        Transaction meteredTransaction =
+                transactionWrapper.apply(new CachingTransaction(transaction, 1024, metricsManager));
+
+        testGetCellResults(meteredTransaction, cell, cellValueMap);
+
+        assertThat(getCount("cacheHits")).isEqualTo(1);
+        assertThat(getCount("cacheMisses")).isEqualTo(1);
+    }
+
+    @Test
+    public void testGetRowsCountsLookupsInCells() {
+        final byte[] otherColBytes = "otherCol".getBytes(StandardCharsets.UTF_8);
+        final Set<byte[]> oneRow = ImmutableSortedSet.orderedBy(PtBytes.BYTES_COMPARATOR)
+                .add(ROW_BYTES)
+                .build();
+        final Set<byte[]> noRows =
+                ImmutableSortedSet.orderedBy(PtBytes.BYTES_COMPARATOR).build();
+        final ColumnSelection oneColumn = ColumnSelection.create(ImmutableList.of(COL_BYTES));
+        final ColumnSelection twoColumns = ColumnSelection.create(ImmutableList.of(COL_BYTES, otherColBytes));
+        final RowResult<byte[]> oneCell = RowResult.of(Cell.create(ROW_BYTES, COL_BYTES), VALUE_BYTES);
+        final RowResult<byte[]> twoCells = RowResult.create(
+                ROW_BYTES,
+                ImmutableSortedMap.<byte[], byte[]>orderedBy(PtBytes.BYTES_COMPARATOR)
+                        .put(COL_BYTES, VALUE_BYTES)
+                        .put(otherColBytes, VALUE_BYTES)
+                        .build());
+        final SortedMap<byte[], RowResult<byte[]>> oneCellResults =
+                ImmutableSortedMap.<byte[], RowResult<byte[]>>orderedBy(PtBytes.BYTES_COMPARATOR)
+                        .put(ROW_BYTES, oneCell)
+                        .build();
+        final SortedMap<byte[], RowResult<byte[]>> twoCellResults =
+                ImmutableSortedMap.<byte[], RowResult<byte[]>>orderedBy(PtBytes.BYTES_COMPARATOR)
+                        .put(ROW_BYTES, twoCells)
+                        .build();
+        final SortedMap<byte[], RowResult<byte[]>> emptyResults =
+                ImmutableSortedMap.<byte[], RowResult<byte[]>>orderedBy(PtBytes.BYTES_COMPARATOR)
+                        .build();
+        Transaction meteredTransaction =
+                transactionWrapper.apply(new CachingTransaction(transaction, 1024, metricsManager));
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(transaction).getRows(table, oneRow, oneColumn);
+                will(returnValue(oneCellResults));
+
+                // one of the two cells is cached, but the whole row is read again
+                oneOf(transaction).getRows(table, oneRow, twoColumns);
+                will(returnValue(twoCellResults));
+
+                oneOf(transaction).getRows(table, noRows, twoColumns);
+                will(returnValue(emptyResults));
+
+                oneOf(transaction).getRows(table, oneRow, ColumnSelection.all());
+                will(returnValue(twoCellResults));
+            }
+        });
+
+        meteredTransaction.getRows(table, oneRow, oneColumn);
+        assertThat(getCount("cacheHits")).isZero();
+        assertThat(getCount("cacheMisses")).isEqualTo(1);
+
+        meteredTransaction.getRows(table, oneRow, twoColumns);
+        assertThat(getCount("cacheHits")).isZero();
+        assertThat(getCount("cacheMisses")).isEqualTo(3);
+
+        meteredTransaction.getRows(table, oneRow, twoColumns);
+        assertThat(getCount("cacheHits")).isEqualTo(2);
+        assertThat(getCount("cacheMisses")).isEqualTo(3);
+
+        meteredTransaction.getRows(table, oneRow, ColumnSelection.all());
+        assertThat(getCount("cacheHits")).isEqualTo(2);
+        assertThat(getCount("cacheMisses")).isEqualTo(5);
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testCellsOverByteBudgetAreNotCached() {
+        final Cell cell = Cell.create(ROW_BYTES, COL_BYTES);
+        final Set<Cell> cellSet = ImmutableSet.of(cell);
+        final Map<Cell, byte[]> cellValueMap = ImmutableMap.of(cell, new byte[1024]);
+        Transaction meteredTransaction =
+                transactionWrapper.apply(new CachingTransaction(transaction, 1024, metricsManager));
+
+        // the value alone exceeds the budget, so each call has to read the cell again
+        BiFunction<Set<Cell>, Map<Cell, byte[]>, Expectations> expectation = expectationsMapping.get(name);
+        mockery.checking(expectation.apply(cellSet, cellValueMap));
+        assertThat(meteredTransaction.get(table, cellSet)).containsExactlyInAnyOrderEntriesOf(cellValueMap);
+        mockery.checking(expectation.apply(cellSet, cellValueMap));
+        assertThat(meteredTransaction.get(table, cellSet)).containsExactlyInAnyOrderEntriesOf(cellValueMap);
+
+        assertThat(getCount("cacheHits")).isZero();
+        assertThat(getCount("cacheMisses")).isEqualTo(2);
+    }
+
+    private long getCount(String metricName) {
+        Map<String, String> tableTag = metricsManager.getTableNameTagFor(table);
+        return metricsManager
+                .registerOrGetTaggedCounter(CachingTransaction.class, metricName, tableTag)
+                .getCount();
+    }
+
     private void testGetCellResults(Cell cell, Map<Cell, byte[]> cellValueMap) {
+        testGetCellResults(cachingTransaction, cell, cellValueMap);
+    }
+
+    private void testGetCellResults(Transaction txn, Cell cell, Map<Cell, byte[]> cellValueMap) {
         final Set<Cell> cellSet = ImmutableSet.of(cell);
         mockery.checking(expectationsMapping.get(name).apply(cellSet, cellValueMap));
 
-        assertThat(cachingTransaction.get(table, cellSet)).containsExactlyInAnyOrderEntriesOf(cellValueMap);
-        assertThat(cachingTransaction.get(table, cellSet)).containsExactlyInAnyOrderEntriesOf(cellValueMap);
+        assertThat(txn.get(table, cellSet)).containsExactlyInAnyOrderEntriesOf(cellValueMap);
+        assertThat(txn.get(table, cellSet)).containsExactlyInAnyOrderEntriesOf(cellValueMap);
 
         mockery.assertIsSatisfied();
     }
@@ -124,6 +124,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -156,6 +157,7 @@ import org.jmock.Expectations;
 import org.jmock.Mockery;
 import org.jmock.lib.concurrent.DeterministicScheduler;
 import org.jmock.lib.concurrent.Synchroniser;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -194,6 +196,8 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
     private final TimestampCache timestampCache = new DefaultTimestampCache(
             metricsManager.getRegistry(), () -> AtlasDbConstants.DEFAULT_TIMESTAMP_CACHE_SIZE);
     private final ExecutorService getRangesExecutor = Executors.newFixedThreadPool(8);
+    private final ExecutorService commitStageExecutor = Executors.newFixedThreadPool(2);
+    private final ExecutorService postFilterExecutor = Executors.newFixedThreadPool(2);
     private final int defaultGetRangesConcurrency = 2;
     private final TransactionOutcomeMetrics transactionOutcomeMetrics =
             TransactionOutcomeMetrics.create(metricsManager);
@@ -332,6 +336,14 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                         .persistToBytes());
     }
 
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        postFilterExecutor.shutdownNow();
+        commitStageExecutor.shutdownNow();
+        super.tearDown();
+    }
+
     @Override
     protected TestTransactionManager constructTestTransactionManager() {
         return new TestTransactionManagerImpl(
@@ -437,6 +449,8 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                         defaultGetRangesConcurrency,
                         MultiTableSweepQueueWriter.NO_OP,
                         MoreExecutors.newDirectExecutorService(),
+                        commitStageExecutor,
+                        postFilterExecutor,
                         true,
                         () -> transactionConfig,
                         ConflictTracer.NO_OP,
@@ -1256,6 +1270,75 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
         timelockService.unlock(Collections.singleton(res.getLock()));
     }
 
+    @Test
+    public void commitsWritesWithOverlappedCommitStages() {
+        setTransactionConfig(ImmutableTransactionConfig.builder().overlapCommitStages(true).build());
+        TimelockService timelockService = inMemoryTimeLockRule.getLegacyTimelockService();
+        ConjureStartTransactionsResponse conjureResponse = startTransactionWithWatches();
+        LockImmutableTimestampResponse res = conjureResponse.getImmutableTimestamp();
+        long transactionTs = conjureResponse.getTimestamps().start();
+
+        Transaction snapshot =
+                getSnapshotTransactionWith(timelockService, () -> transactionTs, res, PreCommitConditions.NO_OP);
+        snapshot.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("value")));
+        snapshot.commit();
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+
+        Transaction reader = txManager.createNewTransaction();
+        assertThat(reader.get(TABLE, ImmutableSet.of(TEST_CELL))).containsEntry(TEST_CELL, PtBytes.toBytes("value"));
+    }
+
+    @Test
+    public void overlappedCommitStagesStillDetectWriteWriteConflicts() {
+        setTransactionConfig(ImmutableTransactionConfig.builder().overlapCommitStages(true).build());
+        TimelockService timelockService = inMemoryTimeLockRule.getLegacyTimelockService();
+        ConjureStartTransactionsResponse conjureResponse = startTransactionWithWatches();
+        LockImmutableTimestampResponse res = conjureResponse.getImmutableTimestamp();
+        long transactionTs = conjureResponse.getTimestamps().start();
+
+        Transaction snapshot =
+                getSnapshotTransactionWith(timelockService, () -> transactionTs, res, PreCommitConditions.NO_OP);
+        commitWrite(TABLE, TEST_CELL);
+        snapshot.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("value")));
+
+        assertThatThrownBy(snapshot::commit).isInstanceOf(TransactionConflictException.class);
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+    }
+
+    @Test
+    public void parallelPostFilteringReturnsOnlyCommittedValues() {
+        setTransactionConfig(ImmutableTransactionConfig.builder()
+                .parallelPostFilteringThreshold(2)
+                .build());
+        List<byte[]> rows = new ArrayList<>();
+        ImmutableMap.Builder<Cell, byte[]> committed = ImmutableMap.builder();
+        for (int i = 0; i < 100; i++) {
+            byte[] row = PtBytes.toBytes("row" + i);
+            rows.add(row);
+            committed.put(Cell.create(row, PtBytes.toBytes("col")), PtBytes.toBytes("value" + i));
+        }
+        ImmutableMap<Cell, byte[]> committedValues = committed.build();
+        writeCells(TABLE, committedValues);
+        committedValues.keySet().stream().limit(50).forEach(cell -> putUncommittedAtFreshTimestamp(TABLE, cell));
+
+        TimelockService timelockService = inMemoryTimeLockRule.getLegacyTimelockService();
+        ConjureStartTransactionsResponse conjureResponse = startTransactionWithWatches();
+        LockImmutableTimestampResponse res = conjureResponse.getImmutableTimestamp();
+        long transactionTs = conjureResponse.getTimestamps().start();
+        Transaction snapshot =
+                getSnapshotTransactionWith(timelockService, () -> transactionTs, res, PreCommitConditions.NO_OP);
+
+        assertThat(AtlasFutures.getUnchecked(snapshot.getAsync(TABLE, committedValues.keySet())))
+                .containsExactlyInAnyOrderEntriesOf(committedValues);
+        assertThat(snapshot.get(TABLE, committedValues.keySet())).containsExactlyInAnyOrderEntriesOf(committedValues);
+        Map<Cell, byte[]> rowValues = new HashMap<>();
+        for (RowResult<byte[]> rowResult : snapshot.getRows(TABLE, rows, ColumnSelection.all()).values()) {
+            rowResult.getCells().forEach(entry -> rowValues.put(entry.getKey(), entry.getValue()));
+        }
+        assertThat(rowValues).containsExactlyInAnyOrderEntriesOf(committedValues);
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+    }
+
     @Test
     public void commitDoesNotThrowIfAlreadySuccessfullyCommitted() {
         final Cell cell = Cell.create(PtBytes.toBytes("row1"), PtBytes.toBytes("column1"));
@@ -2149,6 +2232,8 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                 defaultGetRangesConcurrency,
                 MultiTableSweepQueueWriter.NO_OP,
                 MoreExecutors.newDirectExecutorService(),
+                commitStageExecutor,
+                postFilterExecutor,
                 validateLocksOnReads,
                 () -> transactionConfig,
                 ConflictTracer.NO_OP,
@@ -0,0 +1,188 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.logsafe.exceptions.SafeRuntimeException;
+import com.palantir.logsafe.logger.SafeLogger;
+import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Collects responses from remote services whose requests are already asynchronous, completing as soon as the
+ * shortcut predicate is satisfied, every request has finished, or the timeout elapses. The collector does not wait
+ * on any individual request: responses are accumulated in callbacks on whichever thread completes them. Whether a
+ * request holds a thread of its own while in flight depends on how the caller issued it. Outstanding requests
+ * are cancelled as they are by the blocking collection methods, shortly after completion.
+ */
+final class AsyncPaxosQuorumCollector<SERVICE, RESPONSE extends PaxosResponse> {
+    private static final SafeLogger log = SafeLoggerFactory.get(AsyncPaxosQuorumCollector.class);
+
+    private final SettableFuture<PaxosResponsesWithRemote<SERVICE, RESPONSE>> result = SettableFuture.create();
+    private final List<ListenableFuture<RESPONSE>> requests;
+    private final boolean cancelRemainingCalls;
+
+    @GuardedBy("this")
+    private final PaxosResponseAccumulator<SERVICE, RESPONSE> receivedResponses;
+
+    @GuardedBy("this")
+    private final List<Throwable> encounteredErrors = new ArrayList<>();
+
+    @GuardedBy("this")
+    private boolean completed = false;
+
+    private AsyncPaxosQuorumCollector(
+            int totalRequests,
+            int quorumSize,
+            Predicate<InProgressResponseState<SERVICE, RESPONSE>> shouldSkipNextRequest,
+            boolean cancelRemainingCalls) {
+        this.requests = new ArrayList<>(totalRequests);
+        this.cancelRemainingCalls = cancelRemainingCalls;
+        this.receivedResponses = PaxosResponseAccumulator.newResponse(totalRequests, quorumSize, shouldSkipNextRequest);
+    }
+
+    static <SERVICE, RESPONSE extends PaxosResponse>
+            ListenableFuture<PaxosResponsesWithRemote<SERVICE, RESPONSE>> collect(
+                    ImmutableList<SERVICE> remotes,
+                    Function<SERVICE, ListenableFuture<RESPONSE>> request,
+                    int quorumSize,
+                    Duration remoteRequestTimeout,
+                    Predicate<InProgressResponseState<SERVICE, RESPONSE>> shouldSkipNextRequest,
+                    boolean cancelRemainingCalls,
+                    ScheduledExecutorService timeoutExecutor) {
+        AsyncPaxosQuorumCollector<SERVICE, RESPONSE> collector = new AsyncPaxosQuorumCollector<>(
+                remotes.size(), quorumSize, shouldSkipNextRequest, cancelRemainingCalls);
+        collector.start(remotes, request, remoteRequestTimeout, timeoutExecutor);
+        return collector.result;
+    }
+
+    private void start(
+            ImmutableList<SERVICE> remotes,
+            Function<SERVICE, ListenableFuture<RESPONSE>> request,
+            Duration remoteRequestTimeout,
+            ScheduledExecutorService timeoutExecutor) {
+        // every request is issued before any callback is registered, so completion always sees all of them to cancel
+        for (SERVICE remote : remotes) {
+            requests.add(issue(remote, request));
+        }
+
+        ScheduledFuture<?> timeout =
+                timeoutExecutor.schedule(this::complete, remoteRequestTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        result.addListener(() -> timeout.cancel(false), MoreExecutors.directExecutor());
+
+        for (int i = 0; i < remotes.size(); i++) {
+            SERVICE remote = remotes.get(i);
+            Futures.addCallback(
+                    requests.get(i),
+                    new FutureCallback<RESPONSE>() {
+                        @Override
+                        public void onSuccess(RESPONSE response) {
+                            onResponse(remote, response);
+                        }
+
+                        @Override
+                        public void onFailure(Throwable throwable) {
+                            onError(throwable);
+                        }
+                    },
+                    MoreExecutors.directExecutor());
+        }
+
+        completeIfDone();
+    }
+
+    private ListenableFuture<RESPONSE> issue(SERVICE remote, Function<SERVICE, ListenableFuture<RESPONSE>> request) {
+        try {
+            return request.apply(remote);
+        } catch (RuntimeException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    private void onResponse(SERVICE remote, RESPONSE response) {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            receivedResponses.add(remote, response);
+        }
+        completeIfDone();
+    }
+
+    private void onError(Throwable throwable) {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            receivedResponses.markFailure();
+            if (!(throwable instanceof CancellationException)) {
+                encounteredErrors.add(throwable);
+            }
+        }
+        completeIfDone();
+    }
+
+    private void completeIfDone() {
+        boolean done;
+        synchronized (this) {
+            done = !receivedResponses.hasMoreRequests() || !receivedResponses.shouldProcessNextRequest();
+        }
+        if (done) {
+            complete();
+        }
+    }
+
+    /**
+     * Completes the result with whatever responses have been received so far. The result and the cancellation of
+     * outstanding requests both run callbacks, so neither is done while holding the lock.
+     */
+    private void complete() {
+        PaxosResponsesWithRemote<SERVICE, RESPONSE> responses;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            if (!receivedResponses.hasQuorum()) {
+                RuntimeException exceptionForSuppression = new SafeRuntimeException("exception for suppresion");
+                encounteredErrors.forEach(throwable -> {
+                    throwable.addSuppressed(exceptionForSuppression);
+                    log.warn(PaxosQuorumChecker.PAXOS_MESSAGE_ERROR, throwable);
+                });
+            }
+            responses = receivedResponses.collect();
+        }
+
+        result.set(responses);
+        if (cancelRemainingCalls) {
+            PaxosQuorumChecker.cancelOutstandingRequestsAfterTimeout(requests);
+        }
+    }
+}
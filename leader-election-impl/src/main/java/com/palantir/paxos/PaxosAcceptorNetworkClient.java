@@ -36,6 +36,13 @@ public interface PaxosAcceptorNetworkClient {
      */
     PaxosResponses<PaxosPromise> prepare(long seq, PaxosProposalId proposalId);
 
+    /**
+     * Asynchronous equivalent of {@link #prepare}, which completes as soon as the outcome of the quorum is known.
+     */
+    default ListenableFuture<PaxosResponses<PaxosPromise>> prepareAsync(long seq, PaxosProposalId proposalId) {
+        return Futures.immediateFuture(prepare(seq, proposalId));
+    }
+
     /**
      * The acceptors decide whether to accept or reject a given proposal.
      *
@@ -45,6 +52,13 @@ public interface PaxosAcceptorNetworkClient {
      */
     PaxosResponses<BooleanPaxosResponse> accept(long seq, PaxosProposal proposal);
 
+    /**
+     * Asynchronous equivalent of {@link #accept}, which completes as soon as the outcome of the quorum is known.
+     */
+    default ListenableFuture<PaxosResponses<BooleanPaxosResponse>> acceptAsync(long seq, PaxosProposal proposal) {
+        return Futures.immediateFuture(accept(seq, proposal));
+    }
+
     /**
      * The acceptors return the sequence number of their most recent known round.
      *
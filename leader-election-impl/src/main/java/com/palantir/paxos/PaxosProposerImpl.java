@@ -15,6 +15,7 @@
  */
 package com.palantir.paxos;
 
+import com.palantir.atlasdb.futures.AtlasFutures;
 import java.util.Collections;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
@@ -84,7 +85,8 @@ public final class PaxosProposerImpl implements PaxosProposer {
      */
     private PaxosValue phaseOne(final long seq, final PaxosProposalId proposalId, PaxosValue proposalValue)
             throws PaxosRoundFailureException {
-        PaxosResponses<PaxosPromise> receivedPromises = acceptorClient.prepare(seq, proposalId);
+        PaxosResponses<PaxosPromise> receivedPromises =
+                AtlasFutures.getUnchecked(acceptorClient.prepareAsync(seq, proposalId));
 
         if (!receivedPromises.hasQuorum()) {
             // update proposal number on failure
@@ -116,7 +118,8 @@ public final class PaxosProposerImpl implements PaxosProposer {
             throws PaxosRoundFailureException {
         final PaxosProposal proposal = new PaxosProposal(proposalId, proposalValue);
 
-        PaxosResponses<BooleanPaxosResponse> responses = acceptorClient.accept(seq, proposal);
+        PaxosResponses<BooleanPaxosResponse> responses =
+                AtlasFutures.getUnchecked(acceptorClient.acceptAsync(seq, proposal));
         if (!responses.hasQuorum()) {
             throw new PaxosRoundFailureException("failed to acquire quorum in paxos phase two");
         }
@@ -17,6 +17,9 @@ package com.palantir.paxos;
 
 import com.codahale.metrics.Meter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import com.palantir.common.concurrent.CheckedRejectedExecutionException;
 import com.palantir.common.concurrent.CheckedRejectionExecutorService;
 import com.palantir.common.concurrent.MultiplexingCompletionService;
@@ -47,12 +50,12 @@ public final class PaxosQuorumChecker {
 
     public static final Duration DEFAULT_REMOTE_REQUESTS_TIMEOUT = Duration.ofSeconds(5);
     private static final SafeLogger log = SafeLoggerFactory.get(PaxosQuorumChecker.class);
-    private static final String PAXOS_MESSAGE_ERROR =
+    static final String PAXOS_MESSAGE_ERROR =
             "We encountered an error while trying to request an acknowledgement from another paxos node."
                     + " This could mean the node is down, or we cannot connect to it for some other reason.";
 
     // used to cancel outstanding reqeusts after we have already achieved a quorum or otherwise finished collecting
-    // responses
+    // responses, and to time out asynchronous collections
     private static final ScheduledExecutorService CANCELLATION_EXECUTOR = PTExecutors.newSingleThreadScheduledExecutor(
             new NamedThreadFactory("paxos-quorum-checker-canceller", true));
     private static final long OUTSTANDING_REQUEST_CANCELLATION_TIMEOUT_MILLIS = 2;
@@ -166,6 +169,85 @@ public final class PaxosQuorumChecker {
                 MultiplexingCompletionService.createFromCheckedExecutors(executors));
     }
 
+    /**
+     * Asynchronous equivalent of {@link #collectQuorumResponses}, for remote calls that return futures. The result
+     * completes as soon as a quorum has been obtained or can no longer be obtained, or the timeout elapses. Collection
+     * itself does not block a thread, but requests adapted with {@link #submittingTo} still occupy a thread of their
+     * remote's executor until the remote call returns.
+     *
+     * @param remotes a list endpoints to make the remote call on
+     * @param request the asynchronous request to make on each of the remote endpoints
+     * @param quorumSize number of acknowledge requests required to reach quorum
+     * @param remoteRequestTimeout timeout after which the responses received so far are returned
+     * @param cancelRemainingCalls whether or not to cancel in progress calls after we've received enough responses
+     * @return a future of the responses received
+     */
+    public static <SERVICE, RESPONSE extends PaxosResponse>
+            ListenableFuture<PaxosResponsesWithRemote<SERVICE, RESPONSE>> collectQuorumResponsesAsync(
+                    ImmutableList<SERVICE> remotes,
+                    Function<SERVICE, ListenableFuture<RESPONSE>> request,
+                    int quorumSize,
+                    Duration remoteRequestTimeout,
+                    boolean cancelRemainingCalls) {
+        return AsyncPaxosQuorumCollector.collect(
+                remotes,
+                request,
+                quorumSize,
+                remoteRequestTimeout,
+                quorumShortcutPredicate(quorumSize),
+                cancelRemainingCalls,
+                CANCELLATION_EXECUTOR);
+    }
+
+    /**
+     * Asynchronous equivalent of {@link #collectUntil}, for remote calls that return futures.
+     */
+    public static <SERVICE, RESPONSE extends PaxosResponse>
+            ListenableFuture<PaxosResponsesWithRemote<SERVICE, RESPONSE>> collectUntilAsync(
+                    ImmutableList<SERVICE> remotes,
+                    Function<SERVICE, ListenableFuture<RESPONSE>> request,
+                    Duration remoteRequestTimeout,
+                    Predicate<InProgressResponseState<SERVICE, RESPONSE>> predicate,
+                    boolean cancelRemainingCalls) {
+        return AsyncPaxosQuorumCollector.collect(
+                remotes,
+                request,
+                remotes.size(),
+                remoteRequestTimeout,
+                predicate,
+                cancelRemainingCalls,
+                CANCELLATION_EXECUTOR);
+    }
+
+    /**
+     * Adapts a blocking request so that it can be used with the asynchronous collection methods, by running it on
+     * the executor for its remote. A rejected execution is reported as a failed future, which counts as a failure
+     * towards quorum just as it does for the blocking collection methods.
+     *
+     * The adapted request uses as many threads as the blocking collection methods do: one per remote call, for the
+     * duration of that call. Only asynchronous remote clients avoid this.
+     */
+    public static <SERVICE, RESPONSE> Function<SERVICE, ListenableFuture<RESPONSE>> submittingTo(
+            Map<? extends SERVICE, CheckedRejectionExecutorService> executors, Function<SERVICE, RESPONSE> request) {
+        return remote -> {
+            ListenableFutureTask<RESPONSE> task = ListenableFutureTask.create(() -> request.apply(remote));
+            try {
+                Preconditions.checkNotNull(executors.get(remote), "Each remote should have an executor.")
+                        .execute(task);
+            } catch (CheckedRejectedExecutionException e) {
+                requestExecutionRejection.mark();
+                if (shouldLogDiagnosticInformation()) {
+                    log.info("Quorum checker executor rejected task", e);
+                    log.info(
+                            "Rate of execution rejections: {}",
+                            SafeArg.of("rate1m", requestExecutionRejection.getOneMinuteRate()));
+                }
+                return Futures.immediateFailedFuture(e);
+            }
+            return task;
+        };
+    }
+
     private static <SERVICE> Map<SERVICE, ExecutorService> mapToSingleExecutorService(
             Collection<SERVICE> remotes, ExecutorService executorService) {
         return remotes.stream().collect(Collectors.toMap(remote -> remote, unused -> executorService));
@@ -279,8 +361,7 @@ public final class PaxosQuorumChecker {
         return responseFuture == null;
     }
 
-    private static <SERVICE, RESPONSE extends PaxosResponse> void cancelOutstandingRequestsAfterTimeout(
-            List<Future<Map.Entry<SERVICE, RESPONSE>>> responseFutures) {
+    static void cancelOutstandingRequestsAfterTimeout(List<? extends Future<?>> responseFutures) {
 
         boolean areAllRequestsComplete = responseFutures.stream().allMatch(Future::isDone);
         if (areAllRequestsComplete) {
@@ -17,11 +17,16 @@
 package com.palantir.paxos;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.common.concurrent.CheckedRejectionExecutorService;
 import com.palantir.common.streams.KeyedStream;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 
 public class SingleLeaderAcceptorNetworkClient implements PaxosAcceptorNetworkClient {
 
@@ -57,37 +62,49 @@ public class SingleLeaderAcceptorNetworkClient implements PaxosAcceptorNetworkCl
 
     @Override
     public PaxosResponses<PaxosPromise> prepare(long seq, PaxosProposalId proposalId) {
-        return PaxosQuorumChecker.collectQuorumResponses(
-                        acceptors,
-                        acceptor -> acceptor.prepare(seq, proposalId),
-                        quorumSize,
-                        executors,
-                        PaxosQuorumChecker.DEFAULT_REMOTE_REQUESTS_TIMEOUT,
-                        cancelRemainingCalls)
-                .withoutRemotes();
+        return AtlasFutures.getUnchecked(prepareAsync(seq, proposalId));
+    }
+
+    @Override
+    public ListenableFuture<PaxosResponses<PaxosPromise>> prepareAsync(long seq, PaxosProposalId proposalId) {
+        return collectQuorumResponses(acceptor -> acceptor.prepare(seq, proposalId));
     }
 
     @Override
     public PaxosResponses<BooleanPaxosResponse> accept(long seq, PaxosProposal proposal) {
-        return PaxosQuorumChecker.collectQuorumResponses(
-                        acceptors,
-                        acceptor -> acceptor.accept(seq, proposal),
-                        quorumSize,
-                        executors,
-                        PaxosQuorumChecker.DEFAULT_REMOTE_REQUESTS_TIMEOUT,
-                        cancelRemainingCalls)
-                .withoutRemotes();
+        return AtlasFutures.getUnchecked(acceptAsync(seq, proposal));
+    }
+
+    @Override
+    public ListenableFuture<PaxosResponses<BooleanPaxosResponse>> acceptAsync(long seq, PaxosProposal proposal) {
+        return collectQuorumResponses(acceptor -> acceptor.accept(seq, proposal));
     }
 
     @Override
     public PaxosResponses<PaxosLong> getLatestSequencePreparedOrAccepted() {
-        return PaxosQuorumChecker.<PaxosAcceptor, PaxosLong>collectQuorumResponses(
+        return AtlasFutures.getUnchecked(getLatestSequencePreparedOrAcceptedAsync());
+    }
+
+    @Override
+    public ListenableFuture<PaxosResponses<PaxosLong>> getLatestSequencePreparedOrAcceptedAsync() {
+        return collectQuorumResponses(
+                acceptor -> ImmutablePaxosLong.of(acceptor.getLatestSequencePreparedOrAccepted()));
+    }
+
+    /**
+     * The acceptors are blocking remotes, so each request still holds a thread of its acceptor's executor while in
+     * flight, exactly as the blocking collection did; callers of the blocking methods also wait on the result.
+     */
+    private <RESPONSE extends PaxosResponse> ListenableFuture<PaxosResponses<RESPONSE>> collectQuorumResponses(
+            Function<PaxosAcceptor, RESPONSE> request) {
+        return Futures.transform(
+                PaxosQuorumChecker.collectQuorumResponsesAsync(
                         acceptors,
-                        acceptor -> ImmutablePaxosLong.of(acceptor.getLatestSequencePreparedOrAccepted()),
+                        PaxosQuorumChecker.submittingTo(executors, request),
                         quorumSize,
-                        executors,
                         PaxosQuorumChecker.DEFAULT_REMOTE_REQUESTS_TIMEOUT,
-                        cancelRemainingCalls)
-                .withoutRemotes();
+                        cancelRemainingCalls),
+                PaxosResponsesWithRemote::withoutRemotes,
+                MoreExecutors.directExecutor());
     }
 }
@@ -0,0 +1,150 @@
+/*
+ * (c) Copyright 2021 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.common.concurrent.CheckedRejectionExecutorService;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.awaitility.Awaitility;
+import org.junit.Test;
+
+public class AsyncPaxosQuorumCollectorTest {
+    private static final Duration LONG_TIMEOUT = Duration.ofMinutes(1);
+
+    private final List<SettableFuture<BooleanPaxosResponse>> responses = IntStream.range(0, 3)
+            .mapToObj(_unused -> SettableFuture.<BooleanPaxosResponse>create())
+            .collect(Collectors.toList());
+    private final ImmutableList<Integer> remotes = ImmutableList.of(0, 1, 2);
+
+    @Test
+    public void completesAsSoonAsQuorumIsReachedAndCancelsStragglers() {
+        ListenableFuture<PaxosResponsesWithRemote<Integer, BooleanPaxosResponse>> result =
+                collectQuorum(LONG_TIMEOUT, true);
+
+        responses.get(0).set(new BooleanPaxosResponse(true));
+        assertThat(result).isNotDone();
+
+        responses.get(2).set(new BooleanPaxosResponse(true));
+        assertThat(result).isDone();
+        assertThat(Futures.getUnchecked(result).hasQuorum()).isTrue();
+        assertThat(Futures.getUnchecked(result).responses()).containsOnlyKeys(0, 2);
+        awaitCancellation(responses.get(1));
+    }
+
+    @Test
+    public void doesNotCancelStragglersIfNotRequested() {
+        ListenableFuture<PaxosResponsesWithRemote<Integer, BooleanPaxosResponse>> result =
+                collectQuorum(LONG_TIMEOUT, false);
+
+        responses.get(0).set(new BooleanPaxosResponse(true));
+        responses.get(1).set(new BooleanPaxosResponse(true));
+
+        assertThat(result).isDone();
+        assertThat(responses.get(2)).isNotCancelled();
+    }
+
+    @Test
+    public void completesAsSoonAsQuorumCannotBeReached() {
+        ListenableFuture<PaxosResponsesWithRemote<Integer, BooleanPaxosResponse>> result =
+                collectQuorum(LONG_TIMEOUT, true);
+
+        responses.get(0).set(new BooleanPaxosResponse(false));
+        responses.get(1).setException(new RuntimeException("unreachable"));
+
+        assertThat(result).isDone();
+        assertThat(Futures.getUnchecked(result).hasQuorum()).isFalse();
+        assertThat(Futures.getUnchecked(result).responses()).containsOnlyKeys(0);
+    }
+
+    @Test
+    public void returnsResponsesReceivedBeforeTimeout() {
+        ListenableFuture<PaxosResponsesWithRemote<Integer, BooleanPaxosResponse>> result =
+                collectQuorum(Duration.ofMillis(100), true);
+
+        responses.get(1).set(new BooleanPaxosResponse(true));
+
+        PaxosResponsesWithRemote<Integer, BooleanPaxosResponse> collected = Futures.getUnchecked(result);
+        assertThat(collected.hasQuorum()).isFalse();
+        assertThat(collected.responses()).containsOnlyKeys(1);
+        awaitCancellation(responses.get(0));
+        awaitCancellation(responses.get(2));
+    }
+
+    @Test
+    public void collectsUntilPredicateIsSatisfied() {
+        ListenableFuture<PaxosResponsesWithRemote<Integer, BooleanPaxosResponse>> result =
+                PaxosQuorumChecker.collectUntilAsync(
+                        remotes,
+                        responses::get,
+                        LONG_TIMEOUT,
+                        state -> state.responses().containsKey(2),
+                        true);
+
+        responses.get(0).set(new BooleanPaxosResponse(true));
+        responses.get(1).set(new BooleanPaxosResponse(true));
+        assertThat(result).isNotDone();
+
+        responses.get(2).set(new BooleanPaxosResponse(false));
+        assertThat(Futures.getUnchecked(result).responses()).containsOnlyKeys(0, 1, 2);
+    }
+
+    @Test
+    public void rejectedBlockingRequestsCountAsFailures() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ExecutorService shutDownExecutor = Executors.newSingleThreadExecutor();
+        shutDownExecutor.shutdown();
+        try {
+            ImmutableMap<Integer, CheckedRejectionExecutorService> executors = ImmutableMap.of(
+                    0, new CheckedRejectionExecutorService(executor),
+                    1, new CheckedRejectionExecutorService(shutDownExecutor),
+                    2, new CheckedRejectionExecutorService(shutDownExecutor));
+
+            PaxosResponsesWithRemote<Integer, BooleanPaxosResponse> collected =
+                    Futures.getUnchecked(PaxosQuorumChecker.collectQuorumResponsesAsync(
+                            remotes,
+                            PaxosQuorumChecker.submittingTo(executors, _remote -> new BooleanPaxosResponse(true)),
+                            2,
+                            LONG_TIMEOUT,
+                            true));
+
+            assertThat(collected.hasQuorum()).isFalse();
+            assertThat(collected.responses()).doesNotContainKeys(1, 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitCancellation(ListenableFuture<?> future) {
+        Awaitility.await().atMost(Duration.ofSeconds(5)).until(future::isCancelled);
+    }
+
+    private ListenableFuture<PaxosResponsesWithRemote<Integer, BooleanPaxosResponse>> collectQuorum(
+            Duration timeout, boolean cancelRemainingCalls) {
+        return PaxosQuorumChecker.collectQuorumResponsesAsync(
+                remotes, responses::get, 2, timeout, cancelRemainingCalls);
+    }
+}
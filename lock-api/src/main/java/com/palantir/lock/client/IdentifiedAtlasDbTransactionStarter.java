@@ -22,6 +22,14 @@ import java.util.List;
 public interface IdentifiedAtlasDbTransactionStarter extends AutoCloseable {
     List<StartIdentifiedAtlasDbTransactionResponse> startIdentifiedAtlasDbTransactionBatch(int count);
 
+    /**
+     * Records that a commit timestamp has been issued to this client. Implementations that start transactions ahead
+     * of time must not subsequently return a transaction with a lower start timestamp.
+     */
+    default void onCommitTimestamp(long commitTimestamp) {
+        // Transactions are started on demand, so are always fresher than any commit timestamp already issued.
+    }
+
     @Override
     void close();
 }
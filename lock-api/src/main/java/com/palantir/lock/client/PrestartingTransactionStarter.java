@@ -0,0 +1,296 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.lock.client;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.lock.v2.StartIdentifiedAtlasDbTransactionResponse;
+import com.palantir.lock.watch.LockWatchCache;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.logger.SafeLogger;
+import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Serves transaction starts from a pool of transactions that were started on TimeLock ahead of time, so that callers
+ * usually do not wait on a round trip. Pooled transactions have already had their immutable timestamp locked and
+ * their lock watch state processed; transactions that are not handed out within the configured maximum age are
+ * released.
+ * <p>
+ * The pool size adapts to demand: it doubles (up to the configured maximum) whenever a caller finds the pool unable
+ * to satisfy its request, and halves whenever pooled transactions expire unused, so an idle client stops starting
+ * transactions it does not need. Pooled transactions with start timestamps below a commit timestamp issued to this
+ * client are never handed out, so a client always observes its own committed writes.
+ */
+final class PrestartingTransactionStarter implements IdentifiedAtlasDbTransactionStarter {
+    private static final SafeLogger log = SafeLoggerFactory.get(PrestartingTransactionStarter.class);
+
+    private final IdentifiedAtlasDbTransactionStarter delegate;
+    private final LockLeaseService lockLeaseService;
+    private final LockWatchCache cache;
+    private final int maxSize;
+    private final long maxAgeNanos;
+    private final Ticker ticker;
+    private final ExecutorService executor;
+    private final AtomicBoolean refillPending = new AtomicBoolean(false);
+    private final AtomicLong latestCommitTimestamp = new AtomicLong(Long.MIN_VALUE);
+
+    @GuardedBy("this")
+    private final Deque<PooledTransaction> pool = new ArrayDeque<>();
+
+    @GuardedBy("this")
+    private int targetSize = 0;
+
+    @GuardedBy("this")
+    private boolean closed = false;
+
+    @VisibleForTesting
+    PrestartingTransactionStarter(
+            IdentifiedAtlasDbTransactionStarter delegate,
+            LockLeaseService lockLeaseService,
+            LockWatchCache cache,
+            TransactionStarterPoolConfig config,
+            Ticker ticker,
+            ExecutorService executor) {
+        this.delegate = delegate;
+        this.lockLeaseService = lockLeaseService;
+        this.cache = cache;
+        this.maxSize = config.maxSize();
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(config.maxAgeMillis());
+        this.ticker = ticker;
+        this.executor = executor;
+    }
+
+    static PrestartingTransactionStarter create(
+            IdentifiedAtlasDbTransactionStarter delegate,
+            LockLeaseService lockLeaseService,
+            LockWatchCache cache,
+            TransactionStarterPoolConfig config) {
+        ScheduledExecutorService executor = PTExecutors.newSingleThreadScheduledExecutor(
+                new NamedThreadFactory(PrestartingTransactionStarter.class.getSimpleName(), true));
+        PrestartingTransactionStarter starter = new PrestartingTransactionStarter(
+                delegate, lockLeaseService, cache, config, Ticker.systemTicker(), executor);
+        long expiryCheckIntervalMillis = Math.max(1, config.maxAgeMillis() / 2);
+        executor.scheduleWithFixedDelay(
+                starter::expireAndRefill, expiryCheckIntervalMillis, expiryCheckIntervalMillis, TimeUnit.MILLISECONDS);
+        return starter;
+    }
+
+    @Override
+    public List<StartIdentifiedAtlasDbTransactionResponse> startIdentifiedAtlasDbTransactionBatch(int count) {
+        Preconditions.checkArgument(count > 0, "Cannot start 0 or fewer transactions");
+        List<StartIdentifiedAtlasDbTransactionResponse> responses = takeFromPool(count);
+        scheduleRefill();
+        if (responses.size() == count) {
+            return responses;
+        }
+        try {
+            responses.addAll(delegate.startIdentifiedAtlasDbTransactionBatch(count - responses.size()));
+            return responses;
+        } catch (Throwable t) {
+            release(responses);
+            throw Throwables.throwUncheckedException(t);
+        }
+    }
+
+    @Override
+    public void onCommitTimestamp(long commitTimestamp) {
+        latestCommitTimestamp.accumulateAndGet(commitTimestamp, Math::max);
+    }
+
+    @VisibleForTesting
+    synchronized int targetSize() {
+        return targetSize;
+    }
+
+    @VisibleForTesting
+    synchronized int size() {
+        return pool.size();
+    }
+
+    @VisibleForTesting
+    void expireAndRefill() {
+        List<StartIdentifiedAtlasDbTransactionResponse> discarded = new ArrayList<>();
+        synchronized (this) {
+            if (removeUnusable(discarded)) {
+                targetSize = targetSize / 2;
+            }
+        }
+        release(discarded);
+        scheduleRefill();
+    }
+
+    private List<StartIdentifiedAtlasDbTransactionResponse> takeFromPool(int count) {
+        List<StartIdentifiedAtlasDbTransactionResponse> taken = new ArrayList<>(count);
+        List<StartIdentifiedAtlasDbTransactionResponse> discarded = new ArrayList<>();
+        synchronized (this) {
+            removeUnusable(discarded);
+            while (taken.size() < count && !pool.isEmpty()) {
+                taken.add(pool.pollFirst().response());
+            }
+            if (taken.size() < count) {
+                targetSize = Math.min(maxSize, Math.max(count, 2 * targetSize));
+            }
+        }
+        releaseAsync(discarded);
+        return taken;
+    }
+
+    /**
+     * Moves pooled transactions that have outlived the maximum age, or that started before a commit timestamp issued
+     * to this client, into {@code discarded}. Returns whether any transaction expired by age.
+     */
+    @GuardedBy("this")
+    private boolean removeUnusable(List<StartIdentifiedAtlasDbTransactionResponse> discarded) {
+        long now = ticker.read();
+        boolean expired = false;
+        while (!pool.isEmpty() && now - pool.peekFirst().startedNanos() > maxAgeNanos) {
+            discarded.add(pool.pollFirst().response());
+            expired = true;
+        }
+        long commitTimestamp = latestCommitTimestamp.get();
+        pool.removeIf(pooled -> {
+            if (pooled.startTimestamp() < commitTimestamp) {
+                discarded.add(pooled.response());
+                return true;
+            }
+            return false;
+        });
+        return expired;
+    }
+
+    private void scheduleRefill() {
+        if (!refillPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::refill);
+        } catch (RejectedExecutionException e) {
+            refillPending.set(false);
+        }
+    }
+
+    private void refill() {
+        try {
+            int needed;
+            synchronized (this) {
+                needed = closed ? 0 : targetSize - pool.size();
+            }
+            if (needed <= 0) {
+                return;
+            }
+            long startedNanos = ticker.read();
+            List<StartIdentifiedAtlasDbTransactionResponse> started =
+                    delegate.startIdentifiedAtlasDbTransactionBatch(needed);
+            if (!addToPool(started, startedNanos)) {
+                release(started);
+            }
+        } catch (RuntimeException e) {
+            log.info("Failed to pre-start transactions; callers will start them on demand", e);
+        } finally {
+            refillPending.set(false);
+        }
+    }
+
+    private synchronized boolean addToPool(
+            List<StartIdentifiedAtlasDbTransactionResponse> responses, long startedNanos) {
+        if (closed) {
+            return false;
+        }
+        responses.forEach(response -> pool.addLast(new PooledTransaction(response, startedNanos)));
+        return true;
+    }
+
+    private void releaseAsync(List<StartIdentifiedAtlasDbTransactionResponse> responses) {
+        if (responses.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> release(responses));
+        } catch (RejectedExecutionException e) {
+            release(responses);
+        }
+    }
+
+    private void release(List<StartIdentifiedAtlasDbTransactionResponse> responses) {
+        if (responses.isEmpty()) {
+            return;
+        }
+        try {
+            TransactionStarterHelper.cleanUpCaches(cache, responses);
+            TransactionStarterHelper.unlock(
+                    responses.stream()
+                            .map(response -> response.immutableTimestamp().getLock())
+                            .collect(Collectors.toSet()),
+                    lockLeaseService);
+        } catch (RuntimeException e) {
+            log.info(
+                    "Failed to release pre-started transactions; their locks will expire",
+                    SafeArg.of("numTransactions", responses.size()),
+                    e);
+        }
+    }
+
+    @Override
+    public void close() {
+        List<StartIdentifiedAtlasDbTransactionResponse> remaining;
+        synchronized (this) {
+            closed = true;
+            remaining = pool.stream().map(PooledTransaction::response).collect(Collectors.toList());
+            pool.clear();
+        }
+        executor.shutdownNow();
+        release(remaining);
+        delegate.close();
+    }
+
+    private static final class PooledTransaction {
+        private final StartIdentifiedAtlasDbTransactionResponse response;
+        private final long startedNanos;
+
+        private PooledTransaction(StartIdentifiedAtlasDbTransactionResponse response, long startedNanos) {
+            this.response = response;
+            this.startedNanos = startedNanos;
+        }
+
+        StartIdentifiedAtlasDbTransactionResponse response() {
+            return response;
+        }
+
+        long startedNanos() {
+            return startedNanos;
+        }
+
+        long startTimestamp() {
+            return response.startTimestampAndPartition().timestamp();
+        }
+    }
+}
@@ -99,7 +99,9 @@ public final class RemoteTimelockServiceAdapter implements TimelockService, Auto
 
     @Override
     public long getCommitTimestamp(long startTs, LockToken commitLocksToken) {
-        return commitTimestampGetter.getCommitTimestamp(startTs, commitLocksToken);
+        long commitTimestamp = commitTimestampGetter.getCommitTimestamp(startTs, commitLocksToken);
+        transactionStarter.onCommitTimestamp(commitTimestamp);
+        return commitTimestamp;
     }
 
     @Override
@@ -26,24 +26,46 @@ public final class RequestBatchersFactory {
     private final LockWatchCache cache;
     private final Namespace namespace;
     private final Optional<MultiClientRequestBatchers> maybeRequestBatchers;
+    private final Optional<TransactionStarterPoolConfig> transactionStarterPoolConfig;
 
     private RequestBatchersFactory(
-            LockWatchCache cache, Namespace namespace, Optional<MultiClientRequestBatchers> maybeRequestBatchers) {
+            LockWatchCache cache,
+            Namespace namespace,
+            Optional<MultiClientRequestBatchers> maybeRequestBatchers,
+            Optional<TransactionStarterPoolConfig> transactionStarterPoolConfig) {
         this.cache = cache;
         this.namespace = namespace;
         this.maybeRequestBatchers = maybeRequestBatchers;
+        this.transactionStarterPoolConfig = transactionStarterPoolConfig;
     }
 
     public static RequestBatchersFactory create(
             LockWatchCache cache, Namespace namespace, Optional<MultiClientRequestBatchers> maybeRequestBatchers) {
-        return new RequestBatchersFactory(cache, namespace, maybeRequestBatchers);
+        return create(cache, namespace, maybeRequestBatchers, Optional.empty());
+    }
+
+    public static RequestBatchersFactory create(
+            LockWatchCache cache,
+            Namespace namespace,
+            Optional<MultiClientRequestBatchers> maybeRequestBatchers,
+            Optional<TransactionStarterPoolConfig> transactionStarterPoolConfig) {
+        return new RequestBatchersFactory(cache, namespace, maybeRequestBatchers, transactionStarterPoolConfig);
     }
 
     public static RequestBatchersFactory createForTests() {
-        return new RequestBatchersFactory(LockWatchCacheImpl.noOp(), Namespace.of("test-client"), Optional.empty());
+        return new RequestBatchersFactory(
+                LockWatchCacheImpl.noOp(), Namespace.of("test-client"), Optional.empty(), Optional.empty());
     }
 
     public IdentifiedAtlasDbTransactionStarter createBatchingTransactionStarter(LockLeaseService lockLeaseService) {
+        IdentifiedAtlasDbTransactionStarter transactionStarter = createTransactionStarter(lockLeaseService);
+        return transactionStarterPoolConfig
+                .<IdentifiedAtlasDbTransactionStarter>map(config ->
+                        PrestartingTransactionStarter.create(transactionStarter, lockLeaseService, cache, config))
+                .orElse(transactionStarter);
+    }
+
+    private IdentifiedAtlasDbTransactionStarter createTransactionStarter(LockLeaseService lockLeaseService) {
         Optional<ReferenceTrackingWrapper<MultiClientTransactionStarter>> transactionStarter =
                 maybeRequestBatchers.map(MultiClientRequestBatchers::transactionStarter);
         if (!transactionStarter.isPresent()) {
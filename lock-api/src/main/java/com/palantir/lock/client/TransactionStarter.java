@@ -51,6 +51,10 @@ public final class TransactionStarter implements AutoCloseable {
         return batchingTransactionStarter.startIdentifiedAtlasDbTransactionBatch(count);
     }
 
+    void onCommitTimestamp(long commitTimestamp) {
+        batchingTransactionStarter.onCommitTimestamp(commitTimestamp);
+    }
+
     Set<LockToken> refreshLockLeases(Set<LockToken> tokens) {
         Set<LockTokenShare> lockTokenShares = TransactionStarterHelper.filterLockTokenShares(tokens);
         Set<LockToken> lockTokens = TransactionStarterHelper.filterOutTokenShares(tokens);
@@ -0,0 +1,70 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.lock.client;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import org.immutables.value.Value;
+
+/**
+ * Configuration for {@link PrestartingTransactionStarter}, which keeps a buffer of transactions that have already been
+ * started on TimeLock so that callers do not pay for a round trip when starting a transaction.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableTransactionStarterPoolConfig.class)
+@JsonDeserialize(as = ImmutableTransactionStarterPoolConfig.class)
+public interface TransactionStarterPoolConfig {
+    /**
+     * Pooled transactions hold an immutable timestamp lock whose lease is not refreshed until the transaction is
+     * handed out, so they must be discarded well before the client lease expires.
+     */
+    long MAX_AGE_LIMIT_MILLIS = 2_000;
+
+    /**
+     * The largest number of pre-started transactions to hold. The pool grows towards this size while callers find it
+     * empty, and shrinks again when pooled transactions expire unused.
+     */
+    @Value.Default
+    default int maxSize() {
+        return 16;
+    }
+
+    /**
+     * How long a pre-started transaction may be held before it is discarded. A transaction handed out from the pool
+     * may have a start timestamp up to this old, and so may not observe writes committed by other clients during
+     * that window; writes committed through this client are always visible.
+     */
+    @Value.Default
+    default long maxAgeMillis() {
+        return 500;
+    }
+
+    @Value.Check
+    default void check() {
+        Preconditions.checkArgument(maxSize() > 0, "maxSize must be positive", SafeArg.of("maxSize", maxSize()));
+        Preconditions.checkArgument(
+                maxAgeMillis() > 0 && maxAgeMillis() <= MAX_AGE_LIMIT_MILLIS,
+                "maxAgeMillis must be positive and no larger than the limit",
+                SafeArg.of("maxAgeMillis", maxAgeMillis()),
+                SafeArg.of("limit", MAX_AGE_LIMIT_MILLIS));
+    }
+
+    static ImmutableTransactionStarterPoolConfig.Builder builder() {
+        return ImmutableTransactionStarterPoolConfig.builder();
+    }
+}
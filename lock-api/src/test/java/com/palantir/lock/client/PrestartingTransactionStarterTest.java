@@ -0,0 +1,150 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.lock.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.lock.v2.LockImmutableTimestampResponse;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.v2.StartIdentifiedAtlasDbTransactionResponse;
+import com.palantir.lock.v2.TimestampAndPartition;
+import com.palantir.lock.watch.LockWatchCacheImpl;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.After;
+import org.junit.Test;
+
+public class PrestartingTransactionStarterTest {
+    private static final TransactionStarterPoolConfig CONFIG = TransactionStarterPoolConfig.builder()
+            .maxSize(4)
+            .maxAgeMillis(100)
+            .build();
+
+    private final FakeTransactionStarter delegate = new FakeTransactionStarter();
+    private final LockLeaseService lockLeaseService = mock(LockLeaseService.class);
+    private final AtomicLong nanos = new AtomicLong();
+    private final PrestartingTransactionStarter starter = new PrestartingTransactionStarter(
+            delegate,
+            lockLeaseService,
+            LockWatchCacheImpl.noOp(),
+            CONFIG,
+            new Ticker() {
+                @Override
+                public long read() {
+                    return nanos.get();
+                }
+            },
+            MoreExecutors.newDirectExecutorService());
+
+    @After
+    public void after() {
+        starter.close();
+    }
+
+    @Test
+    public void startsOnDemandWhenPoolIsEmptyAndThenRefills() {
+        assertThat(startTimestamps(starter.startIdentifiedAtlasDbTransactionBatch(1)))
+                .containsExactly(2L);
+        assertThat(starter.size()).isEqualTo(1);
+
+        assertThat(startTimestamps(starter.startIdentifiedAtlasDbTransactionBatch(1)))
+                .containsExactly(1L);
+        assertThat(delegate.requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void poolGrowsOnMissesUpToMaxSize() {
+        starter.startIdentifiedAtlasDbTransactionBatch(3);
+        assertThat(starter.targetSize()).isEqualTo(3);
+
+        starter.startIdentifiedAtlasDbTransactionBatch(4);
+        assertThat(starter.targetSize()).isEqualTo(CONFIG.maxSize());
+        assertThat(starter.size()).isEqualTo(CONFIG.maxSize());
+    }
+
+    @Test
+    public void expiredTransactionsAreReleasedAndPoolShrinks() {
+        starter.startIdentifiedAtlasDbTransactionBatch(2);
+        assertThat(starter.size()).isEqualTo(2);
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(CONFIG.maxAgeMillis() + 1));
+        starter.expireAndRefill();
+
+        verify(lockLeaseService).unlock(anySet());
+        assertThat(starter.targetSize()).isEqualTo(1);
+        assertThat(starter.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void doesNotHandOutTransactionsStartedBeforeIssuedCommitTimestamp() {
+        starter.startIdentifiedAtlasDbTransactionBatch(1);
+        assertThat(starter.size()).isEqualTo(1);
+
+        starter.onCommitTimestamp(delegate.timestamps.get() + 1);
+
+        assertThat(startTimestamps(starter.startIdentifiedAtlasDbTransactionBatch(1)))
+                .allSatisfy(timestamp -> assertThat(timestamp).isGreaterThan(2L));
+        verify(lockLeaseService).unlock(anySet());
+    }
+
+    @Test
+    public void releasesPooledTransactionsOnClose() {
+        starter.startIdentifiedAtlasDbTransactionBatch(1);
+        starter.close();
+
+        verify(lockLeaseService).unlock(anySet());
+        assertThat(delegate.closed).isTrue();
+    }
+
+    private static List<Long> startTimestamps(List<StartIdentifiedAtlasDbTransactionResponse> responses) {
+        return responses.stream()
+                .map(response -> response.startTimestampAndPartition().timestamp())
+                .collect(Collectors.toList());
+    }
+
+    private static final class FakeTransactionStarter implements IdentifiedAtlasDbTransactionStarter {
+        private final AtomicLong timestamps = new AtomicLong();
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile boolean closed = false;
+
+        @Override
+        public List<StartIdentifiedAtlasDbTransactionResponse> startIdentifiedAtlasDbTransactionBatch(int count) {
+            requests.incrementAndGet();
+            LockImmutableTimestampResponse immutableTimestamp =
+                    LockImmutableTimestampResponse.of(0L, LockToken.of(UUID.randomUUID()));
+            return LongStream.range(0, count)
+                    .map(_ignored -> timestamps.incrementAndGet())
+                    .mapToObj(timestamp -> StartIdentifiedAtlasDbTransactionResponse.of(
+                            immutableTimestamp, TimestampAndPartition.of(timestamp, 0)))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -35,4 +35,24 @@ public interface ClientAwareReadWriteLock {
 
     /** Returns {@code true} iff the lock is in a frozen state. */
     boolean isFrozen();
+
+    /**
+     * Queues a one-shot listener to be run, on the releasing thread, when any holder releases this lock or a thread
+     * queued for it gives up waiting. Each such event runs only the listener at the head of the queue, which must call
+     * {@link #notifyNextReleaseListener()} unless it queues itself on this lock again. Listeners must be cheap and must
+     * not block.
+     */
+    void addReleaseListener(Runnable listener);
+
+    /**
+     * Queues a listener at the head of the queue, for a woken listener that is still waiting for this lock and should
+     * keep its place ahead of those queued after it.
+     */
+    void addReleaseListenerFirst(Runnable listener);
+
+    /** Removes a listener registered with {@link #addReleaseListener(Runnable)} that has not yet been run. */
+    void removeReleaseListener(Runnable listener);
+
+    /** Removes and runs the listener at the head of the queue, if any. */
+    void notifyNextReleaseListener();
 }
@@ -63,6 +63,26 @@ public class LockServerLock implements ClientAwareReadWriteLock {
         return sync.isFrozen();
     }
 
+    @Override
+    public void addReleaseListener(Runnable listener) {
+        sync.addReleaseListener(listener);
+    }
+
+    @Override
+    public void addReleaseListenerFirst(Runnable listener) {
+        sync.addReleaseListenerFirst(listener);
+    }
+
+    @Override
+    public void removeReleaseListener(Runnable listener) {
+        sync.removeReleaseListener(listener);
+    }
+
+    @Override
+    public void notifyNextReleaseListener() {
+        sync.notifyNextReleaseListener();
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass().getSimpleName())
@@ -104,7 +124,12 @@ public class LockServerLock implements ClientAwareReadWriteLock {
 
         @Override
         public void lockInterruptibly() throws InterruptedException {
-            sync.acquireSharedInterruptibly(clientIndex);
+            try {
+                sync.acquireSharedInterruptibly(clientIndex);
+            } catch (InterruptedException e) {
+                sync.notifyNextReleaseListener();
+                throw e;
+            }
         }
 
         @SuppressWarnings("ThreadPriorityCheck") // not changing legacy code
@@ -130,10 +155,18 @@ public class LockServerLock implements ClientAwareReadWriteLock {
         @Override
         public LockClient tryLock(long time, TimeUnit unit) throws InterruptedException {
             LockClient client = tryLock();
-            if (client != null && sync.tryAcquireSharedNanos(clientIndex, unit.toNanos(time))) {
+            if (client == null) {
                 return null;
             }
-            return client;
+            boolean acquired = false;
+            try {
+                acquired = sync.tryAcquireSharedNanos(clientIndex, unit.toNanos(time));
+            } finally {
+                if (!acquired) {
+                    sync.notifyNextReleaseListener();
+                }
+            }
+            return acquired ? null : client;
         }
 
         @Override
@@ -144,6 +177,7 @@ public class LockServerLock implements ClientAwareReadWriteLock {
         @Override
         public void unlock() {
             sync.releaseShared(clientIndex);
+            sync.notifyNextReleaseListener();
         }
 
         @Override
@@ -187,7 +221,12 @@ public class LockServerLock implements ClientAwareReadWriteLock {
 
         @Override
         public void lockInterruptibly() throws InterruptedException {
-            sync.acquireInterruptibly(clientIndex);
+            try {
+                sync.acquireInterruptibly(clientIndex);
+            } catch (InterruptedException e) {
+                sync.notifyNextReleaseListener();
+                throw e;
+            }
         }
 
         @SuppressWarnings("ThreadPriorityCheck") // not changing legacy code
@@ -213,10 +252,18 @@ public class LockServerLock implements ClientAwareReadWriteLock {
         @Override
         public LockClient tryLock(long time, TimeUnit unit) throws InterruptedException {
             LockClient client = tryLock();
-            if (client != null && sync.tryAcquireNanos(clientIndex, unit.toNanos(time))) {
+            if (client == null) {
                 return null;
             }
-            return client;
+            boolean acquired = false;
+            try {
+                acquired = sync.tryAcquireNanos(clientIndex, unit.toNanos(time));
+            } finally {
+                if (!acquired) {
+                    sync.notifyNextReleaseListener();
+                }
+            }
+            return acquired ? null : client;
         }
 
         @Override
@@ -227,11 +274,13 @@ public class LockServerLock implements ClientAwareReadWriteLock {
         @Override
         public void unlock() {
             sync.release(clientIndex);
+            sync.notifyNextReleaseListener();
         }
 
         @Override
         public void unlockAndFreeze() {
             sync.unlockAndFreeze(clientIndex);
+            sync.notifyNextReleaseListener();
         }
 
         @Override
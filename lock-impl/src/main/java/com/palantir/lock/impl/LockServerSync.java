@@ -20,8 +20,10 @@ import com.palantir.lock.LockClient;
 import com.palantir.logsafe.Preconditions;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
@@ -36,6 +38,7 @@ class LockServerSync extends AbstractQueuedSynchronizer {
     private @GuardedBy("this") boolean frozen;
     private @GuardedBy("this") int writeLockHolder = 0;
     private @GuardedBy("this") MutableIntIntMap readLockHolders;
+    private final transient Deque<Runnable> releaseListeners = new ConcurrentLinkedDeque<>();
 
     public LockServerSync(LockClientIndices clients) {
         this.clients = Preconditions.checkNotNull(clients);
@@ -132,6 +135,31 @@ class LockServerSync extends AbstractQueuedSynchronizer {
         }
     }
 
+    void addReleaseListener(Runnable listener) {
+        releaseListeners.addLast(listener);
+    }
+
+    void addReleaseListenerFirst(Runnable listener) {
+        releaseListeners.addFirst(listener);
+    }
+
+    void removeReleaseListener(Runnable listener) {
+        releaseListeners.removeFirstOccurrence(listener);
+    }
+
+    /**
+     * Removes and runs the release listener at the head of the queue, if any. Called (outside of the monitor) whenever
+     * a holder releases this lock, and whenever a queued waiter times out or is interrupted, since requests that do not
+     * barge may have been held back only by that waiter. Only one listener is woken so that waiters do not all race
+     * for the lock; the woken listener must wake the next one if it does not end up queued on this lock again.
+     */
+    void notifyNextReleaseListener() {
+        Runnable listener = releaseListeners.pollFirst();
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
     synchronized void changeOwnerShared(int oldClient, LockClient newClient) {
         int newIndex = clients.toIndex(newClient);
         if (oldClient == newIndex) {
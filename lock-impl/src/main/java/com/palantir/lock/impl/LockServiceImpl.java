@@ -15,6 +15,7 @@
  */
 package com.palantir.lock.impl;
 
+import static com.palantir.lock.BlockingMode.BLOCK_INDEFINITELY;
 import static com.palantir.lock.BlockingMode.BLOCK_UNTIL_TIMEOUT;
 import static com.palantir.lock.BlockingMode.DO_NOT_BLOCK;
 import static com.palantir.lock.LockClient.INTERNAL_LOCK_GRANT_CLIENT;
@@ -38,7 +39,12 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.TreeMultiset;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
 import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.random.SecureRandomPool;
 import com.palantir.common.remoting.ServiceNotAvailableException;
@@ -101,6 +107,9 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -120,6 +129,7 @@ import org.slf4j.helpers.MessageFormatter;
 @ThreadSafe
 public final class LockServiceImpl
         implements LockService,
+                NonBlockingLockService,
                 CloseableRemoteLockService,
                 CloseableLockService,
                 RemoteLockService,
@@ -143,6 +153,14 @@ public final class LockServiceImpl
     @VisibleForTesting
     static final long DEBUG_SLOW_LOG_TRIGGER_MILLIS = 100;
 
+    /**
+     * Fires the deadlines of asynchronous {@link BlockingMode#BLOCK_UNTIL_TIMEOUT} requests. The final attempt of
+     * each request is handed off to the lock server's executor, so this thread only ever dispatches.
+     */
+    private static final ScheduledExecutorService asyncLockTimeoutExecutor =
+            PTExecutors.newSingleThreadScheduledExecutor(
+                    new NamedThreadFactory("LockServiceImpl-async-timeouts", true));
+
     @Immutable
     public static class HeldLocks<T extends ExpiringToken> {
         final T realToken;
@@ -177,6 +195,7 @@ public final class LockServiceImpl
     private final SecureRandomPool randomPool = new SecureRandomPool(SECURE_RANDOM_ALGORITHM, SECURE_RANDOM_POOL_SIZE);
 
     private final LockReapRunner lockReapRunner;
+    private final ExecutorService executor;
     private final Runnable callOnClose;
     private final boolean isStandaloneServer;
     private final long slowLogTriggerMillis;
@@ -222,6 +241,9 @@ public final class LockServiceImpl
 
     private final Set<Thread> blockingThreads = ConcurrentHashMap.newKeySet();
 
+    /** Asynchronous lock requests which are waiting for locks to be released; they hold no threads. */
+    private final Set<AsyncLockRequest> waitingAsyncRequests = ConcurrentHashMap.newKeySet();
+
     private final Multimap<LockClient, Long> versionIdMap = Multimaps.synchronizedMultimap(
             Multimaps.newMultimap(new HashMap<LockClient, Collection<Long>>(), TreeMultiset::create));
 
@@ -259,6 +281,7 @@ public final class LockServiceImpl
 
     private LockServiceImpl(LockServerOptions options, Runnable callOnClose, Ownable<ExecutorService> executor) {
         this.lockReapRunner = new LockReapRunner(executor);
+        this.executor = executor.resource();
         this.callOnClose = callOnClose;
         this.isStandaloneServer = options.isStandaloneServer();
         this.maxAllowedLockTimeout = SimpleTimeDuration.of(options.getMaxAllowedLockTimeout());
@@ -340,10 +363,47 @@ public final class LockServiceImpl
         return result.getToken();
     }
 
-    @SuppressWarnings("Finally") // If we couldn't unlock locks, intentionally panic; don't return the user's response.
     @Override
-    // We're concerned about sanitizing logs at the info level and above. This method just logs at debug and info.
     public LockResponse lockWithFullLockResponse(LockClient client, LockRequest request) throws InterruptedException {
+        checkLockRequest(client, request);
+        try {
+            if (isBlocking(request.getBlockingMode())) {
+                blockingThreads.add(Thread.currentThread());
+            }
+            outstandingLockRequestMultimap.put(client, request);
+            return lockWithFullLockResponse(client, request, request.getBlockingMode());
+        } finally {
+            outstandingLockRequestMultimap.remove(client, request);
+            blockingThreads.remove(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Serves {@link BlockingMode#BLOCK_INDEFINITELY} and {@link BlockingMode#BLOCK_UNTIL_TIMEOUT} requests for
+     * {@link LockGroupBehavior#LOCK_ALL_OR_NONE} without holding a thread while they wait: the request is retried
+     * without blocking whenever one of the locks it failed to acquire is released, or a waiter queued ahead of it gives
+     * up. Other requests are served by the blocking implementation on the calling thread, as they would be by
+     * {@link #lockWithFullLockResponse(LockClient, LockRequest)}, so that they occupy no more threads than callers.
+     */
+    @Override
+    public ListenableFuture<LockResponse> lockWithFullLockResponseAsync(LockClient client, LockRequest request) {
+        checkLockRequest(client, request);
+        BlockingMode blockingMode = request.getBlockingMode();
+        if (request.getLockGroupBehavior() != LOCK_ALL_OR_NONE
+                || (blockingMode != BLOCK_INDEFINITELY && blockingMode != BLOCK_UNTIL_TIMEOUT)) {
+            try {
+                return Futures.immediateFuture(lockWithFullLockResponse(client, request));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Futures.immediateFailedFuture(e);
+            }
+        }
+        AsyncLockRequest asyncRequest = new AsyncLockRequest(client, request);
+        asyncRequest.start();
+        return asyncRequest.result;
+    }
+
+    private void checkLockRequest(LockClient client, LockRequest request) {
         com.palantir.logsafe.Preconditions.checkNotNull(client);
         com.palantir.logsafe.Preconditions.checkArgument(!INTERNAL_LOCK_GRANT_CLIENT.equals(client));
         Preconditions.checkArgument(
@@ -351,7 +411,15 @@ public final class LockServiceImpl
                 "Requested lock timeout (%s) is greater than maximum allowed lock timeout (%s)",
                 request.getLockTimeout(),
                 maxAllowedLockTimeout);
+        if (isShutDown.get()) {
+            throw new ServiceNotAvailableException("This lock server is shut down.");
+        }
+    }
 
+    @SuppressWarnings("Finally") // If we couldn't unlock locks, intentionally panic; don't return the user's response.
+    // We're concerned about sanitizing logs at the info level and above. This method just logs at debug and info.
+    private LockResponse lockWithFullLockResponse(LockClient client, LockRequest request, BlockingMode blockingMode)
+            throws InterruptedException {
         long startTime = System.currentTimeMillis();
         if (requestLogger.isDebugEnabled()) {
             requestLogger.debug(
@@ -360,35 +428,20 @@ public final class LockServiceImpl
                     SafeArg.of("requestingThread", request.getCreatingThreadName()));
         }
         Map<ClientAwareReadWriteLock, LockMode> locks = new LinkedHashMap<>();
-        if (isShutDown.get()) {
-            throw new ServiceNotAvailableException("This lock server is shut down.");
-        }
         try {
-            boolean isBlocking = isBlocking(request.getBlockingMode());
-            if (isBlocking) {
-                blockingThreads.add(Thread.currentThread());
-            }
-            outstandingLockRequestMultimap.put(client, request);
             Map<LockDescriptor, LockClient> failedLocks = new HashMap<>();
             @Nullable
             Long deadline = (request.getBlockingDuration() == null)
                     ? null
                     : System.nanoTime() + request.getBlockingDuration().toNanos();
-            if (request.getBlockingMode() == BLOCK_UNTIL_TIMEOUT) {
+            if (blockingMode == BLOCK_UNTIL_TIMEOUT) {
                 if (request.getLockGroupBehavior() == LOCK_AS_MANY_AS_POSSIBLE) {
                     tryLocks(client, request, DO_NOT_BLOCK, null, LOCK_AS_MANY_AS_POSSIBLE, locks, failedLocks);
                 }
             }
-            tryLocks(
-                    client,
-                    request,
-                    request.getBlockingMode(),
-                    deadline,
-                    request.getLockGroupBehavior(),
-                    locks,
-                    failedLocks);
-
-            if (request.getBlockingMode() == BlockingMode.BLOCK_INDEFINITELY_THEN_RELEASE) {
+            tryLocks(client, request, blockingMode, deadline, request.getLockGroupBehavior(), locks, failedLocks);
+
+            if (blockingMode == BlockingMode.BLOCK_INDEFINITELY_THEN_RELEASE) {
                 if (log.isTraceEnabled()) {
                     logNullResponse(client, request, null);
                 }
@@ -451,8 +504,6 @@ public final class LockServiceImpl
             }
             return new LockResponse(token, failedLocks);
         } finally {
-            outstandingLockRequestMultimap.remove(client, request);
-            blockingThreads.remove(Thread.currentThread());
             try {
                 for (Map.Entry<ClientAwareReadWriteLock, LockMode> entry : locks.entrySet()) {
                     entry.getKey().get(client, entry.getValue()).unlock();
@@ -1255,6 +1306,8 @@ public final class LockServiceImpl
         if (isShutDown.compareAndSet(false, true)) {
             lockReapRunner.close();
             blockingThreads.forEach(Thread::interrupt);
+            waitingAsyncRequests.forEach(asyncRequest -> asyncRequest.result.setException(
+                    new ServiceNotAvailableException("This lock server is shut down.")));
             callOnClose.run();
         }
     }
@@ -1284,6 +1337,128 @@ public final class LockServiceImpl
         return from.getTokenId().toString(Character.MAX_RADIX);
     }
 
+    /**
+     * A {@link LockGroupBehavior#LOCK_ALL_OR_NONE} request that waits for its locks without holding a thread. Each
+     * attempt tries to take every lock without blocking; on failure, one-shot release listeners are queued on the
+     * locks that could not be acquired, and the attempt is repeated until it fails only on locks that are already being
+     * listened to, so that a release between the attempt and the registration cannot be missed.
+     * <p>
+     * A release wakes only the request at the head of the lock's queue. If the woken request fails on that lock again
+     * it goes back to the head of the queue; otherwise (it took its locks, failed only on other locks, or is no longer
+     * waiting) it wakes the next request, so that shared holders chain and no release is lost.
+     */
+    private final class AsyncLockRequest {
+        private final LockClient client;
+        private final LockRequest request;
+        private final SettableFuture<LockResponse> result = SettableFuture.create();
+        private final Map<ClientAwareReadWriteLock, Runnable> releaseListeners = new ConcurrentHashMap<>();
+
+        @Nullable
+        private volatile ScheduledFuture<?> timeout;
+
+        private AsyncLockRequest(LockClient client, LockRequest request) {
+            this.client = client;
+            this.request = request;
+        }
+
+        private void start() {
+            waitingAsyncRequests.add(this);
+            outstandingLockRequestMultimap.put(client, request);
+            result.addListener(this::cleanUp, MoreExecutors.directExecutor());
+            if (request.getBlockingMode() == BLOCK_UNTIL_TIMEOUT) {
+                timeout = asyncLockTimeoutExecutor.schedule(
+                        () -> retry(true, null), request.getBlockingDuration().toNanos(), TimeUnit.NANOSECONDS);
+            }
+            attempt(false, null);
+        }
+
+        /**
+         * Tries to take the locks, completing the request on success or on the final attempt. {@code wokenBy} is the
+         * lock whose release triggered this attempt, if any.
+         */
+        private synchronized void attempt(boolean isFinalAttempt, @Nullable ClientAwareReadWriteLock wokenBy) {
+            try {
+                while (!result.isDone()) {
+                    LockResponse response = lockWithFullLockResponse(client, request, DO_NOT_BLOCK);
+                    if (response.success() || isFinalAttempt) {
+                        complete(response);
+                        return;
+                    }
+                    if (!listenForReleases(response.getLockHolders().keySet(), wokenBy)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.setException(e);
+            } catch (Throwable t) {
+                result.setException(t);
+            } finally {
+                if (wokenBy != null && !releaseListeners.containsKey(wokenBy)) {
+                    wokenBy.notifyNextReleaseListener();
+                }
+            }
+        }
+
+        private void complete(LockResponse response) {
+            if (!result.set(response) && response.getToken() != null) {
+                // The request was cancelled or the server shut down while we were acquiring the locks.
+                unlock(response.getToken());
+            }
+        }
+
+        /**
+         * Registers release listeners on the given failed locks, at the head of the queue for the lock that woke this
+         * attempt. Returns whether the request should be retried immediately, which is the case if any lock was not
+         * already being listened to.
+         */
+        private boolean listenForReleases(Set<LockDescriptor> failedLocks, @Nullable ClientAwareReadWriteLock wokenBy) {
+            boolean shouldRetry = false;
+            for (LockDescriptor descriptor : failedLocks) {
+                @Nullable ClientAwareReadWriteLock lock = descriptorToLockMap.getIfPresent(descriptor);
+                if (lock == null) {
+                    // Nobody holds a reference to the lock any more, so it is free.
+                    shouldRetry = true;
+                } else if (!releaseListeners.containsKey(lock)) {
+                    Runnable listener = () -> onRelease(lock);
+                    releaseListeners.put(lock, listener);
+                    if (lock.equals(wokenBy)) {
+                        lock.addReleaseListenerFirst(listener);
+                    } else {
+                        lock.addReleaseListener(listener);
+                    }
+                    shouldRetry = true;
+                }
+            }
+            return shouldRetry;
+        }
+
+        private void onRelease(ClientAwareReadWriteLock lock) {
+            releaseListeners.remove(lock);
+            retry(false, lock);
+        }
+
+        private void retry(boolean isFinalAttempt, @Nullable ClientAwareReadWriteLock wokenBy) {
+            try {
+                executor.execute(() -> attempt(isFinalAttempt, wokenBy));
+            } catch (RejectedExecutionException e) {
+                // The server is shutting down and fails every waiting request, so there is no wakeup to pass on.
+                result.setException(new ServiceNotAvailableException("This lock server is shut down.", e));
+            }
+        }
+
+    private void cleanUp() {
+            waitingAsyncRequests.remove(this);
+            outstandingLockRequestMultimap.remove(client, request);
+            releaseListeners.forEach(ClientAwareReadWriteLock::removeReleaseListener);
+            releaseListeners.clear();
+            @Nullable ScheduledFuture<?> scheduledTimeout = timeout;
+            if (scheduledTimeout != null) {
+                scheduledTimeout.cancel(false);
+            }
+        }
+    }
+
     private final class LockReapRunner implements AutoCloseable {
         private final Ownable<ExecutorService> executor;
         private final List<Future<?>> taskFutures;
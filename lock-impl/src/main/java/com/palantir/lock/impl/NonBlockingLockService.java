@@ -0,0 +1,35 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.lock.impl;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.lock.LockClient;
+import com.palantir.lock.LockRequest;
+import com.palantir.lock.LockResponse;
+import com.palantir.lock.LockService;
+
+/**
+ * A {@link LockService} that can also serve lock requests without parking the calling thread while the request waits
+ * for locks held by other clients.
+ */
+public interface NonBlockingLockService extends LockService {
+    /**
+     * Equivalent to {@link #lockWithFullLockResponse(LockClient, LockRequest)}, except that the returned future is
+     * completed once the request has been granted or has timed out, rather than blocking the caller. Cancelling the
+     * future abandons the request; locks that had already been granted are released.
+     */
+    ListenableFuture<LockResponse> lockWithFullLockResponseAsync(LockClient client, LockRequest request);
+}
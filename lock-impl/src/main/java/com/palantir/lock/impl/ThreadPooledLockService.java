@@ -15,6 +15,8 @@
  */
 package com.palantir.lock.impl;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.lock.CloseableLockService;
 import com.palantir.lock.HeldLocksGrant;
 import com.palantir.lock.HeldLocksToken;
@@ -33,7 +35,7 @@ import java.util.Set;
 import java.util.concurrent.Semaphore;
 import javax.annotation.Nullable;
 
-public class ThreadPooledLockService implements CloseableLockService {
+public class ThreadPooledLockService implements CloseableLockService, NonBlockingLockService {
     private final ThreadPooledWrapper<LockService> wrapper;
     private final CloseableLockService delegate;
 
@@ -74,6 +76,25 @@ public class ThreadPooledLockService implements CloseableLockService {
         return wrapper.applyWithPermit(lockService -> lockService.lockWithFullLockResponse(client, request));
     }
 
+    /**
+     * Requests served without blocking hold a permit until they complete, exactly as blocking requests do, so the
+     * number of outstanding requests is bounded in the same way. If the delegate cannot serve requests without
+     * blocking, the request is served synchronously under a permit.
+     */
+    @Override
+    public ListenableFuture<LockResponse> lockWithFullLockResponseAsync(LockClient client, LockRequest request) {
+        if (delegate instanceof NonBlockingLockService) {
+            return wrapper.applyAsyncWithPermit(lockService ->
+                    ((NonBlockingLockService) lockService).lockWithFullLockResponseAsync(client, request));
+        }
+        try {
+            return Futures.immediateFuture(lockWithFullLockResponse(client, request));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
     @Override
     public boolean unlock(HeldLocksToken token) {
         return delegate.unlock(token);
@@ -15,10 +15,13 @@
  */
 package com.palantir.lock.impl;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
 import java.util.concurrent.Semaphore;
+import java.util.function.Function;
 
 public class ThreadPooledWrapper<F> {
     private static final SafeLogger log = SafeLoggerFactory.get(ThreadPooledWrapper.class);
@@ -38,11 +41,32 @@ public class ThreadPooledWrapper<F> {
     }
 
     public <T, K extends Exception> T applyWithPermit(FunctionCheckedException<F, T, K> function) throws K {
+        return applyAndRelease(acquirePermit(), function);
+    }
+
+    /**
+     * Like {@link #applyWithPermit(FunctionCheckedException)}, except that the permit is held until the returned
+     * future completes rather than until the function returns.
+     */
+    public <T> ListenableFuture<T> applyAsyncWithPermit(Function<F, ListenableFuture<T>> function) {
+        Semaphore semaphore = acquirePermit();
+        ListenableFuture<T> future;
+        try {
+            future = function.apply(delegate);
+        } catch (RuntimeException | Error e) {
+            semaphore.release();
+            throw e;
+        }
+        future.addListener(semaphore::release, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    private Semaphore acquirePermit() {
         if (localThreadPool.tryAcquire()) {
-            return applyAndRelease(localThreadPool, function);
+            return localThreadPool;
         }
         if (sharedThreadPool.tryAcquire()) {
-            return applyAndRelease(sharedThreadPool, function);
+            return sharedThreadPool;
         }
         throw new TooManyRequestsException(
                 "ThreadPooledLockService was unable to acquire a permit to assign a server thread to the request.");
@@ -34,6 +34,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -321,6 +322,41 @@ public final class ClientAwareLockTest {
         anonymousWriteLock.unlock();
     }
 
+    /** Tests that release listeners are run when a waiter that other requests may queue behind gives up. */
+    @Test
+    public void testReleaseListenersRunWhenWaiterGivesUp() throws InterruptedException {
+        AtomicInteger notifications = new AtomicInteger();
+        knownClientReadLock.lock();
+        readWriteLock.addReleaseListener(notifications::incrementAndGet);
+
+        assertThat(anonymousWriteLock.tryLock(10, TimeUnit.MILLISECONDS)).isEqualTo(client);
+        assertThat(notifications).hasValue(1);
+
+        readWriteLock.addReleaseListener(notifications::incrementAndGet);
+        knownClientReadLock.unlock();
+        assertThat(notifications).hasValue(2);
+    }
+
+    /** Tests that each release runs only the release listener at the head of the queue. */
+    @Test
+    public void testReleaseRunsOnlyTheHeadReleaseListener() {
+        Queue<String> notified = new ConcurrentLinkedQueue<>();
+        knownClientWriteLock.lock();
+        readWriteLock.addReleaseListener(() -> notified.add("second"));
+        readWriteLock.addReleaseListener(() -> notified.add("third"));
+        readWriteLock.addReleaseListenerFirst(() -> notified.add("first"));
+
+        knownClientWriteLock.unlock();
+        assertThat(notified).containsExactly("first");
+
+        readWriteLock.notifyNextReleaseListener();
+        assertThat(notified).containsExactly("first", "second");
+
+        knownClientWriteLock.lock();
+        knownClientWriteLock.unlock();
+        assertThat(notified).containsExactly("first", "second", "third");
+    }
+
     /** Tests that our objects have {@code toString()} methods defined. */
     @Test
     public void testToStrings() {
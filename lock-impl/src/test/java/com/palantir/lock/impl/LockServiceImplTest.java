@@ -21,10 +21,14 @@ import static uk.org.lidalia.slf4jtest.LoggingEvent.warn;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.lock.HeldLocksToken;
 import com.palantir.lock.LockClient;
 import com.palantir.lock.LockMode;
 import com.palantir.lock.LockRefreshToken;
 import com.palantir.lock.LockRequest;
+import com.palantir.lock.LockResponse;
 import com.palantir.lock.LockServerOptions;
 import com.palantir.lock.SimpleTimeDuration;
 import com.palantir.lock.StringLockDescriptor;
@@ -34,8 +38,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.assertj.core.api.Assertions;
 import org.junit.After;
 import org.junit.Before;
@@ -156,6 +165,84 @@ public final class LockServiceImplTest {
         Assertions.assertThat(new ObjectMapper().writeValueAsString(tokens)).hasSizeLessThan(45_000);
     }
 
+    @Test
+    public void asyncLockRequestCompletesWhenBlockingLockIsReleased()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        StringLockDescriptor descriptor = StringLockDescriptor.of(UUID.randomUUID().toString());
+        HeldLocksToken holderToken = lockServiceWithSlowLogDisabled.lockAndGetHeldLocks(
+                "holder", LockRequest.builder(ImmutableSortedMap.of(descriptor, LockMode.WRITE))
+                        .doNotBlock()
+                        .build());
+
+        ListenableFuture<LockResponse> response = lockServiceWithSlowLogDisabled.lockWithFullLockResponseAsync(
+                LockClient.of("waiter"),
+                LockRequest.builder(ImmutableSortedMap.of(descriptor, LockMode.WRITE))
+                        .build());
+        assertThat(response).isNotDone();
+
+        lockServiceWithSlowLogDisabled.unlock(holderToken);
+        assertThat(response.get(5, TimeUnit.SECONDS).success()).isTrue();
+    }
+
+    @Test
+    public void asyncLockRequestReturnsFailedResponseAfterBlockingDuration()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        StringLockDescriptor descriptor = StringLockDescriptor.of(UUID.randomUUID().toString());
+        HeldLocksToken holderToken = lockServiceWithSlowLogDisabled.lockAndGetHeldLocks(
+                "holder", LockRequest.builder(ImmutableSortedMap.of(descriptor, LockMode.WRITE))
+                        .doNotBlock()
+                        .build());
+
+        LockResponse response = lockServiceWithSlowLogDisabled
+                .lockWithFullLockResponseAsync(
+                        LockClient.of("waiter"),
+                        LockRequest.builder(ImmutableSortedMap.of(descriptor, LockMode.WRITE))
+                                .blockForAtMost(SimpleTimeDuration.of(50, TimeUnit.MILLISECONDS))
+                                .build())
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(response.success()).isFalse();
+        assertThat(response.getLockHolders()).containsKey(descriptor);
+        lockServiceWithSlowLogDisabled.unlock(holderToken);
+    }
+
+    @Test
+    public void asyncLockRequestsOnOverlappingLocksAllCompleteUnderContention()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        List<StringLockDescriptor> descriptors = IntStream.range(0, 3)
+                .mapToObj(unused -> StringLockDescriptor.of(UUID.randomUUID().toString()))
+                .collect(Collectors.toList());
+        int requesters = 6;
+        int iterations = 50;
+        ExecutorService requesterExecutor =
+                PTExecutors.newFixedThreadPool(requesters, LockServiceImplTest.class.getName());
+        try {
+            List<Future<?>> futures = IntStream.range(0, requesters)
+                    .mapToObj(requester -> requesterExecutor.submit(() -> {
+                        LockRequest request = LockRequest.builder(ImmutableSortedMap.of(
+                                        descriptors.get(requester % 3),
+                                        LockMode.WRITE,
+                                        descriptors.get((requester + 1) % 3),
+                                        LockMode.WRITE))
+                                .build();
+                        for (int i = 0; i < iterations; i++) {
+                            LockResponse response = lockServiceWithSlowLogDisabled
+                                    .lockWithFullLockResponseAsync(LockClient.of("requester-" + requester), request)
+                                    .get(10, TimeUnit.SECONDS);
+                            assertThat(response.success()).isTrue();
+                            lockServiceWithSlowLogDisabled.unlock(response.getToken());
+                        }
+                        return null;
+                    }))
+                    .collect(Collectors.toList());
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            requesterExecutor.shutdownNow();
+        }
+    }
+
     private static void assertContainsMatchingLoggingEvent(List<LoggingEvent> actuals, LoggingEvent expected) {
         List<String> expectedParamStrings = extractArgumentsAsStringList(expected);
         assertThat(actuals.stream()
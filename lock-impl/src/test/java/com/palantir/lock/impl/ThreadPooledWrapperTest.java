@@ -16,9 +16,11 @@
 package com.palantir.lock.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.fail;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.SettableFuture;
 import com.palantir.common.base.FunctionCheckedException;
 import java.util.ArrayList;
 import java.util.List;
@@ -148,6 +150,19 @@ public class ThreadPooledWrapperTest {
         assertSuccessfulThreadsAreDone(Lists.newArrayList(future1, future2), 1);
     }
 
+    @Test
+    public void asyncRequestHoldsPermitUntilItCompletes() {
+        ThreadPooledWrapper<Waiter> client = new ThreadPooledWrapper<>(WAITER, 1, new Semaphore(0));
+        SettableFuture<Long> pending = SettableFuture.create();
+
+        assertThat(client.applyAsyncWithPermit(w -> pending)).isSameAs(pending);
+        assertThatThrownBy(() -> client.applyAsyncWithPermit(w -> SettableFuture.create()))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        pending.set(1L);
+        assertThat(client.<Long>applyAsyncWithPermit(w -> pending)).isDone();
+    }
+
     private Future<Long> getSingleFutureForNewClient(
             ExecutorService executorService,
             int localThreadPoolSize,
@@ -18,6 +18,7 @@ package com.palantir.atlasdb.timelock.paxos;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
+import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.proxy.PredicateSwitchedProxy;
 import com.palantir.conjure.java.api.config.service.UserAgent;
@@ -115,7 +116,7 @@ public final class PaxosResourcesFactory {
                 .leadershipContextFactory(factory)
                 .putLeadershipBatchComponents(PaxosUseCase.LEADER_FOR_EACH_CLIENT, factory.components())
                 .addAdhocResources(new BatchPingableLeaderResource(install.nodeUuid(), factory.components()))
-                .timeLockCorruptionComponents(timeLockCorruptionComponents(install.sqliteDataSource(), remoteClients))
+                .timeLockCorruptionComponents(timeLockCorruptionComponents(install, remoteClients))
                 .build();
     }
 
@@ -161,7 +162,7 @@ public final class PaxosResourcesFactory {
                                 factory.components().acceptor(PaxosUseCase.PSEUDO_LEADERSHIP_CLIENT)),
                         new LeaderLearnerResource(factory.components().learner(PaxosUseCase.PSEUDO_LEADERSHIP_CLIENT)),
                         factory.components().pingableLeader(PaxosUseCase.PSEUDO_LEADERSHIP_CLIENT))
-                .timeLockCorruptionComponents(timeLockCorruptionComponents(install.sqliteDataSource(), remoteClients))
+                .timeLockCorruptionComponents(timeLockCorruptionComponents(install, remoteClients))
                 .build();
     }
 
@@ -231,7 +232,10 @@ public final class PaxosResourcesFactory {
                             combinedNetworkClientFactories.learner().create(client),
                             paxosRuntime.get().maximumWaitBeforeProposalMs()),
                     client);
-            return PersistentTimestampServiceImpl.create(boundStore);
+            return PersistentTimestampServiceImpl.create(
+                    boundStore,
+                    AtlasDbConstants.DEFAULT_INITIALIZE_ASYNC,
+                    () -> paxosRuntime.get().timestampPaxos().adaptiveBoundExtension());
         };
 
         return ImmutablePaxosResources.builder()
@@ -257,7 +261,8 @@ public final class PaxosResourcesFactory {
     }
 
     private static TimeLockCorruptionComponents timeLockCorruptionComponents(
-            DataSource dataSource, PaxosRemoteClients remoteClients) {
+            TimelockPaxosInstallationContext install, PaxosRemoteClients remoteClients) {
+        DataSource dataSource = install.sqliteDataSource();
         RemoteCorruptionDetector remoteCorruptionDetector = new RemoteCorruptionDetector();
 
         PaxosLogHistoryProvider historyProvider =
@@ -266,7 +271,10 @@ public final class PaxosResourcesFactory {
         LocalTimestampInvariantsVerifier timestampInvariantsVerifier = new LocalTimestampInvariantsVerifier(dataSource);
 
         LocalCorruptionDetector localCorruptionDetector = LocalCorruptionDetector.create(
-                historyProvider, remoteClients.getRemoteCorruptionNotifiers(), timestampInvariantsVerifier);
+                historyProvider,
+                remoteClients.getRemoteCorruptionNotifiers(),
+                timestampInvariantsVerifier,
+                install.install().paxos().incrementalCorruptionCheck());
 
         CorruptionHealthCheck healthCheck =
                 new CorruptionHealthCheck(localCorruptionDetector, remoteCorruptionDetector);
@@ -70,6 +70,17 @@ public interface PaxosInstallConfiguration {
         return true;
     }
 
+    /**
+     * If true, the local corruption check streams Paxos history, verifying batches of (namespace, useCase) pairs as
+     * they are loaded from this node and the remotes. If false, it loads the next window of history for every pair
+     * before verifying any of them, which needs memory proportional to the number of pairs.
+     */
+    @JsonProperty("incremental-corruption-check")
+    @Value.Default
+    default boolean incrementalCorruptionCheck() {
+        return false;
+    }
+
     enum PaxosLeaderMode {
         SINGLE_LEADER,
         LEADER_PER_CLIENT,
@@ -108,6 +108,18 @@ public interface PaxosRuntimeConfiguration {
             return false;
         }
 
+        /**
+         * Whether to extend the persisted timestamp bound in the background before it is exhausted, reserving more
+         * timestamps at a time for clients that allocate them quickly. A failover may then skip up to 64 times as
+         * many timestamps as it otherwise would. Changes apply to existing clients the next time their bound is
+         * extended.
+         */
+        @Value.Default
+        @JsonProperty("adaptive-bound-extension")
+        default boolean adaptiveBoundExtension() {
+            return false;
+        }
+
         static TimestampPaxosConfig defaultConfig() {
             return ImmutableTimestampPaxosConfig.builder().build();
         }
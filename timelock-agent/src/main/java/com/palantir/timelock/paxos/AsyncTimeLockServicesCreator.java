@@ -30,6 +30,7 @@ import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.concurrent.NamedThreadFactory;
 import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.lock.LockService;
+import com.palantir.lock.impl.NonBlockingLockService;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
@@ -78,7 +79,7 @@ public class AsyncTimeLockServicesCreator implements TimeLockServicesCreator {
 
         LockService lockService = leadershipComponents.wrapInLeadershipProxy(
                 client,
-                LockService.class,
+                NonBlockingLockService.class,
                 Suppliers.compose(NonTransactionalLockService::new, rawLockServiceSupplier::get));
 
         return TimeLockServices.create(
@@ -15,6 +15,7 @@
  */
 package com.palantir.timelock.config;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import org.junit.Test;
@@ -61,4 +62,13 @@ public class PaxosRuntimeConfigurationTest {
         assertThatThrownBy(ImmutablePaxosRuntimeConfiguration.builder().leaderPingResponseWaitMs(NEGATIVE_LONG)::build)
                 .isInstanceOf(IllegalArgumentException.class);
     }
+
+    @Test
+    public void adaptiveTimestampBoundExtensionIsOffByDefault() {
+        assertThat(ImmutablePaxosRuntimeConfiguration.builder()
+                        .build()
+                        .timestampPaxos()
+                        .adaptiveBoundExtension())
+                .isFalse();
+    }
 }
@@ -28,6 +28,7 @@ import com.palantir.paxos.ImmutableNamespaceAndUseCase;
 import com.palantir.paxos.NamespaceAndUseCase;
 import com.palantir.paxos.PaxosValue;
 import com.palantir.timelock.history.PaxosAcceptorData;
+import com.palantir.timelock.history.PaxosLogHistoryProvider;
 import com.palantir.timelock.history.models.CompletePaxosHistoryForNamespaceAndUseCase;
 import com.palantir.timelock.history.models.ConsolidatedLearnerAndAcceptorRecord;
 import java.util.Comparator;
@@ -35,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -52,6 +54,25 @@ public final class HistoryAnalyzer {
                                 HistoryAnalyzer::extractNamespaceAndUseCase,
                                 HistoryAnalyzer::corruptionCheckViolationLevelForNamespaceAndUseCase));
 
+        return corruptionHealthReportForViolations(namespaceAndUseCaseCorruptionCheckViolationMap);
+    }
+
+    /**
+     * Analyzes the next window of history of each (namespace, useCase) pair as it is streamed from
+     * {@code historyProvider}, so that only the windows currently being analyzed are held in memory.
+     */
+    public static CorruptionHealthReport corruptionHealthReportForIncrementalHistory(
+            PaxosLogHistoryProvider historyProvider) {
+        Map<NamespaceAndUseCase, CorruptionCheckViolation> namespaceAndUseCaseCorruptionCheckViolationMap =
+                new ConcurrentHashMap<>();
+        historyProvider.visitHistoryIncrementally(history -> namespaceAndUseCaseCorruptionCheckViolationMap.put(
+                extractNamespaceAndUseCase(history), corruptionCheckViolationLevelForNamespaceAndUseCase(history)));
+
+        return corruptionHealthReportForViolations(namespaceAndUseCaseCorruptionCheckViolationMap);
+    }
+
+    private static CorruptionHealthReport corruptionHealthReportForViolations(
+            Map<NamespaceAndUseCase, CorruptionCheckViolation> namespaceAndUseCaseCorruptionCheckViolationMap) {
         SetMultimap<CorruptionCheckViolation, NamespaceAndUseCase> namespacesExhibitingViolations = KeyedStream.stream(
                         namespaceAndUseCaseCorruptionCheckViolationMap)
                 .mapEntries((k, v) -> Maps.immutableEntry(v, k))
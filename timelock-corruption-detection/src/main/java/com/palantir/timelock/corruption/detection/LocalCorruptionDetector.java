@@ -35,6 +35,7 @@ public final class LocalCorruptionDetector implements CorruptionDetector {
     private final LocalCorruptionHandler corruptionHandler;
     private final PaxosLogHistoryProvider historyProvider;
     private final LocalTimestampInvariantsVerifier timestampInvariantsVerifier;
+    private final boolean incrementalHistoryAnalysis;
 
     private volatile CorruptionStatus localCorruptionState = CorruptionStatus.HEALTHY;
     private volatile CorruptionHealthReport localCorruptionReport = CorruptionHealthReport.defaultHealthyReport();
@@ -43,8 +44,21 @@ public final class LocalCorruptionDetector implements CorruptionDetector {
             PaxosLogHistoryProvider historyProvider,
             List<TimeLockCorruptionNotifier> corruptionNotifiers,
             LocalTimestampInvariantsVerifier timestampInvariants) {
-        LocalCorruptionDetector localCorruptionDetector =
-                new LocalCorruptionDetector(historyProvider, corruptionNotifiers, timestampInvariants);
+        return create(historyProvider, corruptionNotifiers, timestampInvariants, false);
+    }
+
+    /**
+     * @param incrementalHistoryAnalysis whether to stream history through
+     * {@link PaxosLogHistoryProvider#visitHistoryIncrementally}, rather than loading it all with
+     * {@link PaxosLogHistoryProvider#getHistory()}
+     */
+    public static LocalCorruptionDetector create(
+            PaxosLogHistoryProvider historyProvider,
+            List<TimeLockCorruptionNotifier> corruptionNotifiers,
+            LocalTimestampInvariantsVerifier timestampInvariants,
+            boolean incrementalHistoryAnalysis) {
+        LocalCorruptionDetector localCorruptionDetector = new LocalCorruptionDetector(
+                historyProvider, corruptionNotifiers, timestampInvariants, incrementalHistoryAnalysis);
 
         // TODO(mdaudali): Decide whether to re-enable once we've determined whether corruption detection will not kill
         // the node timelock is running on
@@ -56,10 +70,12 @@ public final class LocalCorruptionDetector implements CorruptionDetector {
     private LocalCorruptionDetector(
             PaxosLogHistoryProvider historyProvider,
             List<TimeLockCorruptionNotifier> corruptionNotifiers,
-            LocalTimestampInvariantsVerifier timestampInvariantsVerifier) {
+            LocalTimestampInvariantsVerifier timestampInvariantsVerifier,
+            boolean incrementalHistoryAnalysis) {
 
         this.historyProvider = historyProvider;
         this.timestampInvariantsVerifier = timestampInvariantsVerifier;
+        this.incrementalHistoryAnalysis = incrementalHistoryAnalysis;
         this.corruptionHandler = new LocalCorruptionHandler(corruptionNotifiers);
     }
 
@@ -83,7 +99,9 @@ public final class LocalCorruptionDetector implements CorruptionDetector {
     }
 
     private CorruptionHealthReport analyzeHistoryAndBuildCorruptionHealthReport() {
-        return HistoryAnalyzer.corruptionHealthReportForHistory(historyProvider.getHistory());
+        return incrementalHistoryAnalysis
+                ? HistoryAnalyzer.corruptionHealthReportForIncrementalHistory(historyProvider)
+                : HistoryAnalyzer.corruptionHealthReportForHistory(historyProvider.getHistory());
     }
 
     private void processLocalHealthReport() {
@@ -17,8 +17,14 @@
 package com.palantir.timelock.history;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.streams.KeyedStream;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
 import com.palantir.paxos.ImmutableNamespaceAndUseCase;
@@ -36,6 +42,9 @@ import com.palantir.tokens.auth.AuthHeader;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
 
@@ -43,17 +52,47 @@ public class PaxosLogHistoryProvider {
     private static final SafeLogger log = SafeLoggerFactory.get(PaxosLogHistoryProvider.class);
 
     private static final AuthHeader AUTH_HEADER = AuthHeader.valueOf("Bearer omitted");
+    private static final int DEFAULT_MAX_CONCURRENT_VERIFICATIONS = 4;
+    private static final int DEFAULT_HISTORY_QUERY_BATCH_SIZE = 50;
 
     private final LocalHistoryLoader localHistoryLoader;
     private final SqlitePaxosStateLogHistory sqlitePaxosStateLogHistory;
     private final List<TimeLockPaxosHistoryProvider> remoteHistoryProviders;
     private final PaxosLogHistoryProgressTracker progressTracker;
+    private final ExecutorService verificationExecutor;
+    private final int historyQueryBatchSize;
 
     public PaxosLogHistoryProvider(DataSource dataSource, List<TimeLockPaxosHistoryProvider> remoteHistoryProviders) {
+        this(dataSource, remoteHistoryProviders, DEFAULT_MAX_CONCURRENT_VERIFICATIONS);
+    }
+
+    public PaxosLogHistoryProvider(
+            DataSource dataSource,
+            List<TimeLockPaxosHistoryProvider> remoteHistoryProviders,
+            int maxConcurrentVerifications) {
+        this(dataSource, remoteHistoryProviders, maxConcurrentVerifications, DEFAULT_HISTORY_QUERY_BATCH_SIZE);
+    }
+
+    public PaxosLogHistoryProvider(
+            DataSource dataSource,
+            List<TimeLockPaxosHistoryProvider> remoteHistoryProviders,
+            int maxConcurrentVerifications,
+            int historyQueryBatchSize) {
+        Preconditions.checkArgument(
+                maxConcurrentVerifications > 0,
+                "Max concurrent verifications must be positive",
+                SafeArg.of("maxConcurrentVerifications", maxConcurrentVerifications));
+        Preconditions.checkArgument(
+                historyQueryBatchSize > 0,
+                "History query batch size must be positive",
+                SafeArg.of("historyQueryBatchSize", historyQueryBatchSize));
         this.remoteHistoryProviders = remoteHistoryProviders;
         this.sqlitePaxosStateLogHistory = SqlitePaxosStateLogHistory.create(dataSource);
         this.localHistoryLoader = LocalHistoryLoader.create(this.sqlitePaxosStateLogHistory);
         this.progressTracker = new PaxosLogHistoryProgressTracker(dataSource, sqlitePaxosStateLogHistory);
+        this.verificationExecutor =
+                PTExecutors.newFixedThreadPool(maxConcurrentVerifications, "paxos-log-history-verifier");
+        this.historyQueryBatchSize = historyQueryBatchSize;
     }
 
     private Set<NamespaceAndUseCase> getNamespaceAndUseCaseTuples() {
@@ -89,6 +128,56 @@ public class PaxosLogHistoryProvider {
         return completeHistoryList;
     }
 
+    /**
+     * Streaming alternative to {@link #getHistory()}. The (namespace, useCase) pairs are split into batches of
+     * {@code historyQueryBatchSize}. The next window of history for every pair in a batch is loaded from this node, and
+     * from each remote in a single request, then passed to {@code historyVisitor} pair by pair and released. At most
+     * {@code maxConcurrentVerifications} batches are in flight at once. Progress for a pair is persisted as soon as its
+     * window has been visited, so a failure neither stops other batches from being verified nor loses their progress,
+     * although a remote failing to serve a batch fails every pair in it. The first failure is rethrown.
+     * <p>
+     * {@code historyVisitor} may be called concurrently from several threads.
+     */
+    public void visitHistoryIncrementally(Consumer<CompletePaxosHistoryForNamespaceAndUseCase> historyVisitor) {
+        List<List<NamespaceAndUseCase>> batches =
+                Lists.partition(ImmutableList.copyOf(getNamespaceAndUseCaseTuples()), historyQueryBatchSize);
+        List<Future<?>> verifications = batches.stream()
+                .map(batch -> verificationExecutor.submit(() -> visitNextHistoryWindows(batch, historyVisitor)))
+                .collect(Collectors.toList());
+        verifications.forEach(Futures::getUnchecked);
+    }
+
+    private void visitNextHistoryWindows(
+            List<NamespaceAndUseCase> namespaceAndUseCases,
+            Consumer<CompletePaxosHistoryForNamespaceAndUseCase> historyVisitor) {
+        Map<NamespaceAndUseCase, HistoryQuerySequenceBounds> sequenceRangesToBeVerified = KeyedStream.of(
+                        namespaceAndUseCases)
+                .map(progressTracker::getNextPaxosLogSequenceRangeToBeVerified)
+                .collectToMap();
+
+        PaxosHistoryOnSingleNode localPaxosHistory =
+                localHistoryLoader.getLocalPaxosHistory(sequenceRangesToBeVerified);
+        List<ConsolidatedPaxosHistoryOnSingleNode> historyFromAllRemotes = buildHistoryFromRemoteResponses(
+                getHistoriesFromRemoteServers(getHistoryQueryListForRemoteServers(sequenceRangesToBeVerified)));
+
+        RuntimeException firstFailure = null;
+        for (Map.Entry<NamespaceAndUseCase, HistoryQuerySequenceBounds> range : sequenceRangesToBeVerified.entrySet()) {
+            try {
+                historyVisitor.accept(buildCompleteHistory(range.getKey(), localPaxosHistory, historyFromAllRemotes));
+                progressTracker.updateProgressState(ImmutableMap.of(range.getKey(), range.getValue()));
+            } catch (RuntimeException e) {
+                if (firstFailure == null) {
+                    firstFailure = e;
+                } else {
+                    firstFailure.addSuppressed(e);
+                }
+            }
+        }
+        if (firstFailure != null) {
+            throw firstFailure;
+        }
+    }
+
     private List<CompletePaxosHistoryForNamespaceAndUseCase> consolidateAndGetHistoriesAcrossAllNodes(
             Map<NamespaceAndUseCase, HistoryQuerySequenceBounds> namespaceAndUseCaseWiseSequenceRangeToBeVerified,
             PaxosHistoryOnSingleNode localPaxosHistory,
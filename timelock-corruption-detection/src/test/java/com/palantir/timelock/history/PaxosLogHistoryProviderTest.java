@@ -50,7 +50,9 @@ import com.palantir.timelock.history.utils.PaxosSerializationTestUtils;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import javax.sql.DataSource;
@@ -219,6 +221,85 @@ public class PaxosLogHistoryProviderTest {
         assertThat(namespaceAndUseCasesWithHistory).containsExactlyInAnyOrderElementsOf(allNamespaceAndUseCases);
     }
 
+    @Test
+    public void canVisitHistoriesIncrementallyAcrossNamespaceAndUseCasePairs() {
+        Map<NamespaceAndUseCase, Set<PaxosValue>> expected = writeLogsForRangeOfNamespaceUseCasePairs();
+        Set<NamespaceAndUseCase> allNamespaceAndUseCases = expected.keySet();
+
+        List<HistoryQuery> historyQueries = allNamespaceAndUseCases.stream()
+                .map(namespaceAndUseCase ->
+                        HistoryQueries.unboundedHistoryQuerySinceSeqForNamespaceAndUseCase(namespaceAndUseCase, -1))
+                .collect(Collectors.toList());
+        List<LogsForNamespaceAndUseCase> remoteHistory =
+                HistoryLoaderAndTransformer.getLogsForHistoryQueries(history, historyQueries);
+        when(remote.getPaxosHistory(any(), any())).thenReturn(PaxosHistoryOnRemote.of(remoteHistory));
+
+        Queue<CompletePaxosHistoryForNamespaceAndUseCase> visitedHistories = new ConcurrentLinkedQueue<>();
+        new PaxosLogHistoryProvider(dataSource, ImmutableList.of(remote), 2)
+                .visitHistoryIncrementally(visitedHistories::add);
+
+        assertThat(visitedHistories).hasSize(9).allSatisfy(historyForNamespaceAndUseCase -> {
+            Client client = historyForNamespaceAndUseCase.namespace();
+            String useCase = historyForNamespaceAndUseCase.useCase();
+            assertSanityWithValuesOfFetchedRecords(
+                    historyForNamespaceAndUseCase,
+                    client,
+                    useCase,
+                    getIntegerValueOfClient(historyForNamespaceAndUseCase),
+                    expected.get(ImmutableNamespaceAndUseCase.of(client, useCase)));
+        });
+    }
+
+    @Test
+    public void visitingHistoryIncrementallySendsOneRequestPerBatchToEachRemote() {
+        Map<NamespaceAndUseCase, Set<PaxosValue>> expected = writeLogsForRangeOfNamespaceUseCasePairs();
+        List<HistoryQuery> historyQueries = expected.keySet().stream()
+                .map(namespaceAndUseCase ->
+                        HistoryQueries.unboundedHistoryQuerySinceSeqForNamespaceAndUseCase(namespaceAndUseCase, -1))
+                .collect(Collectors.toList());
+        PaxosHistoryOnRemote remoteHistory =
+                PaxosHistoryOnRemote.of(HistoryLoaderAndTransformer.getLogsForHistoryQueries(history, historyQueries));
+        Queue<Integer> queriesPerRequest = new ConcurrentLinkedQueue<>();
+        when(remote.getPaxosHistory(any(), any())).thenAnswer(invocation -> {
+            queriesPerRequest.add(invocation.<List<HistoryQuery>>getArgument(1).size());
+            return remoteHistory;
+        });
+
+        Queue<CompletePaxosHistoryForNamespaceAndUseCase> visitedHistories = new ConcurrentLinkedQueue<>();
+        new PaxosLogHistoryProvider(dataSource, ImmutableList.of(remote), 2, 4)
+                .visitHistoryIncrementally(visitedHistories::add);
+
+        assertThat(queriesPerRequest).containsExactlyInAnyOrder(4, 4, 1);
+        assertThat(visitedHistories).hasSize(9);
+    }
+
+    @Test
+    public void visitingHistoryIncrementallyPersistsProgress() {
+        PaxosSerializationTestUtils.writeToLogs(acceptorLog, learnerLog, 1, 30);
+        List<HistoryQuery> historyQueries =
+                ImmutableList.of(HistoryQueries.unboundedHistoryQuerySinceSeq(-1));
+        List<LogsForNamespaceAndUseCase> remoteHistory =
+                HistoryLoaderAndTransformer.getLogsForHistoryQueries(history, historyQueries);
+        when(remote.getPaxosHistory(any(), any())).thenReturn(PaxosHistoryOnRemote.of(remoteHistory));
+
+        paxosLogHistoryProvider.visitHistoryIncrementally(historyForNamespaceAndUseCase -> {});
+
+        PaxosLogHistoryProgressTracker freshProgressTracker =
+                new PaxosLogHistoryProgressTracker(dataSource, SqlitePaxosStateLogHistory.create(dataSource));
+        assertThat(freshProgressTracker
+                        .getNextPaxosLogSequenceRangeToBeVerified(DEFAULT_NAMESPACE_AND_USE_CASE)
+                        .getLowerBoundInclusive())
+                .isEqualTo(PaxosLogHistoryProgressTracker.MAX_ROWS_ALLOWED);
+    }
+
+    @Test
+    public void visitingHistoryIncrementallyThrowsIfRemoteThrows() {
+        PaxosSerializationTestUtils.writeToLogs(acceptorLog, learnerLog, 1, 100);
+        when(remote.getPaxosHistory(any(), any())).thenThrow(new RuntimeException());
+        assertThatThrownBy(() -> paxosLogHistoryProvider.visitHistoryIncrementally(historyForNamespaceAndUseCase -> {}))
+                .isInstanceOf(RuntimeException.class);
+    }
+
     // utils
     private Map<NamespaceAndUseCase, Set<PaxosValue>> writeLogsForRangeOfNamespaceUseCasePairs() {
         return KeyedStream.of(IntStream.rangeClosed(1, 9).boxed())
@@ -17,9 +17,14 @@ package com.palantir.atlasdb.timelock.lock;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SimpleTimeLimiter;
 import com.google.common.util.concurrent.TimeLimiter;
 import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.palantir.common.concurrent.NamedThreadFactory;
 import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.lock.CloseableLockService;
 import com.palantir.lock.HeldLocksGrant;
@@ -32,6 +37,7 @@ import com.palantir.lock.LockResponse;
 import com.palantir.lock.LockServerOptions;
 import com.palantir.lock.LockState;
 import com.palantir.lock.SimpleHeldLocksToken;
+import com.palantir.lock.impl.NonBlockingLockService;
 import com.palantir.lock.remoting.BlockingTimeoutException;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.UnsafeArg;
@@ -42,14 +48,17 @@ import java.math.BigInteger;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import javax.annotation.Nullable;
 import javax.ws.rs.PathParam;
 import org.immutables.value.Value;
 
-public class BlockingTimeLimitedLockService implements CloseableLockService {
+public class BlockingTimeLimitedLockService implements CloseableLockService, NonBlockingLockService {
     private static final SafeLogger log = SafeLoggerFactory.get(BlockingTimeLimitedLockService.class);
+    private static final ScheduledExecutorService asyncTimeoutExecutor = PTExecutors.newSingleThreadScheduledExecutor(
+            new NamedThreadFactory("blocking-time-limited-lock-service-timeouts", true));
 
     private final CloseableLockService delegate;
     private final TimeLimiter timeLimiter;
@@ -98,6 +107,27 @@ public class BlockingTimeLimitedLockService implements CloseableLockService {
                 ImmutableLockRequestSpecification.of("lockWithFullLockResponse", client.getClientId(), request));
     }
 
+    @Override
+    public ListenableFuture<LockResponse> lockWithFullLockResponseAsync(LockClient client, LockRequest request) {
+        if (!(delegate instanceof NonBlockingLockService)) {
+            try {
+                return Futures.immediateFuture(lockWithFullLockResponse(client, request));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Futures.immediateFailedFuture(e);
+            }
+        }
+        LockRequestSpecification specification =
+                ImmutableLockRequestSpecification.of("lockWithFullLockResponseAsync", client.getClientId(), request);
+        // Timing out cancels the delegate's future, which abandons the request and releases anything it acquired.
+        return FluentFuture.from(((NonBlockingLockService) delegate).lockWithFullLockResponseAsync(client, request))
+                .withTimeout(blockingTimeLimitMillis, TimeUnit.MILLISECONDS, asyncTimeoutExecutor)
+                .catchingAsync(
+                        TimeoutException.class,
+                        _timeout -> Futures.immediateFailedFuture(logAndHandleTimeout(specification)),
+                        MoreExecutors.directExecutor());
+    }
+
     @Override
     public boolean unlock(HeldLocksToken token) {
         return delegate.unlock(token);
@@ -15,8 +15,14 @@
  */
 package com.palantir.atlasdb.timelock.lock;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.lock.LockClient;
+import com.palantir.lock.LockRequest;
+import com.palantir.lock.LockResponse;
 import com.palantir.lock.LockService;
 import com.palantir.lock.SimplifyingLockService;
+import com.palantir.lock.impl.NonBlockingLockService;
 import com.palantir.logsafe.UnsafeArg;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
@@ -30,7 +36,7 @@ import javax.ws.rs.BadRequestException;
  * We rely on the previous implementation of SnapshotTransactionManager#getImmutableTimestampInternal (e.g. in 0.48.0),
  * which attempts to acquire the immutable timestamp before transactions begin running.
  */
-public class NonTransactionalLockService extends SimplifyingLockService {
+public class NonTransactionalLockService extends SimplifyingLockService implements NonBlockingLockService {
     private static final SafeLogger log = SafeLoggerFactory.get(NonTransactionalLockService.class);
 
     private final LockService delegate;
@@ -44,6 +50,19 @@ public class NonTransactionalLockService extends SimplifyingLockService {
         return delegate;
     }
 
+    @Override
+    public ListenableFuture<LockResponse> lockWithFullLockResponseAsync(LockClient client, LockRequest request) {
+        if (delegate instanceof NonBlockingLockService) {
+            return ((NonBlockingLockService) delegate).lockWithFullLockResponseAsync(client, request);
+        }
+        try {
+            return Futures.immediateFuture(delegate.lockWithFullLockResponse(client, request));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
     @Override
     public Long getMinLockedInVersionId(String client) {
         log.warn(
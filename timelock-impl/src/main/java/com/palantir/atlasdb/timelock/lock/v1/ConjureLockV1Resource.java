@@ -29,11 +29,13 @@ import com.palantir.lock.ConjureLockV1Request;
 import com.palantir.lock.ConjureLockV1ServiceEndpoints;
 import com.palantir.lock.ConjureSimpleHeldLocksToken;
 import com.palantir.lock.HeldLocksToken;
+import com.palantir.lock.LockClient;
 import com.palantir.lock.LockRefreshToken;
 import com.palantir.lock.LockService;
 import com.palantir.lock.SimpleHeldLocksToken;
 import com.palantir.lock.UndertowConjureLockV1Service;
 import com.palantir.lock.client.ConjureLockV1Tokens;
+import com.palantir.lock.impl.NonBlockingLockService;
 import com.palantir.tokens.auth.AuthHeader;
 import java.util.List;
 import java.util.Optional;
@@ -64,10 +66,19 @@ public final class ConjureLockV1Resource implements UndertowConjureLockV1Service
     public ListenableFuture<Optional<HeldLocksToken>> lockAndGetHeldLocks(
             AuthHeader authHeader, String namespace, ConjureLockV1Request request) {
         return exceptionHandler.handleExceptions(() -> {
+            LockService lockService = lockServices.apply(namespace);
+            if (lockService instanceof NonBlockingLockService) {
+                // Requests waiting on locks held by other clients do not hold a server thread.
+                return Futures.transform(
+                        ((NonBlockingLockService) lockService)
+                                .lockWithFullLockResponseAsync(
+                                        LockClient.of(request.getLockClient()), request.getLockRequest()),
+                        response -> Optional.ofNullable(response.getToken()),
+                        MoreExecutors.directExecutor());
+            }
             try {
-                return Futures.immediateFuture(Optional.ofNullable(lockServices
-                        .apply(namespace)
-                        .lockAndGetHeldLocks(request.getLockClient(), request.getLockRequest())));
+                return Futures.immediateFuture(Optional.ofNullable(
+                        lockService.lockAndGetHeldLocks(request.getLockClient(), request.getLockRequest())));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 throw new RuntimeException(e);
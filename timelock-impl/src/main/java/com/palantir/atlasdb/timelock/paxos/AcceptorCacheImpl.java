@@ -18,35 +18,40 @@ package com.palantir.atlasdb.timelock.paxos;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.google.common.collect.TreeMultimap;
-import com.palantir.common.streams.KeyedStream;
 import com.palantir.paxos.Client;
 import java.time.Duration;
-import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 import javax.annotation.Nonnull;
-import javax.annotation.concurrent.GuardedBy;
 
+/**
+ * Updates are serialized by the write lock of a {@link StampedLock}, but reads only take an optimistic stamp: they
+ * read the concurrent maps below without blocking, and only retry under the read lock if an update raced with them.
+ * As every batch acceptor and learner request reads this cache, this keeps readers from contending with each other on
+ * a shared lock.
+ * <p>
+ * Each client appears in exactly one bucket of {@link #clientsByLatestTimestamp}, the one for the cache timestamp at
+ * which its sequence number was last increased, so the updates since a cache key are the union of the buckets after
+ * that key's timestamp.
+ */
 public class AcceptorCacheImpl implements AcceptorCache {
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StampedLock lock = new StampedLock();
     private final Cache<AcceptorCacheKey, TimestampedAcceptorCacheKey> cacheKeyToTimestamp;
-    private final Map<Client, WithSeq<Long>> clientToTimeAndSeq = new HashMap<>();
-    private final TreeMultimap<Long, WithSeq<Client>> clientsByLatestTimestamp = TreeMultimap.create(
-            Comparator.naturalOrder(),
-            Comparator.comparing(clientWithSeq -> clientWithSeq.value().value(), Comparator.naturalOrder()));
+    private final Map<Client, SequenceAtTimestamp> clientToTimeAndSeq = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Long, Map<Client, Long>> clientsByLatestTimestamp =
+            new ConcurrentSkipListMap<>();
 
-    @GuardedBy("lock")
-    private TimestampedAcceptorCacheKey latestTimestampedAcceptorCacheKey =
+    private volatile TimestampedAcceptorCacheKey latestTimestampedAcceptorCacheKey =
             TimestampedAcceptorCacheKey.of(AcceptorCacheKey.newCacheKey(), 0);
+    private volatile AcceptorCacheDigest latestFullDigest;
 
     public AcceptorCacheImpl() {
         Cache<AcceptorCacheKey, TimestampedAcceptorCacheKey> cacheKeyToTime =
@@ -61,32 +66,29 @@ public class AcceptorCacheImpl implements AcceptorCache {
             return;
         }
 
-        lock.writeLock().lock();
+        long stamp = lock.writeLock();
         try {
             long nextTimestamp = latestTimestampedAcceptorCacheKey.timestamp() + 1;
-            AtomicBoolean updated = new AtomicBoolean(false);
+            Map<Client, Long> clientsUpdatedAtNextTimestamp = new ConcurrentHashMap<>();
 
             clientsAndSeqs.forEach(clientAndSeq -> {
                 Client client = clientAndSeq.value();
                 long incomingSequenceNumber = clientAndSeq.seq();
-                WithSeq<Long> clientLatestWithTs = clientToTimeAndSeq.get(client);
-
-                if (clientLatestWithTs == null) {
-                    clientToTimeAndSeq.put(client, WithSeq.of(nextTimestamp, incomingSequenceNumber));
-                    clientsByLatestTimestamp.put(nextTimestamp, clientAndSeq);
-                    updated.set(true);
-                } else if (incomingSequenceNumber > clientLatestWithTs.seq()) {
-                    clientToTimeAndSeq.put(client, WithSeq.of(nextTimestamp, incomingSequenceNumber));
-                    clientsByLatestTimestamp.put(nextTimestamp, clientAndSeq);
-                    clientsByLatestTimestamp.remove(
-                            clientLatestWithTs.value(), WithSeq.of(client, clientLatestWithTs.seq()));
-                    updated.set(true);
+                SequenceAtTimestamp clientLatest = clientToTimeAndSeq.get(client);
+
+                if (clientLatest == null || incomingSequenceNumber > clientLatest.sequence) {
+                    if (clientLatest != null && clientLatest.timestamp != nextTimestamp) {
+                        removeFromBucket(clientLatest.timestamp, client);
+                    }
+                    clientToTimeAndSeq.put(client, new SequenceAtTimestamp(nextTimestamp, incomingSequenceNumber));
+                    clientsUpdatedAtNextTimestamp.put(client, incomingSequenceNumber);
                 }
             });
 
-            if (!updated.get()) {
+            if (clientsUpdatedAtNextTimestamp.isEmpty()) {
                 return;
             }
+            clientsByLatestTimestamp.put(nextTimestamp, clientsUpdatedAtNextTimestamp);
 
             AcceptorCacheKey nextCacheKey = AcceptorCacheKey.newCacheKey();
             TimestampedAcceptorCacheKey newTimestampedCacheKey =
@@ -94,51 +96,93 @@ public class AcceptorCacheImpl implements AcceptorCache {
             cacheKeyToTimestamp.put(nextCacheKey, newTimestampedCacheKey);
             latestTimestampedAcceptorCacheKey = newTimestampedCacheKey;
         } finally {
-            lock.writeLock().unlock();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void removeFromBucket(long timestamp, Client client) {
+        Map<Client, Long> bucket = clientsByLatestTimestamp.get(timestamp);
+        bucket.remove(client);
+        if (bucket.isEmpty()) {
+            clientsByLatestTimestamp.remove(timestamp);
         }
     }
 
     @Override
     public AcceptorCacheDigest getAllUpdates() {
-        lock.readLock().lock();
-        try {
-            Map<Client, Long> clientsToLatest =
-                    KeyedStream.stream(clientToTimeAndSeq).map(WithSeq::seq).collectToMap();
-            return ImmutableAcceptorCacheDigest.builder()
-                    .newCacheKey(latestTimestampedAcceptorCacheKey.cacheKey())
-                    .cacheTimestamp(latestTimestampedAcceptorCacheKey.timestamp())
-                    .updates(clientsToLatest)
-                    .build();
-        } finally {
-            lock.readLock().unlock();
+        AcceptorCacheDigest cachedDigest = latestFullDigest;
+        if (cachedDigest != null
+                && cachedDigest.cacheTimestamp() == latestTimestampedAcceptorCacheKey.timestamp()) {
+            return cachedDigest;
         }
+
+        AcceptorCacheDigest digest = readConsistently(() -> {
+            Map<Client, Long> clientsToLatest = new HashMap<>();
+            clientToTimeAndSeq.forEach((client, latest) -> clientsToLatest.put(client, latest.sequence));
+            return digestOfLatestState(clientsToLatest);
+        });
+        latestFullDigest = digest;
+        return digest;
     }
 
     @Override
     public Optional<AcceptorCacheDigest> updatesSinceCacheKey(@Nonnull AcceptorCacheKey cacheKey)
             throws InvalidAcceptorCacheKeyException {
-        lock.readLock().lock();
-        try {
-            if (cacheKey.equals(latestTimestampedAcceptorCacheKey.cacheKey())) {
-                return Optional.empty();
-            }
+        if (cacheKey.equals(latestTimestampedAcceptorCacheKey.cacheKey())) {
+            return Optional.empty();
+        }
 
-            long cacheKeyTimestamp = Optional.ofNullable(cacheKeyToTimestamp.getIfPresent(cacheKey))
-                    .map(TimestampedAcceptorCacheKey::timestamp)
-                    .orElseThrow(() -> new InvalidAcceptorCacheKeyException(cacheKey));
+        long cacheKeyTimestamp = Optional.ofNullable(cacheKeyToTimestamp.getIfPresent(cacheKey))
+                .map(TimestampedAcceptorCacheKey::timestamp)
+                .orElseThrow(() -> new InvalidAcceptorCacheKeyException(cacheKey));
+
+        return Optional.of(readConsistently(() -> {
+            Map<Client, Long> diff = new HashMap<>();
+            clientsByLatestTimestamp
+                    .tailMap(cacheKeyTimestamp, false)
+                    .values()
+                    .forEach(bucket -> bucket.forEach((client, seq) -> diff.merge(client, seq, Math::max)));
+            return digestOfLatestState(diff);
+        }));
+    }
+
+    private AcceptorCacheDigest digestOfLatestState(Map<Client, Long> updates) {
+        TimestampedAcceptorCacheKey latest = latestTimestampedAcceptorCacheKey;
+        return ImmutableAcceptorCacheDigest.builder()
+                .newCacheKey(latest.cacheKey())
+                .cacheTimestamp(latest.timestamp())
+                .updates(updates)
+                .build();
+    }
 
-            Map<Client, Long> diff =
-                    clientsByLatestTimestamp.asMap().tailMap(cacheKeyTimestamp, false).values().stream()
-                            .flatMap(Collection::stream)
-                            .collect(Collectors.toMap(WithSeq::value, WithSeq::seq));
+    /**
+     * Runs {@code read} without locking, and again under the read lock if an update happened while it was running.
+     * {@code read} must tolerate observing a partially applied update, as that result is then discarded.
+     */
+    private <T> T readConsistently(Supplier<T> read) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            T result = read.get();
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
 
-            return Optional.of(ImmutableAcceptorCacheDigest.builder()
-                    .newCacheKey(latestTimestampedAcceptorCacheKey.cacheKey())
-                    .cacheTimestamp(latestTimestampedAcceptorCacheKey.timestamp())
-                    .updates(diff)
-                    .build());
+        stamp = lock.readLock();
+        try {
+            return read.get();
         } finally {
-            lock.readLock().unlock();
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static final class SequenceAtTimestamp {
+        private final long timestamp;
+        private final long sequence;
+
+        private SequenceAtTimestamp(long timestamp, long sequence) {
+            this.timestamp = timestamp;
+            this.sequence = sequence;
         }
     }
 }
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
 import com.palantir.atlasdb.autobatch.BatchElement;
 import com.palantir.atlasdb.autobatch.DisruptorAutobatcher.DisruptorFuture;
 import com.palantir.atlasdb.timelock.paxos.PaxosQuorumCheckingCoalescingFunction.PaxosContainer;
@@ -100,16 +101,16 @@ class GetSuspectedLeaderWithUuid implements Consumer<List<BatchElement<UUID, Opt
         }
 
         PaxosResponsesWithRemote<LeaderPingerContext<BatchPingableLeader>, PaxosContainer<UUID>> results =
-                PaxosQuorumChecker.collectUntil(
+                Futures.getUnchecked(PaxosQuorumChecker.collectUntilAsync(
                         ImmutableList.copyOf(executors.keySet()),
-                        pingable -> PaxosContainer.of(pingable.pinger().uuid()),
-                        executors,
+                        PaxosQuorumChecker.submittingTo(
+                                executors, pingable -> PaxosContainer.of(pingable.pinger().uuid())),
                         leaderPingResponseWait,
                         state -> state.responses().values().stream()
                                 .map(PaxosContainer::get)
                                 .collect(toSet())
                                 .containsAll(uncachedUuids),
-                        PaxosConstants.CANCEL_REMAINING_CALLS);
+                        PaxosConstants.CANCEL_REMAINING_CALLS));
 
         for (Map.Entry<LeaderPingerContext<BatchPingableLeader>, PaxosContainer<UUID>> resultEntries :
                 results.responses().entrySet()) {
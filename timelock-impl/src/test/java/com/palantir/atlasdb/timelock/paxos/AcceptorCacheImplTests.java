@@ -22,11 +22,20 @@ import static org.assertj.core.api.Assertions.entry;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.paxos.Client;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.Test;
 
 public class AcceptorCacheImplTests {
@@ -151,6 +160,51 @@ public class AcceptorCacheImplTests {
                 .contains(diffAfterSecondUpdate);
     }
 
+    @Test
+    public void pollingWhileUpdatingConcurrentlyConvergesOnLatestState() throws Exception {
+        AcceptorCache cache = cache(ImmutableMap.of());
+        AtomicLong sequenceNumber = new AtomicLong();
+        ExecutorService executor = PTExecutors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> updaters = IntStream.range(0, 4)
+                    .mapToObj(unused -> executor.submit(() -> {
+                        for (int i = 0; i < 1_000; i++) {
+                            Client client = Client.of("client" + ThreadLocalRandom.current().nextInt(50));
+                            cache.updateSequenceNumbers(
+                                    ImmutableSet.of(WithSeq.of(client, sequenceNumber.incrementAndGet())));
+                        }
+                    }))
+                    .collect(Collectors.toList());
+
+            AcceptorCacheDigest initialDigest = cache.getAllUpdates();
+            Map<Client, Long> polledState = new HashMap<>(initialDigest.updates());
+            AcceptorCacheKey cacheKey = initialDigest.newCacheKey();
+            while (!updaters.stream().allMatch(Future::isDone)) {
+                cacheKey = pollInto(cache, cacheKey, polledState);
+            }
+            for (Future<?> updater : updaters) {
+                updater.get();
+            }
+            pollInto(cache, cacheKey, polledState);
+
+            assertThat(polledState)
+                    .as("applying every delta should give the same state as asking for everything")
+                    .isEqualTo(cache.getAllUpdates().updates());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static AcceptorCacheKey pollInto(AcceptorCache cache, AcceptorCacheKey cacheKey, Map<Client, Long> state)
+            throws InvalidAcceptorCacheKeyException {
+        Optional<AcceptorCacheDigest> digest = cache.updatesSinceCacheKey(cacheKey);
+        if (digest.isEmpty()) {
+            return cacheKey;
+        }
+        digest.get().updates().forEach((client, seq) -> state.merge(client, seq, Math::max));
+        return digest.get().newCacheKey();
+    }
+
     private static AcceptorCache cache(Map<Client, Long> latestSequencesForClients) {
         AcceptorCacheImpl acceptorCache = new AcceptorCacheImpl();
 
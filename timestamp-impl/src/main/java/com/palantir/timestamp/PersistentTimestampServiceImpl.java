@@ -19,9 +19,12 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.palantir.async.initializer.AsyncInitializer;
 import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 import javax.annotation.concurrent.ThreadSafe;
 
 @ThreadSafe
@@ -47,8 +50,11 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
 
     private static final SafeLogger log = SafeLoggerFactory.get(PersistentTimestampServiceImpl.class);
     private static final int MAX_TIMESTAMPS_PER_REQUEST = 10_000;
+    private static final ExecutorService UPPER_LIMIT_EXTENSION_EXECUTOR =
+            PTExecutors.newCachedThreadPool("PersistentUpperLimit");
 
     private ErrorCheckingTimestampBoundStore store;
+    private Supplier<Boolean> adaptiveBoundExtension;
     private PersistentTimestamp timestamp;
     private final InitializingWrapper wrapper = new InitializingWrapper();
 
@@ -65,7 +71,24 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
     }
 
     public static PersistentTimestampService create(ErrorCheckingTimestampBoundStore store, boolean initializeAsync) {
-        PersistentTimestampServiceImpl service = new PersistentTimestampServiceImpl(store);
+        return create(store, initializeAsync, () -> false);
+    }
+
+    /**
+     * Creates a timestamp service that, while {@code adaptiveBoundExtension} returns true, extends the persisted upper
+     * limit in the background before it is exhausted, and sizes the buffer of timestamps reserved by each extension
+     * from the observed allocation rate. The supplier is checked whenever the limit may need extending, so changes to
+     * it take effect without recreating the service. See {@link PersistentUpperLimit} for how far ahead of the
+     * timestamps handed out the persisted upper limit may then be.
+     */
+    public static PersistentTimestampService create(
+            TimestampBoundStore store, boolean initializeAsync, Supplier<Boolean> adaptiveBoundExtension) {
+        return create(new ErrorCheckingTimestampBoundStore(store), initializeAsync, adaptiveBoundExtension);
+    }
+
+    private static PersistentTimestampService create(
+            ErrorCheckingTimestampBoundStore store, boolean initializeAsync, Supplier<Boolean> adaptiveBoundExtension) {
+        PersistentTimestampServiceImpl service = new PersistentTimestampServiceImpl(store, adaptiveBoundExtension);
         service.wrapper.initialize(initializeAsync);
         return service.wrapper.isInitialized() ? service : service.wrapper;
     }
@@ -75,12 +98,15 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
         this.timestamp = timestamp;
     }
 
-    private PersistentTimestampServiceImpl(ErrorCheckingTimestampBoundStore store) {
+    private PersistentTimestampServiceImpl(
+            ErrorCheckingTimestampBoundStore store, Supplier<Boolean> adaptiveBoundExtension) {
         this.store = store;
+        this.adaptiveBoundExtension = adaptiveBoundExtension;
     }
 
     private void tryInitialize() {
-        PersistentUpperLimit upperLimit = new PersistentUpperLimit(store);
+        PersistentUpperLimit upperLimit =
+                new PersistentUpperLimit(store, UPPER_LIMIT_EXTENSION_EXECUTOR, adaptiveBoundExtension);
         long latestTimestamp = upperLimit.get();
         timestamp = new PersistentTimestamp(upperLimit, latestTimestamp);
     }
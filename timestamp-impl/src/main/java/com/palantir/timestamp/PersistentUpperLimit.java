@@ -16,22 +16,95 @@
 package com.palantir.timestamp;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.logger.SafeLogger;
+import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.GuardedBy;
 
+/**
+ * Tracks the persisted upper limit on timestamps that may be handed out, extending it through the
+ * {@link TimestampBoundStore} as timestamps are used.
+ * <p>
+ * By default the limit is extended synchronously, by {@link #BUFFER} past the timestamp that exhausted it. If
+ * constructed with a background executor, and while background extension is enabled, which must be opted into, the
+ * limit is also extended ahead of time once less than half of the buffer remains, so callers do not wait on the bound
+ * store in steady state. In that mode the buffer
+ * is sized so that an extension is needed roughly every {@link #TARGET_EXTENSION_INTERVAL_NANOS} at the observed
+ * allocation rate, between {@link #BUFFER} and {@link #MAX_BUFFER}, so a failover may skip up to {@link #MAX_BUFFER}
+ * timestamps. The limit only advances once the bound store has persisted it.
+ */
 public class PersistentUpperLimit {
+    private static final SafeLogger log = SafeLoggerFactory.get(PersistentUpperLimit.class);
 
     /**
+     * How far the limit is extended past the timestamps handed out, and so how many timestamps a failover may skip.
+     * Only with background extension may the buffer grow past this, up to {@link #MAX_BUFFER}.
      * Some internal atlas clients have behavior tied to this value and will need to
      * be updated if the value changes.
      */
     @VisibleForTesting
     static final long BUFFER = 1_000_000;
 
+    @VisibleForTesting
+    static final long MAX_BUFFER = 64 * BUFFER;
+
+    private static final long TARGET_EXTENSION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long MIN_RATE_SAMPLE = BUFFER / 2;
+
     private volatile long currentLimit;
+    private volatile long buffer = BUFFER;
     private final TimestampBoundStore store;
+    private final Optional<Executor> backgroundExtensionExecutor;
+    private final Supplier<Boolean> backgroundExtensionEnabled;
+    private final LongSupplier nanoClock;
+    private final AtomicBoolean backgroundExtensionPending = new AtomicBoolean(false);
+
+    @GuardedBy("this")
+    private long lastExtensionUsage;
+
+    @GuardedBy("this")
+    private long lastExtensionNanos;
 
     public PersistentUpperLimit(TimestampBoundStore boundStore) {
+        this(boundStore, Optional.empty(), () -> false, System::nanoTime);
+    }
+
+    public PersistentUpperLimit(TimestampBoundStore boundStore, Executor backgroundExtensionExecutor) {
+        this(boundStore, backgroundExtensionExecutor, () -> true);
+    }
+
+    /**
+     * Creates an upper limit that extends itself in the background whenever {@code backgroundExtensionEnabled} returns
+     * true, which is checked each time an extension may be needed. While it returns false, the buffer is
+     * {@link #BUFFER}.
+     */
+    public PersistentUpperLimit(
+            TimestampBoundStore boundStore,
+            Executor backgroundExtensionExecutor,
+            Supplier<Boolean> backgroundExtensionEnabled) {
+        this(boundStore, Optional.of(backgroundExtensionExecutor), backgroundExtensionEnabled, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    PersistentUpperLimit(
+            TimestampBoundStore boundStore,
+            Optional<Executor> backgroundExtensionExecutor,
+            Supplier<Boolean> backgroundExtensionEnabled,
+            LongSupplier nanoClock) {
         this.store = boundStore;
+        this.backgroundExtensionExecutor = backgroundExtensionExecutor;
+        this.backgroundExtensionEnabled = backgroundExtensionEnabled;
+        this.nanoClock = nanoClock;
         this.currentLimit = boundStore.getUpperLimit();
+        this.lastExtensionUsage = currentLimit;
+        this.lastExtensionNanos = nanoClock.getAsLong();
     }
 
     public long get() {
@@ -41,6 +114,8 @@ public class PersistentUpperLimit {
     public void increaseToAtLeast(long newLimit) {
         if (newLimit > currentLimit) {
             updateLimit(newLimit);
+        } else if (currentLimit - newLimit < buffer / 2 && isBackgroundExtensionEnabled()) {
+            backgroundExtensionExecutor.ifPresent(executor -> scheduleBackgroundExtension(executor, newLimit));
         }
     }
 
@@ -49,11 +124,76 @@ public class PersistentUpperLimit {
             return;
         }
 
-        long newLimitWithBuffer = Math.addExact(newLimit, BUFFER);
+        adaptBuffer(newLimit);
+        long newLimitWithBuffer = Math.addExact(newLimit, buffer);
         storeUpperLimit(newLimitWithBuffer);
         currentLimit = newLimitWithBuffer;
     }
 
+    private void scheduleBackgroundExtension(Executor executor, long usage) {
+        if (!backgroundExtensionPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    extendInBackground(usage);
+                } catch (RuntimeException e) {
+                    log.info(
+                            "Failed to extend the timestamp upper limit in the background; it will be extended when"
+                                    + " it is next exhausted",
+                            SafeArg.of("currentLimit", currentLimit),
+                            e);
+                } finally {
+                    backgroundExtensionPending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            backgroundExtensionPending.set(false);
+        }
+    }
+
+    private synchronized void extendInBackground(long usage) {
+        if (currentLimit - usage >= buffer / 2) {
+            return;
+        }
+
+        adaptBuffer(usage);
+        long newLimit = Math.addExact(currentLimit, buffer);
+        storeUpperLimit(newLimit);
+        currentLimit = newLimit;
+    }
+
+    private boolean isBackgroundExtensionEnabled() {
+        return backgroundExtensionExecutor.isPresent() && backgroundExtensionEnabled.get();
+    }
+
+    @GuardedBy("this")
+    private void adaptBuffer(long usage) {
+        if (!backgroundExtensionExecutor.isPresent()) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        if (!backgroundExtensionEnabled.get()) {
+            // Start a fresh sample once background extension is enabled again
+            buffer = BUFFER;
+            lastExtensionUsage = usage;
+            lastExtensionNanos = now;
+            return;
+        }
+        long allocated = usage - lastExtensionUsage;
+        if (allocated < MIN_RATE_SAMPLE) {
+            // Too few timestamps allocated since the last sample to estimate a rate; keep accumulating
+            return;
+        }
+        long elapsedNanos = Math.max(1, now - lastExtensionNanos);
+        double allocationsPerNano = (double) allocated / elapsedNanos;
+        long targetBuffer = (long) Math.min(MAX_BUFFER, allocationsPerNano * TARGET_EXTENSION_INTERVAL_NANOS);
+        buffer = Math.max(BUFFER, targetBuffer);
+        lastExtensionUsage = usage;
+        lastExtensionNanos = now;
+    }
+
     private void storeUpperLimit(long upperLimit) {
         DebugLogger.willStoreNewUpperLimit(upperLimit);
         store.storeUpperLimit(upperLimit);
@@ -20,10 +20,16 @@ import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -111,4 +117,79 @@ public class PersistentUpperLimitTest {
 
         assertThat(upperLimit.get()).isEqualTo(INITIAL_UPPER_LIMIT);
     }
+
+    @Test
+    public void shouldExtendTheUpperLimitInTheBackgroundOnceHalfTheBufferIsUsed() {
+        AtomicLong clock = new AtomicLong();
+        PersistentUpperLimit backgroundUpperLimit = createWithBackgroundExtension(clock);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(100));
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP + BUFFER / 4);
+        verify(boundStore, never()).storeUpperLimit(TIMESTAMP + 2 * BUFFER);
+
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP + BUFFER * 3 / 4);
+        verify(boundStore).storeUpperLimit(TIMESTAMP + 2 * BUFFER);
+        assertThat(backgroundUpperLimit.get()).isEqualTo(TIMESTAMP + 2 * BUFFER);
+    }
+
+    @Test
+    public void shouldGrowTheBufferWithTheAllocationRate() {
+        AtomicLong clock = new AtomicLong();
+        PersistentUpperLimit backgroundUpperLimit = createWithBackgroundExtension(clock);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        backgroundUpperLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT + BUFFER);
+        long expectedBuffer = 10 * BUFFER;
+        verify(boundStore).storeUpperLimit(INITIAL_UPPER_LIMIT + BUFFER + expectedBuffer);
+    }
+
+    @Test
+    public void shouldCapTheBufferAtTheMaximum() {
+        AtomicLong clock = new AtomicLong();
+        PersistentUpperLimit backgroundUpperLimit = createWithBackgroundExtension(clock);
+
+        clock.addAndGet(1);
+        backgroundUpperLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT + BUFFER);
+        verify(boundStore).storeUpperLimit(INITIAL_UPPER_LIMIT + BUFFER + PersistentUpperLimit.MAX_BUFFER);
+    }
+
+    @Test
+    public void shouldNotChangeTheCurrentUpperLimitIfBackgroundExtensionFails() {
+        PersistentUpperLimit backgroundUpperLimit = createWithBackgroundExtension(new AtomicLong());
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+        doThrow(RuntimeException.class).when(boundStore).storeUpperLimit(anyLong());
+
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP + BUFFER * 3 / 4);
+        assertThat(backgroundUpperLimit.get()).isEqualTo(TIMESTAMP + BUFFER);
+    }
+
+    @Test
+    public void shouldFollowChangesToWhetherBackgroundExtensionIsEnabled() {
+        AtomicLong clock = new AtomicLong();
+        AtomicBoolean enabled = new AtomicBoolean(false);
+        PersistentUpperLimit backgroundUpperLimit = createWithBackgroundExtension(clock, enabled);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(100));
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP + BUFFER * 3 / 4);
+        verify(boundStore, never()).storeUpperLimit(TIMESTAMP + 2 * BUFFER);
+
+        enabled.set(true);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP + BUFFER * 3 / 4);
+        verify(boundStore).storeUpperLimit(TIMESTAMP + 2 * BUFFER);
+
+        enabled.set(false);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP + 3 * BUFFER);
+        verify(boundStore).storeUpperLimit(TIMESTAMP + 4 * BUFFER);
+    }
+
+    private PersistentUpperLimit createWithBackgroundExtension(AtomicLong clock) {
+        return createWithBackgroundExtension(clock, new AtomicBoolean(true));
+    }
+
+    private PersistentUpperLimit createWithBackgroundExtension(AtomicLong clock, AtomicBoolean enabled) {
+        return new PersistentUpperLimit(
+                boundStore, Optional.of(MoreExecutors.directExecutor()), enabled::get, clock::get);
+    }
 }